@@ -0,0 +1,60 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.opentelemetry.profiler;
+
+import com.splunk.opentelemetry.profiler.contention.exporter.ContentionEventExporter;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Processes events of threads that were blocked on a monitor, waited on a monitor or were parked.
+ * JFR only records these events when the thread was blocked for longer than the configured
+ * threshold.
+ */
+public class ContentionProcessor extends StackEventProcessor {
+  public static final String MONITOR_ENTER_EVENT_NAME = "jdk.JavaMonitorEnter";
+  public static final String MONITOR_WAIT_EVENT_NAME = "jdk.JavaMonitorWait";
+  public static final String THREAD_PARK_EVENT_NAME = "jdk.ThreadPark";
+  static final List<String> EVENT_NAMES =
+      Collections.unmodifiableList(
+          Arrays.asList(MONITOR_ENTER_EVENT_NAME, MONITOR_WAIT_EVENT_NAME, THREAD_PARK_EVENT_NAME));
+
+  private ContentionProcessor(Builder builder) {
+    super(builder);
+  }
+
+  static Builder builder(ProfilerConfiguration config) {
+    return new Builder(config.getContentionEnabled());
+  }
+
+  static class Builder extends StackEventProcessor.Builder<ContentionProcessor, Builder> {
+
+    public Builder(boolean enabled) {
+      super(enabled);
+    }
+
+    @Override
+    ContentionProcessor build() {
+      return new ContentionProcessor(this);
+    }
+
+    Builder contentionEventExporter(ContentionEventExporter contentionEventExporter) {
+      return eventExporter(contentionEventExporter);
+    }
+  }
+}
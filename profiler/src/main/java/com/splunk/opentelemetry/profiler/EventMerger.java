@@ -0,0 +1,264 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.opentelemetry.profiler;
+
+import com.google.common.annotations.VisibleForTesting;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.ObjLongConsumer;
+import org.openjdk.jmc.common.item.IItem;
+
+/**
+ * Buffers events and replays them in start time order. Events are usually stored in time order in a
+ * JFR chunk, so buffered events are kept in runs that are already sorted and the runs are combined
+ * with a k-way merge. Each event is appended to the run with the latest last event that is not
+ * newer than it, so interleaved streams of sorted events end up in a few runs, and only an event
+ * that is older than the last event of every run starts a new run. Runs are kept ordered by their
+ * last start time so the run is found with a binary search. Once there are too many runs the
+ * remaining events are collected unsorted and sorted by start time when drained. Events with equal
+ * start times are replayed in the order they were added. Runs are reused between calls, instances
+ * are not thread safe.
+ */
+final class EventMerger {
+  private static final int MAX_RUNS = 64;
+
+  private final List<Run> runs = new ArrayList<>();
+  private int runCount;
+  private int eventCount;
+  private Run[] heap = new Run[0];
+  // sorted runs in the order of their last start time
+  private final Run[] runsByLastStartTime = new Run[MAX_RUNS];
+  private int sortedRunCount;
+  // collects events out of order once there are MAX_RUNS sorted runs
+  private Run unsortedRun;
+
+  void add(IItem event, long startTime) {
+    findRun(startTime).add(event, startTime, eventCount++);
+  }
+
+  int size() {
+    return eventCount;
+  }
+
+  @VisibleForTesting
+  int runCount() {
+    return runCount;
+  }
+
+  private Run findRun(long startTime) {
+    // find the last run whose last event is not newer than this event, appending to it keeps the
+    // runs ordered by their last start time
+    int low = 0;
+    int high = sortedRunCount - 1;
+    while (low <= high) {
+      int middle = (low + high) >>> 1;
+      if (runsByLastStartTime[middle].lastStartTime() <= startTime) {
+        low = middle + 1;
+      } else {
+        high = middle - 1;
+      }
+    }
+    if (high >= 0) {
+      return runsByLastStartTime[high];
+    }
+    if (sortedRunCount == MAX_RUNS) {
+      if (unsortedRun == null) {
+        unsortedRun = nextRun();
+      }
+      return unsortedRun;
+    }
+    // older than all runs, the new run goes first
+    System.arraycopy(runsByLastStartTime, 0, runsByLastStartTime, 1, sortedRunCount);
+    runsByLastStartTime[0] = nextRun();
+    sortedRunCount++;
+    return runsByLastStartTime[0];
+  }
+
+  /**
+   * Passes all buffered events with their start times to the consumer in start time order and
+   * clears the buffer.
+   */
+  void drain(ObjLongConsumer<IItem> consumer) {
+    try {
+      if (unsortedRun != null) {
+        unsortedRun.sort();
+      }
+      if (runCount == 1) {
+        Run run = runs.get(0);
+        for (int i = 0; i < run.size; i++) {
+          consumer.accept(run.events[i], run.startTimes[i]);
+        }
+      } else if (runCount > 1) {
+        merge(consumer);
+      }
+    } finally {
+      clear();
+    }
+  }
+
+  private void merge(ObjLongConsumer<IItem> consumer) {
+    if (heap.length < runCount) {
+      heap = new Run[runCount];
+    }
+    for (int i = 0; i < runCount; i++) {
+      heap[i] = runs.get(i);
+    }
+    int heapSize = runCount;
+    for (int i = heapSize / 2 - 1; i >= 0; i--) {
+      siftDown(heap, i, heapSize);
+    }
+    while (heapSize > 0) {
+      Run run = heap[0];
+      consumer.accept(run.events[run.position], run.startTimes[run.position]);
+      run.position++;
+      if (run.position == run.size) {
+        heap[0] = heap[--heapSize];
+        heap[heapSize] = null;
+      }
+      siftDown(heap, 0, heapSize);
+    }
+  }
+
+  private static void siftDown(Run[] heap, int index, int heapSize) {
+    Run run = heap[index];
+    while (true) {
+      int child = 2 * index + 1;
+      if (child >= heapSize) {
+        break;
+      }
+      if (child + 1 < heapSize && heap[child + 1].headBefore(heap[child])) {
+        child++;
+      }
+      if (!heap[child].headBefore(run)) {
+        break;
+      }
+      heap[index] = heap[child];
+      index = child;
+    }
+    heap[index] = run;
+  }
+
+  private Run nextRun() {
+    if (runCount == runs.size()) {
+      runs.add(new Run());
+    }
+    return runs.get(runCount++);
+  }
+
+  private void clear() {
+    for (int i = 0; i < runCount; i++) {
+      runs.get(i).clear();
+    }
+    Arrays.fill(runsByLastStartTime, 0, sortedRunCount, null);
+    sortedRunCount = 0;
+    runCount = 0;
+    eventCount = 0;
+    unsortedRun = null;
+  }
+
+  private static class Run {
+    // bits of a sort key that hold the index of the event, the rest hold the start time offset
+    private static final int INDEX_BITS = 24;
+
+    IItem[] events = new IItem[16];
+    long[] startTimes = new long[16];
+    // order in which the events were added, used to keep merging stable
+    int[] sequence = new int[16];
+    int size;
+    int position;
+
+    void add(IItem event, long startTime, int sequenceNumber) {
+      if (size == events.length) {
+        int capacity = 2 * size;
+        events = Arrays.copyOf(events, capacity);
+        startTimes = Arrays.copyOf(startTimes, capacity);
+        sequence = Arrays.copyOf(sequence, capacity);
+      }
+      events[size] = event;
+      startTimes[size] = startTime;
+      sequence[size] = sequenceNumber;
+      size++;
+    }
+
+    long lastStartTime() {
+      return startTimes[size - 1];
+    }
+
+    boolean headBefore(Run other) {
+      long startTime = startTimes[position];
+      long otherStartTime = other.startTimes[other.position];
+      if (startTime != otherStartTime) {
+        return startTime < otherStartTime;
+      }
+      return sequence[position] < other.sequence[other.position];
+    }
+
+    /** Sorts the events by start time, keeping the order of events with equal start times. */
+    void sort() {
+      long minStartTime = Long.MAX_VALUE;
+      long maxStartTime = Long.MIN_VALUE;
+      for (int i = 0; i < size; i++) {
+        minStartTime = Math.min(minStartTime, startTimes[i]);
+        maxStartTime = Math.max(maxStartTime, startTimes[i]);
+      }
+      int[] order = new int[size];
+      if (size <= 1 << INDEX_BITS
+          && maxStartTime - minStartTime >= 0
+          && maxStartTime - minStartTime < 1L << (63 - INDEX_BITS)) {
+        // pack the start time offset and the index in one key so that a primitive sort is enough
+        long[] keys = new long[size];
+        for (int i = 0; i < size; i++) {
+          keys[i] = (startTimes[i] - minStartTime) << INDEX_BITS | i;
+        }
+        Arrays.sort(keys);
+        for (int i = 0; i < size; i++) {
+          order[i] = (int) (keys[i] & ((1 << INDEX_BITS) - 1));
+        }
+      } else {
+        Integer[] indexes = new Integer[size];
+        for (int i = 0; i < size; i++) {
+          indexes[i] = i;
+        }
+        // stable sort, events with equal start times stay in the order they were added
+        Arrays.sort(indexes, Comparator.comparingLong(i -> startTimes[i]));
+        for (int i = 0; i < size; i++) {
+          order[i] = indexes[i];
+        }
+      }
+      IItem[] sortedEvents = new IItem[events.length];
+      long[] sortedStartTimes = new long[startTimes.length];
+      int[] sortedSequence = new int[sequence.length];
+      for (int i = 0; i < size; i++) {
+        sortedEvents[i] = events[order[i]];
+        sortedStartTimes[i] = startTimes[order[i]];
+        sortedSequence[i] = sequence[order[i]];
+      }
+      events = sortedEvents;
+      startTimes = sortedStartTimes;
+      sequence = sortedSequence;
+    }
+
+    void clear() {
+      // don't retain the events until the next chunk
+      Arrays.fill(events, 0, size, null);
+      size = 0;
+      position = 0;
+    }
+  }
+}
@@ -20,6 +20,7 @@ import static java.util.logging.Level.FINE;
 
 import com.splunk.opentelemetry.profiler.allocation.sampler.AllocationEventSampler;
 import com.splunk.opentelemetry.profiler.allocation.sampler.RateLimitingAllocationEventSampler;
+import com.splunk.opentelemetry.profiler.allocation.sampler.WeightedAllocationEventSampler;
 import com.splunk.opentelemetry.profiler.context.SpanContextualizer;
 import com.splunk.opentelemetry.profiler.events.ContextAttached;
 import java.time.Instant;
@@ -30,6 +31,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
+import javax.annotation.Nullable;
 import org.openjdk.jmc.common.item.IItem;
 
 class EventProcessingChain {
@@ -39,25 +41,83 @@ class EventProcessingChain {
   private final EventReader eventReader;
   private final SpanContextualizer spanContextualizer;
   private final ThreadDumpProcessor threadDumpProcessor;
+  // stacks sampled outside of jfr, exported by the thread dump processor
+  @Nullable private final ThreadStackSampler threadStackSampler;
   private final TLABProcessor tlabProcessor;
-  private final List<IItem> buffer = new ArrayList<>();
+  @Nullable private final ExecutionSampleProcessor executionSampleProcessor;
+  @Nullable private final ContentionProcessor contentionProcessor;
+  @Nullable private final IoProcessor ioProcessor;
+  @Nullable private final LeakProcessor leakProcessor;
+  private final ProfilerMetrics metrics;
+  private final EventMerger buffer = new EventMerger();
   private final EventStats eventStats =
       logger.isLoggable(FINE) ? new EventStatsImpl() : new NoOpEventStats();
+  // time bounds of buffered events, count and size of tlab events, used to update the allocation
+  // sampler
+  private long firstEventTime = Long.MAX_VALUE;
+  private long lastEventTime = Long.MIN_VALUE;
+  private long tlabEventCount;
+  private long tlabEventBytes;
+  // event counts and thread dump processing time since the previous export, reported as metrics
+  private final Map<String, long[]> eventCounts = new HashMap<>();
+  private long threadDumpNanos;
 
   EventProcessingChain(
       EventReader eventReader,
       SpanContextualizer spanContextualizer,
       ThreadDumpProcessor threadDumpProcessor,
       TLABProcessor tlabProcessor) {
+    this(
+        eventReader,
+        spanContextualizer,
+        threadDumpProcessor,
+        tlabProcessor,
+        null,
+        null,
+        null,
+        null,
+        null,
+        ProfilerMetrics.get());
+  }
+
+  EventProcessingChain(
+      EventReader eventReader,
+      SpanContextualizer spanContextualizer,
+      ThreadDumpProcessor threadDumpProcessor,
+      TLABProcessor tlabProcessor,
+      @Nullable ExecutionSampleProcessor executionSampleProcessor,
+      @Nullable ContentionProcessor contentionProcessor,
+      @Nullable IoProcessor ioProcessor,
+      @Nullable LeakProcessor leakProcessor,
+      @Nullable ThreadStackSampler threadStackSampler,
+      ProfilerMetrics metrics) {
     this.eventReader = eventReader;
     this.spanContextualizer = spanContextualizer;
     this.threadDumpProcessor = threadDumpProcessor;
     this.tlabProcessor = tlabProcessor;
+    this.executionSampleProcessor = executionSampleProcessor;
+    this.contentionProcessor = contentionProcessor;
+    this.ioProcessor = ioProcessor;
+    this.leakProcessor = leakProcessor;
+    this.threadStackSampler = threadStackSampler;
+    this.metrics = metrics;
   }
 
   void accept(IItem event) {
     eventStats.incEventCount();
-    buffer.add(event);
+    eventCounts.computeIfAbsent(event.getType().getIdentifier(), k -> new long[1])[0]++;
+    long startTime = eventReader.getStartTime(event);
+    // start time of old object samples is the allocation time, which can be long before the
+    // other events
+    if (!LeakProcessor.EVENT_NAME.equals(event.getType().getIdentifier())) {
+      firstEventTime = Math.min(firstEventTime, startTime);
+      lastEventTime = Math.max(lastEventTime, startTime);
+    }
+    if (isTlabEvent(event)) {
+      tlabEventCount++;
+      tlabEventBytes += eventReader.getAllocationSize(event);
+    }
+    buffer.add(event, startTime);
   }
 
   /**
@@ -65,13 +125,58 @@ class EventProcessingChain {
    * exported.
    */
   public void flush() {
-    buffer.sort(Comparator.comparingLong(eventReader::getStartTime));
+    dispatchBufferedEvents();
+    export();
+  }
+
+  /**
+   * Dispatches buffered events to the processors without exporting the data they have accumulated.
+   * Used when events are consumed incrementally and exporting is driven by a timer.
+   */
+  void dispatchBufferedEvents() {
+    // events recorded before the dispatch started have been buffered, samples taken after it stay
+    // queued until the events that follow them are dispatched
+    long dispatchTime = TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis());
+    if (leakProcessor != null) {
+      leakProcessor.setLinkableSince(firstEventTime);
+    }
     updateAllocationSampler();
 
-    buffer.forEach(this::dispatchEvent);
-    buffer.clear();
+    buffer.drain(this::dispatchEvent);
+    exportSampledStacks(dispatchTime);
+    eventReader.clearAccessorCache();
+  }
+
+  /** Exports the data the processors have accumulated since the previous export. */
+  void export() {
     tlabProcessor.flush();
+    long threadDumpFlushStart = System.nanoTime();
     threadDumpProcessor.flush();
+    threadDumpNanos += System.nanoTime() - threadDumpFlushStart;
+    if (executionSampleProcessor != null) {
+      executionSampleProcessor.flush();
+    }
+    if (contentionProcessor != null) {
+      contentionProcessor.flush();
+    }
+    if (ioProcessor != null) {
+      ioProcessor.flush();
+    }
+    if (leakProcessor != null) {
+      leakProcessor.flush();
+    }
+    recordMetrics();
+  }
+
+  private void recordMetrics() {
+    for (Map.Entry<String, long[]> entry : eventCounts.entrySet()) {
+      if (entry.getValue()[0] > 0) {
+        metrics.recordEvents(entry.getKey(), entry.getValue()[0]);
+        entry.getValue()[0] = 0;
+      }
+    }
+    metrics.recordThreadDumpProcessing(threadDumpNanos);
+    threadDumpNanos = 0;
   }
 
   private static boolean isTlabEvent(IItem event) {
@@ -81,23 +186,46 @@ class EventProcessingChain {
   }
 
   private void updateAllocationSampler() {
-    AllocationEventSampler allocationEventSampler = tlabProcessor.getAllocationEventSampler();
-    if (!(allocationEventSampler instanceof RateLimitingAllocationEventSampler)) {
-      return;
+    try {
+      AllocationEventSampler allocationEventSampler = tlabProcessor.getAllocationEventSampler();
+      if (tlabEventCount == 0) {
+        return;
+      }
+      Instant firstEvent = Instant.ofEpochSecond(0, firstEventTime);
+      Instant lastEvent = Instant.ofEpochSecond(0, lastEventTime);
+
+      if (allocationEventSampler instanceof RateLimitingAllocationEventSampler) {
+        RateLimitingAllocationEventSampler sampler =
+            (RateLimitingAllocationEventSampler) allocationEventSampler;
+        sampler.updateSampler(tlabEventCount, firstEvent, lastEvent);
+      } else if (allocationEventSampler instanceof WeightedAllocationEventSampler) {
+        WeightedAllocationEventSampler sampler =
+            (WeightedAllocationEventSampler) allocationEventSampler;
+        sampler.updateSampler(tlabEventCount, tlabEventBytes, firstEvent, lastEvent);
+      }
+    } finally {
+      tlabEventCount = 0;
+      tlabEventBytes = 0;
+      firstEventTime = Long.MAX_VALUE;
+      lastEventTime = Long.MIN_VALUE;
     }
-    RateLimitingAllocationEventSampler sampler =
-        (RateLimitingAllocationEventSampler) allocationEventSampler;
-
-    long tlabEventCount = buffer.stream().filter(EventProcessingChain::isTlabEvent).count();
-    if (tlabEventCount > 0) {
-      Instant firsEvent = eventReader.getStartInstant(buffer.get(0));
-      Instant lastEvent = eventReader.getStartInstant(buffer.get(buffer.size() - 1));
+  }
 
-      sampler.updateSampler(tlabEventCount, firsEvent, lastEvent);
+  /**
+   * Exports the stacks sampled at or before the given time, so that they are linked to spans before
+   * the events recorded after them update the span context.
+   */
+  private void exportSampledStacks(long untilTime) {
+    if (threadStackSampler == null || !threadStackSampler.hasSamples(untilTime)) {
+      return;
     }
+    long start = System.nanoTime();
+    threadDumpProcessor.exportSampledStacks(untilTime);
+    threadDumpNanos += System.nanoTime() - start;
   }
 
-  private void dispatchEvent(IItem event) {
+  private void dispatchEvent(IItem event, long startTime) {
+    exportSampledStacks(startTime);
     String eventName = event.getType().getIdentifier();
     switch (eventName) {
       case ContextAttached.EVENT_NAME:
@@ -107,7 +235,9 @@ class EventProcessingChain {
         break;
       case ThreadDumpProcessor.EVENT_NAME:
         try (EventTimer eventTimer = eventStats.time(eventName)) {
+          long start = System.nanoTime();
           threadDumpProcessor.accept(event);
+          threadDumpNanos += System.nanoTime() - start;
         }
         break;
       case TLABProcessor.NEW_TLAB_EVENT_NAME:
@@ -117,6 +247,40 @@ class EventProcessingChain {
           tlabProcessor.accept(event);
         }
         break;
+      case ExecutionSampleProcessor.EXECUTION_SAMPLE_EVENT_NAME:
+      case ExecutionSampleProcessor.NATIVE_METHOD_SAMPLE_EVENT_NAME:
+        if (executionSampleProcessor != null) {
+          try (EventTimer eventTimer = eventStats.time(eventName)) {
+            executionSampleProcessor.accept(event);
+          }
+        }
+        break;
+      case ContentionProcessor.MONITOR_ENTER_EVENT_NAME:
+      case ContentionProcessor.MONITOR_WAIT_EVENT_NAME:
+      case ContentionProcessor.THREAD_PARK_EVENT_NAME:
+        if (contentionProcessor != null) {
+          try (EventTimer eventTimer = eventStats.time(eventName)) {
+            contentionProcessor.accept(event);
+          }
+        }
+        break;
+      case IoProcessor.SOCKET_READ_EVENT_NAME:
+      case IoProcessor.SOCKET_WRITE_EVENT_NAME:
+      case IoProcessor.FILE_READ_EVENT_NAME:
+      case IoProcessor.FILE_WRITE_EVENT_NAME:
+        if (ioProcessor != null) {
+          try (EventTimer eventTimer = eventStats.time(eventName)) {
+            ioProcessor.accept(event);
+          }
+        }
+        break;
+      case LeakProcessor.EVENT_NAME:
+        if (leakProcessor != null) {
+          try (EventTimer eventTimer = eventStats.time(eventName)) {
+            leakProcessor.accept(event);
+          }
+        }
+        break;
     }
   }
 
@@ -17,13 +17,24 @@
 package com.splunk.opentelemetry.profiler;
 
 import static org.openjdk.jmc.common.item.Attribute.attr;
+import static org.openjdk.jmc.common.unit.UnitLookup.CLASS;
+import static org.openjdk.jmc.common.unit.UnitLookup.MEMORY;
+import static org.openjdk.jmc.common.unit.UnitLookup.NANOSECOND;
 import static org.openjdk.jmc.common.unit.UnitLookup.NUMBER;
+import static org.openjdk.jmc.common.unit.UnitLookup.OLD_OBJECT;
 import static org.openjdk.jmc.common.unit.UnitLookup.PLAIN_TEXT;
+import static org.openjdk.jmc.common.unit.UnitLookup.THREAD;
 import static org.openjdk.jmc.flightrecorder.jdk.JdkAttributes.THREAD_DUMP_RESULT;
 
+import com.splunk.opentelemetry.profiler.events.ProfilerEvent;
 import java.time.Instant;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import org.openjdk.jmc.common.IMCOldObject;
 import org.openjdk.jmc.common.IMCStackTrace;
 import org.openjdk.jmc.common.IMCThread;
+import org.openjdk.jmc.common.IMCType;
+import org.openjdk.jmc.common.item.IAccessorKey;
 import org.openjdk.jmc.common.item.IAttribute;
 import org.openjdk.jmc.common.item.IItem;
 import org.openjdk.jmc.common.item.IMemberAccessor;
@@ -32,73 +43,303 @@ import org.openjdk.jmc.common.unit.IQuantity;
 import org.openjdk.jmc.flightrecorder.JfrAttributes;
 import org.openjdk.jmc.flightrecorder.jdk.JdkAttributes;
 
+/**
+ * Reads event attributes. Member accessors are cached per event type, instances are not thread
+ * safe.
+ */
 public class EventReader {
   private static final IAttribute<String> EVENT_TRACE_ID = attr("traceId", "trace id", PLAIN_TEXT);
   private static final IAttribute<String> EVENT_SPAN_ID = attr("spanId", "span id", PLAIN_TEXT);
   private static final IAttribute<IQuantity> EVENT_TRACE_FLAGS =
       attr("traceFlags", "trace flags", NUMBER);
+  private static final IAttribute<IMCThread> SAMPLED_THREAD =
+      attr("sampledThread", "sampled thread", THREAD);
+  private static final IAttribute<IMCType> MONITOR_CLASS =
+      attr("monitorClass", "monitor class", CLASS);
+  private static final IAttribute<IMCType> PARKED_CLASS =
+      attr("parkedClass", "parked class", CLASS);
+  private static final IAttribute<IQuantity> BYTES_READ = attr("bytesRead", "bytes read", MEMORY);
+  private static final IAttribute<IQuantity> BYTES_WRITTEN =
+      attr("bytesWritten", "bytes written", MEMORY);
+  private static final IAttribute<String> HOST = attr("host", "host", PLAIN_TEXT);
+  private static final IAttribute<String> ADDRESS = attr("address", "address", PLAIN_TEXT);
+  private static final IAttribute<IQuantity> PORT = attr("port", "port", NUMBER);
+  private static final IAttribute<String> PATH = attr("path", "path", PLAIN_TEXT);
+  private static final IAttribute<IMCType> OBJECT_CLASS =
+      attr("objectClass", "object class", CLASS);
+  private static final IAttribute<IMCOldObject> OBJECT = attr("object", "object", OLD_OBJECT);
+
+  private static final int START_TIME_ACCESSOR = 0;
+  private static final int THREAD_DUMP_ACCESSOR = 1;
+  private static final int THREAD_ACCESSOR = 2;
+  private static final int STACK_TRACE_ACCESSOR = 3;
+  private static final int TRACE_ID_ACCESSOR = 4;
+  private static final int SPAN_ID_ACCESSOR = 5;
+  private static final int TRACE_FLAGS_ACCESSOR = 6;
+  private static final int ALLOCATION_SIZE_ACCESSOR = 7;
+  private static final int SAMPLE_WEIGHT_ACCESSOR = 8;
+  private static final int SAMPLED_THREAD_ACCESSOR = 9;
+  private static final int DURATION_ACCESSOR = 10;
+  private static final int MONITOR_CLASS_ACCESSOR = 11;
+  private static final int PARKED_CLASS_ACCESSOR = 12;
+  private static final int BYTES_READ_ACCESSOR = 13;
+  private static final int BYTES_WRITTEN_ACCESSOR = 14;
+  private static final int HOST_ACCESSOR = 15;
+  private static final int ADDRESS_ACCESSOR = 16;
+  private static final int PORT_ACCESSOR = 17;
+  private static final int PATH_ACCESSOR = 18;
+  private static final int OBJECT_CLASS_ACCESSOR = 19;
+  private static final int OBJECT_ACCESSOR = 20;
+  private static final int ACCESSOR_COUNT = 21;
+
+  // accessors resolved for the event types of the chunk that is being processed
+  private final Map<IType<IItem>, Accessors> accessorCache = new IdentityHashMap<>();
+  private IType<IItem> lastType;
+  private Accessors lastAccessors;
 
   public Instant getStartInstant(IItem event) {
     return Instant.ofEpochSecond(0, getStartTime(event));
   }
 
   public long getStartTime(IItem event) {
+    if (event instanceof ProfilerEvent) {
+      return ((ProfilerEvent) event).getStartTime();
+    }
     IMemberAccessor<IQuantity, IItem> accessor =
-        getItemType(event).getAccessor(JfrAttributes.START_TIME.getKey());
+        getAccessors(event).get(START_TIME_ACCESSOR, JfrAttributes.START_TIME.getKey());
     return accessor.getMember(event).longValue();
   }
 
   public String getThreadDumpResult(IItem event) {
+    if (event instanceof ProfilerEvent) {
+      return ((ProfilerEvent) event).getThreadDumpResult();
+    }
     IMemberAccessor<String, IItem> accessor =
-        getItemType(event).getAccessor(THREAD_DUMP_RESULT.getKey());
-
+        getAccessors(event).get(THREAD_DUMP_ACCESSOR, THREAD_DUMP_RESULT.getKey());
     return accessor.getMember(event);
   }
 
   public IMCThread getThread(IItem event) {
+    if (event instanceof ProfilerEvent) {
+      return ((ProfilerEvent) event).getThread();
+    }
+    Accessors accessors = getAccessors(event);
     IMemberAccessor<IMCThread, IItem> accessor =
-        getItemType(event).getAccessor(JfrAttributes.EVENT_THREAD.getKey());
-    return accessor.getMember(event);
+        accessors.get(THREAD_ACCESSOR, JfrAttributes.EVENT_THREAD.getKey());
+    if (accessor == null) {
+      // execution sample events have the sampled thread instead of the event thread
+      accessor = accessors.get(SAMPLED_THREAD_ACCESSOR, SAMPLED_THREAD.getKey());
+    }
+    return accessor != null ? accessor.getMember(event) : null;
   }
 
   public IMCStackTrace getStackTrace(IItem event) {
+    if (event instanceof ProfilerEvent) {
+      return ((ProfilerEvent) event).getStackTrace();
+    }
     IMemberAccessor<IMCStackTrace, IItem> accessor =
-        getItemType(event).getAccessor(JfrAttributes.EVENT_STACKTRACE.getKey());
+        getAccessors(event).get(STACK_TRACE_ACCESSOR, JfrAttributes.EVENT_STACKTRACE.getKey());
     return accessor.getMember(event);
   }
 
   public String getTraceId(IItem event) {
+    if (event instanceof ProfilerEvent) {
+      return ((ProfilerEvent) event).getTraceId();
+    }
     IMemberAccessor<String, IItem> accessor =
-        getItemType(event).getAccessor(EVENT_TRACE_ID.getKey());
+        getAccessors(event).get(TRACE_ID_ACCESSOR, EVENT_TRACE_ID.getKey());
     return accessor.getMember(event);
   }
 
   public String getSpanId(IItem event) {
+    if (event instanceof ProfilerEvent) {
+      return ((ProfilerEvent) event).getSpanId();
+    }
     IMemberAccessor<String, IItem> accessor =
-        getItemType(event).getAccessor(EVENT_SPAN_ID.getKey());
+        getAccessors(event).get(SPAN_ID_ACCESSOR, EVENT_SPAN_ID.getKey());
     return accessor.getMember(event);
   }
 
   public byte getTraceFlags(IItem event) {
+    if (event instanceof ProfilerEvent) {
+      return ((ProfilerEvent) event).getTraceFlags();
+    }
     IMemberAccessor<IQuantity, IItem> accessor =
-        getItemType(event).getAccessor(EVENT_TRACE_FLAGS.getKey());
+        getAccessors(event).get(TRACE_FLAGS_ACCESSOR, EVENT_TRACE_FLAGS.getKey());
     return accessor.getMember(event).numberValue().byteValue();
   }
 
   public long getAllocationSize(IItem event) {
+    if (event instanceof ProfilerEvent) {
+      return ((ProfilerEvent) event).getAllocationSize();
+    }
     IMemberAccessor<IQuantity, IItem> accessor =
-        getItemType(event).getAccessor(JdkAttributes.ALLOCATION_SIZE.getKey());
+        getAccessors(event).get(ALLOCATION_SIZE_ACCESSOR, JdkAttributes.ALLOCATION_SIZE.getKey());
     return accessor.getMember(event).longValue();
   }
 
   public long getSampleWeight(IItem event) {
+    if (event instanceof ProfilerEvent) {
+      return ((ProfilerEvent) event).getSampleWeight();
+    }
     IMemberAccessor<IQuantity, IItem> accessor =
-        getItemType(event).getAccessor(JdkAttributes.SAMPLE_WEIGHT.getKey());
+        getAccessors(event).get(SAMPLE_WEIGHT_ACCESSOR, JdkAttributes.SAMPLE_WEIGHT.getKey());
     return accessor.getMember(event).longValue();
   }
 
+  /** Returns the event duration in nanoseconds. */
+  public long getDuration(IItem event) {
+    if (event instanceof ProfilerEvent) {
+      return ((ProfilerEvent) event).getDuration();
+    }
+    IMemberAccessor<IQuantity, IItem> accessor =
+        getAccessors(event).get(DURATION_ACCESSOR, JfrAttributes.DURATION.getKey());
+    return accessor != null ? accessor.getMember(event).clampedLongValueIn(NANOSECOND) : 0;
+  }
+
+  /**
+   * Returns the class name of the monitor a thread was blocked on, or for jdk.ThreadPark events the
+   * class of the object the thread was parked on.
+   */
+  public String getMonitorClass(IItem event) {
+    if (event instanceof ProfilerEvent) {
+      return ((ProfilerEvent) event).getMonitorClass();
+    }
+    Accessors accessors = getAccessors(event);
+    IMemberAccessor<IMCType, IItem> accessor =
+        accessors.get(MONITOR_CLASS_ACCESSOR, MONITOR_CLASS.getKey());
+    if (accessor == null) {
+      accessor = accessors.get(PARKED_CLASS_ACCESSOR, PARKED_CLASS.getKey());
+    }
+    IMCType type = accessor != null ? accessor.getMember(event) : null;
+    return type != null ? type.getFullName() : null;
+  }
+
+  /**
+   * Returns the class name of the object allocated by an allocation event, or of the sampled object
+   * of jdk.OldObjectSample events.
+   */
+  public String getObjectClass(IItem event) {
+    if (event instanceof ProfilerEvent) {
+      return ((ProfilerEvent) event).getObjectClass();
+    }
+    Accessors accessors = getAccessors(event);
+    IMCType type = getMember(accessors.get(OBJECT_CLASS_ACCESSOR, OBJECT_CLASS.getKey()), event);
+    if (type == null) {
+      IMCOldObject object = getMember(accessors.get(OBJECT_ACCESSOR, OBJECT.getKey()), event);
+      type = object != null ? object.getType() : null;
+    }
+    return type != null ? type.getFullName() : null;
+  }
+
+  /** Returns the number of bytes read or written by a socket or file I/O event. */
+  public long getBytes(IItem event) {
+    if (event instanceof ProfilerEvent) {
+      return ((ProfilerEvent) event).getBytes();
+    }
+    Accessors accessors = getAccessors(event);
+    IMemberAccessor<IQuantity, IItem> accessor =
+        accessors.get(BYTES_READ_ACCESSOR, BYTES_READ.getKey());
+    if (accessor == null) {
+      accessor = accessors.get(BYTES_WRITTEN_ACCESSOR, BYTES_WRITTEN.getKey());
+    }
+    IQuantity bytes = accessor != null ? accessor.getMember(event) : null;
+    return bytes != null ? bytes.longValue() : 0;
+  }
+
+  /**
+   * Returns the target of a socket or file I/O event, host and port for socket events and the file
+   * path for file events.
+   */
+  public String getIoTarget(IItem event) {
+    String path;
+    String host;
+    String address;
+    long port;
+    if (event instanceof ProfilerEvent) {
+      ProfilerEvent profilerEvent = (ProfilerEvent) event;
+      path = profilerEvent.getPath();
+      host = profilerEvent.getHost();
+      address = profilerEvent.getAddress();
+      port = profilerEvent.getPort();
+    } else {
+      Accessors accessors = getAccessors(event);
+      path = getMember(accessors.get(PATH_ACCESSOR, PATH.getKey()), event);
+      host = getMember(accessors.get(HOST_ACCESSOR, HOST.getKey()), event);
+      address = getMember(accessors.get(ADDRESS_ACCESSOR, ADDRESS.getKey()), event);
+      IQuantity portQuantity = getMember(accessors.get(PORT_ACCESSOR, PORT.getKey()), event);
+      port = portQuantity != null ? portQuantity.longValue() : 0;
+    }
+    if (path != null) {
+      return path;
+    }
+    // host is empty when the address was not resolved
+    String remote = host != null && !host.isEmpty() ? host : address;
+    if (remote == null) {
+      return null;
+    }
+    return port > 0 ? remote + ":" + port : remote;
+  }
+
+  private static <M> M getMember(IMemberAccessor<M, IItem> accessor, IItem event) {
+    return accessor != null ? accessor.getMember(event) : null;
+  }
+
+  /**
+   * Forgets the accessors resolved for the event types seen so far. Called after each chunk so that
+   * the event types of processed chunks are not retained.
+   */
+  public void clearAccessorCache() {
+    accessorCache.clear();
+    lastType = null;
+    lastAccessors = null;
+  }
+
+  private Accessors getAccessors(IItem event) {
+    IType<IItem> type = getItemType(event);
+    if (type == lastType) {
+      return lastAccessors;
+    }
+    Accessors accessors = accessorCache.get(type);
+    if (accessors == null) {
+      accessors = new Accessors(type);
+      accessorCache.put(type, accessors);
+    }
+    lastType = type;
+    lastAccessors = accessors;
+    return accessors;
+  }
+
   @SuppressWarnings("unchecked")
   private static IType<IItem> getItemType(IItem item) {
     return (IType<IItem>) item.getType();
   }
+
+  /** Member accessors of one event type, each accessor is looked up on first use. */
+  private static class Accessors {
+    // marks accessors that the event type doesn't have
+    private static final IMemberAccessor<Object, IItem> MISSING = item -> null;
+
+    private final IType<IItem> type;
+    private final IMemberAccessor<?, IItem>[] accessors;
+
+    @SuppressWarnings("unchecked")
+    Accessors(IType<IItem> type) {
+      this.type = type;
+      this.accessors = new IMemberAccessor[ACCESSOR_COUNT];
+    }
+
+    @SuppressWarnings("unchecked")
+    <M> IMemberAccessor<M, IItem> get(int index, IAccessorKey<M> key) {
+      IMemberAccessor<?, IItem> accessor = accessors[index];
+      if (accessor == null) {
+        accessor = type.getAccessor(key);
+        if (accessor == null) {
+          accessor = MISSING;
+        }
+        accessors[index] = accessor;
+      }
+      return accessor != MISSING ? (IMemberAccessor<M, IItem>) accessor : null;
+    }
+  }
 }
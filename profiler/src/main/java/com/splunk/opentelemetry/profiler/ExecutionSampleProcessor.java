@@ -0,0 +1,117 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.opentelemetry.profiler;
+
+import com.splunk.opentelemetry.profiler.context.SpanContextualizer;
+import com.splunk.opentelemetry.profiler.context.SpanLinkage;
+import com.splunk.opentelemetry.profiler.exporter.CpuEventExporter;
+import java.time.Instant;
+import org.openjdk.jmc.common.IMCStackTrace;
+import org.openjdk.jmc.common.IMCThread;
+import org.openjdk.jmc.common.item.IItem;
+
+/**
+ * Processes jdk.ExecutionSample and jdk.NativeMethodSample events. Unlike thread dumps these events
+ * sample one thread at a time, without a safepoint, and carry a structured stack trace.
+ */
+public class ExecutionSampleProcessor {
+  public static final String EXECUTION_SAMPLE_EVENT_NAME = "jdk.ExecutionSample";
+  public static final String NATIVE_METHOD_SAMPLE_EVENT_NAME = "jdk.NativeMethodSample";
+
+  private final EventReader eventReader;
+  private final SpanContextualizer contextualizer;
+  private final CpuEventExporter cpuEventExporter;
+  private final StackTraceFilter stackTraceFilter;
+  private final boolean onlyTracingSpans;
+
+  private ExecutionSampleProcessor(Builder builder) {
+    this.eventReader = builder.eventReader;
+    this.contextualizer = builder.contextualizer;
+    this.cpuEventExporter = builder.cpuEventExporter;
+    this.stackTraceFilter = builder.stackTraceFilter;
+    this.onlyTracingSpans = builder.onlyTracingSpans;
+  }
+
+  public void accept(IItem event) {
+    IMCStackTrace stackTrace = eventReader.getStackTrace(event);
+    if (stackTrace == null || stackTrace.getFrames().isEmpty()) {
+      return;
+    }
+    if (stackTraceFilter != null && !stackTraceFilter.test(event)) {
+      return;
+    }
+
+    long startTime = eventReader.getStartTime(event);
+    IMCThread thread = eventReader.getThread(event);
+    SpanLinkage linkage = SpanLinkage.NONE;
+    if (thread != null && thread.getThreadId() != null) {
+      linkage = contextualizer.link(thread.getThreadId(), startTime);
+    }
+    if (onlyTracingSpans && !linkage.getSpanContext().isValid()) {
+      return;
+    }
+
+    String eventName = event.getType().getIdentifier();
+    Instant time = Instant.ofEpochSecond(0, startTime);
+    cpuEventExporter.export(stackTrace, thread, time, eventName, linkage);
+  }
+
+  public void flush() {
+    cpuEventExporter.flush();
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  public static class Builder {
+    private EventReader eventReader;
+    private SpanContextualizer contextualizer;
+    private CpuEventExporter cpuEventExporter;
+    private StackTraceFilter stackTraceFilter;
+    private boolean onlyTracingSpans;
+
+    public Builder eventReader(EventReader eventReader) {
+      this.eventReader = eventReader;
+      return this;
+    }
+
+    public Builder spanContextualizer(SpanContextualizer contextualizer) {
+      this.contextualizer = contextualizer;
+      return this;
+    }
+
+    public Builder cpuEventExporter(CpuEventExporter cpuEventExporter) {
+      this.cpuEventExporter = cpuEventExporter;
+      return this;
+    }
+
+    public Builder stackTraceFilter(StackTraceFilter stackTraceFilter) {
+      this.stackTraceFilter = stackTraceFilter;
+      return this;
+    }
+
+    public Builder onlyTracingSpans(boolean onlyTracingSpans) {
+      this.onlyTracingSpans = onlyTracingSpans;
+      return this;
+    }
+
+    public ExecutionSampleProcessor build() {
+      return new ExecutionSampleProcessor(this);
+    }
+  }
+}
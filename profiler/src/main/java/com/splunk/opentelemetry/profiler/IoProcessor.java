@@ -0,0 +1,61 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.opentelemetry.profiler;
+
+import com.splunk.opentelemetry.profiler.iowait.exporter.IoEventExporter;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Processes socket and file read and write events. JFR only records these events when the operation
+ * took longer than the configured threshold.
+ */
+public class IoProcessor extends StackEventProcessor {
+  public static final String SOCKET_READ_EVENT_NAME = "jdk.SocketRead";
+  public static final String SOCKET_WRITE_EVENT_NAME = "jdk.SocketWrite";
+  public static final String FILE_READ_EVENT_NAME = "jdk.FileRead";
+  public static final String FILE_WRITE_EVENT_NAME = "jdk.FileWrite";
+  static final List<String> SOCKET_EVENT_NAMES =
+      Collections.unmodifiableList(Arrays.asList(SOCKET_READ_EVENT_NAME, SOCKET_WRITE_EVENT_NAME));
+  static final List<String> FILE_EVENT_NAMES =
+      Collections.unmodifiableList(Arrays.asList(FILE_READ_EVENT_NAME, FILE_WRITE_EVENT_NAME));
+
+  private IoProcessor(Builder builder) {
+    super(builder);
+  }
+
+  static Builder builder(ProfilerConfiguration config) {
+    return new Builder(config.getIoEnabled());
+  }
+
+  static class Builder extends StackEventProcessor.Builder<IoProcessor, Builder> {
+
+    public Builder(boolean enabled) {
+      super(enabled);
+    }
+
+    @Override
+    IoProcessor build() {
+      return new IoProcessor(this);
+    }
+
+    Builder ioEventExporter(IoEventExporter ioEventExporter) {
+      return eventExporter(ioEventExporter);
+    }
+  }
+}
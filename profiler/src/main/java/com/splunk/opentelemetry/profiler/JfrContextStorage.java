@@ -17,6 +17,7 @@
 package com.splunk.opentelemetry.profiler;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.splunk.opentelemetry.profiler.context.ThreadContextSlots;
 import com.splunk.opentelemetry.profiler.events.ContextAttached;
 import io.opentelemetry.api.trace.Span;
 import io.opentelemetry.api.trace.SpanContext;
@@ -33,6 +34,8 @@ class JfrContextStorage implements ContextStorage {
   private final ThreadLocal<Span> activeSpan = ThreadLocal.withInitial(Span::getInvalid);
 
   private volatile boolean enabled = false;
+  // when set the active span is written to the thread's slot instead of generating an event
+  @Nullable private volatile ThreadContextSlots threadContextSlots;
 
   JfrContextStorage(ContextStorage delegate) {
     this(delegate, JfrContextStorage::newEvent);
@@ -52,6 +55,17 @@ class JfrContextStorage implements ContextStorage {
     return enabled;
   }
 
+  /**
+   * Use the given slots instead of ContextAttached events to publish the active span, or events
+   * when {@code null}.
+   */
+  public void setThreadContextSlots(@Nullable ThreadContextSlots threadContextSlots) {
+    if (threadContextSlots != null) {
+      threadContextSlots.reset();
+    }
+    this.threadContextSlots = threadContextSlots;
+  }
+
   static ContextAttached newEvent(SpanContext spanContext) {
     if (spanContext.isValid()) {
       return new ContextAttached(
@@ -76,15 +90,24 @@ class JfrContextStorage implements ContextStorage {
 
     // mark new span as active and generate event
     activeSpan.set(span);
-    generateEvent(span);
+    publishActiveSpan(span);
     return () -> {
       // restore previous active span
       activeSpan.set(current);
-      generateEvent(current);
+      publishActiveSpan(current);
       delegatedScope.close();
     };
   }
 
+  private void publishActiveSpan(Span span) {
+    ThreadContextSlots slots = threadContextSlots;
+    if (slots != null) {
+      slots.set(span.getSpanContext());
+    } else {
+      generateEvent(span);
+    }
+  }
+
   private void generateEvent(Span span) {
     SpanContext context = span.getSpanContext();
     ContextAttached event = newEvent.apply(context);
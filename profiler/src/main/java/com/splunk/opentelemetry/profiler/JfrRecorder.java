@@ -35,12 +35,12 @@ import jdk.jfr.Recording;
 import jdk.jfr.RecordingState;
 
 /** Responsible for starting a single JFR recording. */
-class JfrRecorder {
+class JfrRecorder implements Recorder {
   private static final Logger logger = Logger.getLogger(JfrRecorder.class.getName());
 
   private static final int BUFFER_SIZE = 8192;
   static final String RECORDING_NAME = "otel_agent_jfr_profiler";
-  private final Map<String, String> settings;
+  private volatile Map<String, String> settings;
 
   private final Duration maxAgeDuration;
   private final JFR jfr;
@@ -59,6 +59,7 @@ class JfrRecorder {
     this.keepRecordingFiles = builder.keepRecordingFiles;
   }
 
+  @Override
   public void start() {
     if (isStarted()) {
       throw new IllegalStateException("Already started");
@@ -73,6 +74,7 @@ class JfrRecorder {
     recording.start();
   }
 
+  @Override
   public void stop() {
     if (isStarted()) {
       recording.stop();
@@ -85,6 +87,7 @@ class JfrRecorder {
     return new Recording();
   }
 
+  @Override
   public void flushSnapshot() {
     try (Recording snap = jfr.takeSnapshot()) {
       Instant snapshotEnd = snap.getStopTime();
@@ -125,6 +128,16 @@ class JfrRecorder {
     }
   }
 
+  @Override
+  public void updateSettings(Map<String, String> settings) {
+    this.settings = settings;
+    Recording recording = this.recording;
+    if (recording != null) {
+      recording.setSettings(settings);
+    }
+  }
+
+  @Override
   public boolean isStarted() {
     return (recording != null) && RecordingState.RUNNING.equals(recording.getState());
   }
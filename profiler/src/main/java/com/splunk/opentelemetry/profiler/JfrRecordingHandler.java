@@ -20,6 +20,8 @@ import static java.util.logging.Level.FINE;
 import static java.util.logging.Level.SEVERE;
 
 import com.splunk.opentelemetry.profiler.events.ContextAttached;
+import com.splunk.opentelemetry.profiler.jfr.JfrChunkDecoder;
+import java.io.IOException;
 import java.io.InputStream;
 import java.lang.reflect.Method;
 import java.time.Duration;
@@ -54,38 +56,37 @@ class JfrRecordingHandler implements Consumer<InputStream> {
               ThreadDumpProcessor.EVENT_NAME,
               TLABProcessor.NEW_TLAB_EVENT_NAME,
               TLABProcessor.OUTSIDE_TLAB_EVENT_NAME,
-              TLABProcessor.ALLOCATION_SAMPLE_EVENT_NAME));
+              TLABProcessor.ALLOCATION_SAMPLE_EVENT_NAME,
+              ExecutionSampleProcessor.EXECUTION_SAMPLE_EVENT_NAME,
+              ExecutionSampleProcessor.NATIVE_METHOD_SAMPLE_EVENT_NAME,
+              ContentionProcessor.MONITOR_ENTER_EVENT_NAME,
+              ContentionProcessor.MONITOR_WAIT_EVENT_NAME,
+              ContentionProcessor.THREAD_PARK_EVENT_NAME,
+              IoProcessor.SOCKET_READ_EVENT_NAME,
+              IoProcessor.SOCKET_WRITE_EVENT_NAME,
+              IoProcessor.FILE_READ_EVENT_NAME,
+              IoProcessor.FILE_WRITE_EVENT_NAME,
+              LeakProcessor.EVENT_NAME));
+  private static final Method createChunkLoaderMethod = findCreateChunkLoaderMethod();
+
   private final EventProcessingChain eventProcessingChain;
+  @Nullable private final JfrChunkDecoder chunkDecoder;
+  private final ProfilerMetrics metrics;
 
   public JfrRecordingHandler(Builder builder) {
     this.eventProcessingChain = builder.eventProcessingChain;
+    this.chunkDecoder = builder.useChunkDecoder ? new JfrChunkDecoder(eventTypes) : null;
+    this.metrics = builder.metrics;
   }
 
   @Override
   public void accept(InputStream inputStream) {
     Instant start = Instant.now();
     try {
-      IChunkSupplier chunkSupplier = FlightRecordingLoader.createChunkSupplier(inputStream);
-
-      byte[] buffer = new byte[0];
-      while (true) {
-        LoaderContext context = new LoaderContext(Collections.emptyList(), false);
-        IChunkLoader chunkLoader = createChunkLoader(chunkSupplier, context, buffer, true);
-        if (chunkLoader == null) {
-          // we have parsed all chunks
-          break;
-        }
-        // update buffer to reuse it when parsing the next chunk
-        buffer = chunkLoader.call();
-
-        for (EventArray eventArray : context.buildEventArrays().getArrays()) {
-          IType<IItem> type = eventArray.getType();
-          if (eventTypes.contains(type.getIdentifier())) {
-            Arrays.asList(eventArray.getEvents()).forEach(eventProcessingChain::accept);
-          }
-        }
-
-        eventProcessingChain.flush();
+      if (chunkDecoder != null) {
+        decodeChunks(inputStream, chunkDecoder);
+      } else {
+        loadChunks(inputStream);
       }
     } catch (Exception exception) {
       logger.log(SEVERE, "Error parsing JFR recording", exception);
@@ -99,6 +100,44 @@ class JfrRecordingHandler implements Consumer<InputStream> {
     }
   }
 
+  private void decodeChunks(InputStream inputStream, JfrChunkDecoder decoder) throws IOException {
+    while (true) {
+      long start = System.nanoTime();
+      if (!decoder.decodeChunk(inputStream, eventProcessingChain::accept)) {
+        break;
+      }
+      metrics.recordChunkParse(System.nanoTime() - start);
+      eventProcessingChain.flush();
+    }
+  }
+
+  private void loadChunks(InputStream inputStream) throws Exception {
+    IChunkSupplier chunkSupplier = FlightRecordingLoader.createChunkSupplier(inputStream);
+
+    byte[] buffer = new byte[0];
+    while (true) {
+      long start = System.nanoTime();
+      LoaderContext context = new LoaderContext(Collections.emptyList(), false);
+      IChunkLoader chunkLoader = createChunkLoader(chunkSupplier, context, buffer, true);
+      if (chunkLoader == null) {
+        // we have parsed all chunks
+        break;
+      }
+      // update buffer to reuse it when parsing the next chunk
+      buffer = chunkLoader.call();
+
+      for (EventArray eventArray : context.buildEventArrays().getArrays()) {
+        IType<IItem> type = eventArray.getType();
+        if (eventTypes.contains(type.getIdentifier())) {
+          Arrays.asList(eventArray.getEvents()).forEach(eventProcessingChain::accept);
+        }
+      }
+      metrics.recordChunkParse(System.nanoTime() - start);
+
+      eventProcessingChain.flush();
+    }
+  }
+
   @Nullable
   private static IChunkLoader createChunkLoader(
       IChunkSupplier chunkSupplier,
@@ -106,31 +145,57 @@ class JfrRecordingHandler implements Consumer<InputStream> {
       byte[] buffer,
       boolean ignoreTruncatedChunk)
       throws Exception {
-    Method createChunkLoader =
-        FlightRecordingLoader.class.getDeclaredMethod(
-            "createChunkLoader",
-            IChunkSupplier.class,
-            LoaderContext.class,
-            byte[].class,
-            boolean.class);
-    createChunkLoader.setAccessible(true);
+    if (createChunkLoaderMethod == null) {
+      throw new IllegalStateException("FlightRecordingLoader.createChunkLoader is not available");
+    }
     IChunkLoader chunkLoader =
-        (IChunkLoader) createChunkLoader.invoke(null, chunkSupplier, context, buffer, true);
+        (IChunkLoader) createChunkLoaderMethod.invoke(null, chunkSupplier, context, buffer, true);
     return chunkLoader;
   }
 
+  @Nullable
+  private static Method findCreateChunkLoaderMethod() {
+    try {
+      Method createChunkLoader =
+          FlightRecordingLoader.class.getDeclaredMethod(
+              "createChunkLoader",
+              IChunkSupplier.class,
+              LoaderContext.class,
+              byte[].class,
+              boolean.class);
+      createChunkLoader.setAccessible(true);
+      return createChunkLoader;
+    } catch (Exception exception) {
+      logger.log(SEVERE, "Could not find FlightRecordingLoader.createChunkLoader", exception);
+      return null;
+    }
+  }
+
   public static Builder builder() {
     return new Builder();
   }
 
   public static class Builder {
     private EventProcessingChain eventProcessingChain;
+    private boolean useChunkDecoder;
+    private ProfilerMetrics metrics = ProfilerMetrics.get();
 
     public Builder eventProcessingChain(EventProcessingChain eventProcessingChain) {
       this.eventProcessingChain = eventProcessingChain;
       return this;
     }
 
+    /** Use {@link JfrChunkDecoder} instead of the JMC parser. */
+    public Builder useChunkDecoder(boolean useChunkDecoder) {
+      this.useChunkDecoder = useChunkDecoder;
+      return this;
+    }
+
+    public Builder metrics(ProfilerMetrics metrics) {
+      this.metrics = metrics;
+      return this;
+    }
+
     public JfrRecordingHandler build() {
       return new JfrRecordingHandler(this);
     }
@@ -18,6 +18,7 @@ package com.splunk.opentelemetry.profiler;
 
 import java.time.Duration;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -39,9 +40,68 @@ class JfrSettingsOverrides {
     if (!Duration.ZERO.equals(customInterval)) {
       settings.put("jdk.ThreadDump#period", customInterval.toMillis() + " ms");
     }
+    maybeUseThreadStackSampler(settings);
+    maybeUseExecutionSamples(settings);
+    maybeEnableContentionEvents(settings);
+    maybeEnableIoEvents(settings);
+    maybeEnableOldObjectSamples(settings);
     return maybeEnableTLABs(settings);
   }
 
+  private void maybeUseThreadStackSampler(Map<String, String> settings) {
+    if (SpanStackSampler.isEnabled(config) || ShardedStackSampler.isEnabled(config)) {
+      // thread stacks are sampled without dumping all threads
+      settings.put("jdk.ThreadDump#enabled", "false");
+    }
+  }
+
+  private void maybeUseExecutionSamples(Map<String, String> settings) {
+    if (!config.getExecutionSampleEnabled()) {
+      return;
+    }
+    // execution samples replace thread dumps as the source of cpu stacks
+    String period = config.getExecutionSampleInterval().toMillis() + " ms";
+    settings.put("jdk.ThreadDump#enabled", "false");
+    settings.put("jdk.ExecutionSample#enabled", "true");
+    settings.put("jdk.ExecutionSample#period", period);
+    settings.put("jdk.NativeMethodSample#enabled", "true");
+    settings.put("jdk.NativeMethodSample#period", period);
+  }
+
+  private void maybeEnableContentionEvents(Map<String, String> settings) {
+    if (!config.getContentionEnabled()) {
+      return;
+    }
+    enableWithThreshold(settings, ContentionProcessor.EVENT_NAMES, config.getContentionThreshold());
+  }
+
+  private void maybeEnableIoEvents(Map<String, String> settings) {
+    if (!config.getIoEnabled()) {
+      return;
+    }
+    enableWithThreshold(settings, IoProcessor.SOCKET_EVENT_NAMES, config.getIoSocketThreshold());
+    enableWithThreshold(settings, IoProcessor.FILE_EVENT_NAMES, config.getIoFileThreshold());
+  }
+
+  private void maybeEnableOldObjectSamples(Map<String, String> settings) {
+    if (!config.getLeakEnabled()) {
+      return;
+    }
+    settings.put(LeakProcessor.EVENT_NAME + "#enabled", "true");
+    settings.put(LeakProcessor.EVENT_NAME + "#stackTrace", "true");
+    // searching paths to gc roots is expensive and the roots are not exported
+    settings.put(LeakProcessor.EVENT_NAME + "#cutoff", "0 ns");
+  }
+
+  private static void enableWithThreshold(
+      Map<String, String> settings, List<String> eventNames, Duration threshold) {
+    for (String eventName : eventNames) {
+      settings.put(eventName + "#enabled", "true");
+      settings.put(eventName + "#stackTrace", "true");
+      settings.put(eventName + "#threshold", threshold.toMillis() + " ms");
+    }
+  }
+
   private Map<String, String> maybeEnableTLABs(Map<String, String> settings) {
     if (config.getMemoryEnabled()) {
       if (config.getMemoryEventRateLimitEnabled() && config.getUseAllocationSampleEvent()) {
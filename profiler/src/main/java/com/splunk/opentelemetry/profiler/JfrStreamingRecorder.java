@@ -0,0 +1,183 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.opentelemetry.profiler;
+
+import static java.util.Objects.requireNonNull;
+import static java.util.logging.Level.SEVERE;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.splunk.opentelemetry.profiler.events.ContextAttached;
+import com.splunk.opentelemetry.profiler.util.ProfilerThreads;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingStream;
+
+/**
+ * Consumes JFR events through a {@link RecordingStream} as they are committed instead of
+ * periodically taking a snapshot of the recording and parsing it. Events are handed to the
+ * processing chain after every stream flush, which happens roughly once per second, so the work is
+ * spread out evenly. Exporting is still driven by {@link PeriodicRecordingFlusher}. Requires java
+ * 14 or later.
+ */
+class JfrStreamingRecorder implements Recorder {
+  private static final Logger logger = Logger.getLogger(JfrStreamingRecorder.class.getName());
+
+  // jdk.OldObjectSample is not listed, leak profiling always uses JFR snapshots
+  static final List<String> EVENT_NAMES =
+      Arrays.asList(
+          ContextAttached.EVENT_NAME,
+          ThreadDumpProcessor.EVENT_NAME,
+          TLABProcessor.NEW_TLAB_EVENT_NAME,
+          TLABProcessor.OUTSIDE_TLAB_EVENT_NAME,
+          TLABProcessor.ALLOCATION_SAMPLE_EVENT_NAME,
+          ExecutionSampleProcessor.EXECUTION_SAMPLE_EVENT_NAME,
+          ExecutionSampleProcessor.NATIVE_METHOD_SAMPLE_EVENT_NAME,
+          ContentionProcessor.MONITOR_ENTER_EVENT_NAME,
+          ContentionProcessor.MONITOR_WAIT_EVENT_NAME,
+          ContentionProcessor.THREAD_PARK_EVENT_NAME,
+          IoProcessor.SOCKET_READ_EVENT_NAME,
+          IoProcessor.SOCKET_WRITE_EVENT_NAME,
+          IoProcessor.FILE_READ_EVENT_NAME,
+          IoProcessor.FILE_WRITE_EVENT_NAME);
+
+  private volatile Map<String, String> settings;
+  private final Duration maxAgeDuration;
+  private final EventProcessingChain eventProcessingChain;
+  // only accessed from the event stream thread
+  private final RecordedEventConverter converter = new RecordedEventConverter();
+  private volatile RecordingStream stream;
+  private volatile boolean exportRequested;
+
+  JfrStreamingRecorder(Builder builder) {
+    this.settings = requireNonNull(builder.settings);
+    this.maxAgeDuration = requireNonNull(builder.maxAgeDuration);
+    this.eventProcessingChain = requireNonNull(builder.eventProcessingChain);
+  }
+
+  @Override
+  public void start() {
+    if (isStarted()) {
+      throw new IllegalStateException("Already started");
+    }
+    logger.fine("Profiler is starting a JFR event stream");
+    RecordingStream recordingStream = newRecordingStream();
+    recordingStream.setSettings(settings);
+    recordingStream.setMaxAge(maxAgeDuration);
+    for (String eventName : EVENT_NAMES) {
+      recordingStream.onEvent(eventName, this::onEvent);
+    }
+    recordingStream.onFlush(this::onFlush);
+    recordingStream.onError(
+        throwable -> logger.log(SEVERE, "Error reading JFR event stream", throwable));
+    recordingStream.startAsync();
+    stream = recordingStream;
+  }
+
+  @Override
+  public void stop() {
+    RecordingStream recordingStream = stream;
+    stream = null;
+    if (recordingStream != null) {
+      recordingStream.close();
+    }
+  }
+
+  @VisibleForTesting
+  RecordingStream newRecordingStream() {
+    return new RecordingStream();
+  }
+
+  /**
+   * Requests exporting the data processed since the previous export. Processors are not thread
+   * safe, so the export itself happens on the event stream thread after the next stream flush.
+   */
+  @Override
+  public void flushSnapshot() {
+    exportRequested = true;
+  }
+
+  @Override
+  public void updateSettings(Map<String, String> settings) {
+    this.settings = settings;
+    RecordingStream recordingStream = stream;
+    if (recordingStream != null) {
+      recordingStream.setSettings(settings);
+    }
+  }
+
+  @Override
+  public boolean isStarted() {
+    return stream != null;
+  }
+
+  private void onEvent(RecordedEvent event) {
+    try {
+      eventProcessingChain.accept(converter.convert(event));
+    } catch (Throwable throwable) {
+      logger.log(SEVERE, "Error handling JFR event", throwable);
+    }
+  }
+
+  private void onFlush() {
+    // the event stream thread is started by the jdk, it is registered once it runs our callbacks
+    ProfilerThreads.getInstance().register(Thread.currentThread());
+    try {
+      eventProcessingChain.dispatchBufferedEvents();
+      if (exportRequested) {
+        exportRequested = false;
+        converter.clearCaches();
+        eventProcessingChain.export();
+        eventProcessingChain.logEventStats();
+      }
+    } catch (Throwable throwable) {
+      logger.log(SEVERE, "Error handling JFR event stream flush", throwable);
+    }
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  public static class Builder {
+    private Map<String, String> settings;
+    private Duration maxAgeDuration;
+    private EventProcessingChain eventProcessingChain;
+
+    public Builder settings(Map<String, String> settings) {
+      this.settings = settings;
+      return this;
+    }
+
+    public Builder maxAgeDuration(Duration maxAgeDuration) {
+      this.maxAgeDuration = maxAgeDuration;
+      return this;
+    }
+
+    public Builder eventProcessingChain(EventProcessingChain eventProcessingChain) {
+      this.eventProcessingChain = eventProcessingChain;
+      return this;
+    }
+
+    public JfrStreamingRecorder build() {
+      return new JfrStreamingRecorder(this);
+    }
+  }
+}
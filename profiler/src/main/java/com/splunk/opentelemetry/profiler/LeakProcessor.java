@@ -0,0 +1,72 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.opentelemetry.profiler;
+
+import com.splunk.opentelemetry.profiler.leak.exporter.LeakEventExporter;
+
+/**
+ * Processes jdk.OldObjectSample events. JFR samples allocations and keeps track of the sampled
+ * objects that are still alive, the events are written with the allocation time as the start time,
+ * the allocating thread and the allocation stack.
+ *
+ * <p>Span context changes are only known for the events that are being processed, so objects are
+ * linked to the span that was active when they were allocated only when the allocation happened
+ * after the start of the processed events. Objects allocated earlier are exported without span.
+ */
+public class LeakProcessor extends StackEventProcessor {
+  public static final String EVENT_NAME = "jdk.OldObjectSample";
+
+  // start time of the events that are being processed, in epoch nanoseconds
+  private long linkableSince = Long.MAX_VALUE;
+
+  private LeakProcessor(Builder builder) {
+    super(builder);
+  }
+
+  /**
+   * Sets the time of the first event that is processed before the next flush. Objects allocated
+   * before this time are not linked to spans.
+   */
+  void setLinkableSince(long startTime) {
+    this.linkableSince = startTime;
+  }
+
+  @Override
+  boolean isLinkable(long allocationTime) {
+    return allocationTime >= linkableSince;
+  }
+
+  static Builder builder(ProfilerConfiguration config) {
+    return new Builder(config.getLeakEnabled());
+  }
+
+  static class Builder extends StackEventProcessor.Builder<LeakProcessor, Builder> {
+
+    public Builder(boolean enabled) {
+      super(enabled);
+    }
+
+    @Override
+    LeakProcessor build() {
+      return new LeakProcessor(this);
+    }
+
+    Builder leakEventExporter(LeakEventExporter leakEventExporter) {
+      return eventExporter(leakEventExporter);
+    }
+  }
+}
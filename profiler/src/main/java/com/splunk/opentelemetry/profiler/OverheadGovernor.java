@@ -0,0 +1,233 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.opentelemetry.profiler;
+
+import static java.util.logging.Level.FINE;
+import static java.util.logging.Level.INFO;
+
+import com.google.common.annotations.VisibleForTesting;
+import java.lang.management.ManagementFactory;
+import com.splunk.opentelemetry.profiler.util.ProfilerThreads;
+import java.lang.management.ThreadMXBean;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.IntConsumer;
+import java.util.function.LongSupplier;
+import java.util.logging.Logger;
+
+/**
+ * Keeps the cpu time used by the profiler within a budget by adjusting how often stacks and
+ * allocations are sampled. Once per recording interval the cpu time of the profiler threads is
+ * compared to the budget. When the profiler is over budget the sampling periods of the live
+ * recording are doubled and the allocation rate limits, both the throttle of
+ * jdk.ObjectAllocationSample and the rate of the TLAB allocation event samplers, are halved. When
+ * it uses less than a quarter of the budget they are brought back towards the configured values.
+ */
+class OverheadGovernor {
+  private static final Logger logger = Logger.getLogger(OverheadGovernor.class.getName());
+
+  // threads started by the profiler whose cpu time counts against the budget
+  static final String[] PROFILER_THREAD_PREFIXES =
+      new String[] {
+        "JFR Recording Flusher",
+        "JFR Event Stream",
+        "splunk-profiler-log-exporter",
+        "Span Stack Sampler",
+        "Thread Stack Sampler"
+      };
+  private static final String[] PERIODIC_EVENT_NAMES =
+      new String[] {
+        ThreadDumpProcessor.EVENT_NAME,
+        ExecutionSampleProcessor.EXECUTION_SAMPLE_EVENT_NAME,
+        ExecutionSampleProcessor.NATIVE_METHOD_SAMPLE_EVENT_NAME
+      };
+  private static final String THROTTLE_SETTING =
+      TLABProcessor.ALLOCATION_SAMPLE_EVENT_NAME + "#throttle";
+  // sampling is never made slower than this factor times the configured period
+  static final int MAX_SCALE = 16;
+
+  private final Map<String, String> settings;
+  // fraction of one cpu core
+  private final double budget;
+  private final IntConsumer onScaleChange;
+  private final ThreadMXBean threadMXBean;
+  private final LongSupplier nanoTime;
+  private final ProfilerThreads profilerThreads;
+  // cpu time of each profiler thread at the previous update
+  private final Map<Long, Long> threadCpuTimes = new HashMap<>();
+  private long lastUpdateTime = -1;
+  private int scale = 1;
+
+  /**
+   * @param settings the configured JFR settings
+   * @param budgetPercent cpu time the profiler may use, in percent of one cpu core
+   * @param onScaleChange called with the factor sampling periods are multiplied by and rate limits
+   *     are divided by when it changes
+   */
+  OverheadGovernor(Map<String, String> settings, double budgetPercent, IntConsumer onScaleChange) {
+    this(
+        settings,
+        budgetPercent,
+        onScaleChange,
+        ManagementFactory.getThreadMXBean(),
+        System::nanoTime,
+        ProfilerThreads.getInstance());
+  }
+
+  @VisibleForTesting
+  OverheadGovernor(
+      Map<String, String> settings,
+      double budgetPercent,
+      IntConsumer onScaleChange,
+      ThreadMXBean threadMXBean,
+      LongSupplier nanoTime,
+      ProfilerThreads profilerThreads) {
+    this.settings = settings;
+    this.budget = budgetPercent / 100;
+    this.onScaleChange = onScaleChange;
+    this.threadMXBean = threadMXBean;
+    this.nanoTime = nanoTime;
+    this.profilerThreads = profilerThreads;
+  }
+
+  static boolean isSupported() {
+    ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+    return threadMXBean.isThreadCpuTimeSupported() && threadMXBean.isThreadCpuTimeEnabled();
+  }
+
+  /**
+   * Measures the cpu time the profiler used since the previous call and updates the settings of the
+   * recording when the sampling periods need to change.
+   */
+  void update(Recorder recorder) {
+    long now = nanoTime.getAsLong();
+    long cpuTime = measureCpuTime();
+    long elapsed = now - lastUpdateTime;
+    boolean firstUpdate = lastUpdateTime == -1;
+    lastUpdateTime = now;
+    if (firstUpdate || elapsed <= 0) {
+      return;
+    }
+
+    double overhead = (double) cpuTime / elapsed;
+    int newScale = scale;
+    if (overhead > budget) {
+      newScale = Math.min(MAX_SCALE, scale * 2);
+    } else if (overhead < budget / 4) {
+      // halving the periods roughly doubles the overhead, which still leaves room in the budget
+      newScale = Math.max(1, scale / 2);
+    }
+    if (logger.isLoggable(FINE)) {
+      logger.log(
+          FINE,
+          "Profiler used {0}% of one cpu, budget is {1}%",
+          new Object[] {overhead * 100, budget * 100});
+    }
+    if (newScale == scale) {
+      return;
+    }
+
+    logger.log(
+        INFO,
+        "Profiler used {0}% of one cpu, budget is {1}%. Sampling periods are now {2} times the"
+            + " configured periods.",
+        new Object[] {overhead * 100, budget * 100, newScale});
+    scale = newScale;
+    recorder.updateSettings(scaledSettings());
+    onScaleChange.accept(newScale);
+  }
+
+  // Exists for testing
+  int getScale() {
+    return scale;
+  }
+
+  /** Returns the cpu time used by the profiler threads since the previous call, in nanoseconds. */
+  private long measureCpuTime() {
+    long total = 0;
+    for (Map.Entry<Long, String> thread : profilerThreads.getThreads().entrySet()) {
+      long threadId = thread.getKey();
+      if (!isProfilerThread(thread.getValue())) {
+        continue;
+      }
+      long cpuTime = threadMXBean.getThreadCpuTime(threadId);
+      if (cpuTime < 0) {
+        // thread has terminated
+        profilerThreads.remove(threadId);
+        threadCpuTimes.remove(threadId);
+        continue;
+      }
+      Long previousCpuTime = threadCpuTimes.put(threadId, cpuTime);
+      total += cpuTime - (previousCpuTime != null ? previousCpuTime : 0);
+    }
+    return total;
+  }
+
+  private static boolean isProfilerThread(String threadName) {
+    for (String prefix : PROFILER_THREAD_PREFIXES) {
+      if (threadName.startsWith(prefix)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @VisibleForTesting
+  Map<String, String> scaledSettings() {
+    Map<String, String> result = new HashMap<>(settings);
+    for (String eventName : PERIODIC_EVENT_NAMES) {
+      String key = eventName + "#period";
+      String period = settings.get(key);
+      if (period != null) {
+        result.put(key, scalePeriod(period, scale));
+      }
+    }
+    String throttle = settings.get(THROTTLE_SETTING);
+    if (throttle != null) {
+      result.put(THROTTLE_SETTING, scaleThrottle(throttle, scale));
+    }
+    return result;
+  }
+
+  /** Multiplies a JFR period such as "20 ms", values that aren't a duration are not changed. */
+  static String scalePeriod(String period, int scale) {
+    int separator = period.indexOf(' ');
+    if (separator == -1) {
+      return period;
+    }
+    try {
+      long value = Long.parseLong(period.substring(0, separator));
+      return value * scale + period.substring(separator);
+    } catch (NumberFormatException exception) {
+      return period;
+    }
+  }
+
+  /** Divides a JFR throttle such as "150/s", the throttle is not lowered below one event. */
+  static String scaleThrottle(String throttle, int scale) {
+    int separator = throttle.indexOf('/');
+    if (separator == -1) {
+      return throttle;
+    }
+    try {
+      long value = Long.parseLong(throttle.substring(0, separator).trim());
+      return Math.max(1, value / scale) + throttle.substring(separator);
+    } catch (NumberFormatException exception) {
+      return throttle;
+    }
+  }
+}
@@ -20,11 +20,13 @@ import static java.util.logging.Level.SEVERE;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.splunk.opentelemetry.profiler.util.HelpfulExecutors;
+import io.opentelemetry.sdk.logs.LogRecordProcessor;
 import java.time.Duration;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
+import javax.annotation.Nullable;
 
 /** Responsible for periodically generating a sequence of JFR recordings. */
 class PeriodicRecordingFlusher {
@@ -32,37 +34,101 @@ class PeriodicRecordingFlusher {
 
   private final ScheduledExecutorService executor;
   private final Duration recordingDuration;
-  private final JfrRecorder recorder;
+  private final Recorder recorder;
+  @Nullable private final LogRecordProcessor logRecordProcessor;
+  @Nullable private final ThreadStackSampler threadStackSampler;
+  @Nullable private final OverheadGovernor overheadGovernor;
   private ScheduledFuture<?> scheduledFlushFuture = null;
 
-  PeriodicRecordingFlusher(JfrRecorder recorder, Duration recordingDuration) {
+  PeriodicRecordingFlusher(Recorder recorder, Duration recordingDuration) {
+    this(recorder, recordingDuration, (LogRecordProcessor) null);
+  }
+
+  /**
+   * @param logRecordProcessor processor used to export the profiling data, it is shut down when
+   *     this flusher is stopped
+   */
+  PeriodicRecordingFlusher(
+      Recorder recorder,
+      Duration recordingDuration,
+      @Nullable LogRecordProcessor logRecordProcessor) {
+    this(recorder, recordingDuration, logRecordProcessor, null, null);
+  }
+
+  /**
+   * @param threadStackSampler sampler of thread stacks used instead of thread dumps, it is started
+   *     and stopped together with the recorder
+   * @param overheadGovernor adjusts the sampling periods after each recording interval
+   */
+  PeriodicRecordingFlusher(
+      Recorder recorder,
+      Duration recordingDuration,
+      @Nullable LogRecordProcessor logRecordProcessor,
+      @Nullable ThreadStackSampler threadStackSampler,
+      @Nullable OverheadGovernor overheadGovernor) {
     this(
         recorder,
         recordingDuration,
+        logRecordProcessor,
+        threadStackSampler,
+        overheadGovernor,
         HelpfulExecutors.newSingleThreadedScheduledExecutor("JFR Recording Flusher"));
   }
 
   @VisibleForTesting
   PeriodicRecordingFlusher(
-      JfrRecorder recorder, Duration recordingDuration, ScheduledExecutorService executor) {
+      Recorder recorder, Duration recordingDuration, ScheduledExecutorService executor) {
+    this(recorder, recordingDuration, null, null, null, executor);
+  }
+
+  @VisibleForTesting
+  PeriodicRecordingFlusher(
+      Recorder recorder,
+      Duration recordingDuration,
+      @Nullable LogRecordProcessor logRecordProcessor,
+      ScheduledExecutorService executor) {
+    this(recorder, recordingDuration, logRecordProcessor, null, null, executor);
+  }
+
+  @VisibleForTesting
+  PeriodicRecordingFlusher(
+      Recorder recorder,
+      Duration recordingDuration,
+      @Nullable LogRecordProcessor logRecordProcessor,
+      @Nullable ThreadStackSampler threadStackSampler,
+      @Nullable OverheadGovernor overheadGovernor,
+      ScheduledExecutorService executor) {
     this.recordingDuration = recordingDuration;
     this.recorder = recorder;
+    this.logRecordProcessor = logRecordProcessor;
+    this.threadStackSampler = threadStackSampler;
+    this.overheadGovernor = overheadGovernor;
     this.executor = executor;
   }
 
   public void start() {
     recorder.start();
+    if (threadStackSampler != null) {
+      threadStackSampler.start();
+    }
     scheduledFlushFuture =
         executor.scheduleAtFixedRate(
             this::handleInterval, 0, recordingDuration.toMillis(), TimeUnit.MILLISECONDS);
   }
 
   public void stop() {
+    if (threadStackSampler != null) {
+      threadStackSampler.stop();
+    }
     recorder.stop();
     if (scheduledFlushFuture != null) {
       scheduledFlushFuture.cancel(false);
       scheduledFlushFuture = null;
     }
+    if (logRecordProcessor != null) {
+      // exports data that is still queued, then shuts down the exporter
+      logRecordProcessor.shutdown();
+    }
   }
 
   @VisibleForTesting
@@ -73,6 +139,9 @@ class PeriodicRecordingFlusher {
         return;
       }
       recorder.flushSnapshot();
+      if (overheadGovernor != null) {
+        overheadGovernor.update(recorder);
+      }
     } catch (Throwable throwable) {
       logger.log(SEVERE, "Profiler periodic task failed.", throwable);
     }
@@ -20,15 +20,22 @@ import static java.util.logging.Level.WARNING;
 
 import com.splunk.opentelemetry.profiler.allocation.exporter.AllocationEventExporter;
 import com.splunk.opentelemetry.profiler.allocation.exporter.PprofAllocationEventExporter;
+import com.splunk.opentelemetry.profiler.allocation.sampler.AllocationEventSampler;
+import com.splunk.opentelemetry.profiler.contention.exporter.ContentionEventExporter;
+import com.splunk.opentelemetry.profiler.contention.exporter.PprofContentionEventExporter;
 import com.splunk.opentelemetry.profiler.context.SpanContextualizer;
+import com.splunk.opentelemetry.profiler.context.ThreadContextSlots;
 import com.splunk.opentelemetry.profiler.exporter.CpuEventExporter;
 import com.splunk.opentelemetry.profiler.exporter.PprofCpuEventExporter;
+import com.splunk.opentelemetry.profiler.iowait.exporter.IoEventExporter;
+import com.splunk.opentelemetry.profiler.iowait.exporter.PprofIoEventExporter;
+import com.splunk.opentelemetry.profiler.leak.exporter.LeakEventExporter;
+import com.splunk.opentelemetry.profiler.leak.exporter.PprofLeakEventExporter;
 import com.splunk.opentelemetry.profiler.util.DeclarativeConfigPropertiesUtil;
 import io.opentelemetry.api.incubator.config.DeclarativeConfigProperties;
 import io.opentelemetry.sdk.logs.LogRecordProcessor;
 import io.opentelemetry.sdk.logs.SdkLoggerProvider;
 import io.opentelemetry.sdk.logs.export.LogRecordExporter;
-import io.opentelemetry.sdk.logs.export.SimpleLogRecordProcessor;
 import io.opentelemetry.sdk.resources.Resource;
 import java.io.IOException;
 import java.nio.file.Files;
@@ -36,6 +43,7 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.Duration;
 import java.util.Map;
+import javax.annotation.Nullable;
 
 class PeriodicRecordingFlusherFactory {
   private static final java.util.logging.Logger logger =
@@ -59,26 +67,56 @@ class PeriodicRecordingFlusherFactory {
     Map<String, String> jfrSettings = buildJfrSettings(config);
 
     EventReader eventReader = new EventReader();
-    SpanContextualizer spanContextualizer = new SpanContextualizer(eventReader);
+    ThreadContextSlots threadContextSlots =
+        config.getContextSlotsEnabled() ? ThreadContextSlots.getInstance() : null;
+    SpanContextualizer spanContextualizer = new SpanContextualizer(eventReader, threadContextSlots);
     LogRecordExporter logsExporter = createLogRecordExporter(config.getConfigProperties());
+    // cpu and allocation data share one export pipeline
+    LogRecordProcessor logRecordProcessor =
+        ProfilingLogRecordProcessor.builder(logsExporter)
+            .maxInFlightBytes(config.getExportMaxBytes())
+            .build();
+    io.opentelemetry.api.logs.Logger otelLogger = buildOtelLogger(logRecordProcessor, resource);
 
+    boolean executionSamples = config.getExecutionSampleEnabled();
     CpuEventExporter cpuEventExporter =
         PprofCpuEventExporter.builder()
-            .otelLogger(buildOtelLogger(SimpleLogRecordProcessor.create(logsExporter), resource))
-            .period(config.getCallStackInterval())
+            .otelLogger(otelLogger)
+            .period(
+                executionSamples
+                    ? config.getExecutionSampleInterval()
+                    : config.getCallStackInterval())
             .stackDepth(stackDepth)
+            .aggregateStacks(config.getCpuAggregationEnabled())
+            .executionSamples(executionSamples)
+            .dataFormat(config.getDataFormat())
             .build();
 
+    ThreadStackSampler threadStackSampler =
+        buildThreadStackSampler(config, threadContextSlots, stackDepth, recordingDuration);
     StackTraceFilter stackTraceFilter = buildStackTraceFilter(config, eventReader);
     ThreadDumpProcessor threadDumpProcessor =
         buildThreadDumpProcessor(
-            eventReader, spanContextualizer, cpuEventExporter, stackTraceFilter, config);
+            eventReader,
+            spanContextualizer,
+            cpuEventExporter,
+            stackTraceFilter,
+            threadStackSampler,
+            config);
+    ExecutionSampleProcessor executionSampleProcessor =
+        executionSamples
+            ? buildExecutionSampleProcessor(
+                eventReader, spanContextualizer, cpuEventExporter, stackTraceFilter, config)
+            : null;
 
     AllocationEventExporter allocationEventExporter =
         PprofAllocationEventExporter.builder()
             .eventReader(eventReader)
-            .otelLogger(buildOtelLogger(SimpleLogRecordProcessor.create(logsExporter), resource))
+            .otelLogger(otelLogger)
             .stackDepth(stackDepth)
+            .dataFormat(config.getDataFormat())
+            .aggregateStacks(config.getMemoryAggregationEnabled())
+            .maxStacks(config.getMemoryAggregationMaxStacks())
             .build();
 
     TLABProcessor tlabProcessor =
@@ -89,24 +127,139 @@ class PeriodicRecordingFlusherFactory {
             .stackTraceFilter(stackTraceFilter)
             .build();
 
+    ContentionProcessor contentionProcessor =
+        buildContentionProcessor(
+            eventReader, spanContextualizer, otelLogger, stackTraceFilter, config);
+    IoProcessor ioProcessor =
+        buildIoProcessor(eventReader, spanContextualizer, otelLogger, stackTraceFilter, config);
+    LeakProcessor leakProcessor =
+        buildLeakProcessor(eventReader, spanContextualizer, otelLogger, stackTraceFilter, config);
+
     EventProcessingChain eventProcessingChain =
         new EventProcessingChain(
-            eventReader, spanContextualizer, threadDumpProcessor, tlabProcessor);
-
-    JfrRecordingHandler jfrRecordingHandler =
-        JfrRecordingHandler.builder().eventProcessingChain(eventProcessingChain).build();
-
-    JfrRecorder recorder =
-        JfrRecorder.builder()
-            .settings(jfrSettings)
-            .maxAgeDuration(recordingDuration.multipliedBy(10))
-            .jfr(jfr)
-            .onNewRecording(jfrRecordingHandler)
-            .namingConvention(namingConvention)
-            .keepRecordingFiles(keepFiles)
-            .build();
+            eventReader,
+            spanContextualizer,
+            threadDumpProcessor,
+            tlabProcessor,
+            executionSampleProcessor,
+            contentionProcessor,
+            ioProcessor,
+            leakProcessor,
+            threadStackSampler,
+            ProfilerMetrics.get());
+
+    Recorder recorder;
+    if (useJfrStreaming(config)) {
+      recorder =
+          JfrStreamingRecorder.builder()
+              .settings(jfrSettings)
+              .maxAgeDuration(recordingDuration.multipliedBy(10))
+              .eventProcessingChain(eventProcessingChain)
+              .build();
+    } else {
+      JfrRecordingHandler jfrRecordingHandler =
+          JfrRecordingHandler.builder()
+              .eventProcessingChain(eventProcessingChain)
+              .useChunkDecoder(config.getJfrChunkDecoderEnabled())
+              .build();
+
+      recorder =
+          JfrRecorder.builder()
+              .settings(jfrSettings)
+              .maxAgeDuration(recordingDuration.multipliedBy(10))
+              .jfr(jfr)
+              .onNewRecording(jfrRecordingHandler)
+              .namingConvention(namingConvention)
+              .keepRecordingFiles(keepFiles)
+              .build();
+    }
+
+    OverheadGovernor overheadGovernor =
+        buildOverheadGovernor(
+            config,
+            jfrSettings,
+            cpuEventExporter,
+            threadStackSampler,
+            tlabProcessor.getAllocationEventSampler());
+    return new PeriodicRecordingFlusher(
+        recorder, recordingDuration, logRecordProcessor, threadStackSampler, overheadGovernor);
+  }
+
+  @Nullable
+  private static OverheadGovernor buildOverheadGovernor(
+      ProfilerConfiguration config,
+      Map<String, String> jfrSettings,
+      CpuEventExporter cpuEventExporter,
+      @Nullable ThreadStackSampler threadStackSampler,
+      @Nullable AllocationEventSampler allocationEventSampler) {
+    if (config.getOverheadBudget() <= 0) {
+      return null;
+    }
+    if (!OverheadGovernor.isSupported()) {
+      logger.warning("Thread cpu time is not available, profiler overhead budget is ignored.");
+      return null;
+    }
+    Duration cpuPeriod =
+        config.getExecutionSampleEnabled()
+            ? config.getExecutionSampleInterval()
+            : config.getCallStackInterval();
+    return new OverheadGovernor(
+        jfrSettings,
+        config.getOverheadBudget(),
+        scale -> {
+          cpuEventExporter.setPeriod(cpuPeriod.multipliedBy(scale));
+          if (threadStackSampler != null) {
+            threadStackSampler.setPeriodScale(scale);
+          }
+          if (allocationEventSampler != null) {
+            allocationEventSampler.setRateLimitScale(scale);
+          }
+        });
+  }
 
-    return new PeriodicRecordingFlusher(recorder, recordingDuration);
+  @Nullable
+  private static ThreadStackSampler buildThreadStackSampler(
+      ProfilerConfiguration config,
+      @Nullable ThreadContextSlots threadContextSlots,
+      int stackDepth,
+      Duration recordingDuration) {
+    Duration interval = config.getCallStackInterval();
+    if (SpanStackSampler.isEnabled(config)) {
+      return new SpanStackSampler(threadContextSlots, interval, stackDepth);
+    }
+    if (config.getSpanStackSamplerEnabled()) {
+      logger.warning(
+          "Span stack sampler requires tracing stacks only and context slots, and is not used"
+              + " with execution samples.");
+    }
+    if (ShardedStackSampler.isEnabled(config)) {
+      return new ShardedStackSampler(
+          interval, stackDepth, config.getCallStackMaxThreads(), recordingDuration);
+    }
+    return null;
+  }
+
+  private static boolean useJfrStreaming(ProfilerConfiguration config) {
+    if (!config.getJfrStreamingEnabled()) {
+      return false;
+    }
+    // jdk.jfr.consumer.RecordingStream was added in java 14
+    if (ProfilerConfiguration.getJavaVersion() < 14) {
+      logger.warning("JFR event streaming requires java 14 or later, using JFR snapshots instead.");
+      return false;
+    }
+    // jdk.OldObjectSample events are only emitted when a recording stops or is dumped, which a
+    // recording stream doesn't do until it is closed
+    if (config.getLeakEnabled()) {
+      logger.warning(
+          "Memory leak profiling doesn't work with JFR event streaming, using JFR snapshots"
+              + " instead.");
+      return false;
+    }
+    if (config.getKeepFiles()) {
+      logger.warning("Recording files are not kept when JFR event streaming is used.");
+    }
+    return true;
   }
 
   private io.opentelemetry.api.logs.Logger buildOtelLogger(
@@ -125,6 +278,7 @@ class PeriodicRecordingFlusherFactory {
       SpanContextualizer spanContextualizer,
       CpuEventExporter profilingEventExporter,
       StackTraceFilter stackTraceFilter,
+      @Nullable ThreadStackSampler threadStackSampler,
       ProfilerConfiguration config) {
     return ThreadDumpProcessor.builder()
         .eventReader(eventReader)
@@ -132,6 +286,98 @@ class PeriodicRecordingFlusherFactory {
         .cpuEventExporter(profilingEventExporter)
         .stackTraceFilter(stackTraceFilter)
         .onlyTracingSpans(config.getTracingStacksOnly())
+        .threadStackSampler(threadStackSampler)
+        .build();
+  }
+
+  private ExecutionSampleProcessor buildExecutionSampleProcessor(
+      EventReader eventReader,
+      SpanContextualizer spanContextualizer,
+      CpuEventExporter profilingEventExporter,
+      StackTraceFilter stackTraceFilter,
+      ProfilerConfiguration config) {
+    return ExecutionSampleProcessor.builder()
+        .eventReader(eventReader)
+        .spanContextualizer(spanContextualizer)
+        .cpuEventExporter(profilingEventExporter)
+        .stackTraceFilter(stackTraceFilter)
+        .onlyTracingSpans(config.getTracingStacksOnly())
+        .build();
+  }
+
+  // exporters are only created for enabled profilers, each one holds a compressor and symbol tables
+  @Nullable
+  private ContentionProcessor buildContentionProcessor(
+      EventReader eventReader,
+      SpanContextualizer spanContextualizer,
+      io.opentelemetry.api.logs.Logger otelLogger,
+      StackTraceFilter stackTraceFilter,
+      ProfilerConfiguration config) {
+    if (!config.getContentionEnabled()) {
+      return null;
+    }
+    ContentionEventExporter contentionEventExporter =
+        PprofContentionEventExporter.builder()
+            .eventReader(eventReader)
+            .otelLogger(otelLogger)
+            .stackDepth(config.getStackDepth())
+            .dataFormat(config.getDataFormat())
+            .build();
+    return ContentionProcessor.builder(config)
+        .eventReader(eventReader)
+        .contentionEventExporter(contentionEventExporter)
+        .spanContextualizer(spanContextualizer)
+        .stackTraceFilter(stackTraceFilter)
+        .build();
+  }
+
+  @Nullable
+  private IoProcessor buildIoProcessor(
+      EventReader eventReader,
+      SpanContextualizer spanContextualizer,
+      io.opentelemetry.api.logs.Logger otelLogger,
+      StackTraceFilter stackTraceFilter,
+      ProfilerConfiguration config) {
+    if (!config.getIoEnabled()) {
+      return null;
+    }
+    IoEventExporter ioEventExporter =
+        PprofIoEventExporter.builder()
+            .eventReader(eventReader)
+            .otelLogger(otelLogger)
+            .stackDepth(config.getStackDepth())
+            .dataFormat(config.getDataFormat())
+            .build();
+    return IoProcessor.builder(config)
+        .eventReader(eventReader)
+        .ioEventExporter(ioEventExporter)
+        .spanContextualizer(spanContextualizer)
+        .stackTraceFilter(stackTraceFilter)
+        .build();
+  }
+
+  @Nullable
+  private LeakProcessor buildLeakProcessor(
+      EventReader eventReader,
+      SpanContextualizer spanContextualizer,
+      io.opentelemetry.api.logs.Logger otelLogger,
+      StackTraceFilter stackTraceFilter,
+      ProfilerConfiguration config) {
+    if (!config.getLeakEnabled()) {
+      return null;
+    }
+    LeakEventExporter leakEventExporter =
+        PprofLeakEventExporter.builder()
+            .eventReader(eventReader)
+            .otelLogger(otelLogger)
+            .stackDepth(config.getStackDepth())
+            .dataFormat(config.getDataFormat())
+            .build();
+    return LeakProcessor.builder(config)
+        .eventReader(eventReader)
+        .leakEventExporter(leakEventExporter)
+        .spanContextualizer(spanContextualizer)
+        .stackTraceFilter(stackTraceFilter)
         .build();
   }
 
@@ -32,6 +32,10 @@ public class ProfilerConfiguration {
   private static final String DEFAULT_PROFILER_DIRECTORY = System.getProperty("java.io.tmpdir");
   private static final Duration DEFAULT_RECORDING_DURATION = Duration.ofSeconds(20);
   private static final Duration DEFAULT_CALL_STACK_INTERVAL = Duration.ofSeconds(10);
+  private static final long DEFAULT_EXPORT_MAX_BYTES = 16 * 1024 * 1024;
+  private static final Duration DEFAULT_EXECUTION_SAMPLE_INTERVAL = Duration.ofMillis(20);
+  private static final Duration DEFAULT_CONTENTION_THRESHOLD = Duration.ofMillis(10);
+  private static final Duration DEFAULT_IO_THRESHOLD = Duration.ofMillis(10);
 
   private final boolean enabled;
   @Nullable private final String ingestUrl;
@@ -48,6 +52,26 @@ public class ProfilerConfiguration {
   private final boolean keepFiles;
   private final String profilerDirectory;
   private final Duration recordingDuration;
+  private final boolean jfrStreamingEnabled;
+  private final boolean jfrChunkDecoderEnabled;
+  private final boolean cpuAggregationEnabled;
+  private final long exportMaxBytes;
+  private final ProfilingDataFormat dataFormat;
+  private final boolean contextSlotsEnabled;
+  private final boolean executionSampleEnabled;
+  private final Duration executionSampleInterval;
+  private final boolean contentionEnabled;
+  private final Duration contentionThreshold;
+  private final boolean ioEnabled;
+  private final Duration ioSocketThreshold;
+  private final Duration ioFileThreshold;
+  private final boolean memoryWeightedSampling;
+  private final boolean memoryAggregationEnabled;
+  private final int memoryAggregationMaxStacks;
+  private final boolean leakEnabled;
+  private final boolean spanStackSamplerEnabled;
+  private final int callStackMaxThreads;
+  private final double overheadBudget;
   @Nullable private final Object configProperties;
 
   private ProfilerConfiguration(Builder builder) {
@@ -66,6 +90,26 @@ public class ProfilerConfiguration {
     keepFiles = builder.keepFiles;
     profilerDirectory = builder.profilerDirectory;
     recordingDuration = builder.recordingDuration;
+    jfrStreamingEnabled = builder.jfrStreamingEnabled;
+    jfrChunkDecoderEnabled = builder.jfrChunkDecoderEnabled;
+    cpuAggregationEnabled = builder.cpuAggregationEnabled;
+    exportMaxBytes = builder.exportMaxBytes;
+    dataFormat = builder.dataFormat;
+    contextSlotsEnabled = builder.contextSlotsEnabled;
+    executionSampleEnabled = builder.executionSampleEnabled;
+    executionSampleInterval = builder.executionSampleInterval;
+    contentionEnabled = builder.contentionEnabled;
+    contentionThreshold = builder.contentionThreshold;
+    ioEnabled = builder.ioEnabled;
+    ioSocketThreshold = builder.ioSocketThreshold;
+    ioFileThreshold = builder.ioFileThreshold;
+    memoryWeightedSampling = builder.memoryWeightedSampling;
+    memoryAggregationEnabled = builder.memoryAggregationEnabled;
+    memoryAggregationMaxStacks = builder.memoryAggregationMaxStacks;
+    leakEnabled = builder.leakEnabled;
+    spanStackSamplerEnabled = builder.spanStackSamplerEnabled;
+    callStackMaxThreads = builder.callStackMaxThreads;
+    overheadBudget = builder.overheadBudget;
     configProperties = builder.configProperties;
   }
 
@@ -90,6 +134,26 @@ public class ProfilerConfiguration {
         .setKeepFiles(keepFiles)
         .setProfilerDirectory(profilerDirectory)
         .setRecordingDuration(recordingDuration)
+        .setJfrStreamingEnabled(jfrStreamingEnabled)
+        .setJfrChunkDecoderEnabled(jfrChunkDecoderEnabled)
+        .setCpuAggregationEnabled(cpuAggregationEnabled)
+        .setExportMaxBytes(exportMaxBytes)
+        .setDataFormat(dataFormat)
+        .setContextSlotsEnabled(contextSlotsEnabled)
+        .setExecutionSampleEnabled(executionSampleEnabled)
+        .setExecutionSampleInterval(executionSampleInterval)
+        .setContentionEnabled(contentionEnabled)
+        .setContentionThreshold(contentionThreshold)
+        .setIoEnabled(ioEnabled)
+        .setIoSocketThreshold(ioSocketThreshold)
+        .setIoFileThreshold(ioFileThreshold)
+        .setMemoryWeightedSampling(memoryWeightedSampling)
+        .setMemoryAggregationEnabled(memoryAggregationEnabled)
+        .setMemoryAggregationMaxStacks(memoryAggregationMaxStacks)
+        .setLeakEnabled(leakEnabled)
+        .setSpanStackSamplerEnabled(spanStackSamplerEnabled)
+        .setCallStackMaxThreads(callStackMaxThreads)
+        .setOverheadBudget(overheadBudget)
         .setConfigProperties(configProperties);
   }
 
@@ -116,6 +180,26 @@ public class ProfilerConfiguration {
     log("IncludeJvmInternalStacks", getIncludeJvmInternalStacks());
     log("TracingStacksOnly", getTracingStacksOnly());
     log("StackDepth", getStackDepth());
+    log("JfrStreamingEnabled", getJfrStreamingEnabled());
+    log("JfrChunkDecoderEnabled", getJfrChunkDecoderEnabled());
+    log("CpuAggregationEnabled", getCpuAggregationEnabled());
+    log("ExportMaxBytes", getExportMaxBytes());
+    log("DataFormat", getDataFormat().value());
+    log("ContextSlotsEnabled", getContextSlotsEnabled());
+    log("ExecutionSampleEnabled", getExecutionSampleEnabled());
+    log("ExecutionSampleInterval", getExecutionSampleInterval().toMillis() + "ms");
+    log("ContentionEnabled", getContentionEnabled());
+    log("ContentionThreshold", getContentionThreshold().toMillis() + "ms");
+    log("IoEnabled", getIoEnabled());
+    log("IoSocketThreshold", getIoSocketThreshold().toMillis() + "ms");
+    log("IoFileThreshold", getIoFileThreshold().toMillis() + "ms");
+    log("MemoryWeightedSampling", getMemoryWeightedSampling());
+    log("MemoryAggregationEnabled", getMemoryAggregationEnabled());
+    log("MemoryAggregationMaxStacks", getMemoryAggregationMaxStacks());
+    log("LeakEnabled", getLeakEnabled());
+    log("SpanStackSamplerEnabled", getSpanStackSamplerEnabled());
+    log("CallStackMaxThreads", getCallStackMaxThreads());
+    log("OverheadBudget", getOverheadBudget());
     logger.info("-----------------------");
   }
 
@@ -181,6 +265,86 @@ public class ProfilerConfiguration {
     return recordingDuration;
   }
 
+  public boolean getJfrStreamingEnabled() {
+    return jfrStreamingEnabled;
+  }
+
+  public boolean getJfrChunkDecoderEnabled() {
+    return jfrChunkDecoderEnabled;
+  }
+
+  public boolean getCpuAggregationEnabled() {
+    return cpuAggregationEnabled;
+  }
+
+  public long getExportMaxBytes() {
+    return exportMaxBytes;
+  }
+
+  public ProfilingDataFormat getDataFormat() {
+    return dataFormat;
+  }
+
+  public boolean getContextSlotsEnabled() {
+    return contextSlotsEnabled;
+  }
+
+  public boolean getExecutionSampleEnabled() {
+    return executionSampleEnabled;
+  }
+
+  public Duration getExecutionSampleInterval() {
+    return executionSampleInterval;
+  }
+
+  public boolean getContentionEnabled() {
+    return contentionEnabled;
+  }
+
+  public Duration getContentionThreshold() {
+    return contentionThreshold;
+  }
+
+  public boolean getIoEnabled() {
+    return ioEnabled;
+  }
+
+  public Duration getIoSocketThreshold() {
+    return ioSocketThreshold;
+  }
+
+  public Duration getIoFileThreshold() {
+    return ioFileThreshold;
+  }
+
+  public boolean getMemoryWeightedSampling() {
+    return memoryWeightedSampling;
+  }
+
+  public boolean getMemoryAggregationEnabled() {
+    return memoryAggregationEnabled;
+  }
+
+  public int getMemoryAggregationMaxStacks() {
+    return memoryAggregationMaxStacks;
+  }
+
+  public boolean getLeakEnabled() {
+    return leakEnabled;
+  }
+
+  public boolean getSpanStackSamplerEnabled() {
+    return spanStackSamplerEnabled;
+  }
+
+  public int getCallStackMaxThreads() {
+    return callStackMaxThreads;
+  }
+
+  public double getOverheadBudget() {
+    return overheadBudget;
+  }
+
   @Nullable
   public Object getConfigProperties() {
     return configProperties;
@@ -204,12 +368,32 @@ public class ProfilerConfiguration {
         && tracingStacksOnly == that.tracingStacksOnly
         && stackDepth == that.stackDepth
         && keepFiles == that.keepFiles
+        && jfrStreamingEnabled == that.jfrStreamingEnabled
+        && jfrChunkDecoderEnabled == that.jfrChunkDecoderEnabled
+        && cpuAggregationEnabled == that.cpuAggregationEnabled
+        && exportMaxBytes == that.exportMaxBytes
+        && contextSlotsEnabled == that.contextSlotsEnabled
+        && executionSampleEnabled == that.executionSampleEnabled
+        && contentionEnabled == that.contentionEnabled
+        && ioEnabled == that.ioEnabled
+        && memoryWeightedSampling == that.memoryWeightedSampling
+        && memoryAggregationEnabled == that.memoryAggregationEnabled
+        && memoryAggregationMaxStacks == that.memoryAggregationMaxStacks
+        && leakEnabled == that.leakEnabled
+        && spanStackSamplerEnabled == that.spanStackSamplerEnabled
+        && callStackMaxThreads == that.callStackMaxThreads
+        && Double.compare(overheadBudget, that.overheadBudget) == 0
         && Objects.equals(ingestUrl, that.ingestUrl)
         && Objects.equals(otlpProtocol, that.otlpProtocol)
         && Objects.equals(memoryEventRate, that.memoryEventRate)
         && Objects.equals(callStackInterval, that.callStackInterval)
         && Objects.equals(profilerDirectory, that.profilerDirectory)
         && Objects.equals(recordingDuration, that.recordingDuration)
+        && Objects.equals(dataFormat, that.dataFormat)
+        && Objects.equals(executionSampleInterval, that.executionSampleInterval)
+        && Objects.equals(contentionThreshold, that.contentionThreshold)
+        && Objects.equals(ioSocketThreshold, that.ioSocketThreshold)
+        && Objects.equals(ioFileThreshold, that.ioFileThreshold)
         && Objects.equals(configProperties, that.configProperties);
   }
 
@@ -231,6 +415,26 @@ public class ProfilerConfiguration {
         keepFiles,
         profilerDirectory,
         recordingDuration,
+        jfrStreamingEnabled,
+        jfrChunkDecoderEnabled,
+        cpuAggregationEnabled,
+        exportMaxBytes,
+        dataFormat,
+        contextSlotsEnabled,
+        executionSampleEnabled,
+        executionSampleInterval,
+        contentionEnabled,
+        contentionThreshold,
+        ioEnabled,
+        ioSocketThreshold,
+        ioFileThreshold,
+        memoryWeightedSampling,
+        memoryAggregationEnabled,
+        memoryAggregationMaxStacks,
+        leakEnabled,
+        spanStackSamplerEnabled,
+        callStackMaxThreads,
+        overheadBudget,
         configProperties);
   }
 
@@ -258,6 +462,26 @@ public class ProfilerConfiguration {
     private boolean keepFiles;
     private String profilerDirectory = DEFAULT_PROFILER_DIRECTORY;
     private Duration recordingDuration = DEFAULT_RECORDING_DURATION;
+    private boolean jfrStreamingEnabled;
+    private boolean jfrChunkDecoderEnabled;
+    private boolean cpuAggregationEnabled;
+    private long exportMaxBytes = DEFAULT_EXPORT_MAX_BYTES;
+    private ProfilingDataFormat dataFormat = ProfilingDataFormat.PPROF_GZIP_BASE64;
+    private boolean contextSlotsEnabled;
+    private boolean executionSampleEnabled;
+    private Duration executionSampleInterval = DEFAULT_EXECUTION_SAMPLE_INTERVAL;
+    private boolean contentionEnabled;
+    private Duration contentionThreshold = DEFAULT_CONTENTION_THRESHOLD;
+    private boolean ioEnabled;
+    private Duration ioSocketThreshold = DEFAULT_IO_THRESHOLD;
+    private Duration ioFileThreshold = DEFAULT_IO_THRESHOLD;
+    private boolean memoryWeightedSampling;
+    private boolean memoryAggregationEnabled;
+    private int memoryAggregationMaxStacks;
+    private boolean leakEnabled;
+    private boolean spanStackSamplerEnabled;
+    private int callStackMaxThreads;
+    private double overheadBudget;
     @Nullable private Object configProperties;
 
     private Builder() {}
@@ -355,6 +579,106 @@ public class ProfilerConfiguration {
       return this;
     }
 
+    public Builder setJfrStreamingEnabled(boolean jfrStreamingEnabled) {
+      this.jfrStreamingEnabled = jfrStreamingEnabled;
+      return this;
+    }
+
+    public Builder setJfrChunkDecoderEnabled(boolean jfrChunkDecoderEnabled) {
+      this.jfrChunkDecoderEnabled = jfrChunkDecoderEnabled;
+      return this;
+    }
+
+    public Builder setCpuAggregationEnabled(boolean cpuAggregationEnabled) {
+      this.cpuAggregationEnabled = cpuAggregationEnabled;
+      return this;
+    }
+
+    public Builder setExportMaxBytes(long exportMaxBytes) {
+      this.exportMaxBytes = exportMaxBytes;
+      return this;
+    }
+
+    public Builder setDataFormat(ProfilingDataFormat dataFormat) {
+      this.dataFormat = dataFormat;
+      return this;
+    }
+
+    public Builder setContextSlotsEnabled(boolean contextSlotsEnabled) {
+      this.contextSlotsEnabled = contextSlotsEnabled;
+      return this;
+    }
+
+    public Builder setExecutionSampleEnabled(boolean executionSampleEnabled) {
+      this.executionSampleEnabled = executionSampleEnabled;
+      return this;
+    }
+
+    public Builder setExecutionSampleInterval(Duration executionSampleInterval) {
+      this.executionSampleInterval = executionSampleInterval;
+      return this;
+    }
+
+    public Builder setContentionEnabled(boolean contentionEnabled) {
+      this.contentionEnabled = contentionEnabled;
+      return this;
+    }
+
+    public Builder setContentionThreshold(Duration contentionThreshold) {
+      this.contentionThreshold = contentionThreshold;
+      return this;
+    }
+
+    public Builder setIoEnabled(boolean ioEnabled) {
+      this.ioEnabled = ioEnabled;
+      return this;
+    }
+
+    public Builder setIoSocketThreshold(Duration ioSocketThreshold) {
+      this.ioSocketThreshold = ioSocketThreshold;
+      return this;
+    }
+
+    public Builder setIoFileThreshold(Duration ioFileThreshold) {
+      this.ioFileThreshold = ioFileThreshold;
+      return this;
+    }
+
+    public Builder setMemoryWeightedSampling(boolean memoryWeightedSampling) {
+      this.memoryWeightedSampling = memoryWeightedSampling;
+      return this;
+    }
+
+    public Builder setMemoryAggregationEnabled(boolean memoryAggregationEnabled) {
+      this.memoryAggregationEnabled = memoryAggregationEnabled;
+      return this;
+    }
+
+    public Builder setMemoryAggregationMaxStacks(int memoryAggregationMaxStacks) {
+      this.memoryAggregationMaxStacks = memoryAggregationMaxStacks;
+      return this;
+    }
+
+    public Builder setLeakEnabled(boolean leakEnabled) {
+      this.leakEnabled = leakEnabled;
+      return this;
+    }
+
+    public Builder setSpanStackSamplerEnabled(boolean spanStackSamplerEnabled) {
+      this.spanStackSamplerEnabled = spanStackSamplerEnabled;
+      return this;
+    }
+
+    public Builder setCallStackMaxThreads(int callStackMaxThreads) {
+      this.callStackMaxThreads = callStackMaxThreads;
+      return this;
+    }
+
+    public Builder setOverheadBudget(double overheadBudget) {
+      this.overheadBudget = overheadBudget;
+      return this;
+    }
+
     public Builder setConfigProperties(@Nullable Object configProperties) {
       this.configProperties = configProperties;
       return this;
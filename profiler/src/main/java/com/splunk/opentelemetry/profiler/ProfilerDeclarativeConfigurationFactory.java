@@ -27,9 +27,17 @@ public final class ProfilerDeclarativeConfigurationFactory {
   private static final String DEFAULT_PROFILER_DIRECTORY = System.getProperty("java.io.tmpdir");
   private static final long DEFAULT_RECORDING_DURATION = Duration.ofSeconds(20).toMillis();
   private static final long DEFAULT_SAMPLING_INTERVAL = Duration.ofSeconds(10).toMillis();
+  private static final long DEFAULT_EXPORT_MAX_BYTES = 16 * 1024 * 1024;
+  private static final long DEFAULT_EXECUTION_SAMPLE_INTERVAL = 20;
+  private static final long DEFAULT_CONTENTION_THRESHOLD = 10;
+  private static final long DEFAULT_IO_THRESHOLD = 10;
 
   private static final String MEMORY_PROFILER = "memory_profiler";
   private static final String MEMORY_EVENT_RATE = "event_rate";
+  private static final String MEMORY_WEIGHTED_SAMPLING = "weighted_sampling";
+  private static final String CONTENTION_PROFILER = "contention_profiler";
+  private static final String IO_PROFILER = "io_profiler";
+  private static final String LEAK_PROFILER = "leak_profiler";
 
   private ProfilerDeclarativeConfigurationFactory() {}
 
@@ -41,11 +49,13 @@ public final class ProfilerDeclarativeConfigurationFactory {
     boolean useAllocationSampleEvent =
         ProfilerConfiguration.HAS_OBJECT_ALLOCATION_SAMPLE_EVENT
             && memoryProfilerConfig.getBoolean("native_sampling", false);
+    DeclarativeConfigProperties cpuProfilerConfig =
+        configRoot.getStructured("cpu_profiler", empty());
+    DeclarativeConfigProperties contentionProfilerConfig =
+        configRoot.getStructured(CONTENTION_PROFILER, empty());
+    DeclarativeConfigProperties ioProfilerConfig = configRoot.getStructured(IO_PROFILER, empty());
     Duration callStackInterval =
-        getDuration(
-            configRoot.getStructured("cpu_profiler", empty()),
-            "sampling_interval",
-            DEFAULT_SAMPLING_INTERVAL);
+        getDuration(cpuProfilerConfig, "sampling_interval", DEFAULT_SAMPLING_INTERVAL);
 
     return ProfilerConfiguration.builder()
         .setEnabled(config.getPropertyKeys().contains(ROOT_NODE_NAME))
@@ -53,16 +63,40 @@ public final class ProfilerDeclarativeConfigurationFactory {
         .setMemoryEventRateLimitEnabled(memoryProfilerConfig.getString(MEMORY_EVENT_RATE) != null)
         .setMemoryEventRate(memoryProfilerConfig.getString(MEMORY_EVENT_RATE, "150/s"))
         .setUseAllocationSampleEvent(useAllocationSampleEvent)
+        .setMemoryWeightedSampling(memoryProfilerConfig.getBoolean(MEMORY_WEIGHTED_SAMPLING, false))
+        .setMemoryAggregationEnabled(memoryProfilerConfig.getBoolean("aggregate_stacks", false))
+        .setMemoryAggregationMaxStacks(memoryProfilerConfig.getInt("max_stacks", 0))
         .setCallStackInterval(callStackInterval)
+        .setCallStackMaxThreads(cpuProfilerConfig.getInt("max_threads", 0))
         .setIncludeAgentInternalStacks(configRoot.getBoolean("include_agent_internals", false))
         .setIncludeJvmInternalStacks(configRoot.getBoolean("include_jvm_internals", false))
         .setTracingStacksOnly(configRoot.getBoolean("tracing_stacks_only", false))
+        .setSpanStackSamplerEnabled(cpuProfilerConfig.getBoolean("span_sampler", false))
         .setStackDepth(configRoot.getInt("stack_depth", 1024))
         .setKeepFiles(configRoot.getBoolean("keep_recording_files", false))
         .setProfilerDirectory(
             configRoot.getString("recording_directory", DEFAULT_PROFILER_DIRECTORY))
         .setRecordingDuration(
             getDuration(configRoot, "recording_duration", DEFAULT_RECORDING_DURATION))
+        .setJfrStreamingEnabled(configRoot.getBoolean("jfr_streaming", false))
+        .setJfrChunkDecoderEnabled(configRoot.getBoolean("jfr_decoder", false))
+        .setCpuAggregationEnabled(cpuProfilerConfig.getBoolean("aggregate_stacks", false))
+        .setExportMaxBytes(configRoot.getLong("export_max_bytes", DEFAULT_EXPORT_MAX_BYTES))
+        .setOverheadBudget(configRoot.getDouble("overhead_budget", 0.0))
+        .setDataFormat(ProfilingDataFormat.fromValue(configRoot.getString("data_format")))
+        .setContextSlotsEnabled(configRoot.getBoolean("context_slots", false))
+        .setExecutionSampleEnabled(cpuProfilerConfig.getBoolean("execution_samples", false))
+        .setExecutionSampleInterval(
+            getDuration(
+                cpuProfilerConfig, "execution_sample_interval", DEFAULT_EXECUTION_SAMPLE_INTERVAL))
+        .setContentionEnabled(configRoot.getPropertyKeys().contains(CONTENTION_PROFILER))
+        .setContentionThreshold(
+            getDuration(contentionProfilerConfig, "threshold", DEFAULT_CONTENTION_THRESHOLD))
+        .setIoEnabled(configRoot.getPropertyKeys().contains(IO_PROFILER))
+        .setIoSocketThreshold(
+            getDuration(ioProfilerConfig, "socket_threshold", DEFAULT_IO_THRESHOLD))
+        .setIoFileThreshold(getDuration(ioProfilerConfig, "file_threshold", DEFAULT_IO_THRESHOLD))
+        .setLeakEnabled(configRoot.getPropertyKeys().contains(LEAK_PROFILER))
         .setConfigProperties(config)
         .build();
   }
@@ -41,7 +41,14 @@ public final class ProfilerEnvVarsConfigurationFactory {
       "splunk.profiler.memory.event.rate-limit.enabled";
   static final String CONFIG_KEY_MEMORY_EVENT_RATE = "splunk.profiler.memory.event.rate";
   static final String CONFIG_KEY_MEMORY_NATIVE_SAMPLING = "splunk.profiler.memory.native.sampling";
+  static final String CONFIG_KEY_MEMORY_WEIGHTED_SAMPLING =
+      "splunk.profiler.memory.weighted.sampling";
+  static final String CONFIG_KEY_MEMORY_AGGREGATION_ENABLED =
+      "splunk.profiler.memory.aggregation.enabled";
+  static final String CONFIG_KEY_MEMORY_AGGREGATION_MAX_STACKS =
+      "splunk.profiler.memory.aggregation.max.stacks";
   static final String CONFIG_KEY_CALL_STACK_INTERVAL = "splunk.profiler.call.stack.interval";
+  static final String CONFIG_KEY_CALL_STACK_MAX_THREADS = "splunk.profiler.call.stack.max.threads";
   static final String CONFIG_KEY_INCLUDE_AGENT_INTERNALS =
       "splunk.profiler.include.agent.internals";
   // Include stacks where every frame starts with jvm/sun/jdk
@@ -49,11 +56,35 @@ public final class ProfilerEnvVarsConfigurationFactory {
   static final String CONFIG_KEY_INCLUDE_INTERNAL_STACKS =
       "splunk.profiler.include.internal.stacks";
   static final String CONFIG_KEY_TRACING_STACKS_ONLY = "splunk.profiler.tracing.stacks.only";
+  static final String CONFIG_KEY_SPAN_STACK_SAMPLER_ENABLED =
+      "splunk.profiler.tracing.stacks.sampler.enabled";
   static final String CONFIG_KEY_STACK_DEPTH = "splunk.profiler.max.stack.depth";
+  static final String CONFIG_KEY_JFR_STREAMING_ENABLED = "splunk.profiler.jfr.streaming.enabled";
+  static final String CONFIG_KEY_JFR_DECODER_ENABLED = "splunk.profiler.jfr.decoder.enabled";
+  static final String CONFIG_KEY_CPU_AGGREGATION_ENABLED =
+      "splunk.profiler.cpu.aggregation.enabled";
+  static final String CONFIG_KEY_EXPORT_MAX_BYTES = "splunk.profiler.export.max.bytes";
+  static final String CONFIG_KEY_OVERHEAD_BUDGET = "splunk.profiler.overhead.budget";
+  static final String CONFIG_KEY_DATA_FORMAT = "splunk.profiler.data.format";
+  static final String CONFIG_KEY_CONTEXT_SLOTS_ENABLED = "splunk.profiler.context.slots.enabled";
+  static final String CONFIG_KEY_EXECUTION_SAMPLE_ENABLED =
+      "splunk.profiler.cpu.execution.sample.enabled";
+  static final String CONFIG_KEY_EXECUTION_SAMPLE_INTERVAL =
+      "splunk.profiler.cpu.execution.sample.interval";
+  static final String CONFIG_KEY_CONTENTION_ENABLED = "splunk.profiler.contention.enabled";
+  static final String CONFIG_KEY_CONTENTION_THRESHOLD = "splunk.profiler.contention.threshold";
+  static final String CONFIG_KEY_IO_ENABLED = "splunk.profiler.io.enabled";
+  static final String CONFIG_KEY_IO_SOCKET_THRESHOLD = "splunk.profiler.io.socket.threshold";
+  static final String CONFIG_KEY_IO_FILE_THRESHOLD = "splunk.profiler.io.file.threshold";
+  static final String CONFIG_KEY_LEAK_ENABLED = "splunk.profiler.memory.leak.enabled";
 
   private static final String DEFAULT_PROFILER_DIRECTORY = System.getProperty("java.io.tmpdir");
   private static final Duration DEFAULT_RECORDING_DURATION = Duration.ofSeconds(20);
   private static final Duration DEFAULT_CALL_STACK_INTERVAL = Duration.ofSeconds(10);
+  private static final long DEFAULT_EXPORT_MAX_BYTES = 16 * 1024 * 1024;
+  private static final Duration DEFAULT_EXECUTION_SAMPLE_INTERVAL = Duration.ofMillis(20);
+  private static final Duration DEFAULT_CONTENTION_THRESHOLD = Duration.ofMillis(10);
+  private static final Duration DEFAULT_IO_THRESHOLD = Duration.ofMillis(10);
 
   private ProfilerEnvVarsConfigurationFactory() {}
 
@@ -73,19 +104,45 @@ public final class ProfilerEnvVarsConfigurationFactory {
             config.getBoolean(CONFIG_KEY_MEMORY_EVENT_RATE_LIMIT_ENABLED, true))
         .setMemoryEventRate(config.getString(CONFIG_KEY_MEMORY_EVENT_RATE, "150/s"))
         .setUseAllocationSampleEvent(useAllocationSampleEvent)
+        .setMemoryWeightedSampling(config.getBoolean(CONFIG_KEY_MEMORY_WEIGHTED_SAMPLING, false))
+        .setMemoryAggregationEnabled(
+            config.getBoolean(CONFIG_KEY_MEMORY_AGGREGATION_ENABLED, false))
+        .setMemoryAggregationMaxStacks(config.getInt(CONFIG_KEY_MEMORY_AGGREGATION_MAX_STACKS, 0))
         .setCallStackInterval(
             config.getDuration(CONFIG_KEY_CALL_STACK_INTERVAL, DEFAULT_CALL_STACK_INTERVAL))
+        .setCallStackMaxThreads(config.getInt(CONFIG_KEY_CALL_STACK_MAX_THREADS, 0))
         .setIncludeAgentInternalStacks(
             config.getBoolean(CONFIG_KEY_INCLUDE_AGENT_INTERNALS, includeInternals))
         .setIncludeJvmInternalStacks(
             config.getBoolean(CONFIG_KEY_INCLUDE_JVM_INTERNALS, includeInternals))
         .setTracingStacksOnly(config.getBoolean(CONFIG_KEY_TRACING_STACKS_ONLY, false))
+        .setSpanStackSamplerEnabled(
+            config.getBoolean(CONFIG_KEY_SPAN_STACK_SAMPLER_ENABLED, false))
         .setStackDepth(config.getInt(CONFIG_KEY_STACK_DEPTH, 1024))
         .setKeepFiles(config.getBoolean(CONFIG_KEY_KEEP_FILES, false))
         .setProfilerDirectory(
             config.getString(CONFIG_KEY_PROFILER_DIRECTORY, DEFAULT_PROFILER_DIRECTORY))
         .setRecordingDuration(
             config.getDuration(CONFIG_KEY_RECORDING_DURATION, DEFAULT_RECORDING_DURATION))
+        .setJfrStreamingEnabled(config.getBoolean(CONFIG_KEY_JFR_STREAMING_ENABLED, false))
+        .setJfrChunkDecoderEnabled(config.getBoolean(CONFIG_KEY_JFR_DECODER_ENABLED, false))
+        .setCpuAggregationEnabled(config.getBoolean(CONFIG_KEY_CPU_AGGREGATION_ENABLED, false))
+        .setExportMaxBytes(config.getLong(CONFIG_KEY_EXPORT_MAX_BYTES, DEFAULT_EXPORT_MAX_BYTES))
+        .setOverheadBudget(config.getDouble(CONFIG_KEY_OVERHEAD_BUDGET, 0))
+        .setDataFormat(ProfilingDataFormat.fromValue(config.getString(CONFIG_KEY_DATA_FORMAT)))
+        .setContextSlotsEnabled(config.getBoolean(CONFIG_KEY_CONTEXT_SLOTS_ENABLED, false))
+        .setExecutionSampleEnabled(config.getBoolean(CONFIG_KEY_EXECUTION_SAMPLE_ENABLED, false))
+        .setExecutionSampleInterval(
+            config.getDuration(
+                CONFIG_KEY_EXECUTION_SAMPLE_INTERVAL, DEFAULT_EXECUTION_SAMPLE_INTERVAL))
+        .setContentionEnabled(config.getBoolean(CONFIG_KEY_CONTENTION_ENABLED, false))
+        .setContentionThreshold(
+            config.getDuration(CONFIG_KEY_CONTENTION_THRESHOLD, DEFAULT_CONTENTION_THRESHOLD))
+        .setIoEnabled(config.getBoolean(CONFIG_KEY_IO_ENABLED, false))
+        .setIoSocketThreshold(
+            config.getDuration(CONFIG_KEY_IO_SOCKET_THRESHOLD, DEFAULT_IO_THRESHOLD))
+        .setIoFileThreshold(config.getDuration(CONFIG_KEY_IO_FILE_THRESHOLD, DEFAULT_IO_THRESHOLD))
+        .setLeakEnabled(config.getBoolean(CONFIG_KEY_LEAK_ENABLED, false))
         .setConfigProperties(config)
         .build();
   }
@@ -0,0 +1,197 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.opentelemetry.profiler;
+
+import static com.splunk.opentelemetry.profiler.ProfilingSemanticAttributes.DATA_TYPE;
+import static com.splunk.opentelemetry.profiler.ProfilingSemanticAttributes.SOURCE_EVENT_NAME;
+
+import com.google.common.annotations.VisibleForTesting;
+import io.opentelemetry.api.GlobalOpenTelemetry;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.DoubleHistogram;
+import io.opentelemetry.api.metrics.LongCounter;
+import io.opentelemetry.api.metrics.LongHistogram;
+import io.opentelemetry.api.metrics.Meter;
+import io.opentelemetry.api.metrics.ObservableLongGauge;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntSupplier;
+
+/**
+ * Metrics describing the cost of the profiler itself: how many events it processes, how long
+ * parsing and serializing takes, how large the exported payloads are and how much data is dropped.
+ */
+public final class ProfilerMetrics {
+  private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+  private final Meter meter;
+  private final LongCounter events;
+  private final DoubleHistogram chunkParseDuration;
+  private final DoubleHistogram threadDumpProcessingDuration;
+  private final DoubleHistogram pprofSerializeDuration;
+  private final LongHistogram pprofSize;
+  private final LongHistogram pprofFrames;
+  private final DoubleHistogram exportDuration;
+  private final LongCounter exportFailures;
+  private final LongCounter droppedStackTraces;
+  private final LongCounter droppedStackSamples;
+  // attribute values come from a small fixed set, cache them to avoid allocating on every call
+  private final Map<String, Attributes> eventAttributes = new ConcurrentHashMap<>();
+  private final Map<ProfilingDataType, Attributes> dataTypeAttributes = new ConcurrentHashMap<>();
+
+  @VisibleForTesting
+  ProfilerMetrics(Meter meter) {
+    this.meter = meter;
+    this.events =
+        meter
+            .counterBuilder("splunk.profiler.events")
+            .setUnit("{event}")
+            .setDescription("Number of JFR events processed by the profiler.")
+            .build();
+    this.chunkParseDuration =
+        meter
+            .histogramBuilder("splunk.profiler.chunk.parse.duration")
+            .setUnit("s")
+            .setDescription("Time spent parsing a JFR chunk.")
+            .build();
+    this.threadDumpProcessingDuration =
+        meter
+            .histogramBuilder("splunk.profiler.thread_dump.processing.duration")
+            .setUnit("s")
+            .setDescription("Time spent processing thread dumps between two exports.")
+            .build();
+    this.pprofSerializeDuration =
+        meter
+            .histogramBuilder("splunk.profiler.pprof.serialize.duration")
+            .setUnit("s")
+            .setDescription("Time spent serializing a pprof payload.")
+            .build();
+    this.pprofSize =
+        meter
+            .histogramBuilder("splunk.profiler.pprof.size")
+            .ofLongs()
+            .setUnit("By")
+            .setDescription("Size of an exported pprof payload.")
+            .build();
+    this.pprofFrames =
+        meter
+            .histogramBuilder("splunk.profiler.pprof.frames")
+            .ofLongs()
+            .setUnit("{frame}")
+            .setDescription("Number of stack frames in an exported pprof payload.")
+            .build();
+    this.exportDuration =
+        meter
+            .histogramBuilder("splunk.profiler.export.duration")
+            .setUnit("s")
+            .setDescription("Time spent exporting a batch of profiling log records.")
+            .build();
+    this.exportFailures =
+        meter
+            .counterBuilder("splunk.profiler.export.failures")
+            .setUnit("{record}")
+            .setDescription("Number of profiling log records that failed to export.")
+            .build();
+    this.droppedStackTraces =
+        meter
+            .counterBuilder("splunk.profiler.stack_traces.dropped")
+            .setUnit("{stack_trace}")
+            .setDescription("Number of snapshot stack traces dropped because the queue was full.")
+            .build();
+    this.droppedStackSamples =
+        meter
+            .counterBuilder("splunk.profiler.stack_samples.dropped")
+            .setUnit("{sample}")
+            .setDescription(
+                "Number of sampled thread stacks dropped because too many samples were queued.")
+            .build();
+  }
+
+  /** Returns the metrics reported through {@link GlobalOpenTelemetry}. */
+  public static ProfilerMetrics get() {
+    return Holder.INSTANCE;
+  }
+
+  public void recordEvents(String eventName, long count) {
+    Attributes attributes =
+        eventAttributes.computeIfAbsent(eventName, k -> Attributes.of(SOURCE_EVENT_NAME, k));
+    events.add(count, attributes);
+  }
+
+  public void recordChunkParse(long durationNanos) {
+    chunkParseDuration.record(durationNanos / NANOS_PER_SECOND);
+  }
+
+  public void recordThreadDumpProcessing(long durationNanos) {
+    threadDumpProcessingDuration.record(durationNanos / NANOS_PER_SECOND);
+  }
+
+  public void recordPprofSerialize(ProfilingDataType dataType, long durationNanos) {
+    pprofSerializeDuration.record(durationNanos / NANOS_PER_SECOND, attributes(dataType));
+  }
+
+  public void recordPprofPayload(ProfilingDataType dataType, long bytes, long frameCount) {
+    Attributes attributes = attributes(dataType);
+    pprofSize.record(bytes, attributes);
+    pprofFrames.record(frameCount, attributes);
+  }
+
+  public void recordExport(long durationNanos, boolean success, int recordCount) {
+    exportDuration.record(durationNanos / NANOS_PER_SECOND);
+    if (!success) {
+      exportFailures.add(recordCount);
+    }
+  }
+
+  public void recordDroppedStackTrace() {
+    droppedStackTraces.add(1);
+  }
+
+  public void recordDroppedStackSample() {
+    droppedStackSamples.add(1);
+  }
+
+  /**
+   * Reports the number of snapshot stack traces waiting for export. The returned gauge should be
+   * closed when the queue is no longer used.
+   */
+  public ObservableLongGauge observeStagingQueueSize(IntSupplier queueSize) {
+    return meter
+        .gaugeBuilder("splunk.profiler.staging.queue.size")
+        .ofLongs()
+        .setUnit("{stack_trace}")
+        .setDescription("Number of snapshot stack traces waiting for export.")
+        .buildWithCallback(measurement -> measurement.record(queueSize.getAsInt()));
+  }
+
+  private Attributes attributes(ProfilingDataType dataType) {
+    return dataTypeAttributes.computeIfAbsent(dataType, k -> Attributes.of(DATA_TYPE, k.value()));
+  }
+
+  private static class Holder {
+    // built lazily so that the meter is created after the agent has installed the global sdk
+    static final ProfilerMetrics INSTANCE =
+        new ProfilerMetrics(
+            GlobalOpenTelemetry.get()
+                .getMeterProvider()
+                .meterBuilder(ProfilingSemanticAttributes.OTEL_INSTRUMENTATION_NAME)
+                .setInstrumentationVersion(
+                    ProfilingSemanticAttributes.OTEL_INSTRUMENTATION_VERSION)
+                .build());
+  }
+}
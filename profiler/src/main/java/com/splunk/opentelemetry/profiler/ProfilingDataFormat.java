@@ -0,0 +1,59 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.opentelemetry.profiler;
+
+import static java.util.logging.Level.WARNING;
+
+import java.util.logging.Logger;
+import javax.annotation.Nullable;
+
+/** Encoding of the pprof payload in the profiling log record body. */
+public enum ProfilingDataFormat {
+  /** Gzip compressed pprof, base64 encoded into a string body. */
+  PPROF_GZIP_BASE64(ProfilingSemanticAttributes.PPROF_GZIP_BASE64),
+  /** Gzip compressed pprof in a bytes body. */
+  PPROF_GZIP(ProfilingSemanticAttributes.PPROF_GZIP);
+
+  private static final Logger logger = Logger.getLogger(ProfilingDataFormat.class.getName());
+
+  private final String value;
+
+  ProfilingDataFormat(String value) {
+    this.value = value;
+  }
+
+  public String value() {
+    return value;
+  }
+
+  /** Returns the format with the given value, defaults to {@link #PPROF_GZIP_BASE64}. */
+  public static ProfilingDataFormat fromValue(@Nullable String value) {
+    if (value == null) {
+      return PPROF_GZIP_BASE64;
+    }
+    for (ProfilingDataFormat format : values()) {
+      if (format.value.equals(value)) {
+        return format;
+      }
+    }
+    logger.log(
+        WARNING,
+        "Unknown profiling data format {0}, using {1}.",
+        new Object[] {value, PPROF_GZIP_BASE64.value});
+    return PPROF_GZIP_BASE64;
+  }
+}
@@ -20,7 +20,10 @@ import java.util.Locale;
 
 public enum ProfilingDataType {
   ALLOCATION,
-  CPU;
+  CPU,
+  CONTENTION,
+  IO,
+  LEAK;
 
   private final String value;
 
@@ -0,0 +1,320 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.opentelemetry.profiler;
+
+import static java.util.logging.Level.FINE;
+import static java.util.logging.Level.WARNING;
+
+import com.splunk.opentelemetry.profiler.util.ProfilerThreads;
+import io.opentelemetry.api.common.Value;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.logs.LogRecordProcessor;
+import io.opentelemetry.sdk.logs.ReadWriteLogRecord;
+import io.opentelemetry.sdk.logs.data.LogRecordData;
+import io.opentelemetry.sdk.logs.export.LogRecordExporter;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Log record processor for profiling payloads. Records are queued and exported in batches on a
+ * dedicated thread, so that a slow collector does not block the thread that produces the profiling
+ * data. The queue is bounded both by the number of records and by the total size of the record
+ * bodies that are queued or being exported. Records that do not fit are dropped and counted.
+ */
+class ProfilingLogRecordProcessor implements LogRecordProcessor {
+  private static final Logger logger =
+      Logger.getLogger(ProfilingLogRecordProcessor.class.getName());
+  private static final long DROP_WARNING_INTERVAL_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+  private final LogRecordExporter exporter;
+  private final int maxQueueSize;
+  private final int maxExportBatchSize;
+  private final long maxInFlightBytes;
+  private final long exportTimeoutNanos;
+  private final ProfilerMetrics metrics;
+  private final Thread worker;
+  private final CompletableResultCode shutdownResult = new CompletableResultCode();
+
+  private final Object lock = new Object();
+  // guarded by lock
+  private final ArrayDeque<QueuedRecord> queue = new ArrayDeque<>();
+  private final List<CompletableResultCode> pendingFlushes = new ArrayList<>();
+  private long inFlightBytes;
+  private long droppedRecords;
+  private long droppedBytes;
+  private long lastDropWarningNanos;
+  private boolean shutdown;
+
+  private ProfilingLogRecordProcessor(Builder builder) {
+    this.exporter = builder.exporter;
+    this.maxQueueSize = builder.maxQueueSize;
+    this.maxExportBatchSize = builder.maxExportBatchSize;
+    this.maxInFlightBytes = builder.maxInFlightBytes;
+    this.exportTimeoutNanos = builder.exportTimeout.toNanos();
+    this.metrics = builder.metrics;
+    this.worker = new Thread(this::exportLoop, "splunk-profiler-log-exporter");
+    this.worker.setDaemon(true);
+    ProfilerThreads.getInstance().register(worker);
+    this.worker.start();
+  }
+
+  @Override
+  public void onEmit(Context context, ReadWriteLogRecord logRecord) {
+    LogRecordData logRecordData = logRecord.toLogRecordData();
+    long size = bodySize(logRecordData);
+    synchronized (lock) {
+      // a single record larger than the budget is accepted when nothing else is in flight
+      if (shutdown
+          || queue.size() >= maxQueueSize
+          || (inFlightBytes > 0 && inFlightBytes + size > maxInFlightBytes)) {
+        recordDrop(size);
+        return;
+      }
+      queue.add(new QueuedRecord(logRecordData, size));
+      inFlightBytes += size;
+      lock.notifyAll();
+    }
+  }
+
+  @Override
+  public CompletableResultCode forceFlush() {
+    CompletableResultCode result = new CompletableResultCode();
+    synchronized (lock) {
+      if (shutdown) {
+        return shutdownResult;
+      }
+      pendingFlushes.add(result);
+      lock.notifyAll();
+    }
+    return result;
+  }
+
+  @Override
+  public CompletableResultCode shutdown() {
+    synchronized (lock) {
+      shutdown = true;
+      lock.notifyAll();
+    }
+    return shutdownResult;
+  }
+
+  long getDroppedRecords() {
+    synchronized (lock) {
+      return droppedRecords;
+    }
+  }
+
+  long getDroppedBytes() {
+    synchronized (lock) {
+      return droppedBytes;
+    }
+  }
+
+  long getInFlightBytes() {
+    synchronized (lock) {
+      return inFlightBytes;
+    }
+  }
+
+  private void recordDrop(long size) {
+    droppedRecords++;
+    droppedBytes += size;
+    long now = System.nanoTime();
+    if (droppedRecords == 1 || now - lastDropWarningNanos >= DROP_WARNING_INTERVAL_NANOS) {
+      lastDropWarningNanos = now;
+      logger.log(
+          WARNING,
+          "Profiling data export is falling behind, dropped {0} records ({1} bytes) so far.",
+          new Object[] {droppedRecords, droppedBytes});
+    }
+  }
+
+  private void exportLoop() {
+    List<LogRecordData> batch = new ArrayList<>(maxExportBatchSize);
+    while (true) {
+      List<CompletableResultCode> flushes = null;
+      long batchBytes = 0;
+      boolean done;
+      synchronized (lock) {
+        while (!shutdown && queue.isEmpty() && pendingFlushes.isEmpty()) {
+          try {
+            lock.wait();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            shutdown = true;
+          }
+        }
+        while (!queue.isEmpty() && batch.size() < maxExportBatchSize) {
+          QueuedRecord queuedRecord = queue.poll();
+          batch.add(queuedRecord.logRecordData);
+          batchBytes += queuedRecord.size;
+        }
+        if (queue.isEmpty() && !pendingFlushes.isEmpty()) {
+          flushes = new ArrayList<>(pendingFlushes);
+          pendingFlushes.clear();
+        }
+        done = shutdown && queue.isEmpty();
+      }
+
+      if (!batch.isEmpty()) {
+        export(batch, batchBytes);
+        // the exporter may still hold the batch when the export timed out
+        batch = new ArrayList<>(maxExportBatchSize);
+      }
+      if (flushes != null) {
+        CompletableResultCode exporterFlush = exporter.flush();
+        for (CompletableResultCode flush : flushes) {
+          exporterFlush.whenComplete(() -> complete(flush, exporterFlush));
+        }
+      }
+      if (done) {
+        break;
+      }
+    }
+
+    List<CompletableResultCode> flushes;
+    synchronized (lock) {
+      flushes = new ArrayList<>(pendingFlushes);
+      pendingFlushes.clear();
+    }
+    flushes.forEach(CompletableResultCode::succeed);
+    CompletableResultCode exporterShutdown = exporter.shutdown();
+    exporterShutdown.whenComplete(() -> complete(shutdownResult, exporterShutdown));
+  }
+
+  private static void complete(CompletableResultCode result, CompletableResultCode source) {
+    if (source.isSuccess()) {
+      result.succeed();
+    } else {
+      result.fail();
+    }
+  }
+
+  /**
+   * Exports a batch and waits for the export to complete, at most for the export timeout. The bytes
+   * of the batch stay in flight until the exporter is done with the batch, also when waiting for it
+   * timed out.
+   */
+  private void export(List<LogRecordData> batch, long batchBytes) {
+    long start = System.nanoTime();
+    boolean success = false;
+    CompletableResultCode result = null;
+    try {
+      result = exporter.export(batch);
+      result.join(exportTimeoutNanos, TimeUnit.NANOSECONDS);
+      success = result.isSuccess();
+      if (!success) {
+        logger.log(FINE, "Failed to export {0} profiling log records.", batch.size());
+      }
+    } catch (RuntimeException exception) {
+      logger.log(WARNING, "Exception thrown while exporting profiling data.", exception);
+    } finally {
+      metrics.recordExport(System.nanoTime() - start, success, batch.size());
+      if (result != null) {
+        result.whenComplete(() -> releaseInFlightBytes(batchBytes));
+      } else {
+        releaseInFlightBytes(batchBytes);
+      }
+    }
+  }
+
+  private void releaseInFlightBytes(long bytes) {
+    synchronized (lock) {
+      inFlightBytes -= bytes;
+    }
+  }
+
+  private static long bodySize(LogRecordData logRecordData) {
+    Value<?> body = logRecordData.getBodyValue();
+    if (body == null) {
+      return 0;
+    }
+    Object value = body.getValue();
+    if (value instanceof String) {
+      return ((String) value).length();
+    }
+    if (value instanceof ByteBuffer) {
+      return ((ByteBuffer) value).remaining();
+    }
+    return body.asString().length();
+  }
+
+  static Builder builder(LogRecordExporter exporter) {
+    return new Builder(exporter);
+  }
+
+  private static class QueuedRecord {
+    final LogRecordData logRecordData;
+    final long size;
+
+    QueuedRecord(LogRecordData logRecordData, long size) {
+      this.logRecordData = logRecordData;
+      this.size = size;
+    }
+  }
+
+  static class Builder {
+    private final LogRecordExporter exporter;
+    private int maxQueueSize = 64;
+    private int maxExportBatchSize = 16;
+    private long maxInFlightBytes = 16 * 1024 * 1024;
+    private Duration exportTimeout = Duration.ofSeconds(30);
+    private ProfilerMetrics metrics = ProfilerMetrics.get();
+
+    private Builder(LogRecordExporter exporter) {
+      this.exporter = exporter;
+    }
+
+    /** Maximum number of records waiting for export. */
+    Builder maxQueueSize(int maxQueueSize) {
+      this.maxQueueSize = maxQueueSize;
+      return this;
+    }
+
+    /** Maximum number of records passed to a single {@link LogRecordExporter#export} call. */
+    Builder maxExportBatchSize(int maxExportBatchSize) {
+      this.maxExportBatchSize = maxExportBatchSize;
+      return this;
+    }
+
+    /** Maximum total body size of the records that are waiting for export or being exported. */
+    Builder maxInFlightBytes(long maxInFlightBytes) {
+      this.maxInFlightBytes = maxInFlightBytes;
+      return this;
+    }
+
+    Builder exportTimeout(Duration exportTimeout) {
+      this.exportTimeout = exportTimeout;
+      return this;
+    }
+
+    Builder metrics(ProfilerMetrics metrics) {
+      this.metrics = metrics;
+      return this;
+    }
+
+    ProfilingLogRecordProcessor build() {
+      return new ProfilingLogRecordProcessor(this);
+    }
+  }
+}
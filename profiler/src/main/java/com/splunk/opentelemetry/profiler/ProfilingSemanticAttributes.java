@@ -38,6 +38,7 @@ public class ProfilingSemanticAttributes {
   public static final AttributeKey<String> DATA_TYPE = stringKey("profiling.data.type");
   public static final AttributeKey<String> DATA_FORMAT = stringKey("profiling.data.format");
   public static final String PPROF_GZIP_BASE64 = "pprof-gzip-base64";
+  public static final String PPROF_GZIP = "pprof-gzip";
   public static final AttributeKey<Long> FRAME_COUNT = longKey("profiling.data.total.frame.count");
   public static final AttributeKey<String> INSTRUMENTATION_SOURCE =
       stringKey("profiling.instrumentation.source");
@@ -52,6 +53,11 @@ public class ProfilingSemanticAttributes {
   public static final String LOCK_WAITING_ON = "lock.waiting_on";
   public static final String LOCK_OWNER_THREAD = "lock.owner_thread";
   public static final String LOCK_HELD_PREFIX = "lock.held.";
+  public static final AttributeKey<String> LOCK_CLASS = stringKey("lock.class");
+  public static final AttributeKey<String> IO_TARGET = stringKey("io.target");
+  public static final AttributeKey<String> ALLOCATION_CLASS = stringKey("memory.allocated.type");
+  /** Age of a sampled live object, in ms. */
+  public static final AttributeKey<Long> OBJECT_AGE = longKey("memory.object.age");
 
   public static final AttributeKey<String> TRACE_ID = stringKey("trace_id");
   public static final AttributeKey<String> SPAN_ID = stringKey("span_id");
@@ -22,6 +22,7 @@ import static java.util.logging.Level.WARNING;
 import com.google.common.annotations.VisibleForTesting;
 import com.splunk.opentelemetry.instrumentation.jvmmetrics.otel.OtelAllocatedMemoryMetrics;
 import com.splunk.opentelemetry.instrumentation.jvmmetrics.otel.OtelGcMemoryMetrics;
+import com.splunk.opentelemetry.profiler.context.ThreadContextSlots;
 import com.splunk.opentelemetry.profiler.util.HelpfulExecutors;
 import com.splunk.opentelemetry.profiler.util.OptionalConfigurableSupplier;
 import io.opentelemetry.context.ContextStorage;
@@ -144,6 +145,10 @@ public class ProfilingSupervisor {
   private void setJfrContextStorageEnabled(boolean enabled) {
     JfrContextStorage contextStorage = jfrContextStorage.get();
     if (contextStorage != null) {
+      if (enabled) {
+        boolean useSlots = configSupplier.get().getContextSlotsEnabled();
+        contextStorage.setThreadContextSlots(useSlots ? ThreadContextSlots.getInstance() : null);
+      }
       contextStorage.setEnabled(enabled);
     }
   }
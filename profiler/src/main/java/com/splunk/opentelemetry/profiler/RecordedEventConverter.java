@@ -0,0 +1,187 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.opentelemetry.profiler;
+
+import com.splunk.opentelemetry.profiler.events.ContextAttached;
+import com.splunk.opentelemetry.profiler.events.ProfilerEvent;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import jdk.jfr.consumer.RecordedClass;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedMethod;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordedThread;
+
+/**
+ * Converts events read from a JFR event stream to {@link ProfilerEvent}s. Threads, stack traces and
+ * methods are shared by many events, they are converted once and cached until {@link
+ * #clearCaches()} is called. This class is not thread safe.
+ */
+class RecordedEventConverter {
+  private final Map<RecordedThread, ProfilerEvent.JavaThread> threads = new IdentityHashMap<>();
+  private final Map<RecordedStackTrace, ProfilerEvent.StackTrace> stackTraces =
+      new IdentityHashMap<>();
+  private final Map<RecordedMethod, ProfilerEvent.Method> methods = new IdentityHashMap<>();
+
+  ProfilerEvent convert(RecordedEvent event) {
+    String eventName = event.getEventType().getName();
+    ProfilerEvent.Builder builder =
+        ProfilerEvent.builder(eventName)
+            .startTime(toEpochNanos(event.getStartTime()))
+            .thread(convertThread(event.getThread()));
+    switch (eventName) {
+      case ContextAttached.EVENT_NAME:
+        builder
+            .traceId(event.getString("traceId"))
+            .spanId(event.getString("spanId"))
+            .traceFlags(event.getByte("traceFlags"));
+        break;
+      case ThreadDumpProcessor.EVENT_NAME:
+        builder.threadDumpResult(event.getString("result"));
+        break;
+      case TLABProcessor.NEW_TLAB_EVENT_NAME:
+      case TLABProcessor.OUTSIDE_TLAB_EVENT_NAME:
+        builder
+            .allocationSize(event.getLong("allocationSize"))
+            .objectClass(className(event.getClass("objectClass")))
+            .stackTrace(convertStackTrace(event.getStackTrace()));
+        break;
+      case TLABProcessor.ALLOCATION_SAMPLE_EVENT_NAME:
+        builder
+            .sampleWeight(event.getLong("weight"))
+            .objectClass(className(event.getClass("objectClass")))
+            .stackTrace(convertStackTrace(event.getStackTrace()));
+        break;
+      case ExecutionSampleProcessor.EXECUTION_SAMPLE_EVENT_NAME:
+      case ExecutionSampleProcessor.NATIVE_METHOD_SAMPLE_EVENT_NAME:
+        // execution samples have the sampled thread instead of the event thread
+        builder
+            .thread(convertThread(event.getThread("sampledThread")))
+            .stackTrace(convertStackTrace(event.getStackTrace()));
+        break;
+      case ContentionProcessor.MONITOR_ENTER_EVENT_NAME:
+      case ContentionProcessor.MONITOR_WAIT_EVENT_NAME:
+        builder
+            .duration(event.getDuration().toNanos())
+            .monitorClass(className(event.getClass("monitorClass")))
+            .stackTrace(convertStackTrace(event.getStackTrace()));
+        break;
+      case ContentionProcessor.THREAD_PARK_EVENT_NAME:
+        builder
+            .duration(event.getDuration().toNanos())
+            .monitorClass(className(event.getClass("parkedClass")))
+            .stackTrace(convertStackTrace(event.getStackTrace()));
+        break;
+      case IoProcessor.SOCKET_READ_EVENT_NAME:
+      case IoProcessor.SOCKET_WRITE_EVENT_NAME:
+        builder
+            .duration(event.getDuration().toNanos())
+            .bytes(event.getLong(bytesField(eventName)))
+            .host(event.getString("host"))
+            .address(event.getString("address"))
+            .port(event.getInt("port"))
+            .stackTrace(convertStackTrace(event.getStackTrace()));
+        break;
+      case LeakProcessor.EVENT_NAME:
+        // start time is the allocation time and duration the age of the object
+        builder
+            .duration(event.getDuration().toNanos())
+            .objectClass(className(event.getClass("object.type")))
+            .stackTrace(convertStackTrace(event.getStackTrace()));
+        break;
+      case IoProcessor.FILE_READ_EVENT_NAME:
+      case IoProcessor.FILE_WRITE_EVENT_NAME:
+        builder
+            .duration(event.getDuration().toNanos())
+            .bytes(event.getLong(bytesField(eventName)))
+            .path(event.getString("path"))
+            .stackTrace(convertStackTrace(event.getStackTrace()));
+        break;
+    }
+    return builder.build();
+  }
+
+  void clearCaches() {
+    threads.clear();
+    stackTraces.clear();
+    methods.clear();
+  }
+
+  private ProfilerEvent.JavaThread convertThread(RecordedThread thread) {
+    // events committed by native threads don't have a java thread id
+    if (thread == null || thread.getJavaThreadId() < 0) {
+      return null;
+    }
+    return threads.computeIfAbsent(
+        thread, t -> new ProfilerEvent.JavaThread(t.getJavaThreadId(), t.getJavaName()));
+  }
+
+  private static String bytesField(String eventName) {
+    return IoProcessor.SOCKET_READ_EVENT_NAME.equals(eventName)
+            || IoProcessor.FILE_READ_EVENT_NAME.equals(eventName)
+        ? "bytesRead"
+        : "bytesWritten";
+  }
+
+  private static String className(RecordedClass recordedClass) {
+    return recordedClass != null ? recordedClass.getName() : null;
+  }
+
+  private ProfilerEvent.StackTrace convertStackTrace(RecordedStackTrace stackTrace) {
+    if (stackTrace == null) {
+      return null;
+    }
+    ProfilerEvent.StackTrace result = stackTraces.get(stackTrace);
+    if (result == null) {
+      List<RecordedFrame> recordedFrames = stackTrace.getFrames();
+      List<ProfilerEvent.Frame> frames = new ArrayList<>(recordedFrames.size());
+      for (RecordedFrame frame : recordedFrames) {
+        frames.add(
+            new ProfilerEvent.Frame(
+                convertMethod(frame.getMethod()),
+                frame.getLineNumber(),
+                frame.getBytecodeIndex()));
+      }
+      result = new ProfilerEvent.StackTrace(frames, stackTrace.isTruncated());
+      stackTraces.put(stackTrace, result);
+    }
+    return result;
+  }
+
+  private ProfilerEvent.Method convertMethod(RecordedMethod method) {
+    if (method == null) {
+      return null;
+    }
+    return methods.computeIfAbsent(
+        method,
+        m ->
+            new ProfilerEvent.Method(
+                m.getType() != null ? m.getType().getName() : null,
+                m.getName(),
+                m.getDescriptor(),
+                m.getModifiers()));
+  }
+
+  private static long toEpochNanos(Instant instant) {
+    return TimeUnit.SECONDS.toNanos(instant.getEpochSecond()) + instant.getNano();
+  }
+}
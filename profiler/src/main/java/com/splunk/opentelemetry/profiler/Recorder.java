@@ -0,0 +1,35 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.opentelemetry.profiler;
+
+import java.util.Map;
+
+/** Source of JFR events that is periodically asked to hand its data to the processing chain. */
+interface Recorder {
+
+  void start();
+
+  void stop();
+
+  /** Processes the events recorded since the previous call and exports the results. */
+  void flushSnapshot();
+
+  boolean isStarted();
+
+  /** Replaces the JFR settings of the recording, takes effect while the recording is running. */
+  void updateSettings(Map<String, String> settings);
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.opentelemetry.profiler;
+
+import com.google.common.annotations.VisibleForTesting;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Samples a rotating subset of all threads, used instead of jdk.ThreadDump on JVMs with very many
+ * threads. Each period at most {@code maxThreads} threads are sampled, continuing after the thread
+ * that was sampled last, so the cost of a period doesn't grow with the number of threads. When
+ * there are more threads than that, every thread is sampled once per {@code ceil(threads /
+ * maxThreads)} periods and its samples stand for that many periods.
+ */
+class ShardedStackSampler extends ThreadStackSampler {
+  private final ThreadMXBean threadMXBean;
+  private final int stackDepth;
+  private final int maxThreads;
+  // id of the thread that was sampled last, thread ids start from 1
+  private long lastThreadId;
+
+  ShardedStackSampler(
+      Duration period, int stackDepth, int maxThreads, Duration recordingDuration) {
+    this(
+        ManagementFactory.getThreadMXBean(),
+        period,
+        stackDepth,
+        maxThreads,
+        maxQueuedSamples(period, maxThreads, recordingDuration),
+        ProfilerMetrics.get());
+  }
+
+  @VisibleForTesting
+  ShardedStackSampler(
+      ThreadMXBean threadMXBean,
+      Duration period,
+      int stackDepth,
+      int maxThreads,
+      int maxQueuedSamples,
+      ProfilerMetrics metrics) {
+    super("Thread Stack Sampler", period, maxQueuedSamples, metrics);
+    this.threadMXBean = threadMXBean;
+    this.stackDepth = stackDepth;
+    this.maxThreads = maxThreads;
+  }
+
+  /**
+   * Returns whether the sharded sampler should replace jdk.ThreadDump events. It is not used when
+   * execution samples replace thread dumps or when threads with an active span are sampled.
+   */
+  static boolean isEnabled(ProfilerConfiguration config) {
+    return config.getCallStackMaxThreads() > 0
+        && !config.getExecutionSampleEnabled()
+        && !SpanStackSampler.isEnabled(config)
+        && hasCallStackInterval(config);
+  }
+
+  /**
+   * Returns how many samples may be queued. Samples are polled when the events of a recording are
+   * dispatched, the queue has room for the samples of two recordings in case a dispatch is late.
+   */
+  @VisibleForTesting
+  static int maxQueuedSamples(Duration period, int maxThreads, Duration recordingDuration) {
+    long periodNanos = Math.max(1, period.toNanos());
+    long periods = Math.max(1, (recordingDuration.toNanos() + periodNanos - 1) / periodNanos);
+    return (int) Math.min(Integer.MAX_VALUE, 2 * periods * maxThreads);
+  }
+
+  @Override
+  void sample() {
+    long[] threadIds = threadMXBean.getAllThreadIds();
+    int threadCount = threadIds.length;
+    if (threadCount == 0) {
+      return;
+    }
+    Arrays.sort(threadIds);
+    int shardCount = (threadCount + maxThreads - 1) / maxThreads;
+    int shardSize = Math.min(maxThreads, threadCount);
+
+    // continue after the thread that was sampled last, threads may have started or terminated
+    // since then
+    int start = Arrays.binarySearch(threadIds, lastThreadId);
+    start = start >= 0 ? start + 1 : -start - 1;
+    long[] shard = new long[shardSize];
+    for (int i = 0; i < shardSize; i++) {
+      shard[i] = threadIds[(start + i) % threadCount];
+    }
+    lastThreadId = shard[shardSize - 1];
+
+    long time = TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis());
+    // each thread is sampled once per shardCount periods
+    Duration period = getPeriod().multipliedBy(shardCount);
+    // one frame more than exported so that the exporter can tell whether the stack was truncated
+    ThreadInfo[] threadInfos = threadMXBean.getThreadInfo(shard, stackDepth + 1);
+    for (ThreadInfo threadInfo : threadInfos) {
+      // thread has terminated
+      if (threadInfo != null) {
+        add(threadInfo, time, period, null);
+      }
+    }
+  }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.opentelemetry.profiler;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.splunk.opentelemetry.profiler.context.ThreadContextSlots;
+import io.opentelemetry.api.trace.SpanContext;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Samples the stacks of threads that have an active sampled span. Used instead of jdk.ThreadDump
+ * when only stacks of traced threads are exported: a thread dump walks the stacks of all threads
+ * and discards most of them because they are not linked to a span, while this sampler only walks
+ * the stacks of threads that are known to {@link ThreadContextSlots}.
+ */
+class SpanStackSampler extends ThreadStackSampler {
+  private final ThreadContextSlots threadContextSlots;
+  private final ThreadMXBean threadMXBean;
+  private final int stackDepth;
+
+  SpanStackSampler(ThreadContextSlots threadContextSlots, Duration period, int stackDepth) {
+    this(threadContextSlots, ManagementFactory.getThreadMXBean(), period, stackDepth);
+  }
+
+  @VisibleForTesting
+  SpanStackSampler(
+      ThreadContextSlots threadContextSlots,
+      ThreadMXBean threadMXBean,
+      Duration period,
+      int stackDepth) {
+    super("Span Stack Sampler", period);
+    this.threadContextSlots = threadContextSlots;
+    this.threadMXBean = threadMXBean;
+    this.stackDepth = stackDepth;
+  }
+
+  /**
+   * Returns whether the span stack sampler should replace jdk.ThreadDump events. The sampler needs
+   * {@link ThreadContextSlots} to find the threads with an active span while the span is active,
+   * and is not used when execution samples replace thread dumps.
+   */
+  static boolean isEnabled(ProfilerConfiguration config) {
+    return config.getSpanStackSamplerEnabled()
+        && config.getTracingStacksOnly()
+        && config.getContextSlotsEnabled()
+        && !config.getExecutionSampleEnabled()
+        && hasCallStackInterval(config);
+  }
+
+  @Override
+  void sample() {
+    long[] threadIds = threadContextSlots.getActiveThreadIds();
+    if (threadIds.length == 0) {
+      return;
+    }
+    long time = currentTimeNanos();
+    // one frame more than exported so that the exporter can tell whether the stack was truncated
+    ThreadInfo[] threadInfos = threadMXBean.getThreadInfo(threadIds, stackDepth + 1);
+    // capturing the stacks waits for a safepoint and may take a while, stacks of threads whose span
+    // changed in the meantime can't be attributed to either span
+    long captureEndTime = currentTimeNanos();
+    for (ThreadInfo threadInfo : threadInfos) {
+      // thread has terminated
+      if (threadInfo == null) {
+        continue;
+      }
+      long threadId = threadInfo.getThreadId();
+      SpanContext spanContext = threadContextSlots.get(threadId, time);
+      if (!spanContext.isValid()
+          || !spanContext.equals(threadContextSlots.get(threadId, captureEndTime))) {
+        continue;
+      }
+      add(threadInfo, time, getPeriod(), spanContext);
+    }
+  }
+
+  private static long currentTimeNanos() {
+    return TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis());
+  }
+}
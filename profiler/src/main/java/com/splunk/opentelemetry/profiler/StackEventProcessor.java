@@ -0,0 +1,123 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.opentelemetry.profiler;
+
+import com.splunk.opentelemetry.profiler.context.SpanContextualizer;
+import com.splunk.opentelemetry.profiler.exporter.EventExporter;
+import io.opentelemetry.api.trace.SpanContext;
+import org.openjdk.jmc.common.IMCStackTrace;
+import org.openjdk.jmc.common.IMCThread;
+import org.openjdk.jmc.common.item.IItem;
+
+/**
+ * Processes JFR events that have a stack trace. Events that pass the stack trace filter are linked
+ * to the span that was active on their thread at their start time and passed to the exporter.
+ */
+abstract class StackEventProcessor {
+  private final boolean enabled;
+  private final EventReader eventReader;
+  private final EventExporter eventExporter;
+  private final SpanContextualizer spanContextualizer;
+  private final StackTraceFilter stackTraceFilter;
+
+  StackEventProcessor(Builder<?, ?> builder) {
+    this.enabled = builder.enabled;
+    this.eventReader = builder.eventReader;
+    this.eventExporter = builder.eventExporter;
+    this.spanContextualizer = builder.spanContextualizer;
+    this.stackTraceFilter = builder.stackTraceFilter;
+  }
+
+  /** Returns whether an event that started at the given time, in epoch nanoseconds, is linked. */
+  boolean isLinkable(long startTime) {
+    return true;
+  }
+
+  public void accept(IItem event) {
+    // ignore events enabled by another JFR recording
+    if (!enabled) {
+      return;
+    }
+    IMCStackTrace stackTrace = eventReader.getStackTrace(event);
+    if (stackTrace == null) {
+      return;
+    }
+    if (stackTraceFilter != null && !stackTraceFilter.test(event)) {
+      return;
+    }
+
+    SpanContext spanContext = null;
+    IMCThread thread = eventReader.getThread(event);
+    long startTime = eventReader.getStartTime(event);
+    if (thread != null && thread.getThreadId() != null && isLinkable(startTime)) {
+      spanContext = spanContextualizer.link(thread.getThreadId(), startTime).getSpanContext();
+    }
+
+    eventExporter.export(event, spanContext);
+  }
+
+  public void flush() {
+    if (enabled) {
+      eventExporter.flush();
+    }
+  }
+
+  /**
+   * Builder of the processors.
+   *
+   * @param <T> type of the built processor
+   * @param <B> type of the builder itself
+   */
+  abstract static class Builder<T, B extends Builder<T, B>> {
+    private final boolean enabled;
+    private EventReader eventReader;
+    private EventExporter eventExporter;
+    private SpanContextualizer spanContextualizer;
+    private StackTraceFilter stackTraceFilter;
+
+    Builder(boolean enabled) {
+      this.enabled = enabled;
+    }
+
+    abstract T build();
+
+    B eventReader(EventReader eventReader) {
+      this.eventReader = eventReader;
+      return self();
+    }
+
+    B eventExporter(EventExporter eventExporter) {
+      this.eventExporter = eventExporter;
+      return self();
+    }
+
+    B spanContextualizer(SpanContextualizer spanContextualizer) {
+      this.spanContextualizer = spanContextualizer;
+      return self();
+    }
+
+    B stackTraceFilter(StackTraceFilter stackTraceFilter) {
+      this.stackTraceFilter = stackTraceFilter;
+      return self();
+    }
+
+    @SuppressWarnings("unchecked")
+    private B self() {
+      return (B) this;
+    }
+  }
+}
@@ -16,6 +16,7 @@
 
 package com.splunk.opentelemetry.profiler;
 
+import java.lang.management.ThreadInfo;
 import java.util.stream.Stream;
 import org.openjdk.jmc.common.IMCFrame;
 import org.openjdk.jmc.common.IMCMethod;
@@ -34,10 +35,13 @@ public class StackTraceFilter {
         "\"JFR Periodic Tasks\"",
         "\"JFR Recording Scheduler\"",
         "\"JFR Recording Flusher\"",
+        "\"JFR Event Stream",
         "\"Reference Handler\"",
         "\"Finalizer\"",
         "\"C1 CompilerThread",
-        "\"Common-Cleaner\""
+        "\"Common-Cleaner\"",
+        "\"Span Stack Sampler\"",
+        "\"Thread Stack Sampler\""
       };
 
   private final EventReader eventReader;
@@ -98,20 +102,8 @@ public class StackTraceFilter {
       return true;
     }
 
-    if (!includeAgentInternalStacks) {
-      String threadName = thread.getThreadName();
-      for (String prefix : UNWANTED_PREFIXES) {
-        // if prefix ends with " we expect it to match thread name
-        if (prefix.endsWith("\"")) {
-          // prefix is surrounded by "
-          if (threadName.regionMatches(0, prefix, 1, prefix.length() - 2)) {
-            return false;
-          }
-          // prefix starts with "
-        } else if (threadName.regionMatches(0, prefix, 1, prefix.length() - 1)) {
-          return false;
-        }
-      }
+    if (!includeAgentInternalStacks && isAgentInternalThread(thread.getThreadName())) {
+      return false;
     }
     if (!includeJvmInternalStacks) {
       if (everyFrameIsJvmInternal(eventReader.getStackTrace(event))) {
@@ -122,6 +114,37 @@ public class StackTraceFilter {
     return true;
   }
 
+  public boolean test(ThreadInfo threadInfo) {
+    StackTraceElement[] stackTrace = threadInfo.getStackTrace();
+    // many GC and other VM threads don't have a stack
+    if (stackTrace.length == 0) {
+      return false;
+    }
+    if (!includeAgentInternalStacks && isAgentInternalThread(threadInfo.getThreadName())) {
+      return false;
+    }
+    if (!includeJvmInternalStacks) {
+      return !everyFrameIsJvmInternal(stackTrace);
+    }
+    return true;
+  }
+
+  private static boolean isAgentInternalThread(String threadName) {
+    for (String prefix : UNWANTED_PREFIXES) {
+      // if prefix ends with " we expect it to match thread name
+      if (prefix.endsWith("\"")) {
+        // prefix is surrounded by "
+        if (threadName.regionMatches(0, prefix, 1, prefix.length() - 2)) {
+          return true;
+        }
+        // prefix starts with "
+      } else if (threadName.regionMatches(0, prefix, 1, prefix.length() - 1)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   /**
    * Frames are considered JVM internal if every frame in the stack stars with one of "jdk.", "sun."
    * or "java.".
@@ -175,4 +198,16 @@ public class StackTraceFilter {
     }
     return true;
   }
+
+  private static boolean everyFrameIsJvmInternal(StackTraceElement[] stackTrace) {
+    for (StackTraceElement frame : stackTrace) {
+      String className = frame.getClassName();
+      if (!className.startsWith("java.")
+          && !className.startsWith("jdk.")
+          && !className.startsWith("sun.")) {
+        return false;
+      }
+    }
+    return true;
+  }
 }
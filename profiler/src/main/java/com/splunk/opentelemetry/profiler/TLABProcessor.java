@@ -19,6 +19,7 @@ package com.splunk.opentelemetry.profiler;
 import com.splunk.opentelemetry.profiler.allocation.exporter.AllocationEventExporter;
 import com.splunk.opentelemetry.profiler.allocation.sampler.AllocationEventSampler;
 import com.splunk.opentelemetry.profiler.allocation.sampler.RateLimitingAllocationEventSampler;
+import com.splunk.opentelemetry.profiler.allocation.sampler.WeightedAllocationEventSampler;
 import com.splunk.opentelemetry.profiler.context.SpanContextualizer;
 import io.opentelemetry.api.trace.SpanContext;
 import org.openjdk.jmc.common.IMCStackTrace;
@@ -60,18 +61,32 @@ public class TLABProcessor {
     if (stackTraceFilter != null && !stackTraceFilter.test(event)) {
       return;
     }
+    long weight = allocationSize(event);
     // Discard events not chosen by the sampling strategy
-    if (sampler != null && !sampler.shouldSample(event)) {
-      return;
+    if (sampler != null) {
+      weight = sampler.sample(event, weight);
+      if (weight == AllocationEventSampler.NOT_SAMPLED) {
+        return;
+      }
     }
 
     SpanContext spanContext = null;
     IMCThread thread = eventReader.getThread(event);
     if (thread != null && thread.getThreadId() != null) {
-      spanContext = spanContextualizer.link(thread.getThreadId()).getSpanContext();
+      long startTime = eventReader.getStartTime(event);
+      spanContext = spanContextualizer.link(thread.getThreadId(), startTime).getSpanContext();
     }
 
-    allocationEventExporter.export(event, sampler, spanContext);
+    allocationEventExporter.export(event, sampler, spanContext, weight);
+  }
+
+  private long allocationSize(IItem event) {
+    // ObjectAllocationSample event doesn't have allocationSize using weight instead. Aggregating
+    // the weights for a large number of samples, for a particular class, thread or stack trace,
+    // gives a statistically accurate representation of the allocation pressure.
+    return ALLOCATION_SAMPLE_EVENT_NAME.equals(event.getType().getIdentifier())
+        ? eventReader.getSampleWeight(event)
+        : eventReader.getAllocationSize(event);
   }
 
   public void flush() {
@@ -87,7 +102,11 @@ public class TLABProcessor {
     Builder builder = new Builder(enabled);
     if (config.getMemoryEventRateLimitEnabled() && !config.getUseAllocationSampleEvent()) {
       String rateLimit = config.getMemoryEventRate();
-      builder.sampler(new RateLimitingAllocationEventSampler(rateLimit));
+      if (config.getMemoryWeightedSampling()) {
+        builder.weightedSampler(rateLimit);
+      } else {
+        builder.sampler(new RateLimitingAllocationEventSampler(rateLimit));
+      }
     }
     return builder;
   }
@@ -97,6 +116,7 @@ public class TLABProcessor {
     private EventReader eventReader;
     private AllocationEventExporter allocationEventExporter;
     private AllocationEventSampler sampler;
+    private String weightedSamplerRateLimit;
     private SpanContextualizer spanContextualizer;
     private StackTraceFilter stackTraceFilter;
 
@@ -105,6 +125,11 @@ public class TLABProcessor {
     }
 
     TLABProcessor build() {
+      // weighted sampler reads allocation sizes, so it can only be created once the event reader
+      // is known
+      if (weightedSamplerRateLimit != null) {
+        sampler = new WeightedAllocationEventSampler(eventReader, weightedSamplerRateLimit);
+      }
       return new TLABProcessor(this);
     }
 
@@ -123,6 +148,11 @@ public class TLABProcessor {
       return this;
     }
 
+    Builder weightedSampler(String rateLimit) {
+      this.weightedSamplerRateLimit = rateLimit;
+      return this;
+    }
+
     Builder spanContextualizer(SpanContextualizer spanContextualizer) {
       this.spanContextualizer = spanContextualizer;
       return this;
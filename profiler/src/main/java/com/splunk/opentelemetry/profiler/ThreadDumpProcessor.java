@@ -20,9 +20,11 @@ import static java.util.logging.Level.FINE;
 
 import com.splunk.opentelemetry.profiler.context.SpanContextualizer;
 import com.splunk.opentelemetry.profiler.context.SpanLinkage;
-import com.splunk.opentelemetry.profiler.context.StackToSpanLinkage;
 import com.splunk.opentelemetry.profiler.exporter.CpuEventExporter;
+import io.opentelemetry.api.trace.SpanContext;
+import java.time.Instant;
 import java.util.logging.Logger;
+import javax.annotation.Nullable;
 import org.openjdk.jmc.common.item.IItem;
 
 public class ThreadDumpProcessor {
@@ -33,6 +35,7 @@ public class ThreadDumpProcessor {
   private final CpuEventExporter cpuEventExporter;
   private final StackTraceFilter stackTraceFilter;
   private final boolean onlyTracingSpans;
+  @Nullable private final ThreadStackSampler threadStackSampler;
 
   private ThreadDumpProcessor(Builder builder) {
     this.eventReader = builder.eventReader;
@@ -40,6 +43,7 @@ public class ThreadDumpProcessor {
     this.cpuEventExporter = builder.cpuEventExporter;
     this.stackTraceFilter = builder.stackTraceFilter;
     this.onlyTracingSpans = builder.onlyTracingSpans;
+    this.threadStackSampler = builder.threadStackSampler;
   }
 
   public void accept(IItem event) {
@@ -47,20 +51,19 @@ public class ThreadDumpProcessor {
     logger.log(FINE, "Processing JFR event {0}", eventName);
     String wallOfStacks = eventReader.getThreadDumpResult(event);
 
+    long startTime = eventReader.getStartTime(event);
+    Instant time = Instant.ofEpochSecond(0, startTime);
     ThreadDumpRegion stack = new ThreadDumpRegion(wallOfStacks, 0, 0);
 
     while (stack.findNextStack()) {
       if (!stackTraceFilter.test(stack)) {
         continue;
       }
-      SpanLinkage linkage = contextualizer.link(stack);
+      SpanLinkage linkage = contextualizer.link(stack, startTime);
       if (onlyTracingSpans && !linkage.getSpanContext().isValid()) {
         continue;
       }
-      StackToSpanLinkage spanWithLinkage =
-          new StackToSpanLinkage(
-              eventReader.getStartInstant(event), stack.getCurrentRegion(), eventName, linkage);
-      cpuEventExporter.export(spanWithLinkage);
+      cpuEventExporter.export(stack, time, eventName, linkage);
     }
   }
 
@@ -68,6 +71,39 @@ public class ThreadDumpProcessor {
     cpuEventExporter.flush();
   }
 
+  /**
+   * Exports the stacks sampled at or before the given time. Samples without a span are linked to
+   * the span that the processed events left active on the thread, so this is called while the
+   * events are dispatched in time order, before the events recorded after the samples.
+   *
+   * @param untilTime epoch nanoseconds
+   */
+  void exportSampledStacks(long untilTime) {
+    if (threadStackSampler == null) {
+      return;
+    }
+    ThreadStackSampler.Sample sample;
+    while ((sample = threadStackSampler.poll(untilTime)) != null) {
+      if (!stackTraceFilter.test(sample.threadInfo)) {
+        continue;
+      }
+      SpanContext spanContext = sample.spanContext;
+      if (spanContext == null) {
+        long threadId = sample.threadInfo.getThreadId();
+        spanContext = contextualizer.link(threadId, sample.time).getSpanContext();
+      }
+      if (onlyTracingSpans && !spanContext.isValid()) {
+        continue;
+      }
+      cpuEventExporter.export(
+          sample.threadInfo,
+          Instant.ofEpochSecond(0, sample.time),
+          EVENT_NAME,
+          sample.period,
+          spanContext);
+    }
+  }
+
   public static Builder builder() {
     return new Builder();
   }
@@ -78,6 +114,7 @@ public class ThreadDumpProcessor {
     private CpuEventExporter cpuEventExporter;
     private StackTraceFilter stackTraceFilter;
     private boolean onlyTracingSpans;
+    private ThreadStackSampler threadStackSampler;
 
     public Builder eventReader(EventReader eventReader) {
       this.eventReader = eventReader;
@@ -104,6 +141,12 @@ public class ThreadDumpProcessor {
       return this;
     }
 
+    /** Stacks sampled by the given sampler are exported together with the thread dumps. */
+    Builder threadStackSampler(ThreadStackSampler threadStackSampler) {
+      this.threadStackSampler = threadStackSampler;
+      return this;
+    }
+
     public ThreadDumpProcessor build() {
       return new ThreadDumpProcessor(this);
     }
@@ -0,0 +1,194 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.opentelemetry.profiler;
+
+import static java.util.logging.Level.WARNING;
+
+import com.splunk.opentelemetry.profiler.util.HelpfulExecutors;
+import io.opentelemetry.api.trace.SpanContext;
+import java.lang.management.ThreadInfo;
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+import javax.annotation.Nullable;
+
+/**
+ * Periodically samples thread stacks with {@link java.lang.management.ThreadMXBean} instead of
+ * jdk.ThreadDump events. Samples are taken on a separate thread and queued until the thread that
+ * processes the JFR events polls them, so that they are linked to spans and exported by the same
+ * thread that handles the other events. Samples are polled when the events recorded before them
+ * have been dispatched.
+ */
+abstract class ThreadStackSampler {
+  private static final Logger logger = Logger.getLogger(ThreadStackSampler.class.getName());
+  // samples queued when the sampler doesn't know how many samples a recording holds
+  static final int DEFAULT_MAX_QUEUED_SAMPLES = 10_000;
+  private static final long DROP_WARNING_INTERVAL_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+  private final String threadName;
+  private final Duration period;
+  private final int maxQueuedSamples;
+  private final ProfilerMetrics metrics;
+  private final Queue<Sample> samples = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger queuedSamples = new AtomicInteger();
+  private final AtomicLong droppedSamples = new AtomicLong();
+  private volatile long lastDropWarningNanos;
+  @Nullable private ScheduledExecutorService executor;
+  // a sample is taken every periodScale periods, changed by the overhead governor
+  private volatile int periodScale = 1;
+  private long tick;
+
+  ThreadStackSampler(String threadName, Duration period) {
+    this(threadName, period, DEFAULT_MAX_QUEUED_SAMPLES, ProfilerMetrics.get());
+  }
+
+  ThreadStackSampler(
+      String threadName, Duration period, int maxQueuedSamples, ProfilerMetrics metrics) {
+    this.threadName = threadName;
+    this.period = period;
+    this.maxQueuedSamples = maxQueuedSamples;
+    this.metrics = metrics;
+  }
+
+  /** Samplers run every call stack interval, JFR's thread dump period is used when it is zero. */
+  static boolean hasCallStackInterval(ProfilerConfiguration config) {
+    Duration interval = config.getCallStackInterval();
+    return !interval.isZero() && !interval.isNegative();
+  }
+
+  synchronized void start() {
+    if (executor != null) {
+      return;
+    }
+    executor = HelpfulExecutors.newSingleThreadedScheduledExecutor(threadName);
+    executor.scheduleAtFixedRate(
+        this::sampleSafely, period.toMillis(), period.toMillis(), TimeUnit.MILLISECONDS);
+  }
+
+  synchronized void stop() {
+    if (executor == null) {
+      return;
+    }
+    executor.shutdownNow();
+    executor = null;
+    samples.clear();
+    queuedSamples.set(0);
+  }
+
+  /** Returns the time between samples. */
+  Duration getPeriod() {
+    return period.multipliedBy(periodScale);
+  }
+
+  /** Takes a sample only every {@code periodScale} periods. */
+  void setPeriodScale(int periodScale) {
+    this.periodScale = periodScale;
+  }
+
+  private void sampleSafely() {
+    if (tick++ % periodScale != 0) {
+      return;
+    }
+    try {
+      sample();
+    } catch (Throwable throwable) {
+      logger.log(WARNING, "Failed to sample thread stacks.", throwable);
+    }
+  }
+
+  /** Takes one round of samples, called once per period on the sampler thread. */
+  abstract void sample();
+
+  /**
+   * Queues a sample.
+   *
+   * @param time epoch nanoseconds when the sample was taken
+   * @param period time that the sample stands for
+   * @param spanContext span that was active on the thread, {@code null} when the sample is linked
+   *     to a span when it is polled
+   */
+  void add(ThreadInfo threadInfo, long time, Duration period, @Nullable SpanContext spanContext) {
+    if (queuedSamples.incrementAndGet() > maxQueuedSamples) {
+      queuedSamples.decrementAndGet();
+      recordDrop();
+      return;
+    }
+    samples.add(new Sample(threadInfo, time, period, spanContext));
+  }
+
+  /** Returns the oldest queued sample, or {@code null} when no samples are queued. */
+  @Nullable
+  Sample poll() {
+    Sample sample = samples.poll();
+    if (sample != null) {
+      queuedSamples.decrementAndGet();
+    }
+    return sample;
+  }
+
+  /**
+   * Returns the oldest queued sample when it was taken at or before the given time, or {@code null}
+   * otherwise. Samples are queued in the order they were taken, so newer samples stay queued as
+   * well.
+   *
+   * @param untilTime epoch nanoseconds
+   */
+  @Nullable
+  Sample poll(long untilTime) {
+    // there is only one thread that polls, the head can't change in between
+    return hasSamples(untilTime) ? poll() : null;
+  }
+
+  /** Returns whether a sample taken at or before the given epoch nanoseconds is queued. */
+  boolean hasSamples(long untilTime) {
+    Sample sample = samples.peek();
+    return sample != null && sample.time <= untilTime;
+  }
+
+  private void recordDrop() {
+    metrics.recordDroppedStackSample();
+    long dropped = droppedSamples.incrementAndGet();
+    long now = System.nanoTime();
+    if (dropped == 1 || now - lastDropWarningNanos >= DROP_WARNING_INTERVAL_NANOS) {
+      lastDropWarningNanos = now;
+      logger.log(
+          WARNING,
+          "Thread stack samples are not processed fast enough, dropped {0} samples so far.",
+          dropped);
+    }
+  }
+
+  static final class Sample {
+    final ThreadInfo threadInfo;
+    // epoch nanoseconds
+    final long time;
+    final Duration period;
+    @Nullable final SpanContext spanContext;
+
+    Sample(ThreadInfo threadInfo, long time, Duration period, @Nullable SpanContext spanContext) {
+      this.threadInfo = threadInfo;
+      this.time = time;
+      this.period = period;
+      this.spanContext = spanContext;
+    }
+  }
+}
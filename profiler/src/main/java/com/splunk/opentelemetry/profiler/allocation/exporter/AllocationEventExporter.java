@@ -22,7 +22,11 @@ import org.openjdk.jmc.common.item.IItem;
 
 public interface AllocationEventExporter {
 
-  void export(IItem event, AllocationEventSampler sampler, SpanContext spanContext);
+  /**
+   * @param weight number of allocated bytes the event stands for, see {@link
+   *     AllocationEventSampler#sample(IItem, long)}
+   */
+  void export(IItem event, AllocationEventSampler sampler, SpanContext spanContext, long weight);
 
   default void flush() {}
 }
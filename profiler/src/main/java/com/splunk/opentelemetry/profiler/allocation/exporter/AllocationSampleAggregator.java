@@ -0,0 +1,92 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.opentelemetry.profiler.allocation.exporter;
+
+import static com.splunk.opentelemetry.profiler.ProfilingSemanticAttributes.ALLOCATION_CLASS;
+import static com.splunk.opentelemetry.profiler.ProfilingSemanticAttributes.THREAD_STATE;
+
+import com.splunk.opentelemetry.profiler.allocation.sampler.AllocationEventSampler;
+import com.splunk.opentelemetry.profiler.exporter.StackSampleAggregator;
+import com.splunk.opentelemetry.profiler.pprof.Pprof;
+import javax.annotation.Nullable;
+
+/**
+ * Groups allocation samples that have the same stack, source event, allocated class and span
+ * linkage. Each group is written as a single pprof sample whose values are the allocated bytes and
+ * the number of samples in the group, see {@link StackSampleAggregator}.
+ *
+ * <p>When {@code maxStacks} is positive at most that many groups are kept, samples that don't fit
+ * are added to a single group with an {@code other} frame.
+ */
+class AllocationSampleAggregator {
+  private final StackSampleAggregator aggregator;
+
+  AllocationSampleAggregator(int maxStacks) {
+    this.aggregator = new StackSampleAggregator(maxStacks);
+  }
+
+  void add(
+      long[] locationIds,
+      int locationCount,
+      boolean truncated,
+      String sourceEventName,
+      @Nullable String objectClass,
+      long timeMillis,
+      long bytes,
+      @Nullable String traceId,
+      @Nullable String spanId) {
+    aggregator.add(
+        locationIds,
+        locationCount,
+        truncated,
+        null,
+        sourceEventName,
+        0,
+        objectClass,
+        traceId,
+        spanId,
+        bytes,
+        0,
+        timeMillis);
+  }
+
+  boolean isEmpty() {
+    return aggregator.isEmpty();
+  }
+
+  int size() {
+    return aggregator.size();
+  }
+
+  /** Adds a sample for each group to the pprof and clears this aggregator. */
+  void writeTo(Pprof pprof, @Nullable AllocationEventSampler sampler) {
+    aggregator.writeTo(
+        pprof,
+        (p, sample, group) -> {
+          sample.addValue(group.getAmount());
+          sample.addValue(group.getCount());
+          p.addLabel(sample, THREAD_STATE, "RUNNABLE");
+          if (group.getDetail() != null) {
+            p.addLabel(sample, ALLOCATION_CLASS, group.getDetail());
+          }
+          if (sampler != null) {
+            sampler.addAttributes(
+                (k, v) -> p.addLabel(sample, k, v), (k, v) -> p.addLabel(sample, k, v));
+          }
+        });
+  }
+}
@@ -16,6 +16,7 @@
 
 package com.splunk.opentelemetry.profiler.allocation.exporter;
 
+import static com.splunk.opentelemetry.profiler.ProfilingSemanticAttributes.ALLOCATION_CLASS;
 import static com.splunk.opentelemetry.profiler.ProfilingSemanticAttributes.SOURCE_EVENT_NAME;
 import static com.splunk.opentelemetry.profiler.ProfilingSemanticAttributes.SOURCE_EVENT_TIME;
 import static com.splunk.opentelemetry.profiler.ProfilingSemanticAttributes.SPAN_ID;
@@ -30,14 +31,19 @@ import com.google.perftools.profiles.ProfileProto.Profile;
 import com.google.perftools.profiles.ProfileProto.Sample;
 import com.splunk.opentelemetry.profiler.EventReader;
 import com.splunk.opentelemetry.profiler.InstrumentationSource;
+import com.splunk.opentelemetry.profiler.ProfilingDataFormat;
 import com.splunk.opentelemetry.profiler.ProfilingDataType;
 import com.splunk.opentelemetry.profiler.allocation.sampler.AllocationEventSampler;
 import com.splunk.opentelemetry.profiler.exporter.PprofLogDataExporter;
 import com.splunk.opentelemetry.profiler.pprof.Pprof;
+import com.splunk.opentelemetry.profiler.pprof.PprofSymbols;
 import io.opentelemetry.api.logs.Logger;
 import io.opentelemetry.api.trace.SpanContext;
 import java.time.Instant;
-import org.openjdk.jmc.common.IMCMethod;
+import java.util.Arrays;
+import java.util.List;
+import javax.annotation.Nullable;
+import org.openjdk.jmc.common.IMCFrame;
 import org.openjdk.jmc.common.IMCStackTrace;
 import org.openjdk.jmc.common.IMCThread;
 import org.openjdk.jmc.common.item.IItem;
@@ -46,33 +52,45 @@ public class PprofAllocationEventExporter implements AllocationEventExporter {
   private final EventReader eventReader;
   private final PprofLogDataExporter pprofLogDataExporter;
   private final int stackDepth;
-  private Pprof pprof = createPprof();
+  private final ProfilingDataFormat dataFormat;
+  private final Pprof.OutputBuffer pprofBuffer = new Pprof.OutputBuffer();
+  private final PprofSymbols pprofSymbols = new PprofSymbols();
+  @Nullable private final AllocationSampleAggregator aggregator;
+  // sampler of the aggregated events, used to label the aggregated samples
+  @Nullable private AllocationEventSampler aggregatedSampler;
+  private long[] locationIds = new long[64];
+  private Pprof pprof;
 
   private PprofAllocationEventExporter(Builder builder) {
     this.eventReader = builder.eventReader;
     this.stackDepth = builder.stackDepth;
+    this.dataFormat = builder.dataFormat;
     this.pprofLogDataExporter =
         new PprofLogDataExporter(
-            builder.otelLogger, ProfilingDataType.ALLOCATION, InstrumentationSource.CONTINUOUS);
+            builder.otelLogger,
+            ProfilingDataType.ALLOCATION,
+            InstrumentationSource.CONTINUOUS,
+            dataFormat);
+    this.aggregator =
+        builder.aggregateStacks ? new AllocationSampleAggregator(builder.maxStacks) : null;
+    this.pprof = createPprof();
   }
 
   @Override
-  public void export(IItem event, AllocationEventSampler sampler, SpanContext spanContext) {
+  public void export(
+      IItem event, AllocationEventSampler sampler, SpanContext spanContext, long weight) {
     IMCStackTrace stackTrace = eventReader.getStackTrace(event);
     if (stackTrace == null) {
       return;
     }
 
-    // ObjectAllocationSample event doesn't have allocationSize using weight instead. Aggregating
-    // the weights for a large number of samples, for a particular class, thread or stack trace,
-    // gives a statistically accurate representation of the allocation pressure.
-    long allocationSize =
-        "jdk.ObjectAllocationSample".equals(event.getType().getIdentifier())
-            ? eventReader.getSampleWeight(event)
-            : eventReader.getAllocationSize(event);
+    if (aggregator != null) {
+      aggregate(event, stackTrace, weight, sampler, spanContext);
+      return;
+    }
 
     Sample.Builder sample = Sample.newBuilder();
-    sample.addValue(allocationSize);
+    sample.addValue(weight);
 
     if (stackTrace.getTruncationState().isTruncated()
         || stackTrace.getFrames().size() > stackDepth) {
@@ -85,26 +103,7 @@ public class PprofAllocationEventExporter implements AllocationEventExporter {
         .limit(stackDepth)
         .forEachOrdered(
             frame -> {
-              IMCMethod method = frame.getMethod();
-              if (method == null) {
-                sample.addLocationId(pprof.getLocationId("unknown", "unknown", "unknown", 0));
-              } else {
-                String className = method.getType().getFullName();
-                if (className == null) {
-                  className = "unknown";
-                }
-                String methodName = method.getMethodName();
-                if (methodName == null) {
-                  methodName = "unknown";
-                }
-                Integer lineNumber = frame.getFrameLineNumber();
-                sample.addLocationId(
-                    pprof.getLocationId(
-                        "unknown", // file name is not known
-                        className,
-                        methodName,
-                        lineNumber != null && lineNumber != -1 ? lineNumber : 0));
-              }
+              sample.addLocationId(pprof.getLocationId(frame));
               pprof.incFrameCount();
             });
 
@@ -112,6 +111,10 @@ public class PprofAllocationEventExporter implements AllocationEventExporter {
     pprof.addLabel(sample, SOURCE_EVENT_NAME, eventName);
     Instant time = eventReader.getStartInstant(event);
     pprof.addLabel(sample, SOURCE_EVENT_TIME, time.toEpochMilli());
+    String objectClass = eventReader.getObjectClass(event);
+    if (objectClass != null) {
+      pprof.addLabel(sample, ALLOCATION_CLASS, objectClass);
+    }
 
     IMCThread thread = eventReader.getThread(event);
     if (thread != null) {
@@ -131,29 +134,70 @@ public class PprofAllocationEventExporter implements AllocationEventExporter {
           (k, v) -> pprof.addLabel(sample, k, v), (k, v) -> pprof.addLabel(sample, k, v));
     }
 
-    pprof.getProfileBuilder().addSample(sample);
+    pprof.addSample(sample);
+  }
+
+  private void aggregate(
+      IItem event,
+      IMCStackTrace stackTrace,
+      long value,
+      @Nullable AllocationEventSampler sampler,
+      @Nullable SpanContext spanContext) {
+    List<? extends IMCFrame> frames = stackTrace.getFrames();
+    // limit the number of stack frames in case jfr stack depth is greater than our stack depth
+    int frameCount = Math.min(frames.size(), stackDepth);
+    boolean truncated = stackTrace.getTruncationState().isTruncated() || frames.size() > stackDepth;
+    if (locationIds.length < frameCount) {
+      locationIds = Arrays.copyOf(locationIds, Math.max(frameCount, 2 * locationIds.length));
+    }
+    for (int i = 0; i < frameCount; i++) {
+      locationIds[i] = pprof.getLocationId(frames.get(i));
+    }
+
+    boolean hasSpan = spanContext != null && spanContext.isValid();
+    aggregatedSampler = sampler;
+    aggregator.add(
+        locationIds,
+        frameCount,
+        truncated,
+        event.getType().getIdentifier(),
+        eventReader.getObjectClass(event),
+        eventReader.getStartInstant(event).toEpochMilli(),
+        value,
+        hasSpan ? spanContext.getTraceId() : null,
+        hasSpan ? spanContext.getSpanId() : null);
   }
 
-  private static Pprof createPprof() {
-    Pprof pprof = new Pprof();
+  private Pprof createPprof() {
+    Pprof pprof = new Pprof(pprofBuffer, dataFormat, pprofSymbols);
     Profile.Builder profile = pprof.getProfileBuilder();
     profile.addSampleType(
         ProfileProto.ValueType.newBuilder()
             .setType(pprof.getStringId("allocationSize"))
             .setUnit(pprof.getStringId("bytes"))
             .build());
+    if (aggregator != null) {
+      profile.addSampleType(
+          ProfileProto.ValueType.newBuilder()
+              .setType(pprof.getStringId("samples"))
+              .setUnit(pprof.getStringId("count"))
+              .build());
+    }
 
     return pprof;
   }
 
   private byte[] serializePprof() {
-    byte[] result = pprof.serialize();
+    byte[] result = pprofLogDataExporter.serialize(pprof);
     pprof = createPprof();
     return result;
   }
 
   @Override
   public void flush() {
+    if (aggregator != null) {
+      aggregator.writeTo(pprof, aggregatedSampler);
+    }
     if (!pprof.hasSamples()) {
       return;
     }
@@ -171,6 +215,9 @@ public class PprofAllocationEventExporter implements AllocationEventExporter {
     private EventReader eventReader;
     private Logger otelLogger;
     private int stackDepth;
+    private ProfilingDataFormat dataFormat = ProfilingDataFormat.PPROF_GZIP_BASE64;
+    private boolean aggregateStacks;
+    private int maxStacks;
 
     public PprofAllocationEventExporter build() {
       return new PprofAllocationEventExporter(this);
@@ -190,5 +237,29 @@ public class PprofAllocationEventExporter implements AllocationEventExporter {
       this.stackDepth = stackDepth;
       return this;
     }
+
+    public Builder dataFormat(ProfilingDataFormat dataFormat) {
+      this.dataFormat = dataFormat;
+      return this;
+    }
+
+    /**
+     * Aggregate allocation samples with the same stack, event type, allocated class and span
+     * linkage into a single sample with the total allocated bytes and the number of aggregated
+     * samples.
+     */
+    public Builder aggregateStacks(boolean aggregateStacks) {
+      this.aggregateStacks = aggregateStacks;
+      return this;
+    }
+
+    /**
+     * Maximum number of distinct stacks kept when aggregating, samples for other stacks are added
+     * to a single sample. Zero or negative value means no limit.
+     */
+    public Builder maxStacks(int maxStacks) {
+      this.maxStacks = maxStacks;
+      return this;
+    }
   }
 }
@@ -21,6 +21,8 @@ import org.openjdk.jmc.common.item.IItem;
 
 /** A sampler that decides whether given allocation event should be sampled or discarded. */
 public interface AllocationEventSampler {
+  /** Returned by {@link #sample(IItem, long)} for events that are discarded. */
+  long NOT_SAMPLED = -1;
 
   /**
    * @param event allocation event (jdk.ObjectAllocationInNewTLAB or
@@ -29,6 +31,25 @@ public interface AllocationEventSampler {
    */
   boolean shouldSample(IItem event);
 
+  /**
+   * Decides whether given allocation event should be sampled and returns the number of bytes the
+   * sampled event stands for. Samplers that select events by their size return an estimate that
+   * keeps the total of all sampled events unbiased.
+   *
+   * @param event allocation event
+   * @param allocationSize allocation size of the event
+   * @return the weight of the sampled event or {@link #NOT_SAMPLED} when the event is discarded
+   */
+  default long sample(IItem event, long allocationSize) {
+    return shouldSample(event) ? allocationSize : NOT_SAMPLED;
+  }
+
+  /**
+   * Divides the configured rate limit by {@code scale}, used to lower the number of sampled events
+   * while the profiler is over its overhead budget. The default implementation ignores the scale.
+   */
+  default void setRateLimitScale(int scale) {}
+
   /**
    * Add attributes describing the sampling strategy to data.
    *
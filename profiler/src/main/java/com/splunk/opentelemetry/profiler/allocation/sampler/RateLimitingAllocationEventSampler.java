@@ -25,7 +25,9 @@ import org.openjdk.jmc.common.item.IItem;
 
 public class RateLimitingAllocationEventSampler implements AllocationEventSampler {
   private final String rateLimitString;
-  private double maxEventsPerSecond;
+  private final double maxEventsPerSecond;
+  // changed on a different thread by the overhead governor
+  private volatile int rateLimitScale = 1;
   private ProbabilisticAllocationEventSampler delegate;
 
   public RateLimitingAllocationEventSampler(String rateLimitString) {
@@ -33,7 +35,7 @@ public class RateLimitingAllocationEventSampler implements AllocationEventSample
     maxEventsPerSecond = parseRateLimit(rateLimitString);
   }
 
-  private static double parseRateLimit(String rateLimitString) {
+  static double parseRateLimit(String rateLimitString) {
     boolean inSecond = rateLimitString.endsWith("/s");
     boolean inMinute = rateLimitString.endsWith("/m");
     if (!inSecond && !inMinute) {
@@ -65,7 +67,8 @@ public class RateLimitingAllocationEventSampler implements AllocationEventSample
 
   public void updateSampler(long eventCount, Instant periodStart, Instant periodEnd) {
     long period = Duration.between(periodStart, periodEnd).toMillis();
-    double desiredEventsInPeriod = maxEventsPerSecond * period / TimeUnit.SECONDS.toMillis(1);
+    double desiredEventsInPeriod =
+        maxEventsPerSecond / rateLimitScale * period / TimeUnit.SECONDS.toMillis(1);
     double probability = clamp(desiredEventsInPeriod / eventCount, 0, 1);
 
     updateSampler(probability);
@@ -76,6 +79,11 @@ public class RateLimitingAllocationEventSampler implements AllocationEventSample
     delegate = new ProbabilisticAllocationEventSampler(probability);
   }
 
+  @Override
+  public void setRateLimitScale(int scale) {
+    rateLimitScale = scale;
+  }
+
   private static double clamp(double value, double min, double max) {
     return Math.max(min, Math.min(max, value));
   }
@@ -0,0 +1,163 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.opentelemetry.profiler.allocation.sampler;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.splunk.opentelemetry.profiler.EventReader;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.DoubleSupplier;
+import org.openjdk.jmc.common.item.IItem;
+
+/**
+ * Samples allocation events with a probability that grows with the allocation size, so that on
+ * average one event is sampled for every {@code samplingInterval} allocated bytes. An event of
+ * {@code size} bytes is sampled with probability {@code 1 - exp(-size / samplingInterval)} and
+ * reported with weight {@code size / probability}, which keeps the sum of the weights an unbiased
+ * estimate of the allocated bytes.
+ *
+ * <p>The sampling interval is derived from the number of events and bytes in each JFR chunk. A
+ * token bucket, refilled at the configured rate in event time, makes sure that bursts inside a
+ * chunk don't exceed the rate. Events that find the bucket empty are discarded, so the weights of
+ * the sampled events are scaled by the inverse of the share of events the bucket accepted. Like the
+ * sampling interval, the share is measured over a chunk and applied to the next one.
+ */
+public class WeightedAllocationEventSampler implements AllocationEventSampler {
+  private final EventReader eventReader;
+  private final String rateLimitString;
+  private final double maxEventsPerSecond;
+  private final DoubleSupplier random;
+  // changed on a different thread by the overhead governor
+  private volatile int rateLimitScale = 1;
+
+  // mean number of bytes between samples, 0 samples every event
+  private double samplingInterval;
+  private double tokens;
+  private long lastRefillTime = Long.MIN_VALUE;
+  // events selected by their size in the current chunk and the ones the token bucket accepted
+  private long selectedEvents;
+  private long acceptedEvents;
+  // compensates for the events the token bucket discarded in the previous chunk
+  private double weightScale = 1;
+
+  public WeightedAllocationEventSampler(EventReader eventReader, String rateLimitString) {
+    this(eventReader, rateLimitString, () -> ThreadLocalRandom.current().nextDouble());
+  }
+
+  @VisibleForTesting
+  WeightedAllocationEventSampler(
+      EventReader eventReader, String rateLimitString, DoubleSupplier random) {
+    this.eventReader = eventReader;
+    this.rateLimitString = rateLimitString;
+    this.maxEventsPerSecond = RateLimitingAllocationEventSampler.parseRateLimit(rateLimitString);
+    this.random = random;
+    this.tokens = bucketCapacity();
+  }
+
+  @Override
+  public boolean shouldSample(IItem event) {
+    return sample(event, eventReader.getAllocationSize(event)) != NOT_SAMPLED;
+  }
+
+  @Override
+  public long sample(IItem event, long allocationSize) {
+    double weight = allocationSize;
+    if (samplingInterval > 0) {
+      double probability = -Math.expm1(-allocationSize / samplingInterval);
+      if (random.getAsDouble() >= probability) {
+        return NOT_SAMPLED;
+      }
+      weight = allocationSize / probability;
+    }
+
+    selectedEvents++;
+    refill(eventReader.getStartTime(event));
+    if (tokens < 1) {
+      return NOT_SAMPLED;
+    }
+    tokens--;
+    acceptedEvents++;
+    return Math.round(weight * weightScale);
+  }
+
+  private void refill(long time) {
+    if (lastRefillTime != Long.MIN_VALUE && time > lastRefillTime) {
+      double elapsedSeconds = (time - lastRefillTime) / (double) TimeUnit.SECONDS.toNanos(1);
+      tokens = Math.min(bucketCapacity(), tokens + elapsedSeconds * eventsPerSecond());
+    }
+    if (time > lastRefillTime) {
+      lastRefillTime = time;
+    }
+  }
+
+  // allows bursts of up to one second worth of events
+  private double bucketCapacity() {
+    return Math.max(1, eventsPerSecond());
+  }
+
+  private double eventsPerSecond() {
+    return maxEventsPerSecond / rateLimitScale;
+  }
+
+  @Override
+  public void setRateLimitScale(int scale) {
+    rateLimitScale = scale;
+  }
+
+  /**
+   * Derives the sampling interval for the next chunk from the number of events and allocated bytes
+   * in it.
+   */
+  public void updateSampler(
+      long eventCount, long allocatedBytes, Instant periodStart, Instant periodEnd) {
+    if (selectedEvents > 0) {
+      weightScale = selectedEvents / (double) Math.max(acceptedEvents, 1);
+    }
+    selectedEvents = 0;
+    acceptedEvents = 0;
+
+    long period = Duration.between(periodStart, periodEnd).toMillis();
+    double desiredEventsInPeriod = eventsPerSecond() * period / TimeUnit.SECONDS.toMillis(1);
+    if (desiredEventsInPeriod >= eventCount) {
+      samplingInterval = 0;
+    } else {
+      samplingInterval = allocatedBytes / Math.max(desiredEventsInPeriod, 1);
+    }
+  }
+
+  @VisibleForTesting
+  double samplingInterval() {
+    return samplingInterval;
+  }
+
+  @VisibleForTesting
+  double weightScale() {
+    return weightScale;
+  }
+
+  @Override
+  public void addAttributes(
+      BiConsumer<String, String> stringAttributeAdder,
+      BiConsumer<String, Long> longAttributeAdder) {
+    stringAttributeAdder.accept("sampler.name", "Weighted sampler");
+    stringAttributeAdder.accept("sampler.limit", rateLimitString);
+    longAttributeAdder.accept("sampler.interval", Math.round(samplingInterval));
+  }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.opentelemetry.profiler.contention.exporter;
+
+import static com.splunk.opentelemetry.profiler.ProfilingSemanticAttributes.LOCK_CLASS;
+
+import com.splunk.opentelemetry.profiler.ContentionProcessor;
+import com.splunk.opentelemetry.profiler.ProfilingDataType;
+import com.splunk.opentelemetry.profiler.exporter.AggregatingPprofEventExporter;
+import javax.annotation.Nullable;
+import org.openjdk.jmc.common.item.IItem;
+
+/**
+ * Exports lock contention events as pprof. Events with the same stack, event type, lock class and
+ * span linkage are aggregated into a single sample whose values are the number of events and the
+ * total time the threads were blocked, in nanoseconds.
+ */
+public class PprofContentionEventExporter extends AggregatingPprofEventExporter
+    implements ContentionEventExporter {
+
+  private PprofContentionEventExporter(Builder builder) {
+    super(builder, ProfilingDataType.CONTENTION, LOCK_CLASS, "contentions", "count", "delay");
+  }
+
+  @Override
+  protected long getAmount(IItem event) {
+    return 1;
+  }
+
+  @Nullable
+  @Override
+  protected String getDetail(IItem event) {
+    return getEventReader().getMonitorClass(event);
+  }
+
+  @Override
+  protected String getThreadState(String eventName) {
+    return ContentionProcessor.MONITOR_ENTER_EVENT_NAME.equals(eventName) ? "BLOCKED" : "WAITING";
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  public static class Builder
+      extends AggregatingPprofEventExporter.Builder<PprofContentionEventExporter, Builder> {
+
+    @Override
+    public PprofContentionEventExporter build() {
+      return new PprofContentionEventExporter(this);
+    }
+  }
+}
@@ -22,29 +22,37 @@ import static java.util.logging.Level.FINE;
 import com.splunk.opentelemetry.profiler.EventReader;
 import com.splunk.opentelemetry.profiler.ThreadDumpRegion;
 import io.opentelemetry.api.trace.SpanContext;
-import io.opentelemetry.api.trace.TraceFlags;
-import io.opentelemetry.api.trace.TraceState;
-import java.util.HashMap;
-import java.util.Map;
+import io.opentelemetry.api.trace.SpanId;
+import io.opentelemetry.api.trace.TraceId;
 import java.util.logging.Logger;
+import javax.annotation.Nullable;
 import org.openjdk.jmc.common.IMCThread;
 import org.openjdk.jmc.common.item.IItem;
 
 /**
  * Keeps track of span scope changes and, when applicable, can wrap the RecordedEvent with span
- * context information. This class is not thread safe.
+ * context information. Span scope changes are either replayed from ContextAttached events or, when
+ * {@link ThreadContextSlots} are used, read from the slot of the thread. This class is not thread
+ * safe.
  */
 public class SpanContextualizer {
 
   private static final Logger logger = Logger.getLogger(SpanContextualizer.class.getName());
 
-  private final Map<Long, SpanLinkage> threadSpans = new HashMap<>();
+  private final ThreadSpanTable threadSpans = new ThreadSpanTable();
   private final StackDescriptorLineParser descriptorParser = new StackDescriptorLineParser();
 
   private final EventReader eventReader;
+  @Nullable private final ThreadContextSlots threadContextSlots;
 
   public SpanContextualizer(EventReader eventReader) {
+    this(eventReader, null);
+  }
+
+  public SpanContextualizer(
+      EventReader eventReader, @Nullable ThreadContextSlots threadContextSlots) {
     this.eventReader = eventReader;
+    this.threadContextSlots = threadContextSlots;
   }
 
   /**
@@ -68,15 +76,25 @@ public class SpanContextualizer {
           new Object[] {javaThreadId, traceId, spanId, eventReader.getStartInstant(event)});
     }
 
-    if (traceId == null || spanId == null) {
+    if (!TraceId.isValid(traceId) || !SpanId.isValid(spanId)) {
       threadSpans.remove(javaThreadId);
     } else {
-      TraceFlags traceFlags = TraceFlags.fromByte(eventReader.getTraceFlags(event));
-      SpanContext spanContext =
-          SpanContext.create(traceId, spanId, traceFlags, TraceState.getDefault());
-      SpanLinkage linkage = new SpanLinkage(spanContext, javaThreadId);
-      threadSpans.put(javaThreadId, linkage);
+      threadSpans.put(
+          javaThreadId,
+          parseHex(traceId, 0),
+          parseHex(traceId, 16),
+          parseHex(spanId, 0),
+          eventReader.getTraceFlags(event));
+    }
+  }
+
+  // parses 16 hex characters starting at offset, the characters must already be validated
+  private static long parseHex(String value, int offset) {
+    long result = 0;
+    for (int i = offset; i < offset + 16; i++) {
+      result = (result << 4) | Character.digit(value.charAt(i), 16);
     }
+    return result;
   }
 
   /**
@@ -84,6 +102,14 @@ public class SpanContextualizer {
    * info for the thread referenced by that stack.
    */
   public SpanLinkage link(ThreadDumpRegion stack) {
+    return link(stack, Long.MAX_VALUE);
+  }
+
+  /**
+   * Same as {@link #link(ThreadDumpRegion)} for a stack that was sampled at the given time, in
+   * epoch nanoseconds.
+   */
+  public SpanLinkage link(ThreadDumpRegion stack, long time) {
     // Many GC and other VM threads don't actually have a stack...
     if (isStacklessThread(stack)) {
       return SpanLinkage.NONE;
@@ -92,11 +118,24 @@ public class SpanContextualizer {
     if (threadId == CANT_PARSE_THREAD_ID) {
       return SpanLinkage.NONE;
     }
-    return link(threadId);
+    return link(threadId, time);
   }
 
   public SpanLinkage link(long threadId) {
-    return threadSpans.getOrDefault(threadId, SpanLinkage.NONE);
+    return link(threadId, Long.MAX_VALUE);
+  }
+
+  /** Returns the linkage info for the given thread at the given time, in epoch nanoseconds. */
+  public SpanLinkage link(long threadId, long time) {
+    if (threadContextSlots != null) {
+      SpanContext spanContext = threadContextSlots.get(threadId, time);
+      if (!spanContext.isValid()) {
+        threadSpans.remove(threadId);
+        return SpanLinkage.NONE;
+      }
+      return threadSpans.link(threadId, spanContext);
+    }
+    return threadSpans.get(threadId);
   }
 
   private boolean isStacklessThread(ThreadDumpRegion stack) {
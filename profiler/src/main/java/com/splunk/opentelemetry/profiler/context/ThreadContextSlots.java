@@ -0,0 +1,199 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.opentelemetry.profiler.context;
+
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.sdk.common.Clock;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Table of per thread slots holding the span context that is active on each thread. Threads write
+ * their own slot when the active span changes and the profiler reads the slots when it links
+ * samples to spans, so linking doesn't need a stream of context change events.
+ *
+ * <p>A slot remembers the latest {@value #HISTORY_SIZE} span changes of its thread, so samples that
+ * are processed a while after they are taken, e.g. with JFR snapshots, are still linked unless the
+ * thread changed its span more often in the meantime. Such samples get {@link
+ * SpanContext#getInvalid()}. Change times are epoch nanoseconds derived from {@link
+ * System#nanoTime()}, which has the same resolution as the JFR event timestamps.
+ */
+public final class ThreadContextSlots {
+  private static final ThreadContextSlots INSTANCE = new ThreadContextSlots();
+  // attempts to read a slot that is concurrently updated before giving up
+  private static final int MAX_READ_ATTEMPTS = 4;
+  private static final int MIN_CLEANUP_SIZE = 64;
+  // must be a power of two
+  static final int HISTORY_SIZE = 16;
+
+  private final Map<Long, Slot> slots = new ConcurrentHashMap<>();
+  private final ThreadLocal<Slot> currentSlot = ThreadLocal.withInitial(this::register);
+  private int nextCleanupSize = MIN_CLEANUP_SIZE;
+  private final Clock clock;
+  // difference between the wall clock and System.nanoTime()
+  private volatile long nanoTimeOffset;
+  // slots written before this time are left over from a previous profiling session
+  private volatile long resetTime;
+
+  // Exists for testing
+  ThreadContextSlots() {
+    this(Clock.getDefault());
+  }
+
+  // Exists for testing
+  ThreadContextSlots(Clock clock) {
+    this.clock = clock;
+    calibrate();
+  }
+
+  public static ThreadContextSlots getInstance() {
+    return INSTANCE;
+  }
+
+  /** Sets the span context that is active on the current thread. */
+  public void set(SpanContext spanContext) {
+    currentSlot.get().set(spanContext, currentTimeNanos());
+  }
+
+  /**
+   * Returns the span context that was active on the given thread at the given time, in epoch
+   * nanoseconds. Use {@link Long#MAX_VALUE} for the span context that is active now.
+   */
+  public SpanContext get(long threadId, long time) {
+    Slot slot = slots.get(threadId);
+    if (slot == null) {
+      return SpanContext.getInvalid();
+    }
+    return slot.get(time, resetTime);
+  }
+
+  /** Returns the ids of threads that have an active span now. */
+  public long[] getActiveThreadIds() {
+    long[] result = new long[16];
+    int count = 0;
+    long reset = resetTime;
+    for (Map.Entry<Long, Slot> entry : slots.entrySet()) {
+      if (!entry.getValue().get(Long.MAX_VALUE, reset).isValid()) {
+        continue;
+      }
+      if (count == result.length) {
+        result = Arrays.copyOf(result, 2 * count);
+      }
+      result[count++] = entry.getKey();
+    }
+    return Arrays.copyOf(result, count);
+  }
+
+  /** Forgets span contexts that were set before this call. */
+  public void reset() {
+    // follow adjustments of the wall clock between profiling sessions
+    calibrate();
+    resetTime = currentTimeNanos();
+  }
+
+  // Exists for testing
+  int size() {
+    return slots.size();
+  }
+
+  private synchronized Slot register() {
+    Thread thread = Thread.currentThread();
+    if (slots.size() >= nextCleanupSize) {
+      removeTerminatedThreads();
+      nextCleanupSize = Math.max(MIN_CLEANUP_SIZE, 2 * slots.size());
+    }
+    Slot slot = new Slot(thread);
+    slots.put(thread.getId(), slot);
+    return slot;
+  }
+
+  private void removeTerminatedThreads() {
+    for (Iterator<Slot> i = slots.values().iterator(); i.hasNext(); ) {
+      Thread thread = i.next().thread.get();
+      if (thread == null || !thread.isAlive()) {
+        i.remove();
+      }
+    }
+  }
+
+  private void calibrate() {
+    nanoTimeOffset = clock.now() - clock.nanoTime();
+  }
+
+  private long currentTimeNanos() {
+    return clock.nanoTime() + nanoTimeOffset;
+  }
+
+  /**
+   * Slot of one thread, a ring buffer of the latest span changes. Only the owning thread writes the
+   * slot, readers use the version to detect concurrent writes: the version is odd while the slot is
+   * being written and half of the version is the number of changes.
+   */
+  private static class Slot {
+    final WeakReference<Thread> thread;
+    volatile int version;
+    final AtomicReferenceArray<SpanContext> spanContexts =
+        new AtomicReferenceArray<>(HISTORY_SIZE);
+    // epoch nanoseconds of the changes
+    final AtomicLongArray changeTimes = new AtomicLongArray(HISTORY_SIZE);
+
+    Slot(Thread thread) {
+      this.thread = new WeakReference<>(thread);
+    }
+
+    void set(SpanContext spanContext, long time) {
+      int index = (version >>> 1) & (HISTORY_SIZE - 1);
+      version++;
+      spanContexts.set(index, spanContext);
+      changeTimes.set(index, time);
+      version++;
+    }
+
+    SpanContext get(long time, long resetTime) {
+      for (int i = 0; i < MAX_READ_ATTEMPTS; i++) {
+        int startVersion = version;
+        if ((startVersion & 1) != 0) {
+          continue;
+        }
+        SpanContext result = find(startVersion >>> 1, time, resetTime);
+        if (version != startVersion) {
+          continue;
+        }
+        return result;
+      }
+      return SpanContext.getInvalid();
+    }
+
+    // returns the span context of the latest change before the given time
+    private SpanContext find(int changes, long time, long resetTime) {
+      for (int i = 1; i <= Math.min(changes, HISTORY_SIZE); i++) {
+        int index = (changes - i) & (HISTORY_SIZE - 1);
+        long changeTime = changeTimes.get(index);
+        if (changeTime <= time) {
+          return changeTime < resetTime ? SpanContext.getInvalid() : spanContexts.get(index);
+        }
+      }
+      // before the first change or before the oldest change that is remembered
+      return SpanContext.getInvalid();
+    }
+  }
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.opentelemetry.profiler.context;
+
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.SpanId;
+import io.opentelemetry.api.trace.TraceFlags;
+import io.opentelemetry.api.trace.TraceId;
+import io.opentelemetry.api.trace.TraceState;
+
+/**
+ * Open addressing map from thread id to the span that is active on that thread. Trace and span ids
+ * are kept as longs, the {@link SpanLinkage} for a thread is only created when the thread is linked
+ * and is reused until the active span of the thread changes. When the span context is read from
+ * {@link ThreadContextSlots} only the linkage is kept, see {@link #link(long, SpanContext)}. This
+ * class is not thread safe.
+ */
+final class ThreadSpanTable {
+  private static final int INITIAL_CAPACITY = 64;
+  // java thread ids start from 1, 0 marks a free entry
+  private static final long FREE = 0;
+
+  private long[] threadIds = new long[INITIAL_CAPACITY];
+  private long[] traceIdHighs = new long[INITIAL_CAPACITY];
+  private long[] traceIdLows = new long[INITIAL_CAPACITY];
+  private long[] spanIds = new long[INITIAL_CAPACITY];
+  private byte[] traceFlags = new byte[INITIAL_CAPACITY];
+  private SpanLinkage[] linkages = new SpanLinkage[INITIAL_CAPACITY];
+  private int size;
+
+  void put(long threadId, long traceIdHigh, long traceIdLow, long spanId, byte flags) {
+    if (threadId == FREE) {
+      return;
+    }
+    int index = indexOf(threadId);
+    if (threadIds[index] == threadId) {
+      if (traceIdHighs[index] == traceIdHigh
+          && traceIdLows[index] == traceIdLow
+          && spanIds[index] == spanId
+          && traceFlags[index] == flags) {
+        // keep the linkage created for the same span
+        return;
+      }
+    } else {
+      index = insert(threadId, index);
+    }
+    traceIdHighs[index] = traceIdHigh;
+    traceIdLows[index] = traceIdLow;
+    spanIds[index] = spanId;
+    traceFlags[index] = flags;
+    linkages[index] = null;
+  }
+
+  void remove(long threadId) {
+    if (threadId == FREE) {
+      return;
+    }
+    int index = indexOf(threadId);
+    if (threadIds[index] != threadId) {
+      return;
+    }
+    size--;
+    // move back following entries that would not be found after this entry is freed
+    int mask = threadIds.length - 1;
+    int free = index;
+    for (int i = (index + 1) & mask; threadIds[i] != FREE; i = (i + 1) & mask) {
+      int home = hash(threadIds[i]) & mask;
+      if (((i - home) & mask) >= ((i - free) & mask)) {
+        move(i, free);
+        free = i;
+      }
+    }
+    threadIds[free] = FREE;
+    linkages[free] = null;
+  }
+
+  SpanLinkage get(long threadId) {
+    if (threadId == FREE) {
+      return SpanLinkage.NONE;
+    }
+    int index = indexOf(threadId);
+    if (threadIds[index] != threadId) {
+      return SpanLinkage.NONE;
+    }
+    SpanLinkage linkage = linkages[index];
+    if (linkage == null) {
+      SpanContext spanContext =
+          SpanContext.create(
+              TraceId.fromLongs(traceIdHighs[index], traceIdLows[index]),
+              SpanId.fromLong(spanIds[index]),
+              TraceFlags.fromByte(traceFlags[index]),
+              TraceState.getDefault());
+      linkage = new SpanLinkage(spanContext, threadId);
+      linkages[index] = linkage;
+    }
+    return linkage;
+  }
+
+  /**
+   * Returns the linkage of the thread for a span context read from {@link ThreadContextSlots}. The
+   * linkage is reused while the slot returns the same span context instance.
+   */
+  SpanLinkage link(long threadId, SpanContext spanContext) {
+    if (threadId == FREE) {
+      return new SpanLinkage(spanContext, threadId);
+    }
+    int index = indexOf(threadId);
+    if (threadIds[index] == threadId) {
+      SpanLinkage linkage = linkages[index];
+      if (linkage != null && linkage.getSpanContext() == spanContext) {
+        return linkage;
+      }
+    } else {
+      index = insert(threadId, index);
+    }
+    SpanLinkage linkage = new SpanLinkage(spanContext, threadId);
+    linkages[index] = linkage;
+    return linkage;
+  }
+
+  int size() {
+    return size;
+  }
+
+  // adds an entry for a thread that is not in the table, index is where indexOf didn't find it
+  private int insert(long threadId, int index) {
+    if (2 * (size + 1) > threadIds.length) {
+      resize(2 * threadIds.length);
+      index = indexOf(threadId);
+    }
+    threadIds[index] = threadId;
+    size++;
+    return index;
+  }
+
+  private int indexOf(long threadId) {
+    int mask = threadIds.length - 1;
+    int index = hash(threadId) & mask;
+    while (threadIds[index] != FREE && threadIds[index] != threadId) {
+      index = (index + 1) & mask;
+    }
+    return index;
+  }
+
+  private void move(int from, int to) {
+    threadIds[to] = threadIds[from];
+    traceIdHighs[to] = traceIdHighs[from];
+    traceIdLows[to] = traceIdLows[from];
+    spanIds[to] = spanIds[from];
+    traceFlags[to] = traceFlags[from];
+    linkages[to] = linkages[from];
+  }
+
+  private void resize(int capacity) {
+    long[] oldThreadIds = threadIds;
+    long[] oldTraceIdHighs = traceIdHighs;
+    long[] oldTraceIdLows = traceIdLows;
+    long[] oldSpanIds = spanIds;
+    byte[] oldTraceFlags = traceFlags;
+    SpanLinkage[] oldLinkages = linkages;
+    threadIds = new long[capacity];
+    traceIdHighs = new long[capacity];
+    traceIdLows = new long[capacity];
+    spanIds = new long[capacity];
+    traceFlags = new byte[capacity];
+    linkages = new SpanLinkage[capacity];
+    for (int i = 0; i < oldThreadIds.length; i++) {
+      if (oldThreadIds[i] != FREE) {
+        int index = indexOf(oldThreadIds[i]);
+        threadIds[index] = oldThreadIds[i];
+        traceIdHighs[index] = oldTraceIdHighs[i];
+        traceIdLows[index] = oldTraceIdLows[i];
+        spanIds[index] = oldSpanIds[i];
+        traceFlags[index] = oldTraceFlags[i];
+        linkages[index] = oldLinkages[i];
+      }
+    }
+  }
+
+  private static int hash(long threadId) {
+    long hash = threadId * 0x9E3779B97F4A7C15L;
+    return (int) (hash ^ (hash >>> 32));
+  }
+}
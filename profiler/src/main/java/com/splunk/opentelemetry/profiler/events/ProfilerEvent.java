@@ -0,0 +1,423 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.opentelemetry.profiler.events;
+
+import java.lang.reflect.Modifier;
+import java.util.Collections;
+import java.util.List;
+import javax.annotation.Nullable;
+import org.openjdk.jmc.common.IMCFrame;
+import org.openjdk.jmc.common.IMCMethod;
+import org.openjdk.jmc.common.IMCPackage;
+import org.openjdk.jmc.common.IMCStackTrace;
+import org.openjdk.jmc.common.IMCThread;
+import org.openjdk.jmc.common.IMCThreadGroup;
+import org.openjdk.jmc.common.IMCType;
+import org.openjdk.jmc.common.item.IItem;
+
+/**
+ * Lightweight event that carries only the values the profiler reads from the JFR events it
+ * consumes. Used when events are not produced by the JMC parser, e.g. when reading events from a
+ * JFR event stream.
+ */
+public final class ProfilerEvent implements IItem {
+  private final ProfilerEventType type;
+  private final long startTime;
+  @Nullable private final IMCThread thread;
+  @Nullable private final IMCStackTrace stackTrace;
+  @Nullable private final String threadDumpResult;
+  @Nullable private final String traceId;
+  @Nullable private final String spanId;
+  private final byte traceFlags;
+  private final long allocationSize;
+  private final long sampleWeight;
+  private final long duration;
+  @Nullable private final String monitorClass;
+  private final long bytes;
+  @Nullable private final String host;
+  @Nullable private final String address;
+  private final int port;
+  @Nullable private final String path;
+  @Nullable private final String objectClass;
+
+  private ProfilerEvent(Builder builder) {
+    this.type = ProfilerEventType.of(builder.eventName);
+    this.startTime = builder.startTime;
+    this.thread = builder.thread;
+    this.stackTrace = builder.stackTrace;
+    this.threadDumpResult = builder.threadDumpResult;
+    this.traceId = builder.traceId;
+    this.spanId = builder.spanId;
+    this.traceFlags = builder.traceFlags;
+    this.allocationSize = builder.allocationSize;
+    this.sampleWeight = builder.sampleWeight;
+    this.duration = builder.duration;
+    this.monitorClass = builder.monitorClass;
+    this.bytes = builder.bytes;
+    this.host = builder.host;
+    this.address = builder.address;
+    this.port = builder.port;
+    this.path = builder.path;
+    this.objectClass = builder.objectClass;
+  }
+
+  @Override
+  public ProfilerEventType getType() {
+    return type;
+  }
+
+  /** Event start time in nanoseconds since epoch. */
+  public long getStartTime() {
+    return startTime;
+  }
+
+  @Nullable
+  public IMCThread getThread() {
+    return thread;
+  }
+
+  @Nullable
+  public IMCStackTrace getStackTrace() {
+    return stackTrace;
+  }
+
+  @Nullable
+  public String getThreadDumpResult() {
+    return threadDumpResult;
+  }
+
+  @Nullable
+  public String getTraceId() {
+    return traceId;
+  }
+
+  @Nullable
+  public String getSpanId() {
+    return spanId;
+  }
+
+  public byte getTraceFlags() {
+    return traceFlags;
+  }
+
+  public long getAllocationSize() {
+    return allocationSize;
+  }
+
+  public long getSampleWeight() {
+    return sampleWeight;
+  }
+
+  /** Event duration in nanoseconds. */
+  public long getDuration() {
+    return duration;
+  }
+
+  /** Name of the monitor or parked on class of lock contention events. */
+  @Nullable
+  public String getMonitorClass() {
+    return monitorClass;
+  }
+
+  /** Number of bytes read or written by socket and file I/O events. */
+  public long getBytes() {
+    return bytes;
+  }
+
+  @Nullable
+  public String getHost() {
+    return host;
+  }
+
+  @Nullable
+  public String getAddress() {
+    return address;
+  }
+
+  public int getPort() {
+    return port;
+  }
+
+  @Nullable
+  public String getPath() {
+    return path;
+  }
+
+  /** Name of the allocated class of allocation events. */
+  @Nullable
+  public String getObjectClass() {
+    return objectClass;
+  }
+
+  public static Builder builder(String eventName) {
+    return new Builder(eventName);
+  }
+
+  public static class Builder {
+    private final String eventName;
+    private long startTime;
+    private IMCThread thread;
+    private IMCStackTrace stackTrace;
+    private String threadDumpResult;
+    private String traceId;
+    private String spanId;
+    private byte traceFlags;
+    private long allocationSize;
+    private long sampleWeight;
+    private long duration;
+    private String monitorClass;
+    private long bytes;
+    private String host;
+    private String address;
+    private int port;
+    private String path;
+    private String objectClass;
+
+    private Builder(String eventName) {
+      this.eventName = eventName;
+    }
+
+    public Builder startTime(long startTime) {
+      this.startTime = startTime;
+      return this;
+    }
+
+    public Builder thread(IMCThread thread) {
+      this.thread = thread;
+      return this;
+    }
+
+    public Builder stackTrace(IMCStackTrace stackTrace) {
+      this.stackTrace = stackTrace;
+      return this;
+    }
+
+    public Builder threadDumpResult(String threadDumpResult) {
+      this.threadDumpResult = threadDumpResult;
+      return this;
+    }
+
+    public Builder traceId(String traceId) {
+      this.traceId = traceId;
+      return this;
+    }
+
+    public Builder spanId(String spanId) {
+      this.spanId = spanId;
+      return this;
+    }
+
+    public Builder traceFlags(byte traceFlags) {
+      this.traceFlags = traceFlags;
+      return this;
+    }
+
+    public Builder allocationSize(long allocationSize) {
+      this.allocationSize = allocationSize;
+      return this;
+    }
+
+    public Builder sampleWeight(long sampleWeight) {
+      this.sampleWeight = sampleWeight;
+      return this;
+    }
+
+    public Builder duration(long duration) {
+      this.duration = duration;
+      return this;
+    }
+
+    public Builder monitorClass(String monitorClass) {
+      this.monitorClass = monitorClass;
+      return this;
+    }
+
+    public Builder bytes(long bytes) {
+      this.bytes = bytes;
+      return this;
+    }
+
+    public Builder host(String host) {
+      this.host = host;
+      return this;
+    }
+
+    public Builder address(String address) {
+      this.address = address;
+      return this;
+    }
+
+    public Builder port(int port) {
+      this.port = port;
+      return this;
+    }
+
+    public Builder path(String path) {
+      this.path = path;
+      return this;
+    }
+
+    public Builder objectClass(String objectClass) {
+      this.objectClass = objectClass;
+      return this;
+    }
+
+    public ProfilerEvent build() {
+      return new ProfilerEvent(this);
+    }
+  }
+
+  public static final class JavaThread implements IMCThread {
+    private final long threadId;
+    @Nullable private final String threadName;
+
+    public JavaThread(long threadId, @Nullable String threadName) {
+      this.threadId = threadId;
+      this.threadName = threadName;
+    }
+
+    @Override
+    public Long getThreadId() {
+      return threadId;
+    }
+
+    @Override
+    public String getThreadName() {
+      return threadName;
+    }
+
+    @Override
+    public IMCThreadGroup getThreadGroup() {
+      return null;
+    }
+  }
+
+  public static final class StackTrace implements IMCStackTrace {
+    private final List<Frame> frames;
+    private final boolean truncated;
+
+    public StackTrace(List<Frame> frames, boolean truncated) {
+      this.frames = Collections.unmodifiableList(frames);
+      this.truncated = truncated;
+    }
+
+    @Override
+    public List<Frame> getFrames() {
+      return frames;
+    }
+
+    @Override
+    public TruncationState getTruncationState() {
+      return truncated ? TruncationState.TRUNCATED : TruncationState.NOT_TRUNCATED;
+    }
+  }
+
+  public static final class Frame implements IMCFrame {
+    @Nullable private final Method method;
+    private final int lineNumber;
+    private final int bci;
+
+    public Frame(@Nullable Method method, int lineNumber, int bci) {
+      this.method = method;
+      this.lineNumber = lineNumber;
+      this.bci = bci;
+    }
+
+    @Override
+    public Integer getFrameLineNumber() {
+      return lineNumber;
+    }
+
+    @Override
+    public Integer getBCI() {
+      return bci;
+    }
+
+    @Override
+    public Method getMethod() {
+      return method;
+    }
+
+    @Override
+    public Type getType() {
+      return Type.UNKNOWN;
+    }
+  }
+
+  public static final class Method implements IMCMethod, IMCType {
+    @Nullable private final String className;
+    @Nullable private final String methodName;
+    @Nullable private final String descriptor;
+    private final int modifiers;
+
+    public Method(
+        @Nullable String className,
+        @Nullable String methodName,
+        @Nullable String descriptor,
+        int modifiers) {
+      this.className = className;
+      this.methodName = methodName;
+      this.descriptor = descriptor;
+      this.modifiers = modifiers;
+    }
+
+    /** Method and its declaring type share the same instance to keep the event graph small. */
+    @Override
+    public IMCType getType() {
+      return this;
+    }
+
+    @Override
+    public String getMethodName() {
+      return methodName;
+    }
+
+    @Override
+    public String getFormalDescriptor() {
+      return descriptor;
+    }
+
+    @Override
+    public Integer getModifier() {
+      return modifiers;
+    }
+
+    @Override
+    public Boolean isNative() {
+      return Modifier.isNative(modifiers);
+    }
+
+    @Override
+    public String getTypeName() {
+      if (className == null) {
+        return null;
+      }
+      int index = className.lastIndexOf('.');
+      return index == -1 ? className : className.substring(index + 1);
+    }
+
+    @Override
+    public IMCPackage getPackage() {
+      return null;
+    }
+
+    @Override
+    public String getFullName() {
+      return className;
+    }
+  }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.opentelemetry.profiler.events;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.openjdk.jmc.common.IDescribable;
+import org.openjdk.jmc.common.item.IAccessorKey;
+import org.openjdk.jmc.common.item.IAttribute;
+import org.openjdk.jmc.common.item.ICanonicalAccessorFactory;
+import org.openjdk.jmc.common.item.IItem;
+import org.openjdk.jmc.common.item.IMemberAccessor;
+import org.openjdk.jmc.common.item.IType;
+
+/**
+ * Event type of a {@link ProfilerEvent}. Only the identifier is meaningful, attribute values of
+ * profiler events are read directly by {@link com.splunk.opentelemetry.profiler.EventReader}
+ * instead of through member accessors.
+ */
+public final class ProfilerEventType implements IType<IItem> {
+  private static final Map<String, ProfilerEventType> types = new ConcurrentHashMap<>();
+
+  private final String identifier;
+
+  private ProfilerEventType(String identifier) {
+    this.identifier = identifier;
+  }
+
+  public static ProfilerEventType of(String identifier) {
+    return types.computeIfAbsent(identifier, ProfilerEventType::new);
+  }
+
+  @Override
+  public String getIdentifier() {
+    return identifier;
+  }
+
+  @Override
+  public String getName() {
+    return identifier;
+  }
+
+  @Override
+  public String getDescription() {
+    return identifier;
+  }
+
+  @Override
+  public List<IAttribute<?>> getAttributes() {
+    return Collections.emptyList();
+  }
+
+  @Override
+  public Map<IAccessorKey<?>, ? extends IDescribable> getAccessorKeys() {
+    return Collections.emptyMap();
+  }
+
+  @Override
+  public boolean hasAttribute(ICanonicalAccessorFactory<?> attribute) {
+    return false;
+  }
+
+  /** Always returns {@code null}, use the getters of {@link ProfilerEvent} instead. */
+  @Override
+  public <M> IMemberAccessor<M, IItem> getAccessor(IAccessorKey<M> attribute) {
+    return null;
+  }
+
+  @Override
+  public String toString() {
+    return identifier;
+  }
+}
@@ -0,0 +1,218 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.opentelemetry.profiler.exporter;
+
+import com.google.perftools.profiles.ProfileProto.ValueType;
+import com.splunk.opentelemetry.profiler.EventReader;
+import com.splunk.opentelemetry.profiler.InstrumentationSource;
+import com.splunk.opentelemetry.profiler.ProfilingDataFormat;
+import com.splunk.opentelemetry.profiler.ProfilingDataType;
+import com.splunk.opentelemetry.profiler.pprof.Pprof;
+import com.splunk.opentelemetry.profiler.pprof.PprofSymbols;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.logs.Logger;
+import io.opentelemetry.api.trace.SpanContext;
+import java.util.Arrays;
+import java.util.List;
+import javax.annotation.Nullable;
+import org.openjdk.jmc.common.IMCFrame;
+import org.openjdk.jmc.common.IMCStackTrace;
+import org.openjdk.jmc.common.item.IItem;
+
+/**
+ * Exports JFR events that have a duration as pprof. Events with the same stack, event type, detail
+ * and span linkage are aggregated into a single sample with two values: the sum of an amount that
+ * subclasses read from each event, e.g. the number of events or bytes, and the total duration of
+ * the events, in nanoseconds. The detail is an optional string read from each event that is added
+ * as a label, e.g. the lock class.
+ */
+public abstract class AggregatingPprofEventExporter implements EventExporter {
+  private final EventReader eventReader;
+  private final PprofLogDataExporter pprofLogDataExporter;
+  private final int stackDepth;
+  private final ProfilingDataFormat dataFormat;
+  private final AttributeKey<String> detailAttribute;
+  private final String amountType;
+  private final String amountUnit;
+  private final String durationType;
+  private final Pprof.OutputBuffer pprofBuffer = new Pprof.OutputBuffer();
+  private final PprofSymbols pprofSymbols = new PprofSymbols();
+  private final StackSampleAggregator aggregator = new StackSampleAggregator();
+  private long[] locationIds = new long[64];
+  private Pprof pprof;
+
+  /**
+   * @param dataType the type of the exported profiling data
+   * @param detailAttribute label for the detail of the events
+   * @param amountType sample type of the first value, its unit is {@code amountUnit}
+   * @param durationType sample type of the second value, its unit is nanoseconds
+   */
+  protected AggregatingPprofEventExporter(
+      Builder<?, ?> builder,
+      ProfilingDataType dataType,
+      AttributeKey<String> detailAttribute,
+      String amountType,
+      String amountUnit,
+      String durationType) {
+    this.eventReader = builder.eventReader;
+    this.stackDepth = builder.stackDepth;
+    this.dataFormat = builder.dataFormat;
+    this.detailAttribute = detailAttribute;
+    this.amountType = amountType;
+    this.amountUnit = amountUnit;
+    this.durationType = durationType;
+    this.pprofLogDataExporter =
+        new PprofLogDataExporter(
+            builder.otelLogger, dataType, InstrumentationSource.CONTINUOUS, dataFormat);
+    this.pprof = createPprof();
+  }
+
+  protected EventReader getEventReader() {
+    return eventReader;
+  }
+
+  /** Returns the amount that is added to the first value of the sample of the event. */
+  protected abstract long getAmount(IItem event);
+
+  /** Returns the detail of the event that is part of the aggregation key. */
+  @Nullable
+  protected abstract String getDetail(IItem event);
+
+  /** Returns the thread state that is reported for events of the given type. */
+  protected abstract String getThreadState(String eventName);
+
+  @Override
+  public void export(IItem event, SpanContext spanContext) {
+    IMCStackTrace stackTrace = eventReader.getStackTrace(event);
+    if (stackTrace == null) {
+      return;
+    }
+    List<? extends IMCFrame> frames = stackTrace.getFrames();
+    // limit the number of stack frames in case jfr stack depth is greater than our stack depth
+    int frameCount = Math.min(frames.size(), stackDepth);
+    boolean truncated = stackTrace.getTruncationState().isTruncated() || frames.size() > stackDepth;
+    if (locationIds.length < frameCount) {
+      locationIds = Arrays.copyOf(locationIds, Math.max(frameCount, 2 * locationIds.length));
+    }
+    for (int i = 0; i < frameCount; i++) {
+      locationIds[i] = pprof.getLocationId(frames.get(i));
+    }
+
+    String eventName = event.getType().getIdentifier();
+    boolean hasSpan = spanContext != null && spanContext.isValid();
+    aggregator.add(
+        locationIds,
+        frameCount,
+        truncated,
+        getThreadState(eventName),
+        eventName,
+        0,
+        getDetail(event),
+        hasSpan ? spanContext.getTraceId() : null,
+        hasSpan ? spanContext.getSpanId() : null,
+        getAmount(event),
+        eventReader.getDuration(event),
+        eventReader.getStartInstant(event).toEpochMilli());
+  }
+
+  private void writeAggregates() {
+    aggregator.writeTo(
+        pprof,
+        (p, sample, group) -> {
+          sample.addValue(group.getAmount());
+          sample.addValue(group.getDurationNanos());
+          if (group.getDetail() != null) {
+            p.addLabel(sample, detailAttribute, group.getDetail());
+          }
+        });
+  }
+
+  private Pprof createPprof() {
+    Pprof pprof = new Pprof(pprofBuffer, dataFormat, pprofSymbols);
+    addSampleType(pprof, amountType, amountUnit);
+    addSampleType(pprof, durationType, "nanoseconds");
+    return pprof;
+  }
+
+  private static void addSampleType(Pprof pprof, String type, String unit) {
+    pprof
+        .getProfileBuilder()
+        .addSampleType(
+            ValueType.newBuilder()
+                .setType(pprof.getStringId(type))
+                .setUnit(pprof.getStringId(unit))
+                .build());
+  }
+
+  private byte[] serializePprof() {
+    byte[] result = pprofLogDataExporter.serialize(pprof);
+    pprof = createPprof();
+    return result;
+  }
+
+  @Override
+  public void flush() {
+    writeAggregates();
+    if (!pprof.hasSamples()) {
+      return;
+    }
+    int frameCount = pprof.frameCount();
+    // Flush is called after each JFR chunk, hopefully this will keep batch sizes small enough.
+    byte[] bytes = serializePprof();
+    pprofLogDataExporter.export(bytes, frameCount);
+  }
+
+  /**
+   * Builder of the exporters.
+   *
+   * @param <T> type of the built exporter
+   * @param <B> type of the builder itself
+   */
+  public abstract static class Builder<T, B extends Builder<T, B>> {
+    private EventReader eventReader;
+    private Logger otelLogger;
+    private int stackDepth;
+    private ProfilingDataFormat dataFormat = ProfilingDataFormat.PPROF_GZIP_BASE64;
+
+    public abstract T build();
+
+    public B eventReader(EventReader eventReader) {
+      this.eventReader = eventReader;
+      return self();
+    }
+
+    public B otelLogger(Logger otelLogger) {
+      this.otelLogger = otelLogger;
+      return self();
+    }
+
+    public B stackDepth(int stackDepth) {
+      this.stackDepth = stackDepth;
+      return self();
+    }
+
+    public B dataFormat(ProfilingDataFormat dataFormat) {
+      this.dataFormat = dataFormat;
+      return self();
+    }
+
+    @SuppressWarnings("unchecked")
+    private B self() {
+      return (B) this;
+    }
+  }
+}
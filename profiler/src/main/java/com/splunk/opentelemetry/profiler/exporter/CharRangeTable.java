@@ -0,0 +1,119 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.opentelemetry.profiler.exporter;
+
+import javax.annotation.Nullable;
+
+/**
+ * Open addressing hash table keyed by a range of characters within a string. Lookups hash and
+ * compare the range in place, so looking up a key that is already present does not allocate. The
+ * table holds at most {@code maxSize} entries, it is cleared when it fills up.
+ */
+final class CharRangeTable<V> {
+  private static final int INITIAL_CAPACITY = 64;
+
+  private final int maxSize;
+  private String[] keys;
+  private Object[] values;
+  private int[] hashes;
+  private int size;
+
+  CharRangeTable(int maxSize) {
+    this.maxSize = maxSize;
+    allocate(INITIAL_CAPACITY);
+  }
+
+  /** Computes the same hash as {@link String#hashCode()} for the given range. */
+  static int hash(String text, int start, int end) {
+    int hash = 0;
+    for (int i = start; i < end; i++) {
+      hash = 31 * hash + text.charAt(i);
+    }
+    return hash;
+  }
+
+  @Nullable
+  @SuppressWarnings("unchecked")
+  V get(String text, int start, int end, int hash) {
+    int length = end - start;
+    int mask = keys.length - 1;
+    for (int i = mix(hash) & mask; ; i = (i + 1) & mask) {
+      String key = keys[i];
+      if (key == null) {
+        return null;
+      }
+      if (hashes[i] == hash
+          && key.length() == length
+          && key.regionMatches(0, text, start, length)) {
+        return (V) values[i];
+      }
+    }
+  }
+
+  /** Adds a key that is not present in the table. */
+  void put(String key, int hash, V value) {
+    if (size >= maxSize) {
+      clear();
+    } else if (2 * (size + 1) > keys.length) {
+      resize(2 * keys.length);
+    }
+    insert(key, hash, value);
+    size++;
+  }
+
+  int size() {
+    return size;
+  }
+
+  void clear() {
+    allocate(INITIAL_CAPACITY);
+    size = 0;
+  }
+
+  private void insert(String key, int hash, Object value) {
+    int mask = keys.length - 1;
+    int i = mix(hash) & mask;
+    while (keys[i] != null) {
+      i = (i + 1) & mask;
+    }
+    keys[i] = key;
+    values[i] = value;
+    hashes[i] = hash;
+  }
+
+  private void resize(int capacity) {
+    String[] oldKeys = keys;
+    Object[] oldValues = values;
+    int[] oldHashes = hashes;
+    allocate(capacity);
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldKeys[i] != null) {
+        insert(oldKeys[i], oldHashes[i], oldValues[i]);
+      }
+    }
+  }
+
+  private void allocate(int capacity) {
+    keys = new String[capacity];
+    values = new Object[capacity];
+    hashes = new int[capacity];
+  }
+
+  private static int mix(int hash) {
+    return hash ^ (hash >>> 16);
+  }
+}
@@ -16,18 +16,46 @@
 
 package com.splunk.opentelemetry.profiler.exporter;
 
+import com.splunk.opentelemetry.profiler.ThreadDumpRegion;
+import com.splunk.opentelemetry.profiler.context.SpanLinkage;
 import com.splunk.opentelemetry.profiler.context.StackToSpanLinkage;
+import io.opentelemetry.api.trace.SpanContext;
 import java.lang.management.ThreadInfo;
 import java.time.Duration;
 import java.time.Instant;
+import javax.annotation.Nullable;
+import org.openjdk.jmc.common.IMCStackTrace;
+import org.openjdk.jmc.common.IMCThread;
 
 public interface CpuEventExporter {
 
   void export(StackToSpanLinkage stackToSpanLinkage);
 
+  /**
+   * Exports the stack trace the thread dump region currently points to. The region is reused for
+   * the next stack trace once this method returns. The default implementation copies the stack
+   * trace into a {@link StackToSpanLinkage}.
+   */
+  default void export(
+      ThreadDumpRegion stack, Instant time, String sourceEventName, SpanLinkage spanLinkage) {
+    export(new StackToSpanLinkage(time, stack.getCurrentRegion(), sourceEventName, spanLinkage));
+  }
+
   default void export(
       ThreadInfo threadInfo, Instant eventTime, String traceId, String spanId, Duration duration) {}
 
+  /**
+   * Exports a stack trace sampled by the continuous profiler's own stack samplers. Unlike the
+   * snapshot export of a {@link ThreadInfo} the sample carries a source event name and no lock
+   * information. The default implementation ignores the sample.
+   */
+  default void export(
+      ThreadInfo threadInfo,
+      Instant time,
+      String sourceEventName,
+      Duration period,
+      SpanContext spanContext) {}
+
   default void export(
       long threadId,
       String threadName,
@@ -38,5 +66,22 @@ public interface CpuEventExporter {
       String spanId,
       Duration duration) {}
 
+  /**
+   * Exports a stack trace sampled by a jdk.ExecutionSample or jdk.NativeMethodSample event. The
+   * default implementation ignores the sample.
+   */
+  default void export(
+      IMCStackTrace stackTrace,
+      @Nullable IMCThread thread,
+      Instant time,
+      String sourceEventName,
+      SpanLinkage spanLinkage) {}
+
+  /**
+   * Sets the sampling period of the stacks exported from now on, used when the sampling period of
+   * the recording changes. The default implementation ignores the period.
+   */
+  default void setPeriod(Duration period) {}
+
   default void flush() {}
 }
@@ -0,0 +1,87 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.opentelemetry.profiler.exporter;
+
+import static com.splunk.opentelemetry.profiler.ProfilingSemanticAttributes.SOURCE_EVENT_PERIOD;
+
+import com.splunk.opentelemetry.profiler.pprof.Pprof;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
+
+/**
+ * Groups CPU samples that have the same stack, thread state, source event, sampling period and span
+ * linkage. Each group is written as a single pprof sample whose value is the number of samples in
+ * the group, see {@link StackSampleAggregator}.
+ */
+class CpuSampleAggregator {
+  private final StackSampleAggregator aggregator = new StackSampleAggregator();
+
+  void add(
+      long[] locationIds,
+      int locationCount,
+      @Nullable String threadState,
+      boolean truncated,
+      String sourceEventName,
+      long periodNanos,
+      long timeMillis,
+      @Nullable String traceId,
+      @Nullable String spanId) {
+    aggregator.add(
+        locationIds,
+        locationCount,
+        truncated,
+        threadState,
+        sourceEventName,
+        periodNanos,
+        null,
+        traceId,
+        spanId,
+        0,
+        0,
+        timeMillis);
+  }
+
+  boolean isEmpty() {
+    return aggregator.isEmpty();
+  }
+
+  int size() {
+    return aggregator.size();
+  }
+
+  /** Adds a sample for each group to the pprof and clears this aggregator. */
+  void writeTo(Pprof pprof) {
+    writeTo(pprof, false);
+  }
+
+  /**
+   * Same as {@link #writeTo(Pprof)}, when {@code cpuTime} is set each sample gets a second value
+   * with the cpu time of the group, one sampling period per sample.
+   */
+  void writeTo(Pprof pprof, boolean cpuTime) {
+    aggregator.writeTo(
+        pprof,
+        (p, sample, group) -> {
+          sample.addValue(group.getCount());
+          if (cpuTime) {
+            sample.addValue(group.getCount() * group.getPeriodNanos());
+          }
+          p.addLabel(
+              sample, SOURCE_EVENT_PERIOD, TimeUnit.NANOSECONDS.toMillis(group.getPeriodNanos()));
+        });
+  }
+}
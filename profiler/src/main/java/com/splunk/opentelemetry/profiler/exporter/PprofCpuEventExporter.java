@@ -30,11 +30,15 @@ import static com.splunk.opentelemetry.profiler.ProfilingSemanticAttributes.THRE
 import static com.splunk.opentelemetry.profiler.ProfilingSemanticAttributes.TRACE_ID;
 
 import com.google.perftools.profiles.ProfileProto.Sample;
+import com.google.perftools.profiles.ProfileProto.ValueType;
 import com.splunk.opentelemetry.profiler.InstrumentationSource;
+import com.splunk.opentelemetry.profiler.ProfilingDataFormat;
 import com.splunk.opentelemetry.profiler.ProfilingDataType;
+import com.splunk.opentelemetry.profiler.ThreadDumpRegion;
+import com.splunk.opentelemetry.profiler.context.SpanLinkage;
 import com.splunk.opentelemetry.profiler.context.StackToSpanLinkage;
-import com.splunk.opentelemetry.profiler.exporter.StackTraceParser.StackTrace;
 import com.splunk.opentelemetry.profiler.pprof.Pprof;
+import com.splunk.opentelemetry.profiler.pprof.PprofSymbols;
 import io.opentelemetry.api.logs.Logger;
 import io.opentelemetry.api.trace.SpanContext;
 import io.opentelemetry.api.trace.SpanId;
@@ -44,60 +48,254 @@ import java.lang.management.MonitorInfo;
 import java.lang.management.ThreadInfo;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import javax.annotation.Nullable;
+import org.openjdk.jmc.common.IMCFrame;
+import org.openjdk.jmc.common.IMCStackTrace;
+import org.openjdk.jmc.common.IMCThread;
 
 public class PprofCpuEventExporter implements CpuEventExporter {
-  private final Duration period;
+  // changed on a different thread when the overhead governor adjusts the sampling period
+  private volatile Duration period;
   private final int stackDepth;
+  private final ProfilingDataFormat dataFormat;
   private final PprofLogDataExporter pprofLogDataExporter;
-  private Pprof pprof = createPprof();
+  private final ThreadDumpStackParser threadDumpStackParser = new ThreadDumpStackParser();
+  private final boolean executionSamples;
+  @Nullable private final CpuSampleAggregator aggregator;
+  private final Pprof.OutputBuffer pprofBuffer = new Pprof.OutputBuffer();
+  private final PprofSymbols pprofSymbols = new PprofSymbols();
+  private long[] locationIds = new long[64];
+  private Pprof pprof;
+  // incremented each time pprof is replaced, invalidates location ids cached in parsed frames
+  private int pprofGeneration;
 
   private PprofCpuEventExporter(Builder builder) {
     this.period = builder.period;
     this.stackDepth = builder.stackDepth;
+    this.dataFormat = builder.dataFormat;
     this.pprofLogDataExporter =
         new PprofLogDataExporter(
-            builder.otelLogger, ProfilingDataType.CPU, builder.instrumentationSource);
+            builder.otelLogger, ProfilingDataType.CPU, builder.instrumentationSource, dataFormat);
+    this.executionSamples = builder.executionSamples;
+    this.aggregator = builder.aggregateStacks ? new CpuSampleAggregator() : null;
+    this.pprof = createPprof();
   }
 
   @Override
   public void export(StackToSpanLinkage stackToSpanLinkage) {
-    StackTrace stackTrace = StackTraceParser.parse(stackToSpanLinkage.getRawStack(), stackDepth);
-    if (stackTrace == null || stackTrace.getStackTraceLines().isEmpty()) {
+    String rawStack = stackToSpanLinkage.getRawStack();
+    exportStack(
+        new ThreadDumpRegion(rawStack, 0, rawStack.length()),
+        stackToSpanLinkage.getTime(),
+        stackToSpanLinkage.getSourceEventName(),
+        stackToSpanLinkage.getSpanContext());
+  }
+
+  @Override
+  public void export(
+      ThreadDumpRegion stack, Instant time, String sourceEventName, SpanLinkage spanLinkage) {
+    exportStack(stack, time, sourceEventName, spanLinkage.getSpanContext());
+  }
+
+  private void exportStack(
+      ThreadDumpRegion stack, Instant time, String sourceEventName, SpanContext spanContext) {
+    ThreadDumpStackParser parser = threadDumpStackParser;
+    if (!parser.parse(stack, stackDepth) || parser.getFrameCount() == 0) {
+      return;
+    }
+
+    if (aggregator != null) {
+      aggregate(parser, time, sourceEventName, spanContext);
       return;
     }
 
     Sample.Builder sample = Sample.newBuilder();
+    addValues(sample, 1);
 
-    if (stackTrace.getThreadId() != 0) {
-      pprof.addLabel(sample, THREAD_ID, stackTrace.getThreadId());
-      pprof.addLabel(sample, THREAD_NAME, stackTrace.getThreadName());
+    if (parser.getThreadId() != 0) {
+      pprof.addLabel(sample, THREAD_ID, parser.getThreadId());
+      pprof.addLabel(sample, THREAD_NAME, parser.getThreadName());
     }
-    pprof.addLabel(sample, THREAD_STATE, stackTrace.getThreadState());
+    pprof.addLabel(sample, THREAD_STATE, parser.getThreadState());
 
-    if (stackTrace.isTruncated()) {
+    if (parser.isTruncated()) {
       pprof.addLabel(sample, THREAD_STACK_TRUNCATED, true);
     }
 
-    for (StackTraceParser.StackTraceLine stl : stackTrace.getStackTraceLines()) {
-      sample.addLocationId(
-          pprof.getLocationId(
-              stl.getLocation(), stl.getClassName(), stl.getMethod(), stl.getLineNumber()));
+    for (int i = 0; i < parser.getFrameCount(); i++) {
+      sample.addLocationId(parser.getFrame(i).getLocationId(pprof, pprofGeneration));
       pprof.incFrameCount();
     }
 
-    String eventName = stackToSpanLinkage.getSourceEventName();
-    pprof.addLabel(sample, SOURCE_EVENT_NAME, eventName);
+    pprof.addLabel(sample, SOURCE_EVENT_NAME, sourceEventName);
     pprof.addLabel(sample, SOURCE_EVENT_PERIOD, period.toMillis());
-    Instant time = stackToSpanLinkage.getTime();
     pprof.addLabel(sample, SOURCE_EVENT_TIME, time.toEpochMilli());
 
-    SpanContext spanContext = stackToSpanLinkage.getSpanContext();
     if (spanContext != null && spanContext.isValid()) {
       pprof.addLabel(sample, TRACE_ID, spanContext.getTraceId());
       pprof.addLabel(sample, SPAN_ID, spanContext.getSpanId());
     }
 
-    pprof.getProfileBuilder().addSample(sample);
+    pprof.addSample(sample);
+  }
+
+  private void aggregate(
+      ThreadDumpStackParser parser,
+      Instant time,
+      String sourceEventName,
+      @Nullable SpanContext spanContext) {
+    int frameCount = parser.getFrameCount();
+    if (locationIds.length < frameCount) {
+      locationIds = Arrays.copyOf(locationIds, Math.max(frameCount, 2 * locationIds.length));
+    }
+    for (int i = 0; i < frameCount; i++) {
+      locationIds[i] = parser.getFrame(i).getLocationId(pprof, pprofGeneration);
+    }
+
+    boolean hasSpan = spanContext != null && spanContext.isValid();
+    aggregator.add(
+        locationIds,
+        frameCount,
+        parser.getThreadState(),
+        parser.isTruncated(),
+        sourceEventName,
+        period.toNanos(),
+        time.toEpochMilli(),
+        hasSpan ? spanContext.getTraceId() : null,
+        hasSpan ? spanContext.getSpanId() : null);
+  }
+
+  @Override
+  public void export(
+      IMCStackTrace stackTrace,
+      @Nullable IMCThread thread,
+      Instant time,
+      String sourceEventName,
+      SpanLinkage spanLinkage) {
+    List<? extends IMCFrame> frames = stackTrace.getFrames();
+    // limit the number of stack frames in case jfr stack depth is greater than our stack depth
+    int frameCount = Math.min(frames.size(), stackDepth);
+    if (frameCount == 0) {
+      return;
+    }
+    boolean truncated = stackTrace.getTruncationState().isTruncated() || frames.size() > stackDepth;
+    if (locationIds.length < frameCount) {
+      locationIds = Arrays.copyOf(locationIds, Math.max(frameCount, 2 * locationIds.length));
+    }
+    for (int i = 0; i < frameCount; i++) {
+      locationIds[i] = pprof.getLocationId(frames.get(i));
+    }
+
+    SpanContext spanContext = spanLinkage.getSpanContext();
+    boolean hasSpan = spanContext != null && spanContext.isValid();
+    // sampled threads are running java or native code
+    String threadState = "RUNNABLE";
+
+    if (aggregator != null) {
+      aggregator.add(
+          locationIds,
+          frameCount,
+          threadState,
+          truncated,
+          sourceEventName,
+          period.toNanos(),
+          time.toEpochMilli(),
+          hasSpan ? spanContext.getTraceId() : null,
+          hasSpan ? spanContext.getSpanId() : null);
+      return;
+    }
+
+    Sample.Builder sample = Sample.newBuilder();
+    addValues(sample, 1);
+
+    if (thread != null && thread.getThreadId() != null) {
+      pprof.addLabel(sample, THREAD_ID, thread.getThreadId());
+      pprof.addLabel(sample, THREAD_NAME, thread.getThreadName());
+    }
+    pprof.addLabel(sample, THREAD_STATE, threadState);
+    if (truncated) {
+      pprof.addLabel(sample, THREAD_STACK_TRUNCATED, true);
+    }
+
+    for (int i = 0; i < frameCount; i++) {
+      sample.addLocationId(locationIds[i]);
+      pprof.incFrameCount();
+    }
+
+    pprof.addLabel(sample, SOURCE_EVENT_NAME, sourceEventName);
+    pprof.addLabel(sample, SOURCE_EVENT_PERIOD, period.toMillis());
+    pprof.addLabel(sample, SOURCE_EVENT_TIME, time.toEpochMilli());
+
+    if (hasSpan) {
+      pprof.addLabel(sample, TRACE_ID, spanContext.getTraceId());
+      pprof.addLabel(sample, SPAN_ID, spanContext.getSpanId());
+    }
+
+    pprof.addSample(sample);
+  }
+
+  @Override
+  public void export(
+      ThreadInfo threadInfo,
+      Instant time,
+      String sourceEventName,
+      Duration period,
+      SpanContext spanContext) {
+    StackTraceElement[] stackTrace = threadInfo.getStackTrace();
+    int frameCount = Math.min(stackTrace.length, stackDepth);
+    if (frameCount == 0) {
+      return;
+    }
+    boolean truncated = stackTrace.length > stackDepth;
+    if (locationIds.length < frameCount) {
+      locationIds = Arrays.copyOf(locationIds, Math.max(frameCount, 2 * locationIds.length));
+    }
+    for (int i = 0; i < frameCount; i++) {
+      locationIds[i] = getLocationId(stackTrace[i]);
+    }
+
+    boolean hasSpan = spanContext.isValid();
+    String threadState = threadInfo.getThreadState().name();
+
+    if (aggregator != null) {
+      aggregator.add(
+          locationIds,
+          frameCount,
+          threadState,
+          truncated,
+          sourceEventName,
+          period.toNanos(),
+          time.toEpochMilli(),
+          hasSpan ? spanContext.getTraceId() : null,
+          hasSpan ? spanContext.getSpanId() : null);
+      return;
+    }
+
+    Sample.Builder sample = Sample.newBuilder();
+    addValues(sample, 1);
+
+    addThreadInfo(sample, threadInfo.getThreadId(), threadInfo.getThreadName(), threadState);
+    if (truncated) {
+      pprof.addLabel(sample, THREAD_STACK_TRUNCATED, true);
+    }
+
+    for (int i = 0; i < frameCount; i++) {
+      sample.addLocationId(locationIds[i]);
+      pprof.incFrameCount();
+    }
+
+    pprof.addLabel(sample, SOURCE_EVENT_NAME, sourceEventName);
+    pprof.addLabel(sample, SOURCE_EVENT_PERIOD, period.toMillis());
+    pprof.addLabel(sample, SOURCE_EVENT_TIME, time.toEpochMilli());
+
+    if (hasSpan) {
+      pprof.addLabel(sample, TRACE_ID, spanContext.getTraceId());
+      pprof.addLabel(sample, SPAN_ID, spanContext.getSpanId());
+    }
+
+    pprof.addSample(sample);
   }
 
   @Override
@@ -105,7 +303,10 @@ public class PprofCpuEventExporter implements CpuEventExporter {
       ThreadInfo threadInfo, Instant eventTime, String traceId, String spanId, Duration duration) {
     Sample.Builder sample = Sample.newBuilder();
     addThreadInfo(
-        sample, threadInfo.getThreadId(), threadInfo.getThreadName(), threadInfo.getThreadState());
+        sample,
+        threadInfo.getThreadId(),
+        threadInfo.getThreadName(),
+        threadInfo.getThreadState().name());
     addLockInfo(sample, threadInfo);
     addSample(sample, threadInfo.getStackTrace(), eventTime, traceId, spanId, duration);
   }
@@ -121,15 +322,15 @@ public class PprofCpuEventExporter implements CpuEventExporter {
       String spanId,
       Duration duration) {
     Sample.Builder sample = Sample.newBuilder();
-    addThreadInfo(sample, threadId, threadName, threadState);
+    addThreadInfo(sample, threadId, threadName, threadState.name());
     addSample(sample, stackTrace, eventTime, traceId, spanId, duration);
   }
 
   private void addThreadInfo(
-      Sample.Builder sample, long threadId, String threadName, Thread.State threadState) {
+      Sample.Builder sample, long threadId, String threadName, String threadState) {
     pprof.addLabel(sample, THREAD_ID, threadId);
     pprof.addLabel(sample, THREAD_NAME, threadName);
-    pprof.addLabel(sample, THREAD_STATE, threadState.name());
+    pprof.addLabel(sample, THREAD_STATE, threadState);
   }
 
   private void addSample(
@@ -139,21 +340,13 @@ public class PprofCpuEventExporter implements CpuEventExporter {
       String traceId,
       String spanId,
       Duration duration) {
+    addValues(sample, 1);
     if (stackTrace.length > stackDepth) {
       pprof.addLabel(sample, THREAD_STACK_TRUNCATED, true);
     }
 
     for (int i = 0; i < Math.min(stackDepth, stackTrace.length); i++) {
-      StackTraceElement ste = stackTrace[i];
-
-      String fileName = ste.getFileName();
-      if (fileName == null) {
-        fileName = "unknown";
-      }
-      String className = ste.getClassName();
-      String methodName = ste.getMethodName();
-      int lineNumber = Math.max(ste.getLineNumber(), 0);
-      sample.addLocationId(pprof.getLocationId(fileName, className, methodName, lineNumber));
+      sample.addLocationId(getLocationId(stackTrace[i]));
       pprof.incFrameCount();
     }
 
@@ -167,7 +360,28 @@ public class PprofCpuEventExporter implements CpuEventExporter {
       pprof.addLabel(sample, SPAN_ID, spanId);
     }
 
-    pprof.getProfileBuilder().addSample(sample);
+    pprof.addSample(sample);
+  }
+
+  private long getLocationId(StackTraceElement ste) {
+    String fileName = ste.getFileName();
+    if (fileName == null) {
+      fileName = "unknown";
+    }
+    String className = ste.getClassName();
+    String methodName = ste.getMethodName();
+    int lineNumber = Math.max(ste.getLineNumber(), 0);
+    return pprof.getLocationId(fileName, className, methodName, lineNumber);
+  }
+
+  /** Adds values for the sample types declared in {@link #createPprof()}. */
+  private void addValues(Sample.Builder sample, long count) {
+    if (executionSamples) {
+      sample.addValue(count);
+      sample.addValue(count * period.toNanos());
+    } else if (aggregator != null) {
+      sample.addValue(count);
+    }
   }
 
   private void addLockInfo(Sample.Builder sample, ThreadInfo threadInfo) {
@@ -190,18 +404,45 @@ public class PprofCpuEventExporter implements CpuEventExporter {
     return lockInfo.getClassName() + '@' + Integer.toHexString(lockInfo.getIdentityHashCode());
   }
 
-  private static Pprof createPprof() {
-    return new Pprof();
+  private Pprof createPprof() {
+    Pprof pprof = new Pprof(pprofBuffer, dataFormat, pprofSymbols);
+    if (aggregator != null || executionSamples) {
+      addSampleType(pprof, "samples", "count");
+    }
+    if (executionSamples) {
+      // each execution sample stands for one sampling period of cpu time
+      addSampleType(pprof, "cpu", "nanoseconds");
+    }
+    return pprof;
+  }
+
+  private static void addSampleType(Pprof pprof, String type, String unit) {
+    pprof
+        .getProfileBuilder()
+        .addSampleType(
+            ValueType.newBuilder()
+                .setType(pprof.getStringId(type))
+                .setUnit(pprof.getStringId(unit))
+                .build());
   }
 
   private byte[] serializePprof() {
-    byte[] result = pprof.serialize();
+    byte[] result = pprofLogDataExporter.serialize(pprof);
     pprof = createPprof();
+    pprofGeneration++;
     return result;
   }
 
+  @Override
+  public void setPeriod(Duration period) {
+    this.period = period;
+  }
+
   @Override
   public void flush() {
+    if (aggregator != null) {
+      aggregator.writeTo(pprof, executionSamples);
+    }
     if (!pprof.hasSamples()) {
       return;
     }
@@ -220,6 +461,9 @@ public class PprofCpuEventExporter implements CpuEventExporter {
     private Duration period;
     private int stackDepth;
     private InstrumentationSource instrumentationSource = InstrumentationSource.CONTINUOUS;
+    private boolean aggregateStacks;
+    private boolean executionSamples;
+    private ProfilingDataFormat dataFormat = ProfilingDataFormat.PPROF_GZIP_BASE64;
 
     public PprofCpuEventExporter build() {
       return new PprofCpuEventExporter(this);
@@ -244,5 +488,28 @@ public class PprofCpuEventExporter implements CpuEventExporter {
       this.instrumentationSource = instrumentationSource;
       return this;
     }
+
+    /**
+     * Export one sample per unique stack, thread state and span linkage instead of one sample per
+     * thread in every thread dump. Sample value is the number of aggregated stacks.
+     */
+    public Builder aggregateStacks(boolean aggregateStacks) {
+      this.aggregateStacks = aggregateStacks;
+      return this;
+    }
+
+    /**
+     * Samples come from jdk.ExecutionSample events taken every {@code period}. Samples get a second
+     * value, the cpu time estimated from the number of samples and the sampling period.
+     */
+    public Builder executionSamples(boolean executionSamples) {
+      this.executionSamples = executionSamples;
+      return this;
+    }
+
+    public Builder dataFormat(ProfilingDataFormat dataFormat) {
+      this.dataFormat = dataFormat;
+      return this;
+    }
   }
 }
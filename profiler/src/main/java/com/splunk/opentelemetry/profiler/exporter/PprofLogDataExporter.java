@@ -20,14 +20,18 @@ import static com.splunk.opentelemetry.profiler.ProfilingSemanticAttributes.DATA
 import static com.splunk.opentelemetry.profiler.ProfilingSemanticAttributes.DATA_TYPE;
 import static com.splunk.opentelemetry.profiler.ProfilingSemanticAttributes.FRAME_COUNT;
 import static com.splunk.opentelemetry.profiler.ProfilingSemanticAttributes.INSTRUMENTATION_SOURCE;
-import static com.splunk.opentelemetry.profiler.ProfilingSemanticAttributes.PPROF_GZIP_BASE64;
 import static com.splunk.opentelemetry.profiler.ProfilingSemanticAttributes.PROFILING_SOURCE;
 import static com.splunk.opentelemetry.profiler.ProfilingSemanticAttributes.SOURCE_TYPE;
 import static java.util.logging.Level.FINE;
 
 import com.splunk.opentelemetry.profiler.InstrumentationSource;
+import com.splunk.opentelemetry.profiler.ProfilerMetrics;
+import com.splunk.opentelemetry.profiler.ProfilingDataFormat;
 import com.splunk.opentelemetry.profiler.ProfilingDataType;
+import com.splunk.opentelemetry.profiler.pprof.Pprof;
 import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.common.Value;
+import io.opentelemetry.api.logs.LogRecordBuilder;
 import io.opentelemetry.api.logs.Logger;
 import java.nio.charset.StandardCharsets;
 
@@ -37,21 +41,53 @@ public class PprofLogDataExporter {
 
   private final Logger otelLogger;
   private final ProfilingDataType dataType;
+  private final ProfilingDataFormat dataFormat;
   private final Attributes commonAttributes;
+  private final ProfilerMetrics metrics;
 
   public PprofLogDataExporter(
       Logger otelLogger, ProfilingDataType dataType, InstrumentationSource instrumentationSource) {
+    this(otelLogger, dataType, instrumentationSource, ProfilingDataFormat.PPROF_GZIP_BASE64);
+  }
+
+  public PprofLogDataExporter(
+      Logger otelLogger,
+      ProfilingDataType dataType,
+      InstrumentationSource instrumentationSource,
+      ProfilingDataFormat dataFormat) {
+    this(otelLogger, dataType, instrumentationSource, dataFormat, ProfilerMetrics.get());
+  }
+
+  public PprofLogDataExporter(
+      Logger otelLogger,
+      ProfilingDataType dataType,
+      InstrumentationSource instrumentationSource,
+      ProfilingDataFormat dataFormat,
+      ProfilerMetrics metrics) {
     this.otelLogger = otelLogger;
     this.dataType = dataType;
+    this.dataFormat = dataFormat;
     this.commonAttributes =
         Attributes.builder()
             .put(SOURCE_TYPE, PROFILING_SOURCE)
             .put(DATA_TYPE, dataType.value())
-            .put(DATA_FORMAT, PPROF_GZIP_BASE64)
+            .put(DATA_FORMAT, dataFormat.value())
             .put(INSTRUMENTATION_SOURCE, instrumentationSource.value())
             .build();
+    this.metrics = metrics;
+  }
+
+  /** Serializes the given pprof, recording how long the serialization took. */
+  public byte[] serialize(Pprof pprof) {
+    long start = System.nanoTime();
+    byte[] bytes = pprof.serialize();
+    metrics.recordPprofSerialize(dataType, System.nanoTime() - start);
+    return bytes;
   }
 
+  /**
+   * @param bytes serialized pprof, encoded according to the data format of this exporter
+   */
   public void export(byte[] bytes, int frameCount) {
     if (logger.isLoggable(FINE)) {
       logger.log(
@@ -60,8 +96,14 @@ public class PprofLogDataExporter {
           new Object[] {dataType.value(), bytes.length});
     }
 
-    String body = new String(bytes, StandardCharsets.ISO_8859_1);
+    metrics.recordPprofPayload(dataType, bytes.length, frameCount);
     Attributes attributes = commonAttributes.toBuilder().put(FRAME_COUNT, frameCount).build();
-    otelLogger.logRecordBuilder().setBody(body).setAllAttributes(attributes).emit();
+    LogRecordBuilder logRecordBuilder = otelLogger.logRecordBuilder();
+    if (dataFormat == ProfilingDataFormat.PPROF_GZIP) {
+      logRecordBuilder.setBody(Value.of(bytes));
+    } else {
+      logRecordBuilder.setBody(new String(bytes, StandardCharsets.ISO_8859_1));
+    }
+    logRecordBuilder.setAllAttributes(attributes).emit();
   }
 }
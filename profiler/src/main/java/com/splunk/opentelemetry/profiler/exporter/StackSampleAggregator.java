@@ -0,0 +1,303 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.opentelemetry.profiler.exporter;
+
+import static com.splunk.opentelemetry.profiler.ProfilingSemanticAttributes.SOURCE_EVENT_NAME;
+import static com.splunk.opentelemetry.profiler.ProfilingSemanticAttributes.SOURCE_EVENT_TIME;
+import static com.splunk.opentelemetry.profiler.ProfilingSemanticAttributes.SPAN_ID;
+import static com.splunk.opentelemetry.profiler.ProfilingSemanticAttributes.THREAD_STACK_TRUNCATED;
+import static com.splunk.opentelemetry.profiler.ProfilingSemanticAttributes.THREAD_STATE;
+import static com.splunk.opentelemetry.profiler.ProfilingSemanticAttributes.TRACE_ID;
+
+import com.google.perftools.profiles.ProfileProto.Sample;
+import com.splunk.opentelemetry.profiler.pprof.Pprof;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import javax.annotation.Nullable;
+
+/**
+ * Groups samples that have the same stack, thread state, source event, sampling period, detail and
+ * span linkage. Each group is written as a single pprof sample, its values are written by a {@link
+ * SampleWriter} from the number of samples in the group and the sums of their amounts and
+ * durations. Labels that differ between the grouped samples, like thread id and thread name, are
+ * dropped, the event time of a group is the time of its earliest sample.
+ *
+ * <p>When {@code maxStacks} is positive at most that many groups are kept, samples that don't fit
+ * are added to a single group with an {@code other} frame.
+ */
+public final class StackSampleAggregator {
+  private static final String OTHER_FRAME = "other";
+
+  private final int maxStacks;
+  private final Map<Key, Group> groups = new HashMap<>();
+  // reused for lookups so that adding a sample for a known key does not allocate
+  private final Key lookupKey = new Key();
+  @Nullable private Group other;
+
+  public StackSampleAggregator() {
+    this(0);
+  }
+
+  public StackSampleAggregator(int maxStacks) {
+    this.maxStacks = maxStacks;
+  }
+
+  /**
+   * Adds a sample to its group.
+   *
+   * @param locationIds pprof location ids of the stack frames, only the first {@code locationCount}
+   *     are used, the array may be reused after this call
+   * @param threadState written as a label when not {@code null}
+   * @param sourceEventName written as a label when not {@code null}
+   * @param periodNanos sampling period, zero when the samples aren't periodic
+   * @param detail part of the key that the {@link SampleWriter} writes as a label, e.g. the
+   *     allocated class
+   * @param amount added to the amount of the group, e.g. the allocated bytes
+   * @param durationNanos added to the duration of the group
+   * @param timeMillis epoch milliseconds of the sample
+   */
+  public void add(
+      long[] locationIds,
+      int locationCount,
+      boolean truncated,
+      @Nullable String threadState,
+      @Nullable String sourceEventName,
+      long periodNanos,
+      @Nullable String detail,
+      @Nullable String traceId,
+      @Nullable String spanId,
+      long amount,
+      long durationNanos,
+      long timeMillis) {
+    lookupKey.set(
+        locationIds,
+        locationCount,
+        truncated,
+        threadState,
+        sourceEventName,
+        periodNanos,
+        detail,
+        traceId,
+        spanId);
+    Group group = groups.get(lookupKey);
+    if (group == null) {
+      if (maxStacks > 0 && groups.size() >= maxStacks) {
+        if (other == null) {
+          other = new Group(null, timeMillis);
+        }
+        group = other;
+      } else {
+        Key key = lookupKey.copy();
+        group = new Group(key, timeMillis);
+        groups.put(key, group);
+      }
+    }
+    group.add(amount, durationNanos, timeMillis);
+  }
+
+  public boolean isEmpty() {
+    return groups.isEmpty() && other == null;
+  }
+
+  /** Returns the number of groups, not counting the group of samples that didn't fit. */
+  public int size() {
+    return groups.size();
+  }
+
+  /** Adds a sample for each group to the pprof and clears this aggregator. */
+  public void writeTo(Pprof pprof, SampleWriter writer) {
+    for (Group group : groups.values()) {
+      writeSample(pprof, group, writer);
+    }
+    if (other != null) {
+      writeSample(pprof, other, writer);
+    }
+    groups.clear();
+    other = null;
+  }
+
+  private static void writeSample(Pprof pprof, Group group, SampleWriter writer) {
+    Sample.Builder sample = Sample.newBuilder();
+    writer.write(pprof, sample, group);
+    Key key = group.key;
+    if (key == null) {
+      pprof.addLabel(sample, THREAD_STACK_TRUNCATED, true);
+      sample.addLocationId(pprof.getLocationId("unknown", OTHER_FRAME, OTHER_FRAME, 0));
+      pprof.incFrameCount();
+    } else {
+      if (key.threadState != null) {
+        pprof.addLabel(sample, THREAD_STATE, key.threadState);
+      }
+      if (key.truncated) {
+        pprof.addLabel(sample, THREAD_STACK_TRUNCATED, true);
+      }
+      for (int i = 0; i < key.locationCount; i++) {
+        sample.addLocationId(key.locationIds[i]);
+        pprof.incFrameCount();
+      }
+      if (key.sourceEventName != null) {
+        pprof.addLabel(sample, SOURCE_EVENT_NAME, key.sourceEventName);
+      }
+      if (key.traceId != null) {
+        pprof.addLabel(sample, TRACE_ID, key.traceId);
+        pprof.addLabel(sample, SPAN_ID, key.spanId);
+      }
+    }
+    pprof.addLabel(sample, SOURCE_EVENT_TIME, group.firstTimeMillis);
+    pprof.addSample(sample);
+  }
+
+  /** Writes the values of a group and the labels that only some data types have. */
+  public interface SampleWriter {
+    void write(Pprof pprof, Sample.Builder sample, Group group);
+  }
+
+  /** Samples with the same key, or the samples that didn't fit when there are too many groups. */
+  public static final class Group {
+    // null for the samples that didn't fit
+    @Nullable private final Key key;
+    private long count;
+    private long amount;
+    private long durationNanos;
+    private long firstTimeMillis;
+
+    private Group(@Nullable Key key, long timeMillis) {
+      this.key = key;
+      this.firstTimeMillis = timeMillis;
+    }
+
+    private void add(long amount, long durationNanos, long timeMillis) {
+      count++;
+      this.amount += amount;
+      this.durationNanos += durationNanos;
+      firstTimeMillis = Math.min(firstTimeMillis, timeMillis);
+    }
+
+    public long getCount() {
+      return count;
+    }
+
+    public long getAmount() {
+      return amount;
+    }
+
+    public long getDurationNanos() {
+      return durationNanos;
+    }
+
+    public long getPeriodNanos() {
+      return key != null ? key.periodNanos : 0;
+    }
+
+    @Nullable
+    public String getDetail() {
+      return key != null ? key.detail : null;
+    }
+  }
+
+  private static class Key {
+    long[] locationIds = new long[0];
+    int locationCount;
+    boolean truncated;
+    @Nullable String threadState;
+    @Nullable String sourceEventName;
+    long periodNanos;
+    @Nullable String detail;
+    @Nullable String traceId;
+    @Nullable String spanId;
+    int hashCode;
+
+    void set(
+        long[] locationIds,
+        int locationCount,
+        boolean truncated,
+        @Nullable String threadState,
+        @Nullable String sourceEventName,
+        long periodNanos,
+        @Nullable String detail,
+        @Nullable String traceId,
+        @Nullable String spanId) {
+      this.locationIds = locationIds;
+      this.locationCount = locationCount;
+      this.truncated = truncated;
+      this.threadState = threadState;
+      this.sourceEventName = sourceEventName;
+      this.periodNanos = periodNanos;
+      this.detail = detail;
+      this.traceId = traceId;
+      this.spanId = spanId;
+
+      int hash = 1;
+      for (int i = 0; i < locationCount; i++) {
+        hash = 31 * hash + Long.hashCode(locationIds[i]);
+      }
+      hash = 31 * hash + Boolean.hashCode(truncated);
+      hash = 31 * hash + Objects.hashCode(threadState);
+      hash = 31 * hash + Objects.hashCode(sourceEventName);
+      hash = 31 * hash + Long.hashCode(periodNanos);
+      hash = 31 * hash + Objects.hashCode(detail);
+      hash = 31 * hash + Objects.hashCode(traceId);
+      hash = 31 * hash + Objects.hashCode(spanId);
+      this.hashCode = hash;
+    }
+
+    Key copy() {
+      Key copy = new Key();
+      copy.locationIds = Arrays.copyOf(locationIds, locationCount);
+      copy.locationCount = locationCount;
+      copy.truncated = truncated;
+      copy.threadState = threadState;
+      copy.sourceEventName = sourceEventName;
+      copy.periodNanos = periodNanos;
+      copy.detail = detail;
+      copy.traceId = traceId;
+      copy.spanId = spanId;
+      copy.hashCode = hashCode;
+      return copy;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) return true;
+      if (!(o instanceof Key)) return false;
+      Key that = (Key) o;
+      if (hashCode != that.hashCode
+          || locationCount != that.locationCount
+          || truncated != that.truncated
+          || periodNanos != that.periodNanos) {
+        return false;
+      }
+      for (int i = 0; i < locationCount; i++) {
+        if (locationIds[i] != that.locationIds[i]) {
+          return false;
+        }
+      }
+      return Objects.equals(threadState, that.threadState)
+          && Objects.equals(sourceEventName, that.sourceEventName)
+          && Objects.equals(detail, that.detail)
+          && Objects.equals(traceId, that.traceId)
+          && Objects.equals(spanId, that.spanId);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+  }
+}
@@ -119,19 +119,26 @@ class StackTraceParser {
       return null;
     }
     // remove "\tat " and trailing ")"
-    line = line.substring(STACK_LINE_PREFIX.length(), line.length() - 1);
-    int i = line.lastIndexOf('(');
+    return parseFrame(line.substring(STACK_LINE_PREFIX.length(), line.length() - 1));
+  }
+
+  /**
+   * Parses a stack frame without the leading "\tat " and the trailing ")", for example
+   * java.lang.Thread.run(java.base@11.0.9.1/Thread.java:834
+   */
+  static StackTraceLine parseFrame(String frame) {
+    int i = frame.lastIndexOf('(');
     if (i == -1) {
       return null;
     }
-    int j = line.lastIndexOf('.', i);
+    int j = frame.lastIndexOf('.', i);
     if (j == -1) {
       return null;
     }
-    String className = line.substring(0, j);
-    String method = line.substring(j + 1, i);
+    String className = frame.substring(0, j);
+    String method = frame.substring(j + 1, i);
 
-    String location = line.substring(i + 1);
+    String location = frame.substring(i + 1);
 
     i = location.indexOf('/');
     if (i != -1) {
@@ -0,0 +1,269 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.opentelemetry.profiler.exporter;
+
+import com.splunk.opentelemetry.profiler.ThreadDumpRegion;
+import com.splunk.opentelemetry.profiler.exporter.StackTraceParser.StackTraceLine;
+import com.splunk.opentelemetry.profiler.pprof.Pprof;
+import java.util.Arrays;
+
+/**
+ * Parses the stack trace a {@link ThreadDumpRegion} points to without extracting it from the thread
+ * dump. Unlike {@link StackTraceParser} it walks the region offsets directly and looks up frames,
+ * thread names and thread states by their character range, so a frame that was already seen is
+ * resolved without allocating. Parse results are kept in this instance until the next call to
+ * {@link #parse(ThreadDumpRegion, int)}, instances are not thread safe.
+ */
+class ThreadDumpStackParser {
+  private static final String STACK_LINE_PREFIX = "\tat ";
+  private static final String THREAD_STATE_PREFIX = "java.lang.Thread.State: ";
+  // bounds for the lookup tables, a table is cleared when it fills up
+  static final int MAX_FRAMES = 16 * 1024;
+  static final int MAX_STRINGS = 4 * 1024;
+
+  private final CharRangeTable<Frame> frames = new CharRangeTable<>(MAX_FRAMES);
+  private final CharRangeTable<String> strings = new CharRangeTable<>(MAX_STRINGS);
+
+  private int threadId;
+  private String threadName;
+  private String threadState;
+  private boolean truncated;
+  private Frame[] stackFrames = new Frame[64];
+  private int frameCount;
+
+  /**
+   * Parses the stack trace the region currently points to. Returns false when the region does not
+   * contain a stack trace.
+   */
+  boolean parse(ThreadDumpRegion region, int stackDepth) {
+    reset();
+
+    String threadDump = region.threadDump;
+    int end = region.endIndex;
+    int headerStart = region.startIndex;
+    int headerEnd = lineEnd(threadDump, headerStart, end);
+    if (headerEnd >= end) {
+      return false;
+    }
+    parseHeader(threadDump, headerStart, trimLineEnd(threadDump, headerStart, headerEnd));
+
+    int stateStart = headerEnd + 1;
+    int stateEnd = lineEnd(threadDump, stateStart, end);
+    parseThreadState(threadDump, stateStart, trimLineEnd(threadDump, stateStart, stateEnd));
+
+    // line index matches the one used by StackTraceParser, the first stack line has index 2
+    int lineIndex = 2;
+    for (int lineStart = stateEnd + 1; lineStart < end; lineIndex++) {
+      int lineEnd = lineEnd(threadDump, lineStart, end);
+      // truncate the bottom stack frames the same way as jfr stack frame limiting does
+      if (lineIndex > stackDepth + 2) {
+        truncated = true;
+        break;
+      }
+      Frame frame = parseFrame(threadDump, lineStart, trimLineEnd(threadDump, lineStart, lineEnd));
+      if (frame != null) {
+        addFrame(frame);
+      }
+      lineStart = lineEnd + 1;
+    }
+
+    return true;
+  }
+
+  int getThreadId() {
+    return threadId;
+  }
+
+  String getThreadName() {
+    return threadName;
+  }
+
+  String getThreadState() {
+    return threadState;
+  }
+
+  boolean isTruncated() {
+    return truncated;
+  }
+
+  int getFrameCount() {
+    return frameCount;
+  }
+
+  Frame getFrame(int index) {
+    return stackFrames[index];
+  }
+
+  private void reset() {
+    threadId = 0;
+    threadName = null;
+    threadState = null;
+    truncated = false;
+    Arrays.fill(stackFrames, 0, frameCount, null);
+    frameCount = 0;
+  }
+
+  private void addFrame(Frame frame) {
+    if (frameCount == stackFrames.length) {
+      stackFrames = Arrays.copyOf(stackFrames, 2 * stackFrames.length);
+    }
+    stackFrames[frameCount++] = frame;
+  }
+
+  private void parseHeader(String threadDump, int start, int end) {
+    if (start == end || threadDump.charAt(start) != '"') {
+      return;
+    }
+    int nameEnd = lastIndexOf(threadDump, '"', start, end);
+    if (nameEnd == start) {
+      return;
+    }
+    threadName = intern(threadDump, start + 1, nameEnd);
+
+    int idStart = indexOf(threadDump, '#', nameEnd, end);
+    if (idStart == -1) {
+      return;
+    }
+    int idEnd = indexOf(threadDump, ' ', idStart, end);
+    if (idEnd != -1) {
+      threadId = parseInt(threadDump, idStart + 1, idEnd);
+    }
+  }
+
+  private void parseThreadState(String threadDump, int start, int end) {
+    int prefixLength = THREAD_STATE_PREFIX.length();
+    for (int i = start; i + prefixLength <= end; i++) {
+      if (threadDump.startsWith(THREAD_STATE_PREFIX, i)) {
+        threadState = intern(threadDump, i + prefixLength, end);
+        return;
+      }
+    }
+  }
+
+  private Frame parseFrame(String threadDump, int start, int end) {
+    // we expect the stack trace line to look like
+    // at java.lang.Thread.run(java.base@11.0.9.1/Thread.java:834)
+    if (!threadDump.startsWith(STACK_LINE_PREFIX, start)
+        || end - start <= STACK_LINE_PREFIX.length()
+        || threadDump.charAt(end - 1) != ')') {
+      return null;
+    }
+    // the key excludes "\tat " and trailing ")"
+    int frameStart = start + STACK_LINE_PREFIX.length();
+    int frameEnd = end - 1;
+    int hash = CharRangeTable.hash(threadDump, frameStart, frameEnd);
+    Frame frame = frames.get(threadDump, frameStart, frameEnd, hash);
+    if (frame == null) {
+      String key = threadDump.substring(frameStart, frameEnd);
+      StackTraceLine stackTraceLine = StackTraceParser.parseFrame(key);
+      if (stackTraceLine == null) {
+        return null;
+      }
+      frame = new Frame(stackTraceLine);
+      frames.put(key, hash, frame);
+    }
+    return frame;
+  }
+
+  private String intern(String threadDump, int start, int end) {
+    int hash = CharRangeTable.hash(threadDump, start, end);
+    String result = strings.get(threadDump, start, end, hash);
+    if (result == null) {
+      result = threadDump.substring(start, end);
+      strings.put(result, hash, result);
+    }
+    return result;
+  }
+
+  private static int lineEnd(String threadDump, int start, int end) {
+    int result = threadDump.indexOf('\n', start);
+    return result == -1 || result > end ? end : result;
+  }
+
+  private static int trimLineEnd(String threadDump, int start, int end) {
+    return end > start && threadDump.charAt(end - 1) == '\r' ? end - 1 : end;
+  }
+
+  private static int indexOf(String text, char ch, int start, int end) {
+    for (int i = start; i < end; i++) {
+      if (text.charAt(i) == ch) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private static int lastIndexOf(String text, char ch, int start, int end) {
+    for (int i = end - 1; i >= start; i--) {
+      if (text.charAt(i) == ch) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /** Parses a non-negative decimal number, returns 0 when the range is not a valid int. */
+  private static int parseInt(String text, int start, int end) {
+    if (start == end) {
+      return 0;
+    }
+    long result = 0;
+    for (int i = start; i < end; i++) {
+      char ch = text.charAt(i);
+      if (ch < '0' || ch > '9') {
+        return 0;
+      }
+      result = 10 * result + (ch - '0');
+      if (result > Integer.MAX_VALUE) {
+        return 0;
+      }
+    }
+    return (int) result;
+  }
+
+  /** Parsed stack frame that remembers its location id in the current pprof batch. */
+  static final class Frame {
+    private final StackTraceLine stackTraceLine;
+    private int pprofGeneration = -1;
+    private long locationId;
+
+    Frame(StackTraceLine stackTraceLine) {
+      this.stackTraceLine = stackTraceLine;
+    }
+
+    StackTraceLine getStackTraceLine() {
+      return stackTraceLine;
+    }
+
+    /**
+     * Returns location id of this frame in the given pprof. Generation identifies the pprof batch,
+     * the location id is looked up from pprof only when generation changes.
+     */
+    long getLocationId(Pprof pprof, int generation) {
+      if (pprofGeneration != generation) {
+        locationId =
+            pprof.getLocationId(
+                stackTraceLine.getLocation(),
+                stackTraceLine.getClassName(),
+                stackTraceLine.getMethod(),
+                stackTraceLine.getLineNumber());
+        pprofGeneration = generation;
+      }
+      return locationId;
+    }
+  }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.opentelemetry.profiler.iowait.exporter;
+
+import static com.splunk.opentelemetry.profiler.ProfilingSemanticAttributes.IO_TARGET;
+
+import com.splunk.opentelemetry.profiler.ProfilingDataType;
+import com.splunk.opentelemetry.profiler.exporter.AggregatingPprofEventExporter;
+import javax.annotation.Nullable;
+import org.openjdk.jmc.common.item.IItem;
+
+/**
+ * Exports socket and file I/O events as pprof. Events with the same stack, event type, I/O target
+ * and span linkage are aggregated into a single sample whose values are the number of bytes read or
+ * written and the total duration of the I/O operations, in nanoseconds.
+ */
+public class PprofIoEventExporter extends AggregatingPprofEventExporter implements IoEventExporter {
+
+  private PprofIoEventExporter(Builder builder) {
+    super(builder, ProfilingDataType.IO, IO_TARGET, "bytes", "bytes", "duration");
+  }
+
+  @Override
+  protected long getAmount(IItem event) {
+    return getEventReader().getBytes(event);
+  }
+
+  @Nullable
+  @Override
+  protected String getDetail(IItem event) {
+    return getEventReader().getIoTarget(event);
+  }
+
+  @Override
+  protected String getThreadState(String eventName) {
+    // threads doing blocking I/O are runnable from the java point of view
+    return "RUNNABLE";
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  public static class Builder
+      extends AggregatingPprofEventExporter.Builder<PprofIoEventExporter, Builder> {
+
+    @Override
+    public PprofIoEventExporter build() {
+      return new PprofIoEventExporter(this);
+    }
+  }
+}
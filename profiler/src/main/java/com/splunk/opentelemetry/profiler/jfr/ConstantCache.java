@@ -0,0 +1,45 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.opentelemetry.profiler.jfr;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/** Resolved constant pool values of a single chunk, keyed by constant pool key. */
+final class ConstantCache<T> {
+  private final LongIntMap indexes = new LongIntMap();
+  private final List<T> values = new ArrayList<>();
+
+  boolean contains(long key) {
+    return indexes.get(key) != LongIntMap.MISSING;
+  }
+
+  T get(long key) {
+    int index = indexes.get(key);
+    return index == LongIntMap.MISSING ? null : values.get(index);
+  }
+
+  void put(long key, T value) {
+    indexes.put(key, values.size());
+    values.add(value);
+  }
+
+  void clear() {
+    indexes.clear();
+    values.clear();
+  }
+}
@@ -0,0 +1,705 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.opentelemetry.profiler.jfr;
+
+import com.splunk.opentelemetry.profiler.events.ProfilerEvent;
+import com.splunk.opentelemetry.profiler.jfr.JfrMetadata.ClassDescriptor;
+import com.splunk.opentelemetry.profiler.jfr.JfrMetadata.FieldDescriptor;
+import com.splunk.opentelemetry.profiler.jfr.JfrMetadata.Kind;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Decodes JFR chunks and materializes only the events and the fields that the profiler reads.
+ * Events of other types are skipped by their size, constant pools are indexed when the chunk is
+ * read and individual constants are decoded only when an event refers to them. Only JFR format
+ * version 2, used by java 11+ and recent java 8 builds, is supported. This class is not thread
+ * safe.
+ */
+public final class JfrChunkDecoder {
+  private static final int HEADER_SIZE = 68;
+  private static final byte[] MAGIC = {'F', 'L', 'R', '\0'};
+  private static final int SUPPORTED_MAJOR_VERSION = 2;
+  private static final int FEATURE_COMPRESSED_INTEGERS = 1;
+  private static final int CHECKPOINT_EVENT_TYPE = 1;
+
+  private static final String STRING_CLASS = "java.lang.String";
+  private static final String THREAD_CLASS = "java.lang.Thread";
+  private static final String STACK_TRACE_CLASS = "jdk.types.StackTrace";
+  private static final String METHOD_CLASS = "jdk.types.Method";
+  private static final String CLASS_CLASS = "java.lang.Class";
+  private static final String SYMBOL_CLASS = "jdk.types.Symbol";
+  private static final String OLD_OBJECT_CLASS = "jdk.types.OldObject";
+
+  // actions for event fields
+  private static final int SKIP = 0;
+  private static final int START_TIME = 1;
+  private static final int EVENT_THREAD = 2;
+  private static final int STACK_TRACE = 3;
+  private static final int THREAD_DUMP_RESULT = 4;
+  private static final int TRACE_ID = 5;
+  private static final int SPAN_ID = 6;
+  private static final int TRACE_FLAGS = 7;
+  private static final int ALLOCATION_SIZE = 8;
+  private static final int SAMPLE_WEIGHT = 9;
+  private static final int DURATION = 10;
+  private static final int MONITOR_CLASS = 11;
+  private static final int BYTES = 12;
+  private static final int HOST = 13;
+  private static final int ADDRESS = 14;
+  private static final int PORT = 15;
+  private static final int PATH = 16;
+  private static final int OBJECT_CLASS = 17;
+  private static final int OLD_OBJECT = 18;
+
+  private final Set<String> eventNames;
+  private final JfrInput input = new JfrInput();
+  private byte[] buffer = new byte[64 * 1024];
+
+  // chunk header
+  private int constantPoolOffset;
+  private int metadataOffset;
+  private long chunkStartNanos;
+  private long chunkStartTicks;
+  // divided by instead of multiplying with nanos per tick, rounds like jdk.jfr.consumer does
+  private double ticksPerNano;
+
+  // state derived from metadata, reused while the metadata doesn't change
+  private JfrMetadata metadata;
+  private final LongIntMap eventLayoutIndexes = new LongIntMap();
+  private final List<EventLayout> eventLayouts = new ArrayList<>();
+  private final ConstantPool strings = new ConstantPool();
+  private final ConstantPool threads = new ConstantPool();
+  private final ConstantPool stackTraces = new ConstantPool();
+  private final ConstantPool methods = new ConstantPool();
+  private final ConstantPool classes = new ConstantPool();
+  private final ConstantPool symbols = new ConstantPool();
+  private final ConstantPool oldObjects = new ConstantPool();
+  private final ConstantPool[] constantPools = {
+    strings, threads, stackTraces, methods, classes, symbols, oldObjects
+  };
+
+  // constants resolved in the current chunk
+  private final ConstantCache<String> resolvedStrings = new ConstantCache<>();
+  private final ConstantCache<ProfilerEvent.JavaThread> resolvedThreads = new ConstantCache<>();
+  private final ConstantCache<ProfilerEvent.StackTrace> resolvedStackTraces =
+      new ConstantCache<>();
+  private final ConstantCache<ProfilerEvent.Method> resolvedMethods = new ConstantCache<>();
+  private final ConstantCache<String> resolvedClassNames = new ConstantCache<>();
+  private final ConstantCache<String> resolvedSymbols = new ConstantCache<>();
+  private final ConstantCache<String> resolvedOldObjectClassNames = new ConstantCache<>();
+
+  public JfrChunkDecoder(Collection<String> eventNames) {
+    this.eventNames = new HashSet<>(eventNames);
+    input.setStringConstants(this::resolveString);
+  }
+
+  /**
+   * Decodes the next chunk from the input stream and passes the events of the requested types to
+   * the consumer in the order they appear in the chunk.
+   *
+   * @return false when the stream has no more complete chunks
+   */
+  public boolean decodeChunk(InputStream inputStream, Consumer<ProfilerEvent> consumer)
+      throws IOException {
+    if (!readChunk(inputStream)) {
+      return false;
+    }
+    try {
+      readMetadata();
+      indexConstantPools();
+      readEvents(consumer);
+    } catch (UncheckedIOException exception) {
+      throw exception.getCause();
+    } catch (IndexOutOfBoundsException exception) {
+      throw new IOException("Malformed JFR chunk", exception);
+    } finally {
+      clearResolvedConstants();
+    }
+    return true;
+  }
+
+  private boolean readChunk(InputStream inputStream) throws IOException {
+    if (readFully(inputStream, buffer, 0, HEADER_SIZE) < HEADER_SIZE) {
+      return false;
+    }
+    for (int i = 0; i < MAGIC.length; i++) {
+      if (buffer[i] != MAGIC[i]) {
+        throw new IOException("Not a JFR chunk");
+      }
+    }
+    input.reset(buffer, HEADER_SIZE, false);
+    input.position(MAGIC.length);
+    int majorVersion = input.readRawShort();
+    input.readRawShort(); // minor version
+    if (majorVersion != SUPPORTED_MAJOR_VERSION) {
+      throw new IOException("Unsupported JFR version " + majorVersion);
+    }
+    long chunkSize = input.readRawLong();
+    long constantPoolOffset = input.readRawLong();
+    long metadataOffset = input.readRawLong();
+    chunkStartNanos = input.readRawLong();
+    input.readRawLong(); // duration
+    chunkStartTicks = input.readRawLong();
+    long ticksPerSecond = input.readRawLong();
+    int features = input.readRawInt();
+    if (chunkSize < HEADER_SIZE
+        || chunkSize > Integer.MAX_VALUE
+        || constantPoolOffset >= chunkSize
+        || metadataOffset >= chunkSize
+        || ticksPerSecond <= 0) {
+      throw new IOException("Invalid JFR chunk header");
+    }
+    ticksPerNano = ticksPerSecond / 1_000_000_000.0;
+
+    int size = (int) chunkSize;
+    if (buffer.length < size) {
+      byte[] newBuffer = new byte[Math.max(size, buffer.length * 2)];
+      System.arraycopy(buffer, 0, newBuffer, 0, HEADER_SIZE);
+      buffer = newBuffer;
+    }
+    if (readFully(inputStream, buffer, HEADER_SIZE, size - HEADER_SIZE) < size - HEADER_SIZE) {
+      // ignore truncated chunk
+      return false;
+    }
+    input.reset(buffer, size, (features & FEATURE_COMPRESSED_INTEGERS) != 0);
+    this.constantPoolOffset = (int) constantPoolOffset;
+    this.metadataOffset = (int) metadataOffset;
+    return true;
+  }
+
+  private void readMetadata() throws IOException {
+    input.position(metadataOffset);
+    long metadataId = JfrMetadata.readMetadataId(input);
+    if (metadata != null && metadata.getMetadataId() == metadataId) {
+      return;
+    }
+    metadata = JfrMetadata.read(input, metadataId);
+
+    for (ConstantPool constantPool : constantPools) {
+      constantPool.type = null;
+    }
+    strings.type = metadata.getClass(STRING_CLASS);
+    threads.type = metadata.getClass(THREAD_CLASS);
+    stackTraces.type = metadata.getClass(STACK_TRACE_CLASS);
+    methods.type = metadata.getClass(METHOD_CLASS);
+    classes.type = metadata.getClass(CLASS_CLASS);
+    symbols.type = metadata.getClass(SYMBOL_CLASS);
+    oldObjects.type = metadata.getClass(OLD_OBJECT_CLASS);
+
+    eventLayoutIndexes.clear();
+    eventLayouts.clear();
+    for (String eventName : eventNames) {
+      ClassDescriptor eventType = metadata.getClass(eventName);
+      if (eventType != null) {
+        eventLayoutIndexes.put(eventType.id, eventLayouts.size());
+        eventLayouts.add(new EventLayout(eventType));
+      }
+    }
+  }
+
+  private void indexConstantPools() throws IOException {
+    for (ConstantPool constantPool : constantPools) {
+      constantPool.positions.clear();
+    }
+    int position = constantPoolOffset;
+    while (true) {
+      input.position(position);
+      input.readInt(); // size
+      if (input.readLong() != CHECKPOINT_EVENT_TYPE) {
+        throw new IOException("Expected a constant pool at " + position);
+      }
+      input.readLong(); // start time
+      input.readLong(); // duration
+      long delta = input.readLong();
+      input.readByte(); // checkpoint type
+      int poolCount = input.readInt();
+      for (int i = 0; i < poolCount; i++) {
+        long classId = input.readLong();
+        ClassDescriptor type = metadata.getClass(classId);
+        if (type == null) {
+          throw new IOException("Unknown constant pool type " + classId);
+        }
+        LongIntMap positions = findPositions(classId);
+        int count = input.readInt();
+        for (int j = 0; j < count; j++) {
+          long key = input.readLong();
+          if (positions != null) {
+            positions.put(key, input.position());
+          }
+          skipType(type);
+        }
+      }
+      if (delta == 0) {
+        break;
+      }
+      position += (int) delta;
+    }
+  }
+
+  private LongIntMap findPositions(long classId) {
+    for (ConstantPool constantPool : constantPools) {
+      if (constantPool.type != null && constantPool.type.id == classId) {
+        return constantPool.positions;
+      }
+    }
+    return null;
+  }
+
+  private void readEvents(Consumer<ProfilerEvent> consumer) throws IOException {
+    int position = HEADER_SIZE;
+    int limit = input.limit();
+    while (position < limit) {
+      input.position(position);
+      int size = input.readInt();
+      if (size <= 0) {
+        throw new IOException("Invalid event size " + size + " at " + position);
+      }
+      int layoutIndex = eventLayoutIndexes.get(input.readLong());
+      if (layoutIndex != LongIntMap.MISSING) {
+        consumer.accept(readEvent(eventLayouts.get(layoutIndex)));
+      }
+      position += size;
+    }
+  }
+
+  private ProfilerEvent readEvent(EventLayout layout) throws IOException {
+    ProfilerEvent.Builder builder = ProfilerEvent.builder(layout.eventName);
+    long startTicks = 0;
+    for (int i = 0; i < layout.fields.length; i++) {
+      switch (layout.actions[i]) {
+        case START_TIME:
+          startTicks = input.readLong();
+          builder.startTime(ticksToEpochNanos(startTicks));
+          break;
+        case EVENT_THREAD:
+          builder.thread(resolveThread(input.readLong()));
+          break;
+        case STACK_TRACE:
+          builder.stackTrace(resolveStackTrace(input.readLong()));
+          break;
+        case THREAD_DUMP_RESULT:
+          builder.threadDumpResult(input.readString());
+          break;
+        case TRACE_ID:
+          builder.traceId(input.readString());
+          break;
+        case SPAN_ID:
+          builder.spanId(input.readString());
+          break;
+        case TRACE_FLAGS:
+          builder.traceFlags(input.readByte());
+          break;
+        case ALLOCATION_SIZE:
+          builder.allocationSize(input.readLong());
+          break;
+        case SAMPLE_WEIGHT:
+          builder.sampleWeight(input.readLong());
+          break;
+        case DURATION:
+          // the duration follows the start time, it is the difference of the converted end and
+          // start times like in jdk.jfr.consumer.RecordedEvent
+          long endTicks = startTicks + input.readLong();
+          builder.duration(ticksToEpochNanos(endTicks) - ticksToEpochNanos(startTicks));
+          break;
+        case MONITOR_CLASS:
+          builder.monitorClass(resolveClassName(input.readLong()));
+          break;
+        case BYTES:
+          builder.bytes(input.readLong());
+          break;
+        case HOST:
+          builder.host(input.readString());
+          break;
+        case ADDRESS:
+          builder.address(input.readString());
+          break;
+        case PORT:
+          builder.port(input.readInt());
+          break;
+        case PATH:
+          builder.path(input.readString());
+          break;
+        case OBJECT_CLASS:
+          builder.objectClass(resolveClassName(input.readLong()));
+          break;
+        case OLD_OBJECT:
+          builder.objectClass(resolveOldObjectClassName(input.readLong()));
+          break;
+        default:
+          skipField(layout.fields[i]);
+      }
+    }
+    return builder.build();
+  }
+
+  private long ticksToEpochNanos(long ticks) {
+    return chunkStartNanos + (long) ((ticks - chunkStartTicks) / ticksPerNano);
+  }
+
+  private String resolveString(long key) {
+    if (resolvedStrings.contains(key)) {
+      return resolvedStrings.get(key);
+    }
+    int saved = input.position();
+    String result = null;
+    if (seek(strings, key)) {
+      try {
+        result = input.readString();
+      } catch (IOException exception) {
+        throw new UncheckedIOException(exception);
+      }
+    }
+    input.position(saved);
+    resolvedStrings.put(key, result);
+    return result;
+  }
+
+  private ProfilerEvent.JavaThread resolveThread(long key) throws IOException {
+    if (resolvedThreads.contains(key)) {
+      return resolvedThreads.get(key);
+    }
+    int saved = input.position();
+    ProfilerEvent.JavaThread result = null;
+    if (seek(threads, key)) {
+      String javaName = null;
+      long javaThreadId = 0;
+      for (FieldDescriptor field : threads.type.fields) {
+        if ("javaName".equals(field.name) && isValue(field, Kind.STRING)) {
+          javaName = input.readString();
+        } else if ("javaThreadId".equals(field.name) && isValue(field, Kind.LONG)) {
+          javaThreadId = input.readLong();
+        } else {
+          skipField(field);
+        }
+      }
+      // threads that are not java threads don't have a java thread id
+      if (javaThreadId > 0) {
+        result = new ProfilerEvent.JavaThread(javaThreadId, javaName);
+      }
+    }
+    input.position(saved);
+    resolvedThreads.put(key, result);
+    return result;
+  }
+
+  private ProfilerEvent.StackTrace resolveStackTrace(long key) throws IOException {
+    if (resolvedStackTraces.contains(key)) {
+      return resolvedStackTraces.get(key);
+    }
+    int saved = input.position();
+    ProfilerEvent.StackTrace result = null;
+    if (seek(stackTraces, key)) {
+      boolean truncated = false;
+      List<ProfilerEvent.Frame> frames = new ArrayList<>();
+      for (FieldDescriptor field : stackTraces.type.fields) {
+        if ("truncated".equals(field.name) && isValue(field, Kind.BOOLEAN)) {
+          truncated = input.readBoolean();
+        } else if ("frames".equals(field.name)
+            && field.array
+            && !field.constantPool
+            && field.type.kind == Kind.STRUCT) {
+          int count = input.readInt();
+          for (int i = 0; i < count; i++) {
+            frames.add(readFrame(field.type));
+          }
+        } else {
+          skipField(field);
+        }
+      }
+      result = new ProfilerEvent.StackTrace(frames, truncated);
+    }
+    input.position(saved);
+    resolvedStackTraces.put(key, result);
+    return result;
+  }
+
+  private ProfilerEvent.Frame readFrame(ClassDescriptor frameType) throws IOException {
+    ProfilerEvent.Method method = null;
+    int lineNumber = -1;
+    int bytecodeIndex = -1;
+    for (FieldDescriptor field : frameType.fields) {
+      if ("method".equals(field.name) && isConstant(field)) {
+        method = resolveMethod(input.readLong());
+      } else if ("lineNumber".equals(field.name) && isValue(field, Kind.INT)) {
+        lineNumber = input.readInt();
+      } else if ("bytecodeIndex".equals(field.name) && isValue(field, Kind.INT)) {
+        bytecodeIndex = input.readInt();
+      } else {
+        skipField(field);
+      }
+    }
+    return new ProfilerEvent.Frame(method, lineNumber, bytecodeIndex);
+  }
+
+  private ProfilerEvent.Method resolveMethod(long key) throws IOException {
+    if (resolvedMethods.contains(key)) {
+      return resolvedMethods.get(key);
+    }
+    int saved = input.position();
+    ProfilerEvent.Method result = null;
+    if (seek(methods, key)) {
+      String className = null;
+      String methodName = null;
+      String descriptor = null;
+      int modifiers = 0;
+      for (FieldDescriptor field : methods.type.fields) {
+        if ("type".equals(field.name) && isConstant(field)) {
+          className = resolveClassName(input.readLong());
+        } else if ("name".equals(field.name) && isConstant(field)) {
+          methodName = resolveSymbol(input.readLong());
+        } else if ("descriptor".equals(field.name) && isConstant(field)) {
+          descriptor = resolveSymbol(input.readLong());
+        } else if ("modifiers".equals(field.name) && isValue(field, Kind.INT)) {
+          modifiers = input.readInt();
+        } else {
+          skipField(field);
+        }
+      }
+      result = new ProfilerEvent.Method(className, methodName, descriptor, modifiers);
+    }
+    input.position(saved);
+    resolvedMethods.put(key, result);
+    return result;
+  }
+
+  private String resolveClassName(long key) throws IOException {
+    if (resolvedClassNames.contains(key)) {
+      return resolvedClassNames.get(key);
+    }
+    int saved = input.position();
+    String result = null;
+    if (seek(classes, key)) {
+      for (FieldDescriptor field : classes.type.fields) {
+        if ("name".equals(field.name) && isConstant(field)) {
+          String name = resolveSymbol(input.readLong());
+          // class names are in the internal form, e.g. java/lang/String
+          result = name != null ? name.replace('/', '.') : null;
+        } else {
+          skipField(field);
+        }
+      }
+    }
+    input.position(saved);
+    resolvedClassNames.put(key, result);
+    return result;
+  }
+
+  // only the class of old objects is used, the address, description and referrer are skipped
+  private String resolveOldObjectClassName(long key) throws IOException {
+    if (resolvedOldObjectClassNames.contains(key)) {
+      return resolvedOldObjectClassNames.get(key);
+    }
+    int saved = input.position();
+    String result = null;
+    if (seek(oldObjects, key)) {
+      for (FieldDescriptor field : oldObjects.type.fields) {
+        if ("type".equals(field.name) && isConstant(field)) {
+          result = resolveClassName(input.readLong());
+        } else {
+          skipField(field);
+        }
+      }
+    }
+    input.position(saved);
+    resolvedOldObjectClassNames.put(key, result);
+    return result;
+  }
+
+  private String resolveSymbol(long key) throws IOException {
+    if (resolvedSymbols.contains(key)) {
+      return resolvedSymbols.get(key);
+    }
+    int saved = input.position();
+    String result = null;
+    if (seek(symbols, key)) {
+      for (FieldDescriptor field : symbols.type.fields) {
+        if ("string".equals(field.name) && isValue(field, Kind.STRING)) {
+          result = input.readString();
+        } else {
+          skipField(field);
+        }
+      }
+    }
+    input.position(saved);
+    resolvedSymbols.put(key, result);
+    return result;
+  }
+
+  private boolean seek(ConstantPool constantPool, long key) {
+    if (constantPool.type == null) {
+      return false;
+    }
+    int position = constantPool.positions.get(key);
+    if (position == LongIntMap.MISSING) {
+      return false;
+    }
+    input.position(position);
+    return true;
+  }
+
+  private void skipField(FieldDescriptor field) throws IOException {
+    int count = field.array ? input.readInt() : 1;
+    for (int i = 0; i < count; i++) {
+      if (field.constantPool) {
+        input.skipLong();
+      } else {
+        skipType(field.type);
+      }
+    }
+  }
+
+  private void skipType(ClassDescriptor type) throws IOException {
+    switch (type.kind) {
+      case BOOLEAN:
+      case BYTE:
+        input.skip(1);
+        break;
+      case CHAR:
+      case SHORT:
+        input.skipShort();
+        break;
+      case INT:
+        input.skipInt();
+        break;
+      case LONG:
+        input.skipLong();
+        break;
+      case FLOAT:
+        input.skip(4);
+        break;
+      case DOUBLE:
+        input.skip(8);
+        break;
+      case STRING:
+        input.skipString();
+        break;
+      case STRUCT:
+        for (FieldDescriptor field : type.fields) {
+          skipField(field);
+        }
+        break;
+    }
+  }
+
+  private void clearResolvedConstants() {
+    resolvedStrings.clear();
+    resolvedThreads.clear();
+    resolvedStackTraces.clear();
+    resolvedMethods.clear();
+    resolvedClassNames.clear();
+    resolvedSymbols.clear();
+    resolvedOldObjectClassNames.clear();
+  }
+
+  private static boolean isValue(FieldDescriptor field, Kind kind) {
+    return !field.array && !field.constantPool && field.type.kind == kind;
+  }
+
+  private static boolean isConstant(FieldDescriptor field) {
+    return !field.array && field.constantPool;
+  }
+
+  private static int readFully(InputStream inputStream, byte[] bytes, int offset, int length)
+      throws IOException {
+    int total = 0;
+    while (total < length) {
+      int read = inputStream.read(bytes, offset + total, length - total);
+      if (read < 0) {
+        break;
+      }
+      total += read;
+    }
+    return total;
+  }
+
+  private static final class ConstantPool {
+    ClassDescriptor type;
+    final LongIntMap positions = new LongIntMap();
+  }
+
+  /** Describes what to do with each field of an event type. */
+  private static final class EventLayout {
+    final String eventName;
+    final FieldDescriptor[] fields;
+    final int[] actions;
+
+    EventLayout(ClassDescriptor eventType) {
+      this.eventName = eventType.name;
+      this.fields = eventType.fields.toArray(new FieldDescriptor[0]);
+      this.actions = new int[fields.length];
+      for (int i = 0; i < fields.length; i++) {
+        actions[i] = actionFor(fields[i]);
+      }
+    }
+
+    private static int actionFor(FieldDescriptor field) {
+      switch (field.name) {
+        case "startTime":
+          return isValue(field, Kind.LONG) ? START_TIME : SKIP;
+        case "eventThread":
+        case "sampledThread": // execution samples have the sampled thread instead
+          return isConstant(field) && THREAD_CLASS.equals(field.type.name) ? EVENT_THREAD : SKIP;
+        case "stackTrace":
+          return isConstant(field) && STACK_TRACE_CLASS.equals(field.type.name)
+              ? STACK_TRACE
+              : SKIP;
+        case "result":
+          return isValue(field, Kind.STRING) ? THREAD_DUMP_RESULT : SKIP;
+        case "traceId":
+          return isValue(field, Kind.STRING) ? TRACE_ID : SKIP;
+        case "spanId":
+          return isValue(field, Kind.STRING) ? SPAN_ID : SKIP;
+        case "traceFlags":
+          return isValue(field, Kind.BYTE) ? TRACE_FLAGS : SKIP;
+        case "allocationSize":
+          return isValue(field, Kind.LONG) ? ALLOCATION_SIZE : SKIP;
+        case "weight":
+          return isValue(field, Kind.LONG) ? SAMPLE_WEIGHT : SKIP;
+        case "duration":
+          return isValue(field, Kind.LONG) ? DURATION : SKIP;
+        case "monitorClass":
+        case "parkedClass": // thread park events have the class of the parked on object
+          return isConstant(field) && CLASS_CLASS.equals(field.type.name) ? MONITOR_CLASS : SKIP;
+        case "bytesRead":
+        case "bytesWritten":
+          return isValue(field, Kind.LONG) ? BYTES : SKIP;
+        case "host":
+          return isValue(field, Kind.STRING) ? HOST : SKIP;
+        case "address":
+          return isValue(field, Kind.STRING) ? ADDRESS : SKIP;
+        case "port":
+          return isValue(field, Kind.INT) ? PORT : SKIP;
+        case "path":
+          return isValue(field, Kind.STRING) ? PATH : SKIP;
+        case "objectClass":
+          return isConstant(field) && CLASS_CLASS.equals(field.type.name) ? OBJECT_CLASS : SKIP;
+        case "object": // old object samples reference the sampled object
+          return isConstant(field) && OLD_OBJECT_CLASS.equals(field.type.name) ? OLD_OBJECT : SKIP;
+        default:
+          return SKIP;
+      }
+    }
+  }
+}
@@ -0,0 +1,235 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.opentelemetry.profiler.jfr;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.IOException;
+import java.util.function.LongFunction;
+
+/**
+ * Reads values from a JFR chunk held in a byte array. Depending on the chunk header integers are
+ * either LEB128 compressed or stored as big endian values.
+ */
+final class JfrInput {
+  private static final byte STRING_NULL = 0;
+  private static final byte STRING_EMPTY = 1;
+  private static final byte STRING_CONSTANT_POOL = 2;
+  private static final byte STRING_UTF8 = 3;
+  private static final byte STRING_CHAR_ARRAY = 4;
+  private static final byte STRING_LATIN1 = 5;
+
+  private byte[] buffer;
+  private int limit;
+  private int position;
+  private boolean compressedIntegers;
+  private LongFunction<String> stringConstants = key -> null;
+
+  void reset(byte[] buffer, int limit, boolean compressedIntegers) {
+    this.buffer = buffer;
+    this.limit = limit;
+    this.position = 0;
+    this.compressedIntegers = compressedIntegers;
+  }
+
+  void setStringConstants(LongFunction<String> stringConstants) {
+    this.stringConstants = stringConstants;
+  }
+
+  int position() {
+    return position;
+  }
+
+  void position(int position) {
+    if (position < 0 || position > limit) {
+      throw new IllegalStateException("Invalid position " + position + ", limit " + limit);
+    }
+    this.position = position;
+  }
+
+  int limit() {
+    return limit;
+  }
+
+  byte readByte() {
+    return buffer[position++];
+  }
+
+  boolean readBoolean() {
+    return buffer[position++] != 0;
+  }
+
+  short readRawShort() {
+    return (short) (((buffer[position++] & 0xFF) << 8) | (buffer[position++] & 0xFF));
+  }
+
+  int readRawInt() {
+    return ((buffer[position++] & 0xFF) << 24)
+        | ((buffer[position++] & 0xFF) << 16)
+        | ((buffer[position++] & 0xFF) << 8)
+        | (buffer[position++] & 0xFF);
+  }
+
+  long readRawLong() {
+    return ((long) readRawInt() << 32) | (readRawInt() & 0xFFFFFFFFL);
+  }
+
+  int readInt() {
+    if (compressedIntegers) {
+      return (int) readVarLong();
+    }
+    return readRawInt();
+  }
+
+  long readLong() {
+    if (compressedIntegers) {
+      return readVarLong();
+    }
+    return readRawLong();
+  }
+
+  short readShort() {
+    if (compressedIntegers) {
+      return (short) readVarLong();
+    }
+    return readRawShort();
+  }
+
+  char readChar() {
+    if (compressedIntegers) {
+      return (char) readVarLong();
+    }
+    return (char) readRawShort();
+  }
+
+  float readFloat() {
+    return Float.intBitsToFloat(readRawInt());
+  }
+
+  double readDouble() {
+    return Double.longBitsToDouble(readRawLong());
+  }
+
+  /** JFR uses LEB128 with at most 9 bytes, the last byte contributes all of its 8 bits. */
+  private long readVarLong() {
+    long result = 0;
+    for (int i = 0; i < 8; i++) {
+      byte b = buffer[position++];
+      result |= (b & 0x7FL) << (7 * i);
+      if (b >= 0) {
+        return result;
+      }
+    }
+    return result | ((buffer[position++] & 0xFFL) << 56);
+  }
+
+  void skipShort() {
+    skipInteger(2);
+  }
+
+  void skipInt() {
+    skipInteger(4);
+  }
+
+  void skipLong() {
+    skipInteger(8);
+  }
+
+  void skip(int bytes) {
+    position += bytes;
+  }
+
+  private void skipInteger(int rawSize) {
+    if (!compressedIntegers) {
+      position += rawSize;
+      return;
+    }
+    for (int i = 0; i < 8; i++) {
+      if (buffer[position++] >= 0) {
+        return;
+      }
+    }
+    position++;
+  }
+
+  String readString() throws IOException {
+    byte encoding = readByte();
+    switch (encoding) {
+      case STRING_NULL:
+        return null;
+      case STRING_EMPTY:
+        return "";
+      case STRING_CONSTANT_POOL:
+        return stringConstants.apply(readLong());
+      case STRING_UTF8:
+        {
+          int length = readInt();
+          String result = new String(buffer, position, length, UTF_8);
+          position += length;
+          return result;
+        }
+      case STRING_CHAR_ARRAY:
+        {
+          int length = readInt();
+          char[] chars = new char[length];
+          for (int i = 0; i < length; i++) {
+            chars[i] = readChar();
+          }
+          return new String(chars);
+        }
+      case STRING_LATIN1:
+        {
+          int length = readInt();
+          String result = new String(buffer, position, length, ISO_8859_1);
+          position += length;
+          return result;
+        }
+      default:
+        throw new IOException("Unknown string encoding " + encoding);
+    }
+  }
+
+  void skipString() throws IOException {
+    byte encoding = readByte();
+    switch (encoding) {
+      case STRING_NULL:
+      case STRING_EMPTY:
+        return;
+      case STRING_CONSTANT_POOL:
+        skipLong();
+        return;
+      case STRING_UTF8:
+      case STRING_LATIN1:
+        {
+          int length = readInt();
+          position += length;
+          return;
+        }
+      case STRING_CHAR_ARRAY:
+        {
+          int length = readInt();
+          for (int i = 0; i < length; i++) {
+            skipShort();
+          }
+          return;
+        }
+      default:
+        throw new IOException("Unknown string encoding " + encoding);
+    }
+  }
+}
@@ -0,0 +1,222 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.opentelemetry.profiler.jfr;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/** Type descriptions read from the metadata event of a JFR chunk. */
+final class JfrMetadata {
+
+  enum Kind {
+    BOOLEAN,
+    BYTE,
+    CHAR,
+    SHORT,
+    INT,
+    LONG,
+    FLOAT,
+    DOUBLE,
+    STRING,
+    STRUCT
+  }
+
+  static final class ClassDescriptor {
+    final long id;
+    final String name;
+    final Kind kind;
+    final List<FieldDescriptor> fields = new ArrayList<>();
+
+    ClassDescriptor(long id, String name) {
+      this.id = id;
+      this.name = name;
+      this.kind = kindOf(name);
+    }
+
+    int fieldIndex(String fieldName) {
+      for (int i = 0; i < fields.size(); i++) {
+        if (fields.get(i).name.equals(fieldName)) {
+          return i;
+        }
+      }
+      return -1;
+    }
+  }
+
+  static final class FieldDescriptor {
+    final String name;
+    final long typeId;
+    final boolean array;
+    final boolean constantPool;
+    ClassDescriptor type;
+
+    FieldDescriptor(String name, long typeId, boolean array, boolean constantPool) {
+      this.name = name;
+      this.typeId = typeId;
+      this.array = array;
+      this.constantPool = constantPool;
+    }
+  }
+
+  private final long metadataId;
+  private final Map<Long, ClassDescriptor> classesById;
+  private final Map<String, ClassDescriptor> classesByName;
+
+  private JfrMetadata(long metadataId, Map<Long, ClassDescriptor> classesById) {
+    this.metadataId = metadataId;
+    this.classesById = classesById;
+    this.classesByName = new HashMap<>();
+    for (ClassDescriptor descriptor : classesById.values()) {
+      classesByName.put(descriptor.name, descriptor);
+    }
+  }
+
+  long getMetadataId() {
+    return metadataId;
+  }
+
+  ClassDescriptor getClass(long id) {
+    return classesById.get(id);
+  }
+
+  ClassDescriptor getClass(String name) {
+    return classesByName.get(name);
+  }
+
+  /**
+   * Reads the id of the metadata event at the current position of the input, the position is left
+   * right after the id.
+   */
+  static long readMetadataId(JfrInput input) {
+    input.readInt(); // size
+    input.readLong(); // event type, always 0 for metadata
+    input.readLong(); // start time
+    input.readLong(); // duration
+    return input.readLong();
+  }
+
+  /**
+   * Reads the metadata event. The input must be positioned right after the metadata id, see {@link
+   * #readMetadataId(JfrInput)}.
+   */
+  static JfrMetadata read(JfrInput input, long metadataId) throws IOException {
+    int stringCount = input.readInt();
+    String[] strings = new String[stringCount];
+    for (int i = 0; i < stringCount; i++) {
+      strings[i] = input.readString();
+    }
+    Element root = readElement(input, strings);
+
+    Map<Long, ClassDescriptor> classes = new HashMap<>();
+    for (Element metadata : root.children("metadata")) {
+      for (Element classElement : metadata.children("class")) {
+        ClassDescriptor descriptor =
+            new ClassDescriptor(
+                Long.parseLong(classElement.attribute("id")), classElement.attribute("name"));
+        for (Element fieldElement : classElement.children("field")) {
+          descriptor.fields.add(
+              new FieldDescriptor(
+                  fieldElement.attribute("name"),
+                  Long.parseLong(fieldElement.attribute("class")),
+                  "1".equals(fieldElement.attribute("dimension")),
+                  "true".equals(fieldElement.attribute("constantPool"))));
+        }
+        classes.put(descriptor.id, descriptor);
+      }
+    }
+    for (ClassDescriptor descriptor : classes.values()) {
+      for (FieldDescriptor field : descriptor.fields) {
+        field.type = classes.get(field.typeId);
+        if (field.type == null) {
+          throw new IOException("Unknown type " + field.typeId + " for field " + field.name);
+        }
+      }
+    }
+    return new JfrMetadata(metadataId, classes);
+  }
+
+  private static Element readElement(JfrInput input, String[] strings) {
+    Element element = new Element(strings[input.readInt()]);
+    int attributeCount = input.readInt();
+    for (int i = 0; i < attributeCount; i++) {
+      String key = strings[input.readInt()];
+      String value = strings[input.readInt()];
+      element.attributes.put(key, value);
+    }
+    int childCount = input.readInt();
+    for (int i = 0; i < childCount; i++) {
+      element.children.add(readElement(input, strings));
+    }
+    return element;
+  }
+
+  private static Kind kindOf(String className) {
+    switch (className) {
+      case "boolean":
+        return Kind.BOOLEAN;
+      case "byte":
+        return Kind.BYTE;
+      case "char":
+        return Kind.CHAR;
+      case "short":
+        return Kind.SHORT;
+      case "int":
+        return Kind.INT;
+      case "long":
+        return Kind.LONG;
+      case "float":
+        return Kind.FLOAT;
+      case "double":
+        return Kind.DOUBLE;
+      case "java.lang.String":
+        return Kind.STRING;
+      default:
+        return Kind.STRUCT;
+    }
+  }
+
+  private static final class Element {
+    final String name;
+    final Map<String, String> attributes = new HashMap<>();
+    final List<Element> children = new ArrayList<>();
+
+    Element(String name) {
+      this.name = name;
+    }
+
+    String attribute(String key) {
+      return attributes.get(key);
+    }
+
+    List<Element> children(String childName) {
+      List<Element> result = null;
+      for (Element child : children) {
+        if (child.name.equals(childName)) {
+          if (result == null) {
+            result = new ArrayList<>();
+          }
+          result.add(child);
+        }
+      }
+      return result != null ? result : Collections.emptyList();
+    }
+  }
+}
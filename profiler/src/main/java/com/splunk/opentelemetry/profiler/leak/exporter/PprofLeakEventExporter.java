@@ -0,0 +1,180 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.opentelemetry.profiler.leak.exporter;
+
+import static com.splunk.opentelemetry.profiler.ProfilingSemanticAttributes.ALLOCATION_CLASS;
+import static com.splunk.opentelemetry.profiler.ProfilingSemanticAttributes.OBJECT_AGE;
+import static com.splunk.opentelemetry.profiler.ProfilingSemanticAttributes.SOURCE_EVENT_NAME;
+import static com.splunk.opentelemetry.profiler.ProfilingSemanticAttributes.SOURCE_EVENT_TIME;
+import static com.splunk.opentelemetry.profiler.ProfilingSemanticAttributes.SPAN_ID;
+import static com.splunk.opentelemetry.profiler.ProfilingSemanticAttributes.THREAD_ID;
+import static com.splunk.opentelemetry.profiler.ProfilingSemanticAttributes.THREAD_NAME;
+import static com.splunk.opentelemetry.profiler.ProfilingSemanticAttributes.THREAD_STACK_TRUNCATED;
+import static com.splunk.opentelemetry.profiler.ProfilingSemanticAttributes.TRACE_ID;
+
+import com.google.perftools.profiles.ProfileProto.Sample;
+import com.google.perftools.profiles.ProfileProto.ValueType;
+import com.splunk.opentelemetry.profiler.EventReader;
+import com.splunk.opentelemetry.profiler.InstrumentationSource;
+import com.splunk.opentelemetry.profiler.ProfilingDataFormat;
+import com.splunk.opentelemetry.profiler.ProfilingDataType;
+import com.splunk.opentelemetry.profiler.exporter.PprofLogDataExporter;
+import com.splunk.opentelemetry.profiler.pprof.Pprof;
+import com.splunk.opentelemetry.profiler.pprof.PprofSymbols;
+import io.opentelemetry.api.logs.Logger;
+import io.opentelemetry.api.trace.SpanContext;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmc.common.IMCFrame;
+import org.openjdk.jmc.common.IMCStackTrace;
+import org.openjdk.jmc.common.IMCThread;
+import org.openjdk.jmc.common.item.IItem;
+
+/**
+ * Exports old object samples as pprof. JFR keeps a bounded number of samples, so each sample is
+ * exported as is with the allocation stack, the class of the object, the allocation time and the
+ * age of the object when it was sampled. The value of each sample is the number of objects.
+ */
+public class PprofLeakEventExporter implements LeakEventExporter {
+  private final EventReader eventReader;
+  private final PprofLogDataExporter pprofLogDataExporter;
+  private final int stackDepth;
+  private final ProfilingDataFormat dataFormat;
+  private final Pprof.OutputBuffer pprofBuffer = new Pprof.OutputBuffer();
+  private final PprofSymbols pprofSymbols = new PprofSymbols();
+  private Pprof pprof;
+
+  private PprofLeakEventExporter(Builder builder) {
+    this.eventReader = builder.eventReader;
+    this.stackDepth = builder.stackDepth;
+    this.dataFormat = builder.dataFormat;
+    this.pprofLogDataExporter =
+        new PprofLogDataExporter(
+            builder.otelLogger,
+            ProfilingDataType.LEAK,
+            InstrumentationSource.CONTINUOUS,
+            dataFormat);
+    this.pprof = createPprof();
+  }
+
+  @Override
+  public void export(IItem event, SpanContext spanContext) {
+    IMCStackTrace stackTrace = eventReader.getStackTrace(event);
+    if (stackTrace == null) {
+      return;
+    }
+
+    Sample.Builder sample = Sample.newBuilder();
+    sample.addValue(1);
+
+    List<? extends IMCFrame> frames = stackTrace.getFrames();
+    if (stackTrace.getTruncationState().isTruncated() || frames.size() > stackDepth) {
+      pprof.addLabel(sample, THREAD_STACK_TRUNCATED, true);
+    }
+    // limit the number of stack frames in case jfr stack depth is greater than our stack depth
+    int frameCount = Math.min(frames.size(), stackDepth);
+    for (int i = 0; i < frameCount; i++) {
+      sample.addLocationId(pprof.getLocationId(frames.get(i)));
+      pprof.incFrameCount();
+    }
+
+    pprof.addLabel(sample, SOURCE_EVENT_NAME, event.getType().getIdentifier());
+    // start time of old object samples is the allocation time, duration is the age of the object
+    pprof.addLabel(sample, SOURCE_EVENT_TIME, eventReader.getStartInstant(event).toEpochMilli());
+    pprof.addLabel(
+        sample, OBJECT_AGE, TimeUnit.NANOSECONDS.toMillis(eventReader.getDuration(event)));
+    String objectClass = eventReader.getObjectClass(event);
+    if (objectClass != null) {
+      pprof.addLabel(sample, ALLOCATION_CLASS, objectClass);
+    }
+
+    IMCThread thread = eventReader.getThread(event);
+    if (thread != null && thread.getThreadId() != null) {
+      pprof.addLabel(sample, THREAD_ID, thread.getThreadId());
+      pprof.addLabel(sample, THREAD_NAME, thread.getThreadName());
+    }
+    if (spanContext != null && spanContext.isValid()) {
+      pprof.addLabel(sample, TRACE_ID, spanContext.getTraceId());
+      pprof.addLabel(sample, SPAN_ID, spanContext.getSpanId());
+    }
+
+    pprof.addSample(sample);
+  }
+
+  private Pprof createPprof() {
+    Pprof pprof = new Pprof(pprofBuffer, dataFormat, pprofSymbols);
+    pprof
+        .getProfileBuilder()
+        .addSampleType(
+            ValueType.newBuilder()
+                .setType(pprof.getStringId("objects"))
+                .setUnit(pprof.getStringId("count"))
+                .build());
+    return pprof;
+  }
+
+  private byte[] serializePprof() {
+    byte[] result = pprofLogDataExporter.serialize(pprof);
+    pprof = createPprof();
+    return result;
+  }
+
+  @Override
+  public void flush() {
+    if (!pprof.hasSamples()) {
+      return;
+    }
+    int frameCount = pprof.frameCount();
+    byte[] bytes = serializePprof();
+    pprofLogDataExporter.export(bytes, frameCount);
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  public static class Builder {
+    private EventReader eventReader;
+    private Logger otelLogger;
+    private int stackDepth;
+    private ProfilingDataFormat dataFormat = ProfilingDataFormat.PPROF_GZIP_BASE64;
+
+    public PprofLeakEventExporter build() {
+      return new PprofLeakEventExporter(this);
+    }
+
+    public Builder eventReader(EventReader eventReader) {
+      this.eventReader = eventReader;
+      return this;
+    }
+
+    public Builder otelLogger(Logger otelLogger) {
+      this.otelLogger = otelLogger;
+      return this;
+    }
+
+    public Builder stackDepth(int stackDepth) {
+      this.stackDepth = stackDepth;
+      return this;
+    }
+
+    public Builder dataFormat(ProfilingDataFormat dataFormat) {
+      this.dataFormat = dataFormat;
+      return this;
+    }
+  }
+}
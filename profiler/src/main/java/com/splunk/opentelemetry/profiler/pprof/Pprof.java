@@ -16,41 +16,121 @@
 
 package com.splunk.opentelemetry.profiler.pprof;
 
-import static com.google.perftools.profiles.ProfileProto.Function;
 import static com.google.perftools.profiles.ProfileProto.Label;
-import static com.google.perftools.profiles.ProfileProto.Line;
-import static com.google.perftools.profiles.ProfileProto.Location;
 import static com.google.perftools.profiles.ProfileProto.Profile;
 import static com.google.perftools.profiles.ProfileProto.Sample;
 
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.MessageLite;
+import com.splunk.opentelemetry.profiler.ProfilingDataFormat;
 import io.opentelemetry.api.common.AttributeKey;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.Arrays;
 import java.util.Base64;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Objects;
 import java.util.function.Consumer;
 import java.util.zip.GZIPOutputStream;
-
+import org.openjdk.jmc.common.IMCFrame;
+import org.openjdk.jmc.common.IMCMethod;
+
+/**
+ * Builds a gzip compressed pprof profile, optionally base64 encoded. Strings, functions, locations
+ * and samples are encoded into the compressed output as soon as they are added, so that the profile
+ * is never held in memory as protobuf objects. Protobuf allows the elements of repeated fields to
+ * be interleaved with other fields, the decoded profile is the same as if it was built with a
+ * single {@link Profile.Builder}.
+ *
+ * <p>Strings, functions and locations are looked up in {@link PprofSymbols}, which can be shared by
+ * consecutive profiles.
+ */
 public class Pprof {
+  private static final int COMPRESSION_BUFFER_SIZE = 8 * 1024;
+  private static final int ENCODER_BUFFER_SIZE = 4 * 1024;
+
   private final Profile.Builder profileBuilder = Profile.newBuilder();
-  private final StringTable stringTable = new StringTable(profileBuilder);
-  private final FunctionTable functionTable = new FunctionTable(profileBuilder, stringTable);
-  private final LocationTable locationTable = new LocationTable(profileBuilder, functionTable);
+  private final OutputBuffer outputBuffer;
+  private final OutputStream compressedOutput;
+  private final CodedOutputStream output;
+  private final PprofSymbols symbols;
+  private int sampleCount;
   private int frameCount;
+  private boolean serialized;
+
+  public Pprof() {
+    this(new OutputBuffer());
+  }
+
+  public Pprof(OutputBuffer outputBuffer) {
+    this(outputBuffer, ProfilingDataFormat.PPROF_GZIP_BASE64);
+  }
 
+  public Pprof(OutputBuffer outputBuffer, ProfilingDataFormat dataFormat) {
+    this(outputBuffer, dataFormat, new PprofSymbols());
+  }
+
+  /**
+   * @param outputBuffer buffer that receives the serialized profile, it may be reused once the
+   *     previous profile using it has been serialized
+   * @param dataFormat encoding of the serialized profile
+   * @param symbols symbol tables kept from the previous profile, after this call they can no longer
+   *     be used by the previous profile
+   */
+  public Pprof(OutputBuffer outputBuffer, ProfilingDataFormat dataFormat, PprofSymbols symbols) {
+    this.outputBuffer = outputBuffer;
+    outputBuffer.reset();
+    OutputStream encodedOutput =
+        dataFormat == ProfilingDataFormat.PPROF_GZIP_BASE64
+            ? Base64.getEncoder().wrap(outputBuffer)
+            : outputBuffer;
+    try {
+      this.compressedOutput = new GZIPOutputStream(encodedOutput, COMPRESSION_BUFFER_SIZE);
+    } catch (IOException exception) {
+      throw new IllegalStateException("Failed to create pprof", exception);
+    }
+    this.output = CodedOutputStream.newInstance(compressedOutput, ENCODER_BUFFER_SIZE);
+    this.symbols = symbols;
+    symbols.startProfile(this);
+  }
+
+  /**
+   * Returns the builder for the profile fields that are written when the profile is serialized,
+   * such as sample types and period. Samples must be added with {@link #addSample(Sample.Builder)}.
+   */
   public Profile.Builder getProfileBuilder() {
     return profileBuilder;
   }
 
+  public void addSample(Sample.Builder sample) {
+    write(Profile.SAMPLE_FIELD_NUMBER, sample.build());
+    sampleCount++;
+  }
+
   public long getStringId(String str) {
-    return stringTable.get(str);
+    return symbols.getStringId(this, str);
   }
 
   public long getLocationId(String file, String className, String function, long line) {
-    return locationTable.get(file, className, function, line);
+    return symbols.getLocationId(this, file, className, function, line);
+  }
+
+  /** Returns the location id of a JFR stack frame, JFR frames don't have a file name. */
+  public long getLocationId(IMCFrame frame) {
+    IMCMethod method = frame.getMethod();
+    if (method == null) {
+      return getLocationId("unknown", "unknown", "unknown", 0);
+    }
+    String className = method.getType().getFullName();
+    if (className == null) {
+      className = "unknown";
+    }
+    String methodName = method.getMethodName();
+    if (methodName == null) {
+      methodName = "unknown";
+    }
+    Integer lineNumber = frame.getFrameLineNumber();
+    return getLocationId(
+        "unknown", className, methodName, lineNumber != null && lineNumber != -1 ? lineNumber : 0);
   }
 
   public void addLabel(Sample.Builder sample, AttributeKey<String> key, String value) {
@@ -65,7 +145,7 @@ public class Pprof {
     if (value == null) {
       return;
     }
-    addLabel(sample, name, label -> label.setStr(stringTable.get(value)));
+    addLabel(sample, name, label -> label.setStr(getStringId(value)));
   }
 
   public void addLabel(Sample.Builder sample, AttributeKey<Long> key, long value) {
@@ -78,13 +158,13 @@ public class Pprof {
 
   private void addLabel(Sample.Builder sample, String name, Consumer<Label.Builder> valueSetter) {
     Label.Builder label = Label.newBuilder();
-    label.setKey(stringTable.get(name));
+    label.setKey(getStringId(name));
     valueSetter.accept(label);
     sample.addLabel(label.build());
   }
 
   public boolean hasSamples() {
-    return profileBuilder.getSampleCount() > 0;
+    return sampleCount > 0 || profileBuilder.getSampleCount() > 0;
   }
 
   public void incFrameCount() {
@@ -98,147 +178,67 @@ public class Pprof {
     return frameCount;
   }
 
+  /**
+   * Completes the profile and returns the compressed bytes, encoded according to the data format.
+   * No data can be added to this pprof after it has been serialized.
+   */
   public byte[] serialize() {
-    Profile profile = profileBuilder.build();
+    checkNotSerialized();
+    serialized = true;
     try {
-      ByteArrayOutputStream byteStream = new ByteArrayOutputStream();
-      try (OutputStream outputStream = new GZIPOutputStream(Base64.getEncoder().wrap(byteStream))) {
-        profile.writeTo(outputStream);
-      }
-      return byteStream.toByteArray();
+      profileBuilder.build().writeTo(output);
+      output.flush();
+      compressedOutput.close();
+      return outputBuffer.drain();
     } catch (IOException exception) {
       throw new IllegalStateException("Failed to serialize pprof", exception);
     }
   }
 
-  // copied from
-  // https://github.com/bazelbuild/bazel/blob/master/src/main/java/com/google/devtools/build/lib/profiler/memory/AllocationTracker.java
-  private static class StringTable {
-    final Profile.Builder profile;
-    final Map<String, Long> table = new HashMap<>();
-    long index = 0;
-
-    StringTable(Profile.Builder profile) {
-      this.profile = profile;
-      get(""); // 0 is reserved for the empty string
-    }
-
-    long get(String str) {
-      return table.computeIfAbsent(
-          str,
-          key -> {
-            profile.addStringTable(key);
-            return index++;
-          });
-    }
-  }
-
-  private static class FunctionTable {
-    final Profile.Builder profile;
-    final StringTable stringTable;
-    final Map<FunctionKey, Long> table = new HashMap<>();
-    long index = 1; // 0 is reserved
-
-    FunctionTable(Profile.Builder profile, StringTable stringTable) {
-      this.profile = profile;
-      this.stringTable = stringTable;
-    }
-
-    long get(FunctionKey functionKey) {
-      return table.computeIfAbsent(
-          functionKey,
-          key -> {
-            Function fn =
-                Function.newBuilder()
-                    .setId(index)
-                    .setFilename(stringTable.get(key.file))
-                    .setName(stringTable.get(key.className + "." + key.function))
-                    .build();
-            profile.addFunction(fn);
-            return index++;
-          });
+  void write(int fieldNumber, MessageLite message) {
+    checkNotSerialized();
+    try {
+      output.writeMessage(fieldNumber, message);
+    } catch (IOException exception) {
+      throw new IllegalStateException("Failed to serialize pprof", exception);
     }
   }
 
-  private static class FunctionKey {
-    private final String file;
-    private final String className;
-    private final String function;
-
-    FunctionKey(String file, String className, String function) {
-      this.file = file;
-      this.className = className;
-      this.function = function;
-    }
-
-    @Override
-    public boolean equals(Object o) {
-      if (this == o) return true;
-      if (o == null || getClass() != o.getClass()) return false;
-      FunctionKey that = (FunctionKey) o;
-      return Objects.equals(file, that.file)
-          && Objects.equals(className, that.className)
-          && Objects.equals(function, that.function);
-    }
-
-    @Override
-    public int hashCode() {
-      return file.hashCode() + 7 * className.hashCode() + 17 * function.hashCode();
+  void writeString(String str) {
+    checkNotSerialized();
+    try {
+      output.writeString(Profile.STRING_TABLE_FIELD_NUMBER, str);
+    } catch (IOException exception) {
+      throw new IllegalStateException("Failed to serialize pprof", exception);
     }
   }
 
-  private static class LocationTable {
-    final Profile.Builder profile;
-    final FunctionTable functionTable;
-    final Map<LocationKey, Long> table = new HashMap<>();
-    long index = 1; // 0 is reserved
-
-    LocationTable(Profile.Builder profile, FunctionTable functionTable) {
-      this.profile = profile;
-      this.functionTable = functionTable;
-    }
-
-    long get(String file, String className, String function, long line) {
-      FunctionKey functionKey = new FunctionKey(file, className, function);
-      LocationKey locationKey = new LocationKey(functionKey, line);
-      return table.computeIfAbsent(
-          locationKey,
-          key -> {
-            Location location =
-                Location.newBuilder()
-                    .setId(index)
-                    .addLine(
-                        Line.newBuilder()
-                            .setFunctionId(functionTable.get(functionKey))
-                            .setLine(line)
-                            .build())
-                    .build();
-            profile.addLocation(location);
-            return index++;
-          });
+  private void checkNotSerialized() {
+    if (serialized) {
+      throw new IllegalStateException("Pprof has already been serialized");
     }
   }
 
-  private static class LocationKey {
-    private final FunctionKey functionKey;
-    private final long line;
-
-    LocationKey(FunctionKey functionKey, long line) {
-      this.functionKey = functionKey;
-      this.line = line;
-    }
+  /**
+   * Buffer for the serialized profile. The same buffer can be passed to consecutive pprofs to avoid
+   * growing a new buffer for each profile.
+   */
+  public static final class OutputBuffer extends ByteArrayOutputStream {
+    private static final int INITIAL_SIZE = 32 * 1024;
+    // larger buffers are released after use instead of being retained until the next profile
+    private static final int MAX_RETAINED_SIZE = 4 * 1024 * 1024;
 
-    @Override
-    public boolean equals(Object o) {
-      if (this == o) return true;
-      if (o == null || getClass() != o.getClass()) return false;
-      LocationKey that = (LocationKey) o;
-      return line == that.line && Objects.equals(functionKey, that.functionKey);
+    public OutputBuffer() {
+      super(INITIAL_SIZE);
     }
 
-    @Override
-    public int hashCode() {
-      return functionKey.hashCode() + 7 * Long.hashCode(line);
+    synchronized byte[] drain() {
+      byte[] result = Arrays.copyOf(buf, count);
+      if (buf.length > MAX_RETAINED_SIZE) {
+        buf = new byte[INITIAL_SIZE];
+      }
+      reset();
+      return result;
     }
   }
 }
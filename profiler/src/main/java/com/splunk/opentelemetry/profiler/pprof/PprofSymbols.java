@@ -0,0 +1,312 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.opentelemetry.profiler.pprof;
+
+import static com.google.perftools.profiles.ProfileProto.Function;
+import static com.google.perftools.profiles.ProfileProto.Line;
+import static com.google.perftools.profiles.ProfileProto.Location;
+import static com.google.perftools.profiles.ProfileProto.Profile;
+
+import java.util.Arrays;
+
+/**
+ * Strings, functions and locations shared by consecutive {@link Pprof} profiles. Every profile has
+ * to be self-contained, so a symbol is still written once to each profile that references it, but
+ * the lookup entries, function names and function and location ids are kept between profiles
+ * instead of being rebuilt for every profile.
+ *
+ * <p>Each table holds at most {@code maxSize} entries. When a table is full the entries that were
+ * not referenced by the current profile are evicted, or all entries when most of them are still in
+ * use. Evicting an entry that was already written to the current profile is harmless, the symbol is
+ * written again with a new id when it is referenced next.
+ *
+ * <p>Symbols can only be used by one profile at a time, each new profile takes them over from the
+ * previous one. This class is not thread safe.
+ */
+public final class PprofSymbols {
+  static final int DEFAULT_MAX_SIZE = 16 * 1024;
+
+  private final Table<StringEntry> strings;
+  private final Table<FunctionEntry> functions;
+  private final Table<LocationEntry> locations;
+  private long nextFunctionId = 1; // 0 is reserved
+  private long nextLocationId = 1; // 0 is reserved
+  private long nextStringIndex;
+  private int generation;
+  private Pprof pprof;
+
+  public PprofSymbols() {
+    this(DEFAULT_MAX_SIZE);
+  }
+
+  public PprofSymbols(int maxSize) {
+    this.strings = new Table<>(maxSize);
+    this.functions = new Table<>(maxSize);
+    this.locations = new Table<>(maxSize);
+  }
+
+  /** Starts writing symbols to the given profile. */
+  void startProfile(Pprof pprof) {
+    this.pprof = pprof;
+    generation++;
+    pprof.writeString(""); // 0 is reserved for the empty string
+    nextStringIndex = 1;
+  }
+
+  long getStringId(Pprof caller, String str) {
+    checkProfile(caller);
+    if (str.isEmpty()) {
+      return 0;
+    }
+    int hash = str.hashCode();
+    StringEntry entry = findString(hash, str);
+    if (entry == null) {
+      entry = new StringEntry(hash, str);
+      strings.add(entry, generation);
+    }
+    if (entry.generation != generation) {
+      entry.generation = generation;
+      entry.index = nextStringIndex++;
+      pprof.writeString(str);
+    }
+    return entry.index;
+  }
+
+  long getLocationId(Pprof caller, String file, String className, String function, long line) {
+    checkProfile(caller);
+    int functionHash = 31 * (31 * file.hashCode() + className.hashCode()) + function.hashCode();
+    int hash = 31 * functionHash + Long.hashCode(line);
+    LocationEntry location = findLocation(hash, file, className, function, line);
+    if (location == null) {
+      FunctionEntry functionEntry = findFunction(functionHash, file, className, function);
+      if (functionEntry == null) {
+        functionEntry =
+            new FunctionEntry(functionHash, file, className, function, nextFunctionId++);
+        functions.add(functionEntry, generation);
+      }
+      location = new LocationEntry(hash, functionEntry, line, nextLocationId++);
+      locations.add(location, generation);
+    }
+    if (location.generation != generation) {
+      location.generation = generation;
+      writeFunction(location.function);
+      pprof.write(Profile.LOCATION_FIELD_NUMBER, location.message);
+    }
+    return location.id;
+  }
+
+  private void writeFunction(FunctionEntry function) {
+    if (function.generation == generation) {
+      return;
+    }
+    function.generation = generation;
+    Function message =
+        Function.newBuilder()
+            .setId(function.id)
+            .setFilename(getStringId(pprof, function.file))
+            .setName(getStringId(pprof, function.name))
+            .build();
+    pprof.write(Profile.FUNCTION_FIELD_NUMBER, message);
+  }
+
+  private StringEntry findString(int hash, String str) {
+    for (int i = strings.start(hash); ; i = strings.next(i)) {
+      StringEntry entry = strings.at(i);
+      if (entry == null || (entry.hash == hash && entry.value.equals(str))) {
+        return entry;
+      }
+    }
+  }
+
+  private FunctionEntry findFunction(int hash, String file, String className, String function) {
+    for (int i = functions.start(hash); ; i = functions.next(i)) {
+      FunctionEntry entry = functions.at(i);
+      if (entry == null || (entry.hash == hash && entry.matches(file, className, function))) {
+        return entry;
+      }
+    }
+  }
+
+  private LocationEntry findLocation(
+      int hash, String file, String className, String function, long line) {
+    for (int i = locations.start(hash); ; i = locations.next(i)) {
+      LocationEntry entry = locations.at(i);
+      if (entry == null
+          || (entry.hash == hash
+              && entry.line == line
+              && entry.function.matches(file, className, function))) {
+        return entry;
+      }
+    }
+  }
+
+  private void checkProfile(Pprof caller) {
+    if (caller != pprof) {
+      throw new IllegalStateException("Symbols are used by a newer profile");
+    }
+  }
+
+  int size() {
+    return strings.size + functions.size + locations.size;
+  }
+
+  private abstract static class Entry {
+    final int hash;
+    // generation of the profile that last referenced this entry
+    int generation;
+
+    Entry(int hash) {
+      this.hash = hash;
+    }
+  }
+
+  private static final class StringEntry extends Entry {
+    final String value;
+    long index;
+
+    StringEntry(int hash, String value) {
+      super(hash);
+      this.value = value;
+    }
+  }
+
+  private static final class FunctionEntry extends Entry {
+    final String file;
+    final String className;
+    final String function;
+    final String name;
+    final long id;
+
+    FunctionEntry(int hash, String file, String className, String function, long id) {
+      super(hash);
+      this.file = file;
+      this.className = className;
+      this.function = function;
+      this.name = className + "." + function;
+      this.id = id;
+    }
+
+    boolean matches(String file, String className, String function) {
+      return this.function.equals(function)
+          && this.className.equals(className)
+          && this.file.equals(file);
+    }
+  }
+
+  private static final class LocationEntry extends Entry {
+    final FunctionEntry function;
+    final long line;
+    final long id;
+    // location only references ids that do not change, the same message is written to every
+    // profile
+    final Location message;
+
+    LocationEntry(int hash, FunctionEntry function, long line, long id) {
+      super(hash);
+      this.function = function;
+      this.line = line;
+      this.id = id;
+      this.message =
+          Location.newBuilder()
+              .setId(id)
+              .addLine(Line.newBuilder().setFunctionId(function.id).setLine(line).build())
+              .build();
+    }
+  }
+
+  /** Open addressing hash set of entries, lookups are done by the caller. */
+  private static final class Table<E extends Entry> {
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final int maxSize;
+    private Entry[] slots = new Entry[INITIAL_CAPACITY];
+    private int size;
+
+    Table(int maxSize) {
+      this.maxSize = maxSize;
+    }
+
+    int start(int hash) {
+      return mix(hash) & (slots.length - 1);
+    }
+
+    int next(int slot) {
+      return (slot + 1) & (slots.length - 1);
+    }
+
+    @SuppressWarnings("unchecked")
+    E at(int slot) {
+      return (E) slots[slot];
+    }
+
+    void add(E entry, int currentGeneration) {
+      if (size >= maxSize) {
+        evict(currentGeneration);
+      }
+      if (2 * (size + 1) > slots.length) {
+        rehash(new Entry[slots.length * 2], slots);
+      }
+      insert(entry);
+      size++;
+    }
+
+    private void evict(int currentGeneration) {
+      Entry[] old = slots;
+      int inUse = 0;
+      for (Entry entry : old) {
+        if (entry != null && entry.generation == currentGeneration) {
+          inUse++;
+        }
+      }
+      if (inUse > maxSize / 2) {
+        // most entries are referenced by the current profile, start over
+        Arrays.fill(old, null);
+        size = 0;
+        return;
+      }
+      size = 0;
+      slots = new Entry[old.length];
+      for (Entry entry : old) {
+        if (entry != null && entry.generation == currentGeneration) {
+          insert(entry);
+          size++;
+        }
+      }
+    }
+
+    private void rehash(Entry[] newSlots, Entry[] oldSlots) {
+      slots = newSlots;
+      for (Entry entry : oldSlots) {
+        if (entry != null) {
+          insert(entry);
+        }
+      }
+    }
+
+    private void insert(Entry entry) {
+      int i = start(entry.hash);
+      while (slots[i] != null) {
+        i = next(i);
+      }
+      slots[i] = entry;
+    }
+
+    private static int mix(int hash) {
+      return hash ^ (hash >>> 16);
+    }
+  }
+}
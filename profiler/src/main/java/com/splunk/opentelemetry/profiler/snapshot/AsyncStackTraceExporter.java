@@ -17,6 +17,7 @@
 package com.splunk.opentelemetry.profiler.snapshot;
 
 import com.splunk.opentelemetry.profiler.InstrumentationSource;
+import com.splunk.opentelemetry.profiler.ProfilingDataFormat;
 import com.splunk.opentelemetry.profiler.exporter.CpuEventExporter;
 import com.splunk.opentelemetry.profiler.exporter.PprofCpuEventExporter;
 import com.splunk.opentelemetry.profiler.util.HelpfulExecutors;
@@ -34,11 +35,17 @@ class AsyncStackTraceExporter implements StackTraceExporter {
       HelpfulExecutors.newSingleThreadExecutor("async-stack-trace-exporter");
   private final Logger otelLogger;
   private final int maxDepth;
+  private final ProfilingDataFormat dataFormat;
   private volatile boolean closed = false;
 
   AsyncStackTraceExporter(Logger logger, int maxDepth) {
+    this(logger, maxDepth, ProfilingDataFormat.PPROF_GZIP_BASE64);
+  }
+
+  AsyncStackTraceExporter(Logger logger, int maxDepth, ProfilingDataFormat dataFormat) {
     this.otelLogger = logger;
     this.maxDepth = maxDepth;
+    this.dataFormat = dataFormat;
   }
 
   @Override
@@ -72,6 +79,7 @@ class AsyncStackTraceExporter implements StackTraceExporter {
                 .otelLogger(otelLogger)
                 .stackDepth(maxDepth)
                 .instrumentationSource(InstrumentationSource.SNAPSHOT)
+                .dataFormat(dataFormat)
                 .build();
 
         for (StackTrace stackTrace : stackTraces) {
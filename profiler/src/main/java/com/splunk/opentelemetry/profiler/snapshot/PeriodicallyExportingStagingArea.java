@@ -16,6 +16,8 @@
 
 package com.splunk.opentelemetry.profiler.snapshot;
 
+import com.splunk.opentelemetry.profiler.ProfilerMetrics;
+import io.opentelemetry.api.metrics.ObservableLongGauge;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -38,13 +40,23 @@ class PeriodicallyExportingStagingArea implements StagingArea {
   private volatile boolean closed = false;
 
   private final Worker worker;
+  private final ObservableLongGauge queueSizeGauge;
 
   PeriodicallyExportingStagingArea(
       Supplier<StackTraceExporter> exporter, Duration delay, int capacity) {
-    worker = new Worker(exporter, delay, capacity);
+    this(exporter, delay, capacity, ProfilerMetrics.get());
+  }
+
+  PeriodicallyExportingStagingArea(
+      Supplier<StackTraceExporter> exporter,
+      Duration delay,
+      int capacity,
+      ProfilerMetrics metrics) {
+    worker = new Worker(exporter, delay, capacity, metrics);
     worker.setName(WORKER_THREAD_NAME);
     worker.setDaemon(true);
     worker.start();
+    queueSizeGauge = metrics.observeStagingQueueSize(worker::queueSize);
   }
 
   @Override
@@ -77,6 +89,7 @@ class PeriodicallyExportingStagingArea implements StagingArea {
   @Override
   public void close() {
     this.closed = true;
+    queueSizeGauge.close();
 
     // Wait for the worker thread to exit. Note that this does not guarantee that the pending items
     // are exported as we don't attempt to wait for the actual export to complete.
@@ -97,12 +110,18 @@ class PeriodicallyExportingStagingArea implements StagingArea {
     private final Supplier<StackTraceExporter> exporter;
     private final Duration delay;
     private final int maxExportBatchSize;
+    private final ProfilerMetrics metrics;
 
     private volatile boolean shutdown = false;
     private long nextExportTime;
 
-    private Worker(Supplier<StackTraceExporter> exporter, Duration delay, int maxExportBatchSize) {
+    private Worker(
+        Supplier<StackTraceExporter> exporter,
+        Duration delay,
+        int maxExportBatchSize,
+        ProfilerMetrics metrics) {
       this.exporter = exporter;
+      this.metrics = metrics;
       this.delay = delay;
       this.maxExportBatchSize = maxExportBatchSize;
       // set the queue size to 4x the batch size, in sdk batch processors both of these are
@@ -116,10 +135,15 @@ class PeriodicallyExportingStagingArea implements StagingArea {
       boolean added = queue.offer(stackTrace);
       if (!added) {
         // If queue is full drop the stack trace, not much we can do.
+        metrics.recordDroppedStackTrace();
         logger.log(Level.WARNING, queueFullMessage(stackTrace));
       }
     }
 
+    int queueSize() {
+      return queue.size();
+    }
+
     private Supplier<String> queueFullMessage(StackTrace stackTrace) {
       return () ->
           "Staging area beyond maximum capacity; failed to stage stack trace for thread id: "
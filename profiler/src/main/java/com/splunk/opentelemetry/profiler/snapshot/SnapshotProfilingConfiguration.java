@@ -16,6 +16,7 @@
 
 package com.splunk.opentelemetry.profiler.snapshot;
 
+import com.splunk.opentelemetry.profiler.ProfilingDataFormat;
 import com.splunk.opentelemetry.profiler.util.OptionalConfigurableSupplier;
 import java.time.Duration;
 import java.util.Objects;
@@ -42,6 +43,7 @@ public class SnapshotProfilingConfiguration {
   private final Duration samplingInterval;
   private final Duration exportInterval;
   private final int stagingCapacity;
+  private final ProfilingDataFormat dataFormat;
   @Nullable private final Object configProperties;
 
   private SnapshotProfilingConfiguration(Builder builder) {
@@ -51,6 +53,7 @@ public class SnapshotProfilingConfiguration {
     samplingInterval = builder.samplingInterval;
     exportInterval = builder.exportInterval;
     stagingCapacity = builder.stagingCapacity;
+    dataFormat = builder.dataFormat;
     configProperties = builder.configProperties;
   }
 
@@ -66,6 +69,7 @@ public class SnapshotProfilingConfiguration {
         .setSamplingInterval(samplingInterval)
         .setExportInterval(exportInterval)
         .setStagingCapacity(stagingCapacity)
+        .setDataFormat(dataFormat)
         .setConfigProperties(configProperties);
   }
 
@@ -79,6 +83,7 @@ public class SnapshotProfilingConfiguration {
     log("SamplingInterval", getSamplingInterval().toMillis() + "ms");
     log("ExportInterval", getExportInterval().toMillis() + "ms");
     log("StagingCapacity", getStagingCapacity());
+    log("DataFormat", getDataFormat().value());
 
     logger.info("--------------------------------");
   }
@@ -107,6 +112,10 @@ public class SnapshotProfilingConfiguration {
     return stagingCapacity;
   }
 
+  public ProfilingDataFormat getDataFormat() {
+    return dataFormat;
+  }
+
   @Nullable
   public Object getConfigProperties() {
     return configProperties;
@@ -127,6 +136,7 @@ public class SnapshotProfilingConfiguration {
         && stagingCapacity == that.stagingCapacity
         && Objects.equals(samplingInterval, that.samplingInterval)
         && Objects.equals(exportInterval, that.exportInterval)
+        && dataFormat == that.dataFormat
         && Objects.equals(configProperties, that.configProperties);
   }
 
@@ -139,6 +149,7 @@ public class SnapshotProfilingConfiguration {
         samplingInterval,
         exportInterval,
         stagingCapacity,
+        dataFormat,
         configProperties);
   }
 
@@ -174,6 +185,7 @@ public class SnapshotProfilingConfiguration {
     private Duration samplingInterval = Duration.ofMillis(DEFAULT_SAMPLING_INTERVAL);
     private Duration exportInterval = Duration.ofMillis(DEFAULT_EXPORT_INTERVAL);
     private int stagingCapacity = DEFAULT_STAGING_CAPACITY;
+    private ProfilingDataFormat dataFormat = ProfilingDataFormat.PPROF_GZIP_BASE64;
     @Nullable private Object configProperties;
 
     private Builder() {}
@@ -212,6 +224,11 @@ public class SnapshotProfilingConfiguration {
       return this;
     }
 
+    public Builder setDataFormat(ProfilingDataFormat dataFormat) {
+      this.dataFormat = Objects.requireNonNull(dataFormat);
+      return this;
+    }
+
     public Builder setConfigProperties(@Nullable Object configProperties) {
       this.configProperties = configProperties;
       return this;
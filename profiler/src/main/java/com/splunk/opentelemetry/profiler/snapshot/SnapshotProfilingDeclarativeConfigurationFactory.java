@@ -18,6 +18,7 @@ package com.splunk.opentelemetry.profiler.snapshot;
 
 import static io.opentelemetry.api.incubator.config.DeclarativeConfigProperties.empty;
 
+import com.splunk.opentelemetry.profiler.ProfilingDataFormat;
 import io.opentelemetry.api.incubator.config.DeclarativeConfigProperties;
 import java.time.Duration;
 import java.util.logging.Logger;
@@ -52,6 +53,7 @@ public final class SnapshotProfilingDeclarativeConfigurationFactory {
         .setStagingCapacity(
             configRoot.getInt(
                 "staging_capacity", SnapshotProfilingConfiguration.DEFAULT_STAGING_CAPACITY))
+        .setDataFormat(ProfilingDataFormat.fromValue(configRoot.getString("data_format")))
         .setConfigProperties(config)
         .build();
   }
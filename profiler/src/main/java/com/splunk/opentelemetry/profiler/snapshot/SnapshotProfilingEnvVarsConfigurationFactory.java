@@ -16,6 +16,7 @@
 
 package com.splunk.opentelemetry.profiler.snapshot;
 
+import com.splunk.opentelemetry.profiler.ProfilingDataFormat;
 import io.opentelemetry.sdk.autoconfigure.spi.ConfigProperties;
 import java.time.Duration;
 import java.util.logging.Logger;
@@ -31,6 +32,7 @@ public final class SnapshotProfilingEnvVarsConfigurationFactory {
   static final String SAMPLING_INTERVAL_KEY = "splunk.snapshot.sampling.interval";
   static final String EXPORT_INTERVAL_KEY = "splunk.snapshot.profiler.export.interval";
   static final String STAGING_CAPACITY_KEY = "splunk.snapshot.profiler.staging.capacity";
+  static final String DATA_FORMAT_KEY = "splunk.snapshot.profiler.data.format";
 
   private SnapshotProfilingEnvVarsConfigurationFactory() {}
 
@@ -51,6 +53,7 @@ public final class SnapshotProfilingEnvVarsConfigurationFactory {
         .setStagingCapacity(
             properties.getInt(
                 STAGING_CAPACITY_KEY, SnapshotProfilingConfiguration.DEFAULT_STAGING_CAPACITY))
+        .setDataFormat(ProfilingDataFormat.fromValue(properties.getString(DATA_FORMAT_KEY)))
         .setConfigProperties(properties)
         .build();
   }
@@ -223,7 +223,8 @@ public class SnapshotProfilingSupervisor {
     io.opentelemetry.api.logs.Logger otelLogger =
         buildLogger(otelLoggerFactory, resource, configuration.getConfigProperties());
 
-    return new AsyncStackTraceExporter(otelLogger, configuration.getStackDepth());
+    return new AsyncStackTraceExporter(
+        otelLogger, configuration.getStackDepth(), configuration.getDataFormat());
   }
 
   private io.opentelemetry.api.logs.Logger buildLogger(
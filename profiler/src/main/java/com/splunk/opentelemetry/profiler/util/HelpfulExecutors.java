@@ -42,6 +42,7 @@ public class HelpfulExecutors {
     public Thread newThread(Runnable runnable) {
       Thread thread = new Thread(runnable, threadName);
       thread.setDaemon(true);
+      ProfilerThreads.getInstance().register(thread);
       return thread;
     }
   }
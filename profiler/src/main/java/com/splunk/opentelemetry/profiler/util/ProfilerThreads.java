@@ -0,0 +1,50 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.opentelemetry.profiler.util;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Ids and names of the threads that the profiler started, so that their cpu time can be measured
+ * without looking up every thread of the jvm.
+ */
+public class ProfilerThreads {
+  private static final ProfilerThreads INSTANCE = new ProfilerThreads();
+
+  private final Map<Long, String> threads = new ConcurrentHashMap<>();
+  private final Map<Long, String> unmodifiableThreads = Collections.unmodifiableMap(threads);
+
+  public static ProfilerThreads getInstance() {
+    return INSTANCE;
+  }
+
+  public void register(Thread thread) {
+    threads.put(thread.getId(), thread.getName());
+  }
+
+  /** Forgets a thread that has terminated. */
+  public void remove(long threadId) {
+    threads.remove(threadId);
+  }
+
+  /** Returns a live view of the registered threads, thread names by thread id. */
+  public Map<Long, String> getThreads() {
+    return unmodifiableThreads;
+  }
+}
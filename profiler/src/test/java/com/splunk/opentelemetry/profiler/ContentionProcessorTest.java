@@ -0,0 +1,60 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.opentelemetry.profiler;
+
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.splunk.opentelemetry.profiler.contention.exporter.ContentionEventExporter;
+import com.splunk.opentelemetry.profiler.context.SpanLinkage;
+import com.splunk.opentelemetry.profiler.exporter.EventExporter;
+import io.opentelemetry.api.trace.SpanContext;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.openjdk.jmc.common.item.IItem;
+
+class ContentionProcessorTest extends StackEventProcessorTest<ContentionProcessor> {
+  @Mock ContentionEventExporter contentionEventExporter;
+
+  @Test
+  void exportEventWithoutSpan() {
+    IItem event = createEvent();
+    when(spanContextualizer.link(anyLong(), anyLong())).thenReturn(SpanLinkage.NONE);
+
+    newProcessor(true).accept(event);
+
+    verify(contentionEventExporter).export(event, SpanContext.getInvalid());
+  }
+
+  @Override
+  ContentionProcessor newProcessor(boolean enabled) {
+    ProfilerConfiguration config = mock(ProfilerConfiguration.class);
+    when(config.getContentionEnabled()).thenReturn(enabled);
+    return ContentionProcessor.builder(config)
+        .eventReader(eventReader)
+        .contentionEventExporter(contentionEventExporter)
+        .spanContextualizer(spanContextualizer)
+        .build();
+  }
+
+  @Override
+  EventExporter exporter() {
+    return contentionEventExporter;
+  }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.opentelemetry.profiler;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmc.common.item.IItem;
+import org.openjdk.jmc.common.item.IType;
+
+class EventMergerTest {
+  private final Map<IItem, Long> startTimes = new HashMap<>();
+  private final EventMerger merger = new EventMerger();
+
+  @Test
+  void mergeEventsOfDifferentTypes() {
+    IType<?> firstType = mock(IType.class);
+    IType<?> secondType = mock(IType.class);
+    IItem event1 = newEvent(firstType, 1);
+    IItem event2 = newEvent(secondType, 2);
+    IItem event3 = newEvent(firstType, 3);
+    IItem event4 = newEvent(secondType, 4);
+
+    add(event1, event3, event2, event4);
+
+    assertThat(drain()).containsExactly(event1, event2, event3, event4);
+    assertThat(merger.size()).isZero();
+  }
+
+  @Test
+  void mergeOutOfOrderEventsOfSameType() {
+    IType<?> type = mock(IType.class);
+    IItem event1 = newEvent(type, 1);
+    IItem event2 = newEvent(type, 2);
+    IItem event3 = newEvent(type, 3);
+
+    add(event2, event3, event1);
+
+    assertThat(drain()).containsExactly(event1, event2, event3);
+  }
+
+  @Test
+  void keepOrderOfEventsWithEqualStartTimes() {
+    IType<?> firstType = mock(IType.class);
+    IType<?> secondType = mock(IType.class);
+    IItem event1 = newEvent(secondType, 1);
+    IItem event2 = newEvent(firstType, 1);
+    IItem event3 = newEvent(secondType, 1);
+
+    add(event1, event2, event3);
+
+    assertThat(drain()).containsExactly(event1, event2, event3);
+  }
+
+  @Test
+  void sameOrderAsStableSort() {
+    List<IType<?>> types = List.of(mock(IType.class), mock(IType.class), mock(IType.class));
+    Random random = new Random(42);
+    for (int round = 0; round < 3; round++) {
+      List<IItem> events = new ArrayList<>();
+      for (int i = 0; i < 1000; i++) {
+        IItem event = newEvent(types.get(random.nextInt(types.size())), random.nextInt(100));
+        events.add(event);
+        add(event);
+      }
+      assertThat(merger.size()).isEqualTo(events.size());
+
+      events.sort(Comparator.comparingLong(startTimes::get));
+      assertThat(drain()).containsExactlyElementsOf(events);
+    }
+  }
+
+  @Test
+  void appendInterleavedEventsToExistingRuns() {
+    IType<?> type = mock(IType.class);
+    List<IItem> events = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      // two sorted streams of the same type interleaved
+      events.add(newEvent(type, i));
+      events.add(newEvent(type, 1000 + i));
+    }
+    events.forEach(this::add);
+
+    assertThat(merger.runCount()).isEqualTo(2);
+    events.sort(Comparator.comparingLong(startTimes::get));
+    assertThat(drain()).containsExactlyElementsOf(events);
+  }
+
+  @Test
+  void sortEventsWhenThereAreTooManyRuns() {
+    IType<?> type = mock(IType.class);
+    for (long step : new long[] {1, Long.MAX_VALUE / 1000}) {
+      List<IItem> events = new ArrayList<>();
+      for (int i = 0; i < 1000; i++) {
+        // every event is older than all previous events, pairs have equal start times
+        events.add(newEvent(type, (1000 - i / 2) * step));
+      }
+      events.forEach(this::add);
+
+      assertThat(merger.runCount()).isEqualTo(65);
+      events.sort(Comparator.comparingLong(startTimes::get));
+      assertThat(drain()).containsExactlyElementsOf(events);
+    }
+  }
+
+  private void add(IItem... events) {
+    for (IItem event : events) {
+      merger.add(event, startTimes.get(event));
+    }
+  }
+
+  private List<IItem> drain() {
+    List<IItem> result = new ArrayList<>();
+    merger.drain((event, startTime) -> result.add(event));
+    return result;
+  }
+
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private IItem newEvent(IType<?> type, long startTime) {
+    IItem event = mock(IItem.class);
+    when(event.getType()).thenReturn((IType) type);
+    startTimes.put(event, startTime);
+    return event;
+  }
+}
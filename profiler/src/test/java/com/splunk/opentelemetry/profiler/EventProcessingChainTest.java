@@ -19,6 +19,9 @@ package com.splunk.opentelemetry.profiler;
 import static java.time.temporal.ChronoUnit.MILLIS;
 import static java.time.temporal.ChronoUnit.SECONDS;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.longThat;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verifyNoInteractions;
@@ -28,6 +31,8 @@ import com.splunk.opentelemetry.profiler.allocation.exporter.AllocationEventExpo
 import com.splunk.opentelemetry.profiler.allocation.sampler.RateLimitingAllocationEventSampler;
 import com.splunk.opentelemetry.profiler.context.SpanContextualizer;
 import com.splunk.opentelemetry.profiler.events.ContextAttached;
+import java.lang.management.ThreadInfo;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
@@ -117,6 +122,86 @@ class EventProcessingChainTest {
     ordered.verifyNoMoreInteractions();
   }
 
+  @Test
+  void dispatchWithoutExport() {
+    IType<?> contextAttachedType = newEventType(ContextAttached.EVENT_NAME);
+    IType<?> threadDumpType = newEventType(ThreadDumpProcessor.EVENT_NAME);
+    Instant now = Instant.now();
+    IItem contextEvent = newEvent(contextAttachedType, now);
+    IItem threadDump = newEvent(threadDumpType, now.plus(1, SECONDS));
+
+    EventProcessingChain chain =
+        new EventProcessingChain(eventReader, contextualizer, threadDumpProcessor, tlabProcessor);
+    chain.accept(threadDump);
+    chain.accept(contextEvent);
+    chain.dispatchBufferedEvents();
+
+    InOrder ordered = inOrder(contextualizer, threadDumpProcessor, tlabProcessor);
+    ordered.verify(contextualizer).updateContext(contextEvent);
+    ordered.verify(threadDumpProcessor).accept(threadDump);
+    ordered.verifyNoMoreInteractions();
+
+    chain.export();
+    ordered.verify(tlabProcessor).flush();
+    ordered.verify(threadDumpProcessor).flush();
+    ordered.verifyNoMoreInteractions();
+  }
+
+  @Test
+  void exportSampledStacksBeforeLaterEvents() {
+    IType<?> contextAttachedType = newEventType(ContextAttached.EVENT_NAME);
+    Instant start = Instant.now().minus(10, SECONDS);
+    IItem contextEvent1 = newEvent(contextAttachedType, start);
+    IItem contextEvent2 = newEvent(contextAttachedType, start.plus(2, SECONDS));
+    Duration period = Duration.ofSeconds(1);
+    ThreadStackSampler sampler =
+        new ThreadStackSampler("test", period) {
+          @Override
+          void sample() {}
+        };
+    sampler.add(mock(ThreadInfo.class), toNanos(start.plus(1, SECONDS)), period, null);
+    sampler.add(mock(ThreadInfo.class), toNanos(start.plus(3, SECONDS)), period, null);
+    long futureTime = toNanos(start.plus(1, ChronoUnit.HOURS));
+    sampler.add(mock(ThreadInfo.class), futureTime, period, null);
+    doAnswer(
+            invocation -> {
+              long untilTime = invocation.getArgument(0);
+              while (sampler.poll(untilTime) != null) {}
+              return null;
+            })
+        .when(threadDumpProcessor)
+        .exportSampledStacks(anyLong());
+
+    EventProcessingChain chain =
+        new EventProcessingChain(
+            eventReader,
+            contextualizer,
+            threadDumpProcessor,
+            tlabProcessor,
+            null,
+            null,
+            null,
+            null,
+            sampler,
+            mock(ProfilerMetrics.class));
+    chain.accept(contextEvent2);
+    chain.accept(contextEvent1);
+    chain.dispatchBufferedEvents();
+
+    // each sample is linked with the span context of the events recorded before it
+    InOrder ordered = inOrder(contextualizer, threadDumpProcessor);
+    ordered.verify(contextualizer).updateContext(contextEvent1);
+    ordered.verify(threadDumpProcessor).exportSampledStacks(toNanos(start.plus(2, SECONDS)));
+    ordered.verify(contextualizer).updateContext(contextEvent2);
+    ordered
+        .verify(threadDumpProcessor)
+        .exportSampledStacks(longThat(time -> time < futureTime));
+    ordered.verifyNoMoreInteractions();
+    // samples taken after the dispatch wait for the events recorded before them
+    assertThat(sampler.poll().time).isEqualTo(futureTime);
+    assertThat(sampler.poll()).isNull();
+  }
+
   @Test
   void eventRateLimit() {
     IType<?> eventType = newEventType(TLABProcessor.NEW_TLAB_EVENT_NAME);
@@ -131,7 +216,7 @@ class EventProcessingChainTest {
     RateLimitingAllocationEventSampler sampler = new RateLimitingAllocationEventSampler("100/s");
     AtomicInteger receivedCount = new AtomicInteger();
     AllocationEventExporter exporter =
-        (event, sampler1, spanContext) -> receivedCount.incrementAndGet();
+        (event, sampler1, spanContext, weight) -> receivedCount.incrementAndGet();
     SpanContextualizer spanContextualizer = mock(SpanContextualizer.class);
 
     TLABProcessor processor =
@@ -153,6 +238,10 @@ class EventProcessingChainTest {
     assertThat(sampler.maxEventsPerSecond()).isEqualTo(100);
   }
 
+  private static long toNanos(Instant time) {
+    return TimeUnit.SECONDS.toNanos(time.getEpochSecond()) + time.getNano();
+  }
+
   private IType<?> newEventType(String name) {
     IType<?> type = mock(IType.class);
     when(type.getIdentifier()).thenReturn(name);
@@ -0,0 +1,143 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.opentelemetry.profiler;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.splunk.opentelemetry.profiler.events.ProfilerEvent;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmc.common.IMCThread;
+import org.openjdk.jmc.common.item.IItem;
+import org.openjdk.jmc.common.item.IMemberAccessor;
+import org.openjdk.jmc.common.item.IType;
+import org.openjdk.jmc.common.unit.IQuantity;
+import org.openjdk.jmc.flightrecorder.JfrAttributes;
+
+class EventReaderTest {
+  private final EventReader eventReader = new EventReader();
+  private final Map<IItem, IQuantity> startTimes = new HashMap<>();
+
+  @Test
+  void resolveAccessorOncePerEventType() {
+    IType<IItem> type = newEventType();
+    IItem first = newEvent(type, 10);
+    IItem second = newEvent(type, 20);
+
+    assertThat(eventReader.getStartTime(first)).isEqualTo(10);
+    assertThat(eventReader.getStartTime(second)).isEqualTo(20);
+    assertThat(eventReader.getStartTime(first)).isEqualTo(10);
+
+    verify(type).getAccessor(JfrAttributes.START_TIME.getKey());
+  }
+
+  @Test
+  void resolveAccessorsAgainAfterClearingCache() {
+    IType<IItem> type = newEventType();
+    IItem event = newEvent(type, 10);
+
+    eventReader.getStartTime(event);
+    eventReader.clearAccessorCache();
+    eventReader.getStartTime(event);
+
+    verify(type, times(2)).getAccessor(JfrAttributes.START_TIME.getKey());
+  }
+
+  @Test
+  void cacheAccessorsOfMultipleEventTypes() {
+    IType<IItem> firstType = newEventType();
+    IType<IItem> secondType = newEventType();
+    IItem first = newEvent(firstType, 10);
+    IItem second = newEvent(secondType, 20);
+
+    for (int i = 0; i < 3; i++) {
+      assertThat(eventReader.getStartTime(first)).isEqualTo(10);
+      assertThat(eventReader.getStartTime(second)).isEqualTo(20);
+    }
+
+    verify(firstType).getAccessor(JfrAttributes.START_TIME.getKey());
+    verify(secondType).getAccessor(JfrAttributes.START_TIME.getKey());
+  }
+
+  @Test
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  void readSampledThreadWhenEventHasNoEventThread() {
+    IType<IItem> type = newEventType();
+    IItem event = newEvent(type, 10);
+    IMCThread thread = mock(IMCThread.class);
+    IMemberAccessor<IMCThread, IItem> accessor = mock(IMemberAccessor.class);
+    when(accessor.getMember(event)).thenReturn(thread);
+    when(type.getAccessor(argThat(key -> "sampledThread".equals(key.getIdentifier()))))
+        .thenReturn((IMemberAccessor) accessor);
+
+    assertThat(eventReader.getThread(event)).isSameAs(thread);
+    assertThat(eventReader.getThread(event)).isSameAs(thread);
+
+    // missing event thread accessor is remembered too
+    verify(type).getAccessor(JfrAttributes.EVENT_THREAD.getKey());
+  }
+
+  @Test
+  void ioTargetOfSocketEvent() {
+    ProfilerEvent event =
+        ProfilerEvent.builder("jdk.SocketRead").host("").address("10.0.0.1").port(5432).build();
+
+    assertThat(eventReader.getIoTarget(event)).isEqualTo("10.0.0.1:5432");
+  }
+
+  @Test
+  void ioTargetOfFileEvent() {
+    ProfilerEvent event = ProfilerEvent.builder("jdk.FileRead").path("/var/data/file").build();
+
+    assertThat(eventReader.getIoTarget(event)).isEqualTo("/var/data/file");
+  }
+
+  @Test
+  void objectClassOfAllocationEvent() {
+    ProfilerEvent event =
+        ProfilerEvent.builder("jdk.ObjectAllocationInNewTLAB").objectClass("byte[]").build();
+
+    assertThat(eventReader.getObjectClass(event)).isEqualTo("byte[]");
+  }
+
+  @SuppressWarnings("unchecked")
+  private IType<IItem> newEventType() {
+    IType<IItem> type = mock(IType.class);
+    IMemberAccessor<IQuantity, IItem> accessor = mock(IMemberAccessor.class);
+    when(accessor.getMember(any()))
+        .thenAnswer(invocation -> startTimes.get(invocation.<IItem>getArgument(0)));
+    when(type.getAccessor(JfrAttributes.START_TIME.getKey())).thenReturn(accessor);
+    return type;
+  }
+
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private IItem newEvent(IType<IItem> type, long startTime) {
+    IItem event = mock(IItem.class);
+    when(event.getType()).thenReturn((IType) type);
+    IQuantity quantity = mock(IQuantity.class);
+    when(quantity.longValue()).thenReturn(startTime);
+    startTimes.put(event, quantity);
+    return event;
+  }
+}
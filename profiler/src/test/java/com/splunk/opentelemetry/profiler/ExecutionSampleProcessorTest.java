@@ -0,0 +1,160 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.opentelemetry.profiler;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.splunk.opentelemetry.profiler.context.SpanContextualizer;
+import com.splunk.opentelemetry.profiler.context.SpanLinkage;
+import com.splunk.opentelemetry.profiler.exporter.CpuEventExporter;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.SpanId;
+import io.opentelemetry.api.trace.TraceFlags;
+import io.opentelemetry.api.trace.TraceId;
+import io.opentelemetry.api.trace.TraceState;
+import java.time.Instant;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.openjdk.jmc.common.IMCFrame;
+import org.openjdk.jmc.common.IMCStackTrace;
+import org.openjdk.jmc.common.IMCThread;
+import org.openjdk.jmc.common.item.IItem;
+import org.openjdk.jmc.common.item.IType;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class ExecutionSampleProcessorTest {
+  private static final long THREAD_ID = 606L;
+  private static final long START_TIME = 1_700_000_000_123_456_789L;
+
+  @Mock EventReader eventReader;
+  @Mock SpanContextualizer spanContextualizer;
+  @Mock CpuEventExporter cpuEventExporter;
+  @Mock StackTraceFilter stackTraceFilter;
+  @Mock IMCStackTrace stackTrace;
+  @Mock IMCThread thread;
+
+  private IItem event;
+
+  @BeforeEach
+  void setUp() {
+    event = createEvent(ExecutionSampleProcessor.EXECUTION_SAMPLE_EVENT_NAME);
+    when(stackTrace.getFrames()).thenAnswer(invocation -> List.of(mock(IMCFrame.class)));
+    when(thread.getThreadId()).thenReturn(THREAD_ID);
+    when(stackTraceFilter.test(any(IItem.class))).thenReturn(true);
+    when(spanContextualizer.link(anyLong(), anyLong())).thenReturn(SpanLinkage.NONE);
+  }
+
+  @Test
+  void exportLinkedSample() {
+    SpanLinkage linkage = new SpanLinkage(spanContext(), THREAD_ID);
+    when(spanContextualizer.link(THREAD_ID, START_TIME)).thenReturn(linkage);
+
+    newProcessor(false).accept(event);
+
+    verify(cpuEventExporter)
+        .export(
+            stackTrace,
+            thread,
+            Instant.ofEpochSecond(0, START_TIME),
+            ExecutionSampleProcessor.EXECUTION_SAMPLE_EVENT_NAME,
+            linkage);
+  }
+
+  @Test
+  void exportUnlinkedSample() {
+    newProcessor(false).accept(event);
+
+    verify(cpuEventExporter)
+        .export(
+            eq(stackTrace),
+            eq(thread),
+            any(Instant.class),
+            eq(ExecutionSampleProcessor.EXECUTION_SAMPLE_EVENT_NAME),
+            eq(SpanLinkage.NONE));
+  }
+
+  @Test
+  void skipUnlinkedSampleWhenOnlyTracingSpans() {
+    newProcessor(true).accept(event);
+
+    verify(cpuEventExporter, never())
+        .export(any(IMCStackTrace.class), any(), any(), any(), any(SpanLinkage.class));
+  }
+
+  @Test
+  void skipFilteredStack() {
+    when(stackTraceFilter.test(event)).thenReturn(false);
+
+    newProcessor(false).accept(event);
+
+    verify(cpuEventExporter, never())
+        .export(any(IMCStackTrace.class), any(), any(), any(), any(SpanLinkage.class));
+  }
+
+  @Test
+  void skipEventWithoutStack() {
+    when(eventReader.getStackTrace(event)).thenReturn(null);
+
+    newProcessor(false).accept(event);
+
+    verify(cpuEventExporter, never())
+        .export(any(IMCStackTrace.class), any(), any(), any(), any(SpanLinkage.class));
+  }
+
+  private ExecutionSampleProcessor newProcessor(boolean onlyTracingSpans) {
+    return ExecutionSampleProcessor.builder()
+        .eventReader(eventReader)
+        .spanContextualizer(spanContextualizer)
+        .cpuEventExporter(cpuEventExporter)
+        .stackTraceFilter(stackTraceFilter)
+        .onlyTracingSpans(onlyTracingSpans)
+        .build();
+  }
+
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private IItem createEvent(String eventName) {
+    IType type = mock(IType.class);
+    when(type.getIdentifier()).thenReturn(eventName);
+    IItem event = mock(IItem.class);
+    when(event.getType()).thenReturn(type);
+    when(eventReader.getStackTrace(event)).thenReturn(stackTrace);
+    when(eventReader.getThread(event)).thenReturn(thread);
+    when(eventReader.getStartTime(event)).thenReturn(START_TIME);
+    return event;
+  }
+
+  private static SpanContext spanContext() {
+    return SpanContext.create(
+        TraceId.fromLongs(123, 456),
+        SpanId.fromLong(123),
+        TraceFlags.getSampled(),
+        TraceState.getDefault());
+  }
+}
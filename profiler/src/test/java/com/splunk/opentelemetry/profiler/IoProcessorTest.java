@@ -0,0 +1,44 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.opentelemetry.profiler;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.splunk.opentelemetry.profiler.exporter.EventExporter;
+import com.splunk.opentelemetry.profiler.iowait.exporter.IoEventExporter;
+import org.mockito.Mock;
+
+class IoProcessorTest extends StackEventProcessorTest<IoProcessor> {
+  @Mock IoEventExporter ioEventExporter;
+
+  @Override
+  IoProcessor newProcessor(boolean enabled) {
+    ProfilerConfiguration config = mock(ProfilerConfiguration.class);
+    when(config.getIoEnabled()).thenReturn(enabled);
+    return IoProcessor.builder(config)
+        .eventReader(eventReader)
+        .ioEventExporter(ioEventExporter)
+        .spanContextualizer(spanContextualizer)
+        .build();
+  }
+
+  @Override
+  EventExporter exporter() {
+    return ioEventExporter;
+  }
+}
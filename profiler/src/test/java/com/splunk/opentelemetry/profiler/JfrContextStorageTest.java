@@ -22,8 +22,10 @@ import static org.junit.jupiter.api.Assertions.fail;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
+import com.splunk.opentelemetry.profiler.context.ThreadContextSlots;
 import com.splunk.opentelemetry.profiler.events.ContextAttached;
 import io.opentelemetry.api.trace.Span;
 import io.opentelemetry.api.trace.SpanContext;
@@ -98,6 +100,28 @@ class JfrContextStorageTest {
     verify(delegatedScope).close();
   }
 
+  @Test
+  void testAttachWithThreadContextSlots() {
+    ThreadContextSlots slots = mock(ThreadContextSlots.class);
+    Function<SpanContext, ContextAttached> newEvent = mock(Function.class);
+
+    when(delegate.attach(newContext)).thenReturn(delegatedScope);
+
+    JfrContextStorage contextStorage = new JfrContextStorage(delegate, newEvent);
+    contextStorage.setThreadContextSlots(slots);
+    contextStorage.setEnabled(true);
+    verify(slots).reset();
+
+    Scope resultScope = contextStorage.attach(newContext);
+    verify(slots).set(spanContext);
+    verify(delegatedScope, never()).close();
+
+    resultScope.close(); // returns back to the initial/default span
+    verify(slots).set(SpanContext.getInvalid());
+    verify(delegatedScope).close();
+    verifyNoInteractions(newEvent);
+  }
+
   @Test
   void testAttachWithInvalidContextDoesNotCreateAnyEvents() {
 
@@ -106,4 +106,132 @@ class JfrSettingsOverridesTest {
     assertThat(result.get("jdk.ThreadDump#enabled")).isEqualTo("false");
     assertThat(result).hasSize(2);
   }
+
+  @Test
+  void shouldReplaceThreadDumpsWithExecutionSamples() {
+    // given
+    ProfilerConfiguration config = mock(ProfilerConfiguration.class);
+    when(config.getCallStackInterval()).thenReturn(Duration.ofMillis(163));
+    when(config.getExecutionSampleEnabled()).thenReturn(true);
+    when(config.getExecutionSampleInterval()).thenReturn(Duration.ofMillis(15));
+
+    JfrSettingsOverrides overrides = new JfrSettingsOverrides(config);
+    Map<String, String> jfrSettings =
+        Map.of(
+            "jdk.ThreadDump#period", "12",
+            "jdk.ThreadDump#enabled", "true");
+
+    // when
+    Map<String, String> result = overrides.apply(jfrSettings);
+
+    // then
+    assertThat(result.get("jdk.ThreadDump#enabled")).isEqualTo("false");
+    assertThat(result.get("jdk.ExecutionSample#enabled")).isEqualTo("true");
+    assertThat(result.get("jdk.ExecutionSample#period")).isEqualTo("15 ms");
+    assertThat(result.get("jdk.NativeMethodSample#enabled")).isEqualTo("true");
+    assertThat(result.get("jdk.NativeMethodSample#period")).isEqualTo("15 ms");
+  }
+
+  @Test
+  void shouldDisableThreadDumpsWhenSpanStackSamplerIsUsed() {
+    // given
+    ProfilerConfiguration config = mock(ProfilerConfiguration.class);
+    when(config.getCallStackInterval()).thenReturn(Duration.ofMillis(163));
+    when(config.getSpanStackSamplerEnabled()).thenReturn(true);
+    when(config.getTracingStacksOnly()).thenReturn(true);
+    when(config.getContextSlotsEnabled()).thenReturn(true);
+
+    JfrSettingsOverrides overrides = new JfrSettingsOverrides(config);
+    Map<String, String> jfrSettings = Map.of("jdk.ThreadDump#enabled", "true");
+
+    // when
+    Map<String, String> result = overrides.apply(jfrSettings);
+
+    // then
+    assertThat(result.get("jdk.ThreadDump#enabled")).isEqualTo("false");
+  }
+
+  @Test
+  void shouldDisableThreadDumpsWhenThreadsAreSampledInShards() {
+    // given
+    ProfilerConfiguration config = mock(ProfilerConfiguration.class);
+    when(config.getCallStackInterval()).thenReturn(Duration.ofMillis(163));
+    when(config.getCallStackMaxThreads()).thenReturn(200);
+
+    JfrSettingsOverrides overrides = new JfrSettingsOverrides(config);
+    Map<String, String> jfrSettings = Map.of("jdk.ThreadDump#enabled", "true");
+
+    // when
+    Map<String, String> result = overrides.apply(jfrSettings);
+
+    // then
+    assertThat(result.get("jdk.ThreadDump#enabled")).isEqualTo("false");
+  }
+
+  @Test
+  void shouldEnableContentionEventsWithThreshold() {
+    // given
+    ProfilerConfiguration config = mock(ProfilerConfiguration.class);
+    when(config.getCallStackInterval()).thenReturn(Duration.ofMillis(0));
+    when(config.getContentionEnabled()).thenReturn(true);
+    when(config.getContentionThreshold()).thenReturn(Duration.ofMillis(25));
+
+    JfrSettingsOverrides overrides = new JfrSettingsOverrides(config);
+
+    // when
+    Map<String, String> result = overrides.apply(Map.of());
+
+    // then
+    for (String eventName :
+        new String[] {"jdk.JavaMonitorEnter", "jdk.JavaMonitorWait", "jdk.ThreadPark"}) {
+      assertThat(result.get(eventName + "#enabled")).isEqualTo("true");
+      assertThat(result.get(eventName + "#stackTrace")).isEqualTo("true");
+      assertThat(result.get(eventName + "#threshold")).isEqualTo("25 ms");
+    }
+    assertThat(result).hasSize(9);
+  }
+
+  @Test
+  void shouldEnableIoEventsWithThresholds() {
+    // given
+    ProfilerConfiguration config = mock(ProfilerConfiguration.class);
+    when(config.getCallStackInterval()).thenReturn(Duration.ofMillis(0));
+    when(config.getIoEnabled()).thenReturn(true);
+    when(config.getIoSocketThreshold()).thenReturn(Duration.ofMillis(5));
+    when(config.getIoFileThreshold()).thenReturn(Duration.ofMillis(30));
+
+    JfrSettingsOverrides overrides = new JfrSettingsOverrides(config);
+
+    // when
+    Map<String, String> result = overrides.apply(Map.of());
+
+    // then
+    assertThat(result.get("jdk.SocketRead#enabled")).isEqualTo("true");
+    assertThat(result.get("jdk.SocketRead#threshold")).isEqualTo("5 ms");
+    assertThat(result.get("jdk.SocketWrite#threshold")).isEqualTo("5 ms");
+    assertThat(result.get("jdk.FileRead#enabled")).isEqualTo("true");
+    assertThat(result.get("jdk.FileRead#stackTrace")).isEqualTo("true");
+    assertThat(result.get("jdk.FileRead#threshold")).isEqualTo("30 ms");
+    assertThat(result.get("jdk.FileWrite#threshold")).isEqualTo("30 ms");
+    assertThat(result).hasSize(12);
+  }
+
+  @Test
+  void shouldEnableOldObjectSamplesWithoutPathToGcRoots() {
+    // given
+    ProfilerConfiguration config = mock(ProfilerConfiguration.class);
+    when(config.getCallStackInterval()).thenReturn(Duration.ofMillis(0));
+    when(config.getLeakEnabled()).thenReturn(true);
+
+    JfrSettingsOverrides overrides = new JfrSettingsOverrides(config);
+
+    // when
+    Map<String, String> result = overrides.apply(Map.of());
+
+    // then
+    assertThat(result.get("jdk.OldObjectSample#enabled")).isEqualTo("true");
+    assertThat(result.get("jdk.OldObjectSample#stackTrace")).isEqualTo("true");
+    assertThat(result.get("jdk.OldObjectSample#cutoff")).isEqualTo("0 ns");
+    assertThat(result).hasSize(3);
+  }
 }
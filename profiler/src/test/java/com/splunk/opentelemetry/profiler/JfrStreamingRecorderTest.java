@@ -0,0 +1,102 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.opentelemetry.profiler;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import com.splunk.opentelemetry.profiler.events.ContextAttached;
+import com.splunk.opentelemetry.profiler.events.ProfilerEvent;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmc.common.item.IItem;
+
+class JfrStreamingRecorderTest {
+  static final String TRACE_ID = "deadbeefdeadbeefdeadbeefdeadbeef";
+  static final String SPAN_ID = "0123012301230123";
+
+  EventReader eventReader = new EventReader();
+  EventProcessingChain eventProcessingChain = mock(EventProcessingChain.class);
+  List<IItem> events = new CopyOnWriteArrayList<>();
+  JfrStreamingRecorder recorder =
+      JfrStreamingRecorder.builder()
+          .settings(Collections.emptyMap())
+          .maxAgeDuration(Duration.ofSeconds(10))
+          .eventProcessingChain(eventProcessingChain)
+          .build();
+
+  @AfterEach
+  void tearDown() {
+    recorder.stop();
+  }
+
+  @Test
+  void streamsEventsIntoProcessingChain() {
+    doAnswer(invocation -> events.add(invocation.getArgument(0)))
+        .when(eventProcessingChain)
+        .accept(any());
+
+    recorder.start();
+    assertThat(recorder.isStarted()).isTrue();
+
+    await()
+        .untilAsserted(
+            () -> {
+              new ContextAttached(TRACE_ID, SPAN_ID, (byte) 1).commit();
+              assertThat(events).isNotEmpty();
+            });
+
+    IItem event = events.get(0);
+    assertThat(event).isInstanceOf(ProfilerEvent.class);
+    assertThat(event.getType().getIdentifier()).isEqualTo(ContextAttached.EVENT_NAME);
+    assertThat(eventReader.getTraceId(event)).isEqualTo(TRACE_ID);
+    assertThat(eventReader.getSpanId(event)).isEqualTo(SPAN_ID);
+    assertThat(eventReader.getTraceFlags(event)).isEqualTo((byte) 1);
+    assertThat(eventReader.getThread(event).getThreadId())
+        .isEqualTo(Thread.currentThread().getId());
+
+    await()
+        .untilAsserted(() -> verify(eventProcessingChain, atLeastOnce()).dispatchBufferedEvents());
+    verify(eventProcessingChain, never()).export();
+  }
+
+  @Test
+  void exportsAfterFlushIsRequested() {
+    recorder.start();
+    recorder.flushSnapshot();
+
+    await().untilAsserted(() -> verify(eventProcessingChain).export());
+  }
+
+  @Test
+  void stop() {
+    recorder.start();
+    recorder.stop();
+
+    assertThat(recorder.isStarted()).isFalse();
+  }
+}
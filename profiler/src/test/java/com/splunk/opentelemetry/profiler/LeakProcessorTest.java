@@ -0,0 +1,80 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.opentelemetry.profiler;
+
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.splunk.opentelemetry.profiler.context.SpanLinkage;
+import com.splunk.opentelemetry.profiler.exporter.EventExporter;
+import com.splunk.opentelemetry.profiler.leak.exporter.LeakEventExporter;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.openjdk.jmc.common.item.IItem;
+
+class LeakProcessorTest extends StackEventProcessorTest<LeakProcessor> {
+  @Mock LeakEventExporter leakEventExporter;
+
+  @Test
+  void linkObjectsAllocatedDuringProcessedEvents() {
+    IItem event = createEvent();
+    when(spanContextualizer.link(THREAD_ID, START_TIME))
+        .thenReturn(new SpanLinkage(spanContext, THREAD_ID));
+
+    LeakProcessor processor = newProcessor(true);
+    processor.setLinkableSince(START_TIME - 1);
+    processor.accept(event);
+
+    verify(leakEventExporter).export(event, spanContext);
+  }
+
+  @Test
+  void doNotLinkObjectsAllocatedBeforeProcessedEvents() {
+    IItem event = createEvent();
+    when(spanContextualizer.link(anyLong(), anyLong()))
+        .thenReturn(new SpanLinkage(spanContext, THREAD_ID));
+
+    LeakProcessor processor = newProcessor(true);
+    processor.setLinkableSince(START_TIME + 1);
+    processor.accept(event);
+
+    verify(leakEventExporter).export(event, null);
+    verify(spanContextualizer, never()).link(anyLong(), anyLong());
+  }
+
+  @Override
+  LeakProcessor newProcessor(boolean enabled) {
+    ProfilerConfiguration config = mock(ProfilerConfiguration.class);
+    when(config.getLeakEnabled()).thenReturn(enabled);
+    LeakProcessor processor =
+        LeakProcessor.builder(config)
+            .eventReader(eventReader)
+            .leakEventExporter(leakEventExporter)
+            .spanContextualizer(spanContextualizer)
+            .build();
+    processor.setLinkableSince(START_TIME);
+    return processor;
+  }
+
+  @Override
+  EventExporter exporter() {
+    return leakEventExporter;
+  }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.opentelemetry.profiler;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.splunk.opentelemetry.profiler.util.ProfilerThreads;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class OverheadGovernorTest {
+  private static final Map<String, String> SETTINGS =
+      Map.of(
+          "jdk.ThreadDump#period", "10000 ms",
+          "jdk.ThreadDump#enabled", "true",
+          "jdk.ObjectAllocationSample#throttle", "150/s");
+
+  private final ThreadMXBean threadMXBean = mock(ThreadMXBean.class);
+  private final Recorder recorder = mock(Recorder.class);
+  private final ProfilerThreads profilerThreads = new ProfilerThreads();
+  private final Thread flusher = new Thread(() -> {}, "JFR Recording Flusher");
+  private final Thread application = new Thread(() -> {}, "http-nio-8080-exec-1");
+  private final List<Integer> scales = new ArrayList<>();
+  private long time;
+  private long flusherCpuTime;
+  private long applicationCpuTime;
+  // budget is 1% of one cpu
+  private final OverheadGovernor governor =
+      new OverheadGovernor(SETTINGS, 1, scales::add, threadMXBean, () -> time, profilerThreads);
+
+  @BeforeEach
+  void setUp() {
+    // application threads are never registered, only the threads the profiler starts
+    profilerThreads.register(flusher);
+    when(threadMXBean.getThreadCpuTime(flusher.getId())).thenAnswer(invocation -> flusherCpuTime);
+    when(threadMXBean.getThreadCpuTime(application.getId()))
+        .thenAnswer(invocation -> applicationCpuTime);
+    governor.update(recorder);
+  }
+
+  @Test
+  void lengthenPeriodsWhenOverBudget() {
+    interval(TimeUnit.MILLISECONDS.toNanos(500));
+
+    assertThat(governor.getScale()).isEqualTo(2);
+    assertThat(scales).containsExactly(2);
+    verify(recorder)
+        .updateSettings(
+            Map.of(
+                "jdk.ThreadDump#period", "20000 ms",
+                "jdk.ThreadDump#enabled", "true",
+                "jdk.ObjectAllocationSample#throttle", "75/s"));
+  }
+
+  @Test
+  void keepPeriodsWithinBudget() {
+    interval(TimeUnit.MILLISECONDS.toNanos(150));
+
+    assertThat(governor.getScale()).isEqualTo(1);
+    verify(recorder, never()).updateSettings(any());
+  }
+
+  @Test
+  void ignoreCpuTimeOfApplicationThreads() {
+    applicationCpuTime += TimeUnit.SECONDS.toNanos(20);
+    interval(0);
+
+    assertThat(governor.getScale()).isEqualTo(1);
+  }
+
+  @Test
+  void restorePeriodsWhenWellUnderBudget() {
+    interval(TimeUnit.MILLISECONDS.toNanos(500));
+    interval(TimeUnit.MILLISECONDS.toNanos(500));
+    interval(TimeUnit.MILLISECONDS.toNanos(10));
+
+    assertThat(scales).containsExactly(2, 4, 2);
+  }
+
+  @Test
+  void limitScale() {
+    for (int i = 0; i < 10; i++) {
+      interval(TimeUnit.SECONDS.toNanos(1));
+    }
+
+    assertThat(governor.getScale()).isEqualTo(OverheadGovernor.MAX_SCALE);
+  }
+
+  @Test
+  void forgetTerminatedProfilerThreads() {
+    Thread exporter = new Thread(() -> {}, "splunk-profiler-log-exporter");
+    profilerThreads.register(exporter);
+    when(threadMXBean.getThreadCpuTime(exporter.getId())).thenReturn(-1L);
+
+    interval(0);
+
+    assertThat(profilerThreads.getThreads()).doesNotContainKey(exporter.getId());
+    verify(threadMXBean, never()).getAllThreadIds();
+    verify(threadMXBean, never()).getThreadInfo(any(long[].class), anyInt());
+  }
+
+  @Test
+  void scaleJfrSettingValues() {
+    assertThat(OverheadGovernor.scalePeriod("20 ms", 4)).isEqualTo("80 ms");
+    assertThat(OverheadGovernor.scalePeriod("everyChunk", 4)).isEqualTo("everyChunk");
+    assertThat(OverheadGovernor.scaleThrottle("150/s", 4)).isEqualTo("37/s");
+    assertThat(OverheadGovernor.scaleThrottle("2/m", 4)).isEqualTo("1/m");
+    assertThat(OverheadGovernor.scaleThrottle("off", 4)).isEqualTo("off");
+  }
+
+  /** Advances time by a 20 second interval in which the flusher thread used the given cpu time. */
+  private void interval(long cpuTime) {
+    time += TimeUnit.SECONDS.toNanos(20);
+    flusherCpuTime += cpuTime;
+    governor.update(recorder);
+  }
+}
@@ -22,6 +22,9 @@ import static org.mockito.Mockito.mockConstruction;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import com.splunk.opentelemetry.profiler.contention.exporter.PprofContentionEventExporter;
+import com.splunk.opentelemetry.profiler.iowait.exporter.PprofIoEventExporter;
+import com.splunk.opentelemetry.profiler.leak.exporter.PprofLeakEventExporter;
 import io.opentelemetry.api.incubator.config.DeclarativeConfigProperties;
 import io.opentelemetry.common.ComponentLoader;
 import io.opentelemetry.sdk.autoconfigure.declarativeconfig.YamlDeclarativeConfigProperties;
@@ -74,6 +77,75 @@ class PeriodicRecordingFlusherFactoryTest {
     }
   }
 
+  @Test
+  void createUsesStreamingRecorderWhenEnabled() {
+    JFR jfr = mock(JFR.class);
+    ProfilerConfiguration config = config(tempDir).setJfrStreamingEnabled(true).build();
+    ProfilerConfiguration.SUPPLIER.configure(config);
+    PeriodicRecordingFlusherFactory factory = new PeriodicRecordingFlusherFactory();
+
+    try (MockedConstruction<JfrRecorder> recorderConstruction =
+            mockConstruction(JfrRecorder.class);
+        MockedConstruction<JfrStreamingRecorder> streamingRecorderConstruction =
+            mockConstruction(JfrStreamingRecorder.class)) {
+      PeriodicRecordingFlusher flusher = factory.create(config, Resource.empty(), jfr);
+
+      assertThat(flusher).isNotNull();
+      assertThat(recorderConstruction.constructed()).isEmpty();
+      assertThat(streamingRecorderConstruction.constructed()).hasSize(1);
+
+      JfrStreamingRecorder recorder = streamingRecorderConstruction.constructed().get(0);
+      when(recorder.isStarted()).thenReturn(true);
+
+      flusher.handleInterval();
+
+      verify(recorder).flushSnapshot();
+    }
+  }
+
+  @Test
+  void createUsesSnapshotRecorderWhenLeakProfilingIsEnabled() {
+    JFR jfr = mock(JFR.class);
+    ProfilerConfiguration config =
+        config(tempDir).setJfrStreamingEnabled(true).setLeakEnabled(true).build();
+    ProfilerConfiguration.SUPPLIER.configure(config);
+    PeriodicRecordingFlusherFactory factory = new PeriodicRecordingFlusherFactory();
+
+    try (MockedConstruction<JfrRecorder> recorderConstruction =
+            mockConstruction(JfrRecorder.class);
+        MockedConstruction<JfrStreamingRecorder> streamingRecorderConstruction =
+            mockConstruction(JfrStreamingRecorder.class)) {
+      factory.create(config, Resource.empty(), jfr);
+
+      // old object samples are only emitted when a recording is dumped
+      assertThat(recorderConstruction.constructed()).hasSize(1);
+      assertThat(streamingRecorderConstruction.constructed()).isEmpty();
+    }
+  }
+
+  @Test
+  void createBuildsExportersOnlyForEnabledProfilers() {
+    JFR jfr = mock(JFR.class);
+    ProfilerConfiguration config = config(tempDir).setContentionEnabled(true).build();
+    ProfilerConfiguration.SUPPLIER.configure(config);
+    PeriodicRecordingFlusherFactory factory = new PeriodicRecordingFlusherFactory();
+
+    try (MockedConstruction<JfrRecorder> recorderConstruction =
+            mockConstruction(JfrRecorder.class);
+        MockedConstruction<PprofContentionEventExporter> contentionExporterConstruction =
+            mockConstruction(PprofContentionEventExporter.class);
+        MockedConstruction<PprofIoEventExporter> ioExporterConstruction =
+            mockConstruction(PprofIoEventExporter.class);
+        MockedConstruction<PprofLeakEventExporter> leakExporterConstruction =
+            mockConstruction(PprofLeakEventExporter.class)) {
+      factory.create(config, Resource.empty(), jfr);
+
+      assertThat(contentionExporterConstruction.constructed()).hasSize(1);
+      assertThat(ioExporterConstruction.constructed()).isEmpty();
+      assertThat(leakExporterConstruction.constructed()).isEmpty();
+    }
+  }
+
   @Test
   void createCreatesMissingOutputDirectoryWhenKeepingFiles() {
     Path outputDir = tempDir.resolve("profiler-output");
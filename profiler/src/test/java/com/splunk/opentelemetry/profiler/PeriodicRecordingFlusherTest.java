@@ -20,6 +20,7 @@ import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
+import io.opentelemetry.sdk.logs.LogRecordProcessor;
 import java.time.Duration;
 import java.util.Collections;
 import java.util.concurrent.CountDownLatch;
@@ -29,6 +30,7 @@ import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
@@ -60,6 +62,20 @@ class PeriodicRecordingFlusherTest {
     verifyNoMoreInteractions(recorder);
   }
 
+  @Test
+  void updateOverheadGovernorAfterFlush() {
+    when(recorder.isStarted()).thenReturn(true);
+    OverheadGovernor overheadGovernor = mock(OverheadGovernor.class);
+    PeriodicRecordingFlusher recordingFlusher =
+        new PeriodicRecordingFlusher(recorder, duration, null, null, overheadGovernor, executor);
+
+    recordingFlusher.handleInterval();
+
+    InOrder inOrder = inOrder(recorder, overheadGovernor);
+    inOrder.verify(recorder).flushSnapshot();
+    inOrder.verify(overheadGovernor).update(recorder);
+  }
+
   @Test
   void startThroughFlushSequence() throws Exception {
     CountDownLatch latch = new CountDownLatch(3);
@@ -91,6 +107,18 @@ class PeriodicRecordingFlusherTest {
     verifyNoMoreInteractions(executor, scheduledFlushFuture);
   }
 
+  @Test
+  void stopShutsDownLogRecordProcessor() {
+    LogRecordProcessor logRecordProcessor = mock(LogRecordProcessor.class);
+    PeriodicRecordingFlusher recordingFlusher =
+        new PeriodicRecordingFlusher(recorder, duration, logRecordProcessor, executor);
+
+    recordingFlusher.stop();
+
+    verify(recorder).stop();
+    verify(logRecordProcessor).shutdown();
+  }
+
   private PeriodicRecordingFlusher buildRecordingFlusher() {
     return buildRecordingFlusher(recorder);
   }
@@ -44,12 +44,32 @@ class ProfilerDeclarativeConfigurationFactoryTest {
                     keep_recording_files: true
                     recording_directory: "/tmp/prof"
                     recording_duration: 12345
+                    jfr_streaming: true
+                    jfr_decoder: true
+                    export_max_bytes: 1234
+                    overhead_budget: 1.5
+                    data_format: pprof-gzip
+                    context_slots: true
 
                     cpu_profiler:
                       sampling_interval: 1410
+                      aggregate_stacks: true
+                      execution_samples: true
+                      execution_sample_interval: 15
+                      span_sampler: true
+                      max_threads: 200
+                    contention_profiler:
+                      threshold: 25
+                    io_profiler:
+                      socket_threshold: 5
+                      file_threshold: 30
+                    leak_profiler: {}
                     memory_profiler:
                       event_rate: "250/s"
                       native_sampling: true
+                      weighted_sampling: true
+                      aggregate_stacks: true
+                      max_stacks: 500
             """);
 
     DeclarativeConfigProperties profilingConfig = getProfilingConfig(model);
@@ -60,14 +80,34 @@ class ProfilerDeclarativeConfigurationFactoryTest {
     assertThat(config.getIncludeAgentInternalStacks()).isTrue();
     assertThat(config.getIncludeJvmInternalStacks()).isTrue();
     assertThat(config.getTracingStacksOnly()).isTrue();
+    assertThat(config.getSpanStackSamplerEnabled()).isTrue();
     assertThat(config.getStackDepth()).isEqualTo(73);
+    assertThat(config.getJfrStreamingEnabled()).isTrue();
+    assertThat(config.getJfrChunkDecoderEnabled()).isTrue();
+    assertThat(config.getCpuAggregationEnabled()).isTrue();
+    assertThat(config.getExportMaxBytes()).isEqualTo(1234);
+    assertThat(config.getOverheadBudget()).isEqualTo(1.5);
+    assertThat(config.getDataFormat()).isEqualTo(ProfilingDataFormat.PPROF_GZIP);
+    assertThat(config.getContextSlotsEnabled()).isTrue();
+    assertThat(config.getExecutionSampleEnabled()).isTrue();
+    assertThat(config.getExecutionSampleInterval()).isEqualTo(Duration.ofMillis(15));
+    assertThat(config.getContentionEnabled()).isTrue();
+    assertThat(config.getContentionThreshold()).isEqualTo(Duration.ofMillis(25));
+    assertThat(config.getIoEnabled()).isTrue();
+    assertThat(config.getIoSocketThreshold()).isEqualTo(Duration.ofMillis(5));
+    assertThat(config.getIoFileThreshold()).isEqualTo(Duration.ofMillis(30));
+    assertThat(config.getLeakEnabled()).isTrue();
     assertThat(config.getKeepFiles()).isTrue();
     assertThat(config.getProfilerDirectory()).isEqualTo("/tmp/prof");
     assertThat(config.getRecordingDuration()).isEqualTo(Duration.ofMillis(12345));
     assertThat(config.getCallStackInterval()).isEqualTo(Duration.ofMillis(1410));
+    assertThat(config.getCallStackMaxThreads()).isEqualTo(200);
     assertThat(config.getMemoryEnabled()).isTrue();
     assertThat(config.getMemoryEventRateLimitEnabled()).isTrue();
     assertThat(config.getMemoryEventRate()).isEqualTo("250/s");
+    assertThat(config.getMemoryWeightedSampling()).isTrue();
+    assertThat(config.getMemoryAggregationEnabled()).isTrue();
+    assertThat(config.getMemoryAggregationMaxStacks()).isEqualTo(500);
     assertThat(config.getUseAllocationSampleEvent())
         .isEqualTo(ProfilerConfiguration.HAS_OBJECT_ALLOCATION_SAMPLE_EVENT);
     assertThat(config.getConfigProperties()).isSameAs(profilingConfig);
@@ -90,6 +130,10 @@ class ProfilerDeclarativeConfigurationFactoryTest {
     assertThat(config.isEnabled()).isFalse();
     assertThat(config.getMemoryEnabled()).isFalse();
     assertThat(config.getMemoryEventRateLimitEnabled()).isFalse();
+    assertThat(config.getMemoryWeightedSampling()).isFalse();
+    assertThat(config.getMemoryAggregationEnabled()).isFalse();
+    assertThat(config.getLeakEnabled()).isFalse();
+    assertThat(config.getSpanStackSamplerEnabled()).isFalse();
     assertThat(config.getCallStackInterval()).isEqualTo(Duration.ofSeconds(10));
     assertThat(config.getRecordingDuration()).isEqualTo(Duration.ofSeconds(20));
   }
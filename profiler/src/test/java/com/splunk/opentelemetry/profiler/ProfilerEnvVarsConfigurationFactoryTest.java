@@ -51,11 +51,31 @@ class ProfilerEnvVarsConfigurationFactoryTest {
                 Map.entry("splunk.profiler.memory.event.rate-limit.enabled", "true"),
                 Map.entry("splunk.profiler.memory.event.rate", "250/s"),
                 Map.entry("splunk.profiler.memory.native.sampling", "true"),
+                Map.entry("splunk.profiler.memory.weighted.sampling", "true"),
+                Map.entry("splunk.profiler.memory.aggregation.enabled", "true"),
+                Map.entry("splunk.profiler.memory.aggregation.max.stacks", "500"),
                 Map.entry("splunk.profiler.call.stack.interval", "1410ms"),
+                Map.entry("splunk.profiler.call.stack.max.threads", "200"),
                 Map.entry("splunk.profiler.include.agent.internals", "true"),
                 Map.entry("splunk.profiler.include.jvm.internals", "true"),
                 Map.entry("splunk.profiler.tracing.stacks.only", "true"),
-                Map.entry("splunk.profiler.max.stack.depth", "73")));
+                Map.entry("splunk.profiler.tracing.stacks.sampler.enabled", "true"),
+                Map.entry("splunk.profiler.max.stack.depth", "73"),
+                Map.entry("splunk.profiler.jfr.streaming.enabled", "true"),
+                Map.entry("splunk.profiler.jfr.decoder.enabled", "true"),
+                Map.entry("splunk.profiler.cpu.aggregation.enabled", "true"),
+                Map.entry("splunk.profiler.export.max.bytes", "1234"),
+                Map.entry("splunk.profiler.overhead.budget", "1.5"),
+                Map.entry("splunk.profiler.data.format", "pprof-gzip"),
+                Map.entry("splunk.profiler.context.slots.enabled", "true"),
+                Map.entry("splunk.profiler.cpu.execution.sample.enabled", "true"),
+                Map.entry("splunk.profiler.cpu.execution.sample.interval", "15ms"),
+                Map.entry("splunk.profiler.contention.enabled", "true"),
+                Map.entry("splunk.profiler.contention.threshold", "25ms"),
+                Map.entry("splunk.profiler.io.enabled", "true"),
+                Map.entry("splunk.profiler.io.socket.threshold", "5ms"),
+                Map.entry("splunk.profiler.io.file.threshold", "30ms"),
+                Map.entry("splunk.profiler.memory.leak.enabled", "true")));
 
     ProfilerConfiguration profilerConfiguration =
         ProfilerEnvVarsConfigurationFactory.create(configProperties);
@@ -66,13 +86,34 @@ class ProfilerEnvVarsConfigurationFactoryTest {
     assertThat(profilerConfiguration.getMemoryEnabled()).isTrue();
     assertThat(profilerConfiguration.getMemoryEventRateLimitEnabled()).isTrue();
     assertThat(profilerConfiguration.getMemoryEventRate()).isEqualTo("250/s");
+    assertThat(profilerConfiguration.getMemoryWeightedSampling()).isTrue();
+    assertThat(profilerConfiguration.getMemoryAggregationEnabled()).isTrue();
+    assertThat(profilerConfiguration.getMemoryAggregationMaxStacks()).isEqualTo(500);
     assertThat(profilerConfiguration.getUseAllocationSampleEvent())
         .isEqualTo(ProfilerConfiguration.HAS_OBJECT_ALLOCATION_SAMPLE_EVENT);
     assertThat(profilerConfiguration.getCallStackInterval()).isEqualTo(Duration.ofMillis(1410));
+    assertThat(profilerConfiguration.getCallStackMaxThreads()).isEqualTo(200);
     assertThat(profilerConfiguration.getIncludeAgentInternalStacks()).isTrue();
     assertThat(profilerConfiguration.getIncludeJvmInternalStacks()).isTrue();
     assertThat(profilerConfiguration.getTracingStacksOnly()).isTrue();
+    assertThat(profilerConfiguration.getSpanStackSamplerEnabled()).isTrue();
     assertThat(profilerConfiguration.getStackDepth()).isEqualTo(73);
+    assertThat(profilerConfiguration.getJfrStreamingEnabled()).isTrue();
+    assertThat(profilerConfiguration.getJfrChunkDecoderEnabled()).isTrue();
+    assertThat(profilerConfiguration.getCpuAggregationEnabled()).isTrue();
+    assertThat(profilerConfiguration.getExportMaxBytes()).isEqualTo(1234);
+    assertThat(profilerConfiguration.getOverheadBudget()).isEqualTo(1.5);
+    assertThat(profilerConfiguration.getDataFormat()).isEqualTo(ProfilingDataFormat.PPROF_GZIP);
+    assertThat(profilerConfiguration.getContextSlotsEnabled()).isTrue();
+    assertThat(profilerConfiguration.getExecutionSampleEnabled()).isTrue();
+    assertThat(profilerConfiguration.getExecutionSampleInterval())
+        .isEqualTo(Duration.ofMillis(15));
+    assertThat(profilerConfiguration.getContentionEnabled()).isTrue();
+    assertThat(profilerConfiguration.getContentionThreshold()).isEqualTo(Duration.ofMillis(25));
+    assertThat(profilerConfiguration.getIoEnabled()).isTrue();
+    assertThat(profilerConfiguration.getIoSocketThreshold()).isEqualTo(Duration.ofMillis(5));
+    assertThat(profilerConfiguration.getIoFileThreshold()).isEqualTo(Duration.ofMillis(30));
+    assertThat(profilerConfiguration.getLeakEnabled()).isTrue();
     assertThat(profilerConfiguration.getKeepFiles()).isTrue();
     assertThat(profilerConfiguration.getProfilerDirectory()).isEqualTo("/tmp/prof");
     assertThat(profilerConfiguration.getRecordingDuration()).isEqualTo(Duration.ofMillis(12345));
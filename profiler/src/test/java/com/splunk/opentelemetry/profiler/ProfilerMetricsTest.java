@@ -0,0 +1,115 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.opentelemetry.profiler;
+
+import static io.opentelemetry.sdk.testing.assertj.OpenTelemetryAssertions.assertThat;
+import static io.opentelemetry.sdk.testing.assertj.OpenTelemetryAssertions.equalTo;
+
+import io.opentelemetry.sdk.metrics.SdkMeterProvider;
+import io.opentelemetry.sdk.testing.exporter.InMemoryMetricReader;
+import org.junit.jupiter.api.Test;
+
+class ProfilerMetricsTest {
+  private final InMemoryMetricReader metricReader = InMemoryMetricReader.create();
+  private final ProfilerMetrics metrics =
+      new ProfilerMetrics(
+          SdkMeterProvider.builder().registerMetricReader(metricReader).build().get("test"));
+
+  @Test
+  void countEventsPerType() {
+    metrics.recordEvents("jdk.ThreadDump", 2);
+    metrics.recordEvents("jdk.ObjectAllocationSample", 5);
+    metrics.recordEvents("jdk.ThreadDump", 1);
+
+    assertThat(metricReader.collectAllMetrics())
+        .satisfiesExactly(
+            metric ->
+                assertThat(metric)
+                    .hasName("splunk.profiler.events")
+                    .hasLongSumSatisfying(
+                        sum ->
+                            sum.hasPointsSatisfying(
+                                point ->
+                                    point
+                                        .hasValue(3)
+                                        .hasAttributesSatisfyingExactly(
+                                            equalTo(
+                                                ProfilingSemanticAttributes.SOURCE_EVENT_NAME,
+                                                "jdk.ThreadDump")),
+                                point ->
+                                    point
+                                        .hasValue(5)
+                                        .hasAttributesSatisfyingExactly(
+                                            equalTo(
+                                                ProfilingSemanticAttributes.SOURCE_EVENT_NAME,
+                                                "jdk.ObjectAllocationSample")))));
+  }
+
+  @Test
+  void recordPprofPayloadPerDataType() {
+    metrics.recordPprofPayload(ProfilingDataType.CPU, 1024, 30);
+
+    assertThat(metricReader.collectAllMetrics())
+        .anySatisfy(
+            metric ->
+                assertThat(metric)
+                    .hasName("splunk.profiler.pprof.size")
+                    .hasHistogramSatisfying(
+                        histogram ->
+                            histogram.hasPointsSatisfying(
+                                point ->
+                                    point
+                                        .hasSum(1024)
+                                        .hasAttributesSatisfyingExactly(
+                                            equalTo(
+                                                ProfilingSemanticAttributes.DATA_TYPE,
+                                                ProfilingDataType.CPU.value())))))
+        .anySatisfy(
+            metric ->
+                assertThat(metric)
+                    .hasName("splunk.profiler.pprof.frames")
+                    .hasHistogramSatisfying(
+                        histogram -> histogram.hasPointsSatisfying(point -> point.hasSum(30))));
+  }
+
+  @Test
+  void countDroppedStackSamples() {
+    metrics.recordDroppedStackSample();
+    metrics.recordDroppedStackSample();
+
+    assertThat(metricReader.collectAllMetrics())
+        .satisfiesExactly(
+            metric ->
+                assertThat(metric)
+                    .hasName("splunk.profiler.stack_samples.dropped")
+                    .hasLongSumSatisfying(
+                        sum -> sum.hasPointsSatisfying(point -> point.hasValue(2))));
+  }
+
+  @Test
+  void observeStagingQueueSize() throws Exception {
+    try (var queueSizeGauge = metrics.observeStagingQueueSize(() -> 7)) {
+      assertThat(metricReader.collectAllMetrics())
+          .satisfiesExactly(
+              metric ->
+                  assertThat(metric)
+                      .hasName("splunk.profiler.staging.queue.size")
+                      .hasLongGaugeSatisfying(
+                          gauge -> gauge.hasPointsSatisfying(point -> point.hasValue(7))));
+    }
+  }
+}
@@ -0,0 +1,236 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.opentelemetry.profiler;
+
+import static io.opentelemetry.sdk.testing.assertj.OpenTelemetryAssertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.opentelemetry.api.logs.Logger;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.logs.SdkLoggerProvider;
+import io.opentelemetry.sdk.logs.data.LogRecordData;
+import io.opentelemetry.sdk.logs.export.LogRecordExporter;
+import io.opentelemetry.sdk.metrics.SdkMeterProvider;
+import io.opentelemetry.sdk.testing.exporter.InMemoryMetricReader;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class ProfilingLogRecordProcessorTest {
+  private final TestExporter exporter = new TestExporter();
+
+  @Test
+  void exportRecordsInBatches() {
+    var processor = ProfilingLogRecordProcessor.builder(exporter).maxExportBatchSize(2).build();
+    var logger = logger(processor);
+
+    for (int i = 0; i < 5; i++) {
+      logger.logRecordBuilder().setBody("record" + i).emit();
+    }
+    processor.forceFlush().join(5, TimeUnit.SECONDS);
+
+    assertEquals(5, exporter.records.size());
+    assertTrue(exporter.batchSizes.stream().allMatch(size -> size <= 2));
+    assertEquals(0, processor.getInFlightBytes());
+    processor.shutdown().join(5, TimeUnit.SECONDS);
+  }
+
+  @Test
+  void dropRecordsOverByteBudget() {
+    exporter.blockExports();
+    var processor = ProfilingLogRecordProcessor.builder(exporter).maxInFlightBytes(10).build();
+    var logger = logger(processor);
+
+    logger.logRecordBuilder().setBody("12345678").emit();
+    await().atMost(Duration.ofSeconds(5)).until(() -> exporter.exportsStarted.getCount() == 0);
+    logger.logRecordBuilder().setBody("1234").emit();
+    logger.logRecordBuilder().setBody("12").emit();
+
+    assertEquals(1, processor.getDroppedRecords());
+    assertEquals(4, processor.getDroppedBytes());
+    assertEquals(10, processor.getInFlightBytes());
+
+    exporter.unblockExports();
+    processor.forceFlush().join(5, TimeUnit.SECONDS);
+
+    assertEquals(2, exporter.records.size());
+    assertEquals(0, processor.getInFlightBytes());
+    processor.shutdown().join(5, TimeUnit.SECONDS);
+  }
+
+  @Test
+  void keepBytesInFlightUntilTimedOutExportCompletes() {
+    var exportResult = new CompletableResultCode();
+    exporter.completeExportsWith(exportResult);
+    var processor =
+        ProfilingLogRecordProcessor.builder(exporter)
+            .maxInFlightBytes(10)
+            .exportTimeout(Duration.ofMillis(10))
+            .build();
+    var logger = logger(processor);
+
+    logger.logRecordBuilder().setBody("12345678").emit();
+    processor.forceFlush().join(5, TimeUnit.SECONDS);
+
+    // waiting for the export timed out, but the exporter is still sending the record
+    assertEquals(8, processor.getInFlightBytes());
+    logger.logRecordBuilder().setBody("1234").emit();
+    assertEquals(1, processor.getDroppedRecords());
+
+    exportResult.succeed();
+    assertEquals(0, processor.getInFlightBytes());
+    processor.shutdown().join(5, TimeUnit.SECONDS);
+  }
+
+  @Test
+  void dropRecordsOverQueueSize() {
+    exporter.blockExports();
+    var processor =
+        ProfilingLogRecordProcessor.builder(exporter).maxQueueSize(1).maxExportBatchSize(1).build();
+    var logger = logger(processor);
+
+    logger.logRecordBuilder().setBody("a").emit();
+    await().atMost(Duration.ofSeconds(5)).until(() -> exporter.exportsStarted.getCount() == 0);
+    logger.logRecordBuilder().setBody("b").emit();
+    logger.logRecordBuilder().setBody("c").emit();
+
+    assertEquals(1, processor.getDroppedRecords());
+
+    exporter.unblockExports();
+    processor.shutdown().join(5, TimeUnit.SECONDS);
+
+    assertEquals(2, exporter.records.size());
+  }
+
+  @Test
+  void shutdownExportsQueuedRecordsAndShutsDownExporter() {
+    var processor = ProfilingLogRecordProcessor.builder(exporter).build();
+    var logger = logger(processor);
+
+    logger.logRecordBuilder().setBody("first").emit();
+    logger.logRecordBuilder().setBody("second").emit();
+    var result = processor.shutdown().join(5, TimeUnit.SECONDS);
+
+    assertTrue(result.isSuccess());
+    assertEquals(2, exporter.records.size());
+    assertTrue(exporter.shutdown);
+  }
+
+  @Test
+  void dropRecordsAfterShutdown() {
+    var processor = ProfilingLogRecordProcessor.builder(exporter).build();
+    var logger = logger(processor);
+
+    processor.shutdown().join(5, TimeUnit.SECONDS);
+    logger.logRecordBuilder().setBody("late").emit();
+
+    assertEquals(0, exporter.records.size());
+    assertEquals(1, processor.getDroppedRecords());
+  }
+
+  @Test
+  void recordExportDurationAndFailures() {
+    var metricReader = InMemoryMetricReader.create();
+    var meterProvider = SdkMeterProvider.builder().registerMetricReader(metricReader).build();
+    exporter.failExports();
+    var processor =
+        ProfilingLogRecordProcessor.builder(exporter)
+            .metrics(new ProfilerMetrics(meterProvider.get("test")))
+            .build();
+    var logger = logger(processor);
+
+    logger.logRecordBuilder().setBody("first").emit();
+    logger.logRecordBuilder().setBody("second").emit();
+    processor.shutdown().join(5, TimeUnit.SECONDS);
+
+    assertThat(metricReader.collectAllMetrics())
+        .anySatisfy(
+            metric ->
+                assertThat(metric)
+                    .hasName("splunk.profiler.export.failures")
+                    .hasLongSumSatisfying(
+                        sum -> sum.hasPointsSatisfying(point -> point.hasValue(2))))
+        .anySatisfy(metric -> assertThat(metric).hasName("splunk.profiler.export.duration"));
+  }
+
+  private static Logger logger(ProfilingLogRecordProcessor processor) {
+    return SdkLoggerProvider.builder()
+        .addLogRecordProcessor(processor)
+        .build()
+        .get("otel.profiling");
+  }
+
+  private static class TestExporter implements LogRecordExporter {
+    final List<LogRecordData> records = new CopyOnWriteArrayList<>();
+    final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+    final CountDownLatch exportsStarted = new CountDownLatch(1);
+    volatile CountDownLatch exportsBlocked = new CountDownLatch(0);
+    volatile boolean shutdown;
+    volatile boolean fail;
+    volatile CompletableResultCode exportResult;
+
+    void blockExports() {
+      exportsBlocked = new CountDownLatch(1);
+    }
+
+    void unblockExports() {
+      exportsBlocked.countDown();
+    }
+
+    void failExports() {
+      fail = true;
+    }
+
+    void completeExportsWith(CompletableResultCode exportResult) {
+      this.exportResult = exportResult;
+    }
+
+    @Override
+    public CompletableResultCode export(Collection<LogRecordData> logs) {
+      exportsStarted.countDown();
+      try {
+        exportsBlocked.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return CompletableResultCode.ofFailure();
+      }
+      if (fail) {
+        return CompletableResultCode.ofFailure();
+      }
+      batchSizes.add(logs.size());
+      records.addAll(logs);
+      return exportResult != null ? exportResult : CompletableResultCode.ofSuccess();
+    }
+
+    @Override
+    public CompletableResultCode flush() {
+      return CompletableResultCode.ofSuccess();
+    }
+
+    @Override
+    public CompletableResultCode shutdown() {
+      shutdown = true;
+      return CompletableResultCode.ofSuccess();
+    }
+  }
+}
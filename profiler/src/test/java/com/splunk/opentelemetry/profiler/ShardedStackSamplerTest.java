@@ -0,0 +1,138 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.opentelemetry.profiler;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class ShardedStackSamplerTest {
+  private static final Duration PERIOD = Duration.ofMillis(100);
+
+  private final ThreadMXBean threadMXBean = mock(ThreadMXBean.class);
+  private final ProfilerMetrics metrics = mock(ProfilerMetrics.class);
+
+  @Test
+  void sampleRotatingSubsetOfThreads() {
+    givenThreads(5, 3, 1, 4, 2);
+    ShardedStackSampler sampler = newSampler(2, 100);
+
+    assertThat(sampleThreadIds(sampler)).containsExactly(1L, 2L);
+    assertThat(sampleThreadIds(sampler)).containsExactly(3L, 4L);
+    assertThat(sampleThreadIds(sampler)).containsExactly(5L, 1L);
+    assertThat(sampleThreadIds(sampler)).containsExactly(2L, 3L);
+  }
+
+  @Test
+  void scalePeriodByShardCount() {
+    givenThreads(1, 2, 3, 4, 5);
+    ShardedStackSampler sampler = newSampler(2, 100);
+
+    sampler.sample();
+
+    ThreadStackSampler.Sample sample = sampler.poll();
+    assertThat(sample.period).isEqualTo(Duration.ofMillis(300));
+    assertThat(sample.spanContext).isNull();
+  }
+
+  @Test
+  void sampleAllThreadsWhenBelowLimit() {
+    givenThreads(1, 2, 3);
+    ShardedStackSampler sampler = newSampler(10, 100);
+
+    assertThat(sampleThreadIds(sampler)).containsExactly(1L, 2L, 3L);
+    assertThat(sampleThreadIds(sampler)).containsExactly(1L, 2L, 3L);
+    // one extra frame tells the exporter that the stack is truncated
+    verify(threadMXBean, times(2)).getThreadInfo(any(long[].class), eq(9));
+  }
+
+  @Test
+  void continueAfterLastSampledThreadWhenThreadsChange() {
+    givenThreads(1, 2, 3, 4);
+    ShardedStackSampler sampler = newSampler(2, 100);
+    assertThat(sampleThreadIds(sampler)).containsExactly(1L, 2L);
+
+    // thread 3 has terminated and thread 7 has started
+    givenThreads(1, 2, 4, 7);
+
+    assertThat(sampleThreadIds(sampler)).containsExactly(4L, 7L);
+  }
+
+  @Test
+  void dropSamplesWhenTooManyAreQueued() {
+    givenThreads(1, 2, 3);
+    ShardedStackSampler sampler = newSampler(10, 5);
+
+    sampler.sample();
+
+    assertThat(sampleThreadIds(sampler)).containsExactly(1L, 2L, 3L, 1L, 2L);
+    verify(metrics).recordDroppedStackSample();
+  }
+
+  @Test
+  void queueSamplesOfTwoRecordings() {
+    assertThat(ShardedStackSampler.maxQueuedSamples(PERIOD, 10, Duration.ofSeconds(20)))
+        .isEqualTo(2 * 200 * 10);
+    assertThat(ShardedStackSampler.maxQueuedSamples(PERIOD, 10, Duration.ofMillis(250)))
+        .isEqualTo(2 * 3 * 10);
+    assertThat(ShardedStackSampler.maxQueuedSamples(Duration.ofMinutes(1), 10, Duration.ZERO))
+        .isEqualTo(2 * 10);
+  }
+
+  private ShardedStackSampler newSampler(int maxThreads, int maxQueuedSamples) {
+    return new ShardedStackSampler(threadMXBean, PERIOD, 8, maxThreads, maxQueuedSamples, metrics);
+  }
+
+  private List<Long> sampleThreadIds(ShardedStackSampler sampler) {
+    sampler.sample();
+    List<Long> threadIds = new ArrayList<>();
+    ThreadStackSampler.Sample sample;
+    while ((sample = sampler.poll()) != null) {
+      threadIds.add(sample.threadInfo.getThreadId());
+    }
+    return threadIds;
+  }
+
+  private void givenThreads(long... threadIds) {
+    when(threadMXBean.getAllThreadIds()).thenReturn(threadIds);
+    when(threadMXBean.getThreadInfo(any(long[].class), anyInt()))
+        .thenAnswer(
+            invocation ->
+                Arrays.stream(invocation.<long[]>getArgument(0))
+                    .mapToObj(ShardedStackSamplerTest::threadInfo)
+                    .toArray(ThreadInfo[]::new));
+  }
+
+  private static ThreadInfo threadInfo(long threadId) {
+    ThreadInfo threadInfo = mock(ThreadInfo.class);
+    when(threadInfo.getThreadId()).thenReturn(threadId);
+    return threadInfo;
+  }
+}
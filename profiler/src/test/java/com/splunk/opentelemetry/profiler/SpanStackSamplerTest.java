@@ -0,0 +1,113 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.opentelemetry.profiler;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.splunk.opentelemetry.profiler.context.ThreadContextSlots;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.SpanId;
+import io.opentelemetry.api.trace.TraceFlags;
+import io.opentelemetry.api.trace.TraceId;
+import io.opentelemetry.api.trace.TraceState;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.time.Duration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class SpanStackSamplerTest {
+  private static final Duration PERIOD = Duration.ofMillis(100);
+
+  private final ThreadContextSlots slots = ThreadContextSlots.getInstance();
+  private final SpanStackSampler sampler =
+      new SpanStackSampler(slots, ManagementFactory.getThreadMXBean(), PERIOD, 8);
+  private final SpanContext spanContext =
+      SpanContext.create(
+          TraceId.fromLongs(123, 456),
+          SpanId.fromLong(789),
+          TraceFlags.getSampled(),
+          TraceState.getDefault());
+
+  @BeforeEach
+  void setUp() {
+    slots.reset();
+  }
+
+  @AfterEach
+  void tearDown() {
+    slots.set(SpanContext.getInvalid());
+  }
+
+  @Test
+  void sampleThreadWithActiveSpan() {
+    slots.set(spanContext);
+
+    sampler.sample();
+
+    ThreadStackSampler.Sample sample = sampler.poll();
+    assertThat(sample).isNotNull();
+    assertThat(sample.threadInfo.getThreadId()).isEqualTo(Thread.currentThread().getId());
+    // one extra frame tells the exporter that the stack is truncated
+    assertThat(sample.threadInfo.getStackTrace()).hasSize(9);
+    assertThat(sample.spanContext).isEqualTo(spanContext);
+    assertThat(sample.period).isEqualTo(PERIOD);
+    assertThat(sampler.poll()).isNull();
+  }
+
+  @Test
+  void doNotSampleThreadsWhoseSpanChangedWhileCapturingStacks() throws Exception {
+    SpanContext nextSpanContext =
+        SpanContext.create(
+            TraceId.fromLongs(123, 456),
+            SpanId.fromLong(790),
+            TraceFlags.getSampled(),
+            TraceState.getDefault());
+    ThreadMXBean threadMXBean = mock(ThreadMXBean.class);
+    when(threadMXBean.getThreadInfo(any(long[].class), anyInt()))
+        .thenAnswer(
+            invocation -> {
+              // the span ends while the stacks are captured
+              Thread.sleep(2);
+              slots.set(nextSpanContext);
+              return ManagementFactory.getThreadMXBean()
+                  .getThreadInfo(invocation.<long[]>getArgument(0), invocation.getArgument(1));
+            });
+    SpanStackSampler sampler = new SpanStackSampler(slots, threadMXBean, PERIOD, 8);
+    slots.set(spanContext);
+    Thread.sleep(2);
+
+    sampler.sample();
+
+    assertThat(sampler.poll()).isNull();
+  }
+
+  @Test
+  void doNotSampleThreadsWithoutSpan() {
+    slots.set(spanContext);
+    slots.set(SpanContext.getInvalid());
+
+    sampler.sample();
+
+    assertThat(sampler.poll()).isNull();
+  }
+}
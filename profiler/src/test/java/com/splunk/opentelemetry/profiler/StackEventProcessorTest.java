@@ -0,0 +1,107 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.opentelemetry.profiler;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import com.splunk.opentelemetry.profiler.context.SpanContextualizer;
+import com.splunk.opentelemetry.profiler.context.SpanLinkage;
+import com.splunk.opentelemetry.profiler.exporter.EventExporter;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.SpanId;
+import io.opentelemetry.api.trace.TraceFlags;
+import io.opentelemetry.api.trace.TraceId;
+import io.opentelemetry.api.trace.TraceState;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.openjdk.jmc.common.IMCStackTrace;
+import org.openjdk.jmc.common.IMCThread;
+import org.openjdk.jmc.common.item.IItem;
+
+/** Tests that are shared by the processors of events with a stack trace. */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+abstract class StackEventProcessorTest<P extends StackEventProcessor> {
+  static final long THREAD_ID = 606L;
+  static final long START_TIME = 1_700_000_000_000_000_000L;
+
+  @Mock EventReader eventReader;
+  @Mock SpanContextualizer spanContextualizer;
+
+  final SpanContext spanContext =
+      SpanContext.create(
+          TraceId.fromLongs(123, 456),
+          SpanId.fromLong(123),
+          TraceFlags.getSampled(),
+          TraceState.getDefault());
+
+  /** Returns a processor whose events that start at {@link #START_TIME} are linked to spans. */
+  abstract P newProcessor(boolean enabled);
+
+  abstract EventExporter exporter();
+
+  @Test
+  void exportEventLinkedToSpan() {
+    IItem event = createEvent();
+    when(spanContextualizer.link(THREAD_ID, START_TIME))
+        .thenReturn(new SpanLinkage(spanContext, THREAD_ID));
+
+    newProcessor(true).accept(event);
+
+    verify(exporter()).export(event, spanContext);
+  }
+
+  @Test
+  void ignoreEventsWithoutStackTrace() {
+    IItem event = createEvent();
+    when(eventReader.getStackTrace(event)).thenReturn(null);
+
+    newProcessor(true).accept(event);
+
+    verify(exporter(), never()).export(any(), any());
+  }
+
+  @Test
+  void ignoreEventsWhenDisabled() {
+    IItem event = createEvent();
+
+    P processor = newProcessor(false);
+    processor.accept(event);
+    processor.flush();
+
+    verifyNoInteractions(exporter());
+  }
+
+  IItem createEvent() {
+    IItem event = mock(IItem.class);
+    IMCThread thread = mock(IMCThread.class);
+    when(thread.getThreadId()).thenReturn(THREAD_ID);
+    when(eventReader.getThread(event)).thenReturn(thread);
+    when(eventReader.getStackTrace(event)).thenReturn(mock(IMCStackTrace.class));
+    when(eventReader.getStartTime(event)).thenReturn(START_TIME);
+    return event;
+  }
+}
@@ -20,6 +20,7 @@ import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
+import java.lang.management.ThreadInfo;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -254,6 +255,35 @@ class StackTraceFilterTest {
     assertTrue(filter.test(applicationEvent));
   }
 
+  @Test
+  void filterSampledThreadInfo() {
+    StackTraceElement jvmFrame = new StackTraceElement("java.lang.Thread", "run", null, 1);
+    StackTraceElement applicationFrame = new StackTraceElement("baz.Baz", "baz", null, 2);
+
+    ThreadInfo agentThread = createMockThreadInfo("JFR Recording Flusher", applicationFrame);
+    ThreadInfo vmThread = createMockThreadInfo("VM Thread", jvmFrame);
+    ThreadInfo stacklessThread = createMockThreadInfo("GC Thread#0");
+    ThreadInfo applicationThread = createMockThreadInfo("My Thread", applicationFrame, jvmFrame);
+
+    StackTraceFilter filter = new StackTraceFilter(eventReader, false, false);
+    assertFalse(filter.test(agentThread));
+    assertFalse(filter.test(vmThread));
+    assertFalse(filter.test(stacklessThread));
+    assertTrue(filter.test(applicationThread));
+
+    StackTraceFilter includeAll = new StackTraceFilter(eventReader, true, true);
+    assertTrue(includeAll.test(agentThread));
+    assertTrue(includeAll.test(vmThread));
+    assertFalse(includeAll.test(stacklessThread));
+  }
+
+  private static ThreadInfo createMockThreadInfo(String threadName, StackTraceElement... frames) {
+    ThreadInfo threadInfo = mock(ThreadInfo.class);
+    when(threadInfo.getThreadName()).thenReturn(threadName);
+    when(threadInfo.getStackTrace()).thenReturn(frames);
+    return threadInfo;
+  }
+
   private IItem createMockEvent(String threadName) {
     return createMockEvent(threadName, Collections.emptyList());
   }
@@ -0,0 +1,52 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.opentelemetry.profiler;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import org.openjdk.jmc.common.IMCFrame;
+import org.openjdk.jmc.common.IMCMethod;
+import org.openjdk.jmc.common.IMCStackTrace;
+import org.openjdk.jmc.common.IMCType;
+
+/** Mocks of JFR stack traces for tests of the event exporters. */
+public final class StackTraceMocks {
+
+  private StackTraceMocks() {}
+
+  public static IMCStackTrace stackTrace(IMCFrame... frames) {
+    IMCStackTrace stackTrace = mock(IMCStackTrace.class);
+    when(stackTrace.getTruncationState()).thenReturn(IMCStackTrace.TruncationState.NOT_TRUNCATED);
+    List<IMCFrame> frameList = List.of(frames);
+    when(stackTrace.getFrames()).thenAnswer(invocation -> frameList);
+    return stackTrace;
+  }
+
+  public static IMCFrame frame(String className, String methodName) {
+    IMCType type = mock(IMCType.class);
+    when(type.getFullName()).thenReturn(className);
+    IMCMethod method = mock(IMCMethod.class);
+    when(method.getType()).thenReturn(type);
+    when(method.getMethodName()).thenReturn(methodName);
+    IMCFrame frame = mock(IMCFrame.class);
+    when(frame.getMethod()).thenReturn(method);
+    when(frame.getFrameLineNumber()).thenReturn(1);
+    return frame;
+  }
+}
@@ -18,6 +18,7 @@ package com.splunk.opentelemetry.profiler;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -107,7 +108,8 @@ class TLABProcessorTest {
             TraceFlags.getSampled(),
             TraceState.getDefault());
     SpanContextualizer spanContextualizer = mock(SpanContextualizer.class);
-    when(spanContextualizer.link(THREAD_ID)).thenReturn(new SpanLinkage(spanContext, THREAD_ID));
+    when(spanContextualizer.link(eq(THREAD_ID), anyLong()))
+        .thenReturn(new SpanLinkage(spanContext, THREAD_ID));
 
     TestAllocationEventExporter allocationEventExporter = new TestAllocationEventExporter();
 
@@ -121,6 +123,7 @@ class TLABProcessorTest {
     processor.accept(event);
 
     assertThat(allocationEventExporter.events).isNotEmpty();
+    assertThat(allocationEventExporter.weights).containsExactly(ONE_MB);
   }
 
   private IItem createMockEvent(StackSerializer serializer, Instant now) {
@@ -149,7 +152,7 @@ class TLABProcessorTest {
   void testSampling() {
     StackSerializer serializer = mock(StackSerializer.class);
     SpanContextualizer spanContextualizer = mock(SpanContextualizer.class);
-    when(spanContextualizer.link(anyLong())).thenReturn(SpanLinkage.NONE);
+    when(spanContextualizer.link(anyLong(), anyLong())).thenReturn(SpanLinkage.NONE);
 
     ProfilerConfiguration config = mock(ProfilerConfiguration.class);
     when(config.getMemoryEnabled()).thenReturn(true);
@@ -183,14 +186,18 @@ class TLABProcessorTest {
 
   private static class TestAllocationEventExporter implements AllocationEventExporter {
     List<IItem> events = new ArrayList<>();
+    List<Long> weights = new ArrayList<>();
 
     @Override
-    public void export(IItem event, AllocationEventSampler sampler, SpanContext spanContext) {
+    public void export(
+        IItem event, AllocationEventSampler sampler, SpanContext spanContext, long weight) {
       events.add(event);
+      weights.add(weight);
     }
 
     void reset() {
       events.clear();
+      weights.clear();
     }
   }
 }
@@ -21,7 +21,10 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
 import com.splunk.opentelemetry.profiler.context.SpanContextualizer;
@@ -31,12 +34,17 @@ import com.splunk.opentelemetry.profiler.exporter.CpuEventExporter;
 import io.opentelemetry.api.trace.SpanContext;
 import io.opentelemetry.api.trace.TraceFlags;
 import io.opentelemetry.api.trace.TraceState;
+import java.lang.management.ThreadInfo;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Stream;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
@@ -123,6 +131,63 @@ class ThreadDumpProcessorTest {
             assertThat(results).anyMatch(stack -> stack.getRawStack().contains(sample.threadName)));
   }
 
+  @Test
+  void exportSampledStacksOfThreadsWithSpan() {
+    SpanContextualizer contextualizer = new SpanContextualizer(eventReader);
+    contextualizer.updateContext(threadContextStartEvent(3));
+    CpuEventExporter cpuEventExporter = mock(CpuEventExporter.class);
+    Duration period = Duration.ofSeconds(30);
+    ThreadStackSampler sampler =
+        new ThreadStackSampler("test", period) {
+          @Override
+          void sample() {}
+        };
+    ThreadInfo tracedThread = threadInfo(3, "http-nio-9966-exec-1", "com.example.Handler");
+    ThreadInfo idleThread = threadInfo(4, "http-nio-9966-exec-2", "com.example.Handler");
+    ThreadInfo internalThread = threadInfo(5, "JFR Recording Flusher", "com.example.Handler");
+    long time = TimeUnit.SECONDS.toNanos(1000);
+    sampler.add(tracedThread, time, period, null);
+    sampler.add(idleThread, time, period, null);
+    sampler.add(internalThread, time, period, null);
+    // sampled after the events that have been processed
+    sampler.add(tracedThread, time + TimeUnit.SECONDS.toNanos(1), period, null);
+
+    ThreadDumpProcessor processor =
+        ThreadDumpProcessor.builder()
+            .eventReader(eventReader)
+            .spanContextualizer(contextualizer)
+            .cpuEventExporter(cpuEventExporter)
+            .stackTraceFilter(new StackTraceFilter(eventReader, false))
+            .onlyTracingSpans(true)
+            .threadStackSampler(sampler)
+            .build();
+    processor.exportSampledStacks(time);
+    processor.flush();
+
+    ArgumentCaptor<SpanContext> spanContext = ArgumentCaptor.forClass(SpanContext.class);
+    verify(cpuEventExporter)
+        .export(
+            eq(tracedThread),
+            eq(Instant.ofEpochSecond(1000)),
+            eq(ThreadDumpProcessor.EVENT_NAME),
+            eq(period),
+            spanContext.capture());
+    assertThat(spanContext.getValue().getTraceId()).isEqualTo(traceId);
+    assertThat(spanContext.getValue().getSpanId()).isEqualTo(spanId);
+    verify(cpuEventExporter).flush();
+    verifyNoMoreInteractions(cpuEventExporter);
+    assertThat(sampler.poll().time).isEqualTo(time + TimeUnit.SECONDS.toNanos(1));
+  }
+
+  private static ThreadInfo threadInfo(long threadId, String threadName, String className) {
+    ThreadInfo threadInfo = mock(ThreadInfo.class);
+    when(threadInfo.getThreadId()).thenReturn(threadId);
+    when(threadInfo.getThreadName()).thenReturn(threadName);
+    when(threadInfo.getStackTrace())
+        .thenReturn(new StackTraceElement[] {new StackTraceElement(className, "handle", null, 1)});
+    return threadInfo;
+  }
+
   private IItem threadContextStartEvent(long threadId) {
     IItem event = mock(IItem.class);
     IType eventType = mock(IType.class);
@@ -0,0 +1,103 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.opentelemetry.profiler.allocation.exporter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.google.perftools.profiles.ProfileProto.Profile;
+import com.google.perftools.profiles.ProfileProto.Sample;
+import com.splunk.opentelemetry.profiler.pprof.Pprof;
+import com.splunk.opentelemetry.profiler.pprof.PprofUtils;
+import org.junit.jupiter.api.Test;
+
+class AllocationSampleAggregatorTest {
+  static final String EVENT_NAME = "jdk.ObjectAllocationInNewTLAB";
+  static final String TRACE_ID = "deadbeefdeadbeefdeadbeefdeadbeef";
+  static final String SPAN_ID = "0123012301230123";
+
+  @Test
+  void groupsByStackEventAndSpan() throws Exception {
+    AllocationSampleAggregator aggregator = new AllocationSampleAggregator(0);
+    long[] locationIds = {1, 2, 3, 4};
+
+    aggregator.add(locationIds, 3, false, EVENT_NAME, "byte[]", 20, 100, null, null);
+    aggregator.add(locationIds, 3, false, EVENT_NAME, "byte[]", 10, 200, null, null);
+    // different stack depth, allocated class and span linkage
+    aggregator.add(locationIds, 4, false, EVENT_NAME, "byte[]", 10, 100, null, null);
+    aggregator.add(locationIds, 3, false, EVENT_NAME, "char[]", 10, 100, null, null);
+    aggregator.add(locationIds, 3, false, EVENT_NAME, "byte[]", 10, 100, TRACE_ID, SPAN_ID);
+    // reused array with different content
+    locationIds[0] = 5;
+    aggregator.add(locationIds, 3, false, EVENT_NAME, "byte[]", 10, 100, null, null);
+
+    assertThat(aggregator.size()).isEqualTo(5);
+
+    Pprof pprof = new Pprof();
+    aggregator.writeTo(pprof, null);
+    assertThat(aggregator.isEmpty()).isTrue();
+
+    Profile profile = PprofUtils.toProfile(pprof);
+    assertThat(profile.getSampleCount()).isEqualTo(5);
+    Sample first =
+        profile.getSampleList().stream()
+            .filter(sample -> sample.getValue(1) == 2)
+            .findFirst()
+            .orElseThrow();
+    assertThat(first.getValue(0)).isEqualTo(300);
+    assertThat(first.getLocationIdList()).containsExactly(1L, 2L, 3L);
+    assertThat(PprofUtils.toLabelString(first, profile))
+        .containsEntry("source.event.time", 10L)
+        .containsEntry("source.event.name", EVENT_NAME)
+        .containsEntry("memory.allocated.type", "byte[]")
+        .doesNotContainKey("trace_id");
+    assertThat(pprof.frameCount()).isEqualTo(16);
+  }
+
+  @Test
+  void addsStacksOverLimitToOther() throws Exception {
+    AllocationSampleAggregator aggregator = new AllocationSampleAggregator(2);
+
+    aggregator.add(new long[] {1}, 1, false, EVENT_NAME, "byte[]", 10, 100, null, null);
+    aggregator.add(new long[] {2}, 1, false, EVENT_NAME, "byte[]", 10, 100, null, null);
+    aggregator.add(new long[] {3}, 1, false, EVENT_NAME, "byte[]", 10, 100, null, null);
+    aggregator.add(new long[] {4}, 1, false, EVENT_NAME, "byte[]", 10, 100, null, null);
+    // known stacks are still aggregated
+    aggregator.add(new long[] {1}, 1, false, EVENT_NAME, "byte[]", 10, 100, null, null);
+
+    assertThat(aggregator.size()).isEqualTo(2);
+
+    Pprof pprof = new Pprof();
+    aggregator.writeTo(pprof, null);
+    assertThat(aggregator.isEmpty()).isTrue();
+
+    Profile profile = PprofUtils.toProfile(pprof);
+    assertThat(profile.getSampleCount()).isEqualTo(3);
+    assertThat(profile.getSampleList())
+        .extracting(sample -> sample.getValue(0))
+        .containsExactlyInAnyOrder(200L, 100L, 200L);
+    Sample other =
+        profile.getSampleList().stream()
+            .filter(sample -> isTruncated(sample, profile))
+            .findFirst()
+            .orElseThrow();
+    assertThat(other.getValue(1)).isEqualTo(2);
+  }
+
+  private static boolean isTruncated(Sample sample, Profile profile) {
+    return PprofUtils.toLabelString(sample, profile).containsKey("thread.stack.truncated");
+  }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.opentelemetry.profiler.allocation.sampler;
+
+import static com.splunk.opentelemetry.profiler.allocation.sampler.AllocationEventSampler.NOT_SAMPLED;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.splunk.opentelemetry.profiler.EventReader;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmc.common.item.IItem;
+
+class WeightedAllocationEventSamplerTest {
+  private final EventReader eventReader = mock(EventReader.class);
+
+  @Test
+  void samplesEveryEventUntilRateIsKnown() {
+    WeightedAllocationEventSampler sampler =
+        new WeightedAllocationEventSampler(eventReader, "2/s", () -> 0.5);
+
+    IItem first = event(100, 0);
+    IItem second = event(200, 0);
+    IItem third = event(300, 0);
+    IItem fourth = event(400, TimeUnit.SECONDS.toNanos(1));
+
+    assertThat(sampler.sample(first, 100)).isEqualTo(100);
+    assertThat(sampler.sample(second, 200)).isEqualTo(200);
+    // token bucket is empty
+    assertThat(sampler.sample(third, 300)).isEqualTo(NOT_SAMPLED);
+    // weight of the discarded event is not added to other events
+    assertThat(sampler.sample(fourth, 400)).isEqualTo(400);
+  }
+
+  @Test
+  void scalesWeightsByShareOfEventsAcceptedInPreviousChunk() {
+    WeightedAllocationEventSampler sampler =
+        new WeightedAllocationEventSampler(eventReader, "2/s", () -> 0.5);
+    assertThat(sampler.sample(event(100, 0), 100)).isEqualTo(100);
+    assertThat(sampler.sample(event(100, 0), 100)).isEqualTo(100);
+    assertThat(sampler.sample(event(100, 0), 100)).isEqualTo(NOT_SAMPLED);
+    assertThat(sampler.sample(event(100, 0), 100)).isEqualTo(NOT_SAMPLED);
+
+    sampler.updateSampler(1, 100, Instant.ofEpochSecond(0), Instant.ofEpochSecond(1));
+
+    // the bucket accepted half of the events
+    assertThat(sampler.weightScale()).isEqualTo(2);
+    IItem event = event(300, TimeUnit.SECONDS.toNanos(1));
+    assertThat(sampler.sample(event, 300)).isEqualTo(600);
+  }
+
+  @Test
+  void samplesBySize() {
+    WeightedAllocationEventSampler sampler =
+        new WeightedAllocationEventSampler(eventReader, "10/s", () -> 0.5);
+    sampler.updateSampler(1000, 1_000_000, Instant.ofEpochSecond(0), Instant.ofEpochSecond(1));
+    assertThat(sampler.samplingInterval()).isEqualTo(100_000);
+
+    IItem small = event(10_000, 0);
+    IItem large = event(100_000, 0);
+
+    // sampled with probability 1 - exp(-0.1)
+    assertThat(sampler.shouldSample(small)).isFalse();
+    // sampled with probability 1 - exp(-1)
+    assertThat(sampler.shouldSample(large)).isTrue();
+    assertThat(sampler.sample(large, 100_000)).isEqualTo(Math.round(100_000 / (1 - Math.exp(-1))));
+  }
+
+  @Test
+  void samplesEverythingBelowRate() {
+    WeightedAllocationEventSampler sampler =
+        new WeightedAllocationEventSampler(eventReader, "100/s", () -> 0.5);
+    sampler.updateSampler(1000, 1_000_000, Instant.ofEpochSecond(0), Instant.ofEpochSecond(1));
+    sampler.updateSampler(50, 1_000_000, Instant.ofEpochSecond(0), Instant.ofEpochSecond(1));
+    assertThat(sampler.samplingInterval()).isEqualTo(0);
+
+    IItem event = event(10, 0);
+    assertThat(sampler.sample(event, 10)).isEqualTo(10);
+  }
+
+  @Test
+  void lowersRateWhenRateLimitIsScaled() {
+    WeightedAllocationEventSampler sampler =
+        new WeightedAllocationEventSampler(eventReader, "10/s", () -> 0.5);
+    sampler.setRateLimitScale(2);
+    sampler.updateSampler(1000, 1_000_000, Instant.ofEpochSecond(0), Instant.ofEpochSecond(1));
+    assertThat(sampler.samplingInterval()).isEqualTo(200_000);
+  }
+
+  private IItem event(long size, long startTime) {
+    IItem event = mock(IItem.class);
+    when(eventReader.getAllocationSize(event)).thenReturn(size);
+    when(eventReader.getStartTime(event)).thenReturn(startTime);
+    return event;
+  }
+}
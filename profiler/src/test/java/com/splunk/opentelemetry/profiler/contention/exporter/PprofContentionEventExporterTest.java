@@ -0,0 +1,156 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.opentelemetry.profiler.contention.exporter;
+
+import static com.splunk.opentelemetry.profiler.StackTraceMocks.frame;
+import static com.splunk.opentelemetry.profiler.StackTraceMocks.stackTrace;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.google.perftools.profiles.ProfileProto.Profile;
+import com.google.perftools.profiles.ProfileProto.Sample;
+import com.splunk.opentelemetry.profiler.EventReader;
+import com.splunk.opentelemetry.profiler.ProfilingSemanticAttributes;
+import com.splunk.opentelemetry.profiler.exporter.InMemoryOtelLogger;
+import com.splunk.opentelemetry.profiler.pprof.PprofUtils;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.SpanId;
+import io.opentelemetry.api.trace.TraceFlags;
+import io.opentelemetry.api.trace.TraceId;
+import io.opentelemetry.api.trace.TraceState;
+import java.time.Instant;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmc.common.IMCStackTrace;
+import org.openjdk.jmc.common.item.IItem;
+import org.openjdk.jmc.common.item.IType;
+
+class PprofContentionEventExporterTest {
+  private final InMemoryOtelLogger logger = new InMemoryOtelLogger();
+  private final EventReader eventReader = mock(EventReader.class);
+  private final PprofContentionEventExporter exporter =
+      PprofContentionEventExporter.builder()
+          .eventReader(eventReader)
+          .otelLogger(logger)
+          .stackDepth(1024)
+          .build();
+
+  @Test
+  void noLogRecordWhenNothingToExport() {
+    exporter.flush();
+    assertThat(logger.records()).isEmpty();
+  }
+
+  @Test
+  void aggregateBlockedTimePerStackAndLockClass() throws Exception {
+    IMCStackTrace poolStack = stackTrace(frame("com.example.Pool", "borrow"));
+    IMCStackTrace cacheStack = stackTrace(frame("com.example.Cache", "get"));
+
+    exporter.export(
+        event("jdk.JavaMonitorEnter", poolStack, "java.lang.Object", 1000, 5_000_000), null);
+    exporter.export(
+        event("jdk.JavaMonitorEnter", poolStack, "java.lang.Object", 2000, 7_000_000), null);
+    exporter.export(
+        event("jdk.ThreadPark", cacheStack, "java.util.concurrent.locks.ReentrantLock", 1500, 11),
+        null);
+    exporter.flush();
+
+    Profile profile = Profile.parseFrom(PprofUtils.deserialize(logger.records().get(0)));
+    assertThat(profile.getSampleTypeCount()).isEqualTo(2);
+    assertThat(profile.getStringTable((int) profile.getSampleType(1).getType()))
+        .isEqualTo("delay");
+    assertThat(profile.getStringTable((int) profile.getSampleType(1).getUnit()))
+        .isEqualTo("nanoseconds");
+    assertThat(profile.getSampleCount()).isEqualTo(2);
+
+    Sample monitorSample = findSample(profile, "jdk.JavaMonitorEnter");
+    assertThat(monitorSample.getValueList()).containsExactly(2L, 12_000_000L);
+    assertThat(PprofUtils.toLabelString(monitorSample, profile))
+        .contains(entry(ProfilingSemanticAttributes.LOCK_CLASS.getKey(), "java.lang.Object"))
+        .contains(entry(ProfilingSemanticAttributes.THREAD_STATE.getKey(), "BLOCKED"))
+        .contains(entry(ProfilingSemanticAttributes.SOURCE_EVENT_TIME.getKey(), 1000L));
+
+    Sample parkSample = findSample(profile, "jdk.ThreadPark");
+    assertThat(parkSample.getValueList()).containsExactly(1L, 11L);
+    assertThat(PprofUtils.toLabelString(parkSample, profile))
+        .contains(
+            entry(
+                ProfilingSemanticAttributes.LOCK_CLASS.getKey(),
+                "java.util.concurrent.locks.ReentrantLock"))
+        .contains(entry(ProfilingSemanticAttributes.THREAD_STATE.getKey(), "WAITING"));
+  }
+
+  @Test
+  void keepSamplesOfDifferentSpansApart() throws Exception {
+    IMCStackTrace stack = stackTrace(frame("com.example.Pool", "borrow"));
+    SpanContext spanContext =
+        SpanContext.create(
+            TraceId.fromLongs(123, 456),
+            SpanId.fromLong(123),
+            TraceFlags.getSampled(),
+            TraceState.getDefault());
+
+    exporter.export(event("jdk.JavaMonitorEnter", stack, "java.lang.Object", 1000, 10), null);
+    exporter.export(
+        event("jdk.JavaMonitorEnter", stack, "java.lang.Object", 1000, 20), spanContext);
+    exporter.flush();
+
+    Profile profile = Profile.parseFrom(PprofUtils.deserialize(logger.records().get(0)));
+    assertThat(profile.getSampleCount()).isEqualTo(2);
+    Sample linked =
+        profile.getSampleList().stream()
+            .filter(
+                sample ->
+                    PprofUtils.toLabelString(sample, profile)
+                        .containsKey(ProfilingSemanticAttributes.TRACE_ID.getKey()))
+            .findFirst()
+            .orElseThrow();
+    assertThat(linked.getValueList()).containsExactly(1L, 20L);
+    assertThat(PprofUtils.toLabelString(linked, profile))
+        .contains(entry(ProfilingSemanticAttributes.SPAN_ID.getKey(), spanContext.getSpanId()));
+  }
+
+  private static Sample findSample(Profile profile, String eventName) {
+    return profile.getSampleList().stream()
+        .filter(
+            sample ->
+                eventName.equals(
+                    PprofUtils.toLabelString(sample, profile)
+                        .get(ProfilingSemanticAttributes.SOURCE_EVENT_NAME.getKey())))
+        .findFirst()
+        .orElseThrow();
+  }
+
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private IItem event(
+      String eventName,
+      IMCStackTrace stackTrace,
+      String lockClass,
+      long timeMillis,
+      long durationNanos) {
+    IType type = mock(IType.class);
+    when(type.getIdentifier()).thenReturn(eventName);
+    IItem event = mock(IItem.class);
+    when(event.getType()).thenReturn(type);
+    when(eventReader.getStackTrace(event)).thenReturn(stackTrace);
+    when(eventReader.getMonitorClass(event)).thenReturn(lockClass);
+    when(eventReader.getStartInstant(event)).thenReturn(Instant.ofEpochMilli(timeMillis));
+    when(eventReader.getDuration(event)).thenReturn(durationNanos);
+    return event;
+  }
+}
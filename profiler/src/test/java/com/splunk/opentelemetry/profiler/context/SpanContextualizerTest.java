@@ -18,16 +18,21 @@ package com.splunk.opentelemetry.profiler.context;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
 import com.splunk.opentelemetry.profiler.EventReader;
 import com.splunk.opentelemetry.profiler.ThreadDumpRegion;
 import com.splunk.opentelemetry.profiler.events.ContextAttached;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.TraceFlags;
+import io.opentelemetry.api.trace.TraceState;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.IntStream;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -280,6 +285,32 @@ class SpanContextualizerTest {
     assertEquals(0, testClass.inFlightThreadCount());
   }
 
+  @Test
+  void testLinkWithThreadContextSlots() {
+    ThreadContextSlots slots = new ThreadContextSlots();
+    SpanContextualizer testClass = new SpanContextualizer(eventReader, slots);
+    long threadId = Thread.currentThread().getId();
+    SpanContext spanContext =
+        SpanContext.create(traceId, spanId, TraceFlags.getSampled(), TraceState.getDefault());
+
+    assertFalse(testClass.link(threadId).getSpanContext().isValid());
+
+    slots.set(spanContext);
+    long sampleTime = TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis() + 1000);
+
+    String stack = assembleParseableStack(rawStack, threadId);
+    ThreadDumpRegion region = new ThreadDumpRegion(stack, 0, stack.length());
+    SpanLinkage result = testClass.link(region, sampleTime);
+    assertEquals(spanContext, result.getSpanContext());
+    assertEquals(threadId, result.getThreadId());
+    assertSame(result, testClass.link(threadId, sampleTime));
+    // sampled before the span became active
+    assertFalse(testClass.link(threadId, 0).getSpanContext().isValid());
+
+    slots.set(SpanContext.getInvalid());
+    assertFalse(testClass.link(threadId).getSpanContext().isValid());
+  }
+
   private void assertLinkage(SpanContextualizer testClass, Events events) {
     assertLinkage(testClass, events, rawStack);
   }
@@ -0,0 +1,188 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.opentelemetry.profiler.context;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.SpanId;
+import io.opentelemetry.api.trace.TraceFlags;
+import io.opentelemetry.api.trace.TraceId;
+import io.opentelemetry.api.trace.TraceState;
+import io.opentelemetry.sdk.testing.time.TestClock;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+class ThreadContextSlotsTest {
+  private final ThreadContextSlots slots = new ThreadContextSlots();
+  private final SpanContext spanContext =
+      SpanContext.create(
+          TraceId.fromLongs(123, 456),
+          SpanId.fromLong(789),
+          TraceFlags.getSampled(),
+          TraceState.getDefault());
+
+  @Test
+  void returnSpanContextOfThread() {
+    long threadId = Thread.currentThread().getId();
+    assertThat(slots.get(threadId, Long.MAX_VALUE)).isEqualTo(SpanContext.getInvalid());
+
+    slots.set(spanContext);
+
+    assertThat(slots.get(threadId, Long.MAX_VALUE)).isEqualTo(spanContext);
+    assertThat(slots.get(threadId + 1, Long.MAX_VALUE)).isEqualTo(SpanContext.getInvalid());
+
+    slots.set(SpanContext.getInvalid());
+
+    assertThat(slots.get(threadId, Long.MAX_VALUE)).isEqualTo(SpanContext.getInvalid());
+  }
+
+  @Test
+  void doNotLinkSamplesTakenBeforeChange() {
+    long threadId = Thread.currentThread().getId();
+    long beforeChange = TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis() - 1000);
+
+    slots.set(spanContext);
+
+    assertThat(slots.get(threadId, beforeChange)).isEqualTo(SpanContext.getInvalid());
+    assertThat(slots.get(threadId, Long.MAX_VALUE)).isEqualTo(spanContext);
+  }
+
+  @Test
+  void linkSamplesToEarlierSpans() {
+    TestClock clock = TestClock.create();
+    ThreadContextSlots slots = new ThreadContextSlots(clock);
+    long threadId = Thread.currentThread().getId();
+    long[] changeTimes = new long[ThreadContextSlots.HISTORY_SIZE];
+    SpanContext[] spanContexts = new SpanContext[changeTimes.length];
+    for (int i = 0; i < changeTimes.length; i++) {
+      spanContexts[i] = newSpanContext(i + 1);
+      changeTimes[i] = clock.now();
+      slots.set(spanContexts[i]);
+      clock.advance(Duration.ofMillis(10));
+    }
+
+    for (int i = 0; i < changeTimes.length; i++) {
+      assertThat(slots.get(threadId, changeTimes[i])).isEqualTo(spanContexts[i]);
+      assertThat(slots.get(threadId, changeTimes[i] + 5_000_000)).isEqualTo(spanContexts[i]);
+    }
+    assertThat(slots.get(threadId, changeTimes[0] - 1)).isEqualTo(SpanContext.getInvalid());
+
+    slots.set(SpanContext.getInvalid());
+
+    // the oldest change is forgotten
+    assertThat(slots.get(threadId, changeTimes[0])).isEqualTo(SpanContext.getInvalid());
+    assertThat(slots.get(threadId, changeTimes[1])).isEqualTo(spanContexts[1]);
+    assertThat(slots.get(threadId, Long.MAX_VALUE)).isEqualTo(SpanContext.getInvalid());
+  }
+
+  @Test
+  void distinguishChangesWithinOneMillisecond() {
+    TestClock clock = TestClock.create();
+    ThreadContextSlots slots = new ThreadContextSlots(clock);
+    long threadId = Thread.currentThread().getId();
+
+    slots.set(spanContext);
+    long sampleTime = clock.now() + 100;
+    clock.advance(Duration.ofNanos(200));
+    slots.set(SpanContext.getInvalid());
+
+    assertThat(slots.get(threadId, sampleTime)).isEqualTo(spanContext);
+    assertThat(slots.get(threadId, clock.now())).isEqualTo(SpanContext.getInvalid());
+  }
+
+  @Test
+  void forgetSpanContextsAfterReset() throws InterruptedException {
+    long threadId = Thread.currentThread().getId();
+    slots.set(spanContext);
+    // make sure that reset happens after the change
+    Thread.sleep(2);
+
+    slots.reset();
+
+    assertThat(slots.get(threadId, Long.MAX_VALUE)).isEqualTo(SpanContext.getInvalid());
+
+    slots.set(spanContext);
+
+    assertThat(slots.get(threadId, Long.MAX_VALUE)).isEqualTo(spanContext);
+  }
+
+  @Test
+  void forgetEarlierSpanContextsAfterReset() {
+    TestClock clock = TestClock.create();
+    ThreadContextSlots slots = new ThreadContextSlots(clock);
+    long threadId = Thread.currentThread().getId();
+    slots.set(spanContext);
+    long sampleTime = clock.now();
+    clock.advance(Duration.ofMillis(1));
+
+    slots.reset();
+    slots.set(newSpanContext(1));
+
+    assertThat(slots.get(threadId, sampleTime)).isEqualTo(SpanContext.getInvalid());
+    assertThat(slots.get(threadId, Long.MAX_VALUE)).isEqualTo(newSpanContext(1));
+  }
+
+  @Test
+  void readSlotOfOtherThread() throws InterruptedException {
+    AtomicLong threadId = new AtomicLong();
+    Thread thread =
+        new Thread(
+            () -> {
+              threadId.set(Thread.currentThread().getId());
+              slots.set(spanContext);
+            });
+    thread.start();
+    thread.join();
+
+    assertThat(slots.get(threadId.get(), Long.MAX_VALUE)).isEqualTo(spanContext);
+  }
+
+  @Test
+  void returnThreadsWithActiveSpan() throws InterruptedException {
+    Thread thread = new Thread(() -> slots.set(SpanContext.getInvalid()));
+    thread.start();
+    thread.join();
+
+    assertThat(slots.getActiveThreadIds()).isEmpty();
+
+    slots.set(spanContext);
+
+    assertThat(slots.getActiveThreadIds()).containsExactly(Thread.currentThread().getId());
+  }
+
+  @Test
+  void removeSlotsOfTerminatedThreads() throws InterruptedException {
+    for (int i = 0; i < 100; i++) {
+      Thread thread = new Thread(() -> slots.set(spanContext));
+      thread.start();
+      thread.join();
+    }
+
+    assertThat(slots.size()).isLessThan(100);
+  }
+
+  private static SpanContext newSpanContext(long spanId) {
+    return SpanContext.create(
+        TraceId.fromLongs(123, 456),
+        SpanId.fromLong(spanId),
+        TraceFlags.getSampled(),
+        TraceState.getDefault());
+  }
+}
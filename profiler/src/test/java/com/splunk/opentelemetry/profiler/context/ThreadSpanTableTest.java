@@ -0,0 +1,122 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.opentelemetry.profiler.context;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.SpanId;
+import io.opentelemetry.api.trace.TraceFlags;
+import io.opentelemetry.api.trace.TraceId;
+import io.opentelemetry.api.trace.TraceState;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class ThreadSpanTableTest {
+  private final ThreadSpanTable table = new ThreadSpanTable();
+
+  @Test
+  void createLinkageFromIds() {
+    table.put(906, 123, 456, 789, TraceFlags.getSampled().asByte());
+
+    SpanLinkage linkage = table.get(906);
+    SpanContext spanContext = linkage.getSpanContext();
+    assertThat(spanContext.getTraceId()).isEqualTo(TraceId.fromLongs(123, 456));
+    assertThat(spanContext.getSpanId()).isEqualTo(SpanId.fromLong(789));
+    assertThat(spanContext.isSampled()).isTrue();
+    assertThat(linkage.getThreadId()).isEqualTo(906);
+    assertThat(table.get(907)).isSameAs(SpanLinkage.NONE);
+  }
+
+  @Test
+  void reuseLinkageWhileSpanDoesNotChange() {
+    table.put(906, 123, 456, 789, (byte) 1);
+    SpanLinkage linkage = table.get(906);
+
+    table.put(906, 123, 456, 789, (byte) 1);
+    assertThat(table.get(906)).isSameAs(linkage);
+
+    table.put(906, 123, 456, 790, (byte) 1);
+    SpanLinkage changed = table.get(906);
+    assertThat(changed).isNotSameAs(linkage);
+    assertThat(changed.getSpanContext().getSpanId()).isEqualTo(SpanId.fromLong(790));
+  }
+
+  @Test
+  void reuseLinkageWhileSpanContextDoesNotChange() {
+    SpanContext spanContext =
+        SpanContext.create(
+            TraceId.fromLongs(123, 456),
+            SpanId.fromLong(789),
+            TraceFlags.getSampled(),
+            TraceState.getDefault());
+    SpanLinkage linkage = table.link(906, spanContext);
+    assertThat(linkage.getSpanContext()).isSameAs(spanContext);
+    assertThat(linkage.getThreadId()).isEqualTo(906);
+
+    assertThat(table.link(906, spanContext)).isSameAs(linkage);
+
+    SpanContext changed =
+        SpanContext.create(
+            TraceId.fromLongs(123, 456),
+            SpanId.fromLong(790),
+            TraceFlags.getSampled(),
+            TraceState.getDefault());
+    assertThat(table.link(906, changed).getSpanContext()).isSameAs(changed);
+    assertThat(table.size()).isEqualTo(1);
+  }
+
+  @Test
+  void removeThread() {
+    table.put(906, 123, 456, 789, (byte) 1);
+    table.remove(906);
+    table.remove(907);
+
+    assertThat(table.get(906)).isSameAs(SpanLinkage.NONE);
+    assertThat(table.size()).isZero();
+  }
+
+  @Test
+  void sameContentAsHashMap() {
+    Map<Long, Long> expected = new HashMap<>();
+    Random random = new Random(42);
+    for (int i = 0; i < 100_000; i++) {
+      long threadId = 1 + random.nextInt(500);
+      if (random.nextInt(3) == 0) {
+        table.remove(threadId);
+        expected.remove(threadId);
+      } else {
+        long spanId = 1 + random.nextInt(1000);
+        table.put(threadId, 1, 2, spanId, (byte) 1);
+        expected.put(threadId, spanId);
+      }
+    }
+
+    assertThat(table.size()).isEqualTo(expected.size());
+    for (long threadId = 1; threadId <= 500; threadId++) {
+      Long spanId = expected.get(threadId);
+      SpanLinkage linkage = table.get(threadId);
+      if (spanId == null) {
+        assertThat(linkage).isSameAs(SpanLinkage.NONE);
+      } else {
+        assertThat(linkage.getSpanContext().getSpanId()).isEqualTo(SpanId.fromLong(spanId));
+      }
+    }
+  }
+}
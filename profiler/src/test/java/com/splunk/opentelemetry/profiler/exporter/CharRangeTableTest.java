@@ -0,0 +1,63 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.opentelemetry.profiler.exporter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class CharRangeTableTest {
+
+  @Test
+  void lookupByRange() {
+    CharRangeTable<Integer> table = new CharRangeTable<>(1024);
+    String text = "one two three";
+
+    assertThat(table.get(text, 4, 7, CharRangeTable.hash(text, 4, 7))).isNull();
+    table.put("two", "two".hashCode(), 2);
+
+    assertThat(table.get(text, 4, 7, CharRangeTable.hash(text, 4, 7))).isEqualTo(2);
+    assertThat(table.get(text, 4, 6, CharRangeTable.hash(text, 4, 6))).isNull();
+    assertThat(table.get("two", 0, 3, CharRangeTable.hash("two", 0, 3))).isEqualTo(2);
+  }
+
+  @Test
+  void hashMatchesString() {
+    String text = "java.lang.Thread.run(Thread.java:834";
+    assertThat(CharRangeTable.hash("xx" + text + "yy", 2, 2 + text.length()))
+        .isEqualTo(text.hashCode());
+  }
+
+  @Test
+  void growsAndClearsWhenFull() {
+    CharRangeTable<Integer> table = new CharRangeTable<>(1000);
+    for (int i = 0; i < 1000; i++) {
+      String key = "key" + i;
+      table.put(key, key.hashCode(), i);
+    }
+    assertThat(table.size()).isEqualTo(1000);
+    for (int i = 0; i < 1000; i++) {
+      String key = "key" + i;
+      assertThat(table.get(key, 0, key.length(), key.hashCode())).isEqualTo(i);
+    }
+
+    table.put("another", "another".hashCode(), -1);
+    assertThat(table.size()).isEqualTo(1);
+    assertThat(table.get("key0", 0, 4, "key0".hashCode())).isNull();
+    assertThat(table.get("another", 0, 7, "another".hashCode())).isEqualTo(-1);
+  }
+}
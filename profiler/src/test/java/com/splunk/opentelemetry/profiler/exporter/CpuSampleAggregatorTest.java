@@ -0,0 +1,96 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.opentelemetry.profiler.exporter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+import com.google.perftools.profiles.ProfileProto.Profile;
+import com.google.perftools.profiles.ProfileProto.Sample;
+import com.splunk.opentelemetry.profiler.pprof.Pprof;
+import com.splunk.opentelemetry.profiler.pprof.PprofUtils;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class CpuSampleAggregatorTest {
+  static final String TRACE_ID = "deadbeefdeadbeefdeadbeefdeadbeef";
+  static final String SPAN_ID = "0123012301230123";
+  static final long PERIOD = TimeUnit.SECONDS.toNanos(1);
+
+  CpuSampleAggregator aggregator = new CpuSampleAggregator();
+
+  @Test
+  void groupsByStackStateAndSpan() throws Exception {
+    long[] locationIds = {1, 2, 3, 4};
+
+    aggregator.add(locationIds, 3, "RUNNABLE", false, "jdk.ThreadDump", PERIOD, 20, null, null);
+    aggregator.add(locationIds, 3, "RUNNABLE", false, "jdk.ThreadDump", PERIOD, 10, null, null);
+    // different stack depth, thread state and span linkage
+    aggregator.add(locationIds, 4, "RUNNABLE", false, "jdk.ThreadDump", PERIOD, 10, null, null);
+    aggregator.add(locationIds, 3, "WAITING", false, "jdk.ThreadDump", PERIOD, 10, null, null);
+    aggregator.add(
+        locationIds, 3, "RUNNABLE", false, "jdk.ThreadDump", PERIOD, 10, TRACE_ID, SPAN_ID);
+    // reused array with different content
+    locationIds[0] = 5;
+    aggregator.add(locationIds, 3, "RUNNABLE", false, "jdk.ThreadDump", PERIOD, 10, null, null);
+
+    assertThat(aggregator.size()).isEqualTo(5);
+
+    Pprof pprof = new Pprof();
+    aggregator.writeTo(pprof);
+    assertThat(aggregator.isEmpty()).isTrue();
+
+    Profile profile = PprofUtils.toProfile(pprof);
+    assertThat(profile.getSampleCount()).isEqualTo(5);
+    Sample first =
+        profile.getSampleList().stream()
+            .filter(sample -> sample.getValue(0) == 2)
+            .findFirst()
+            .orElseThrow();
+    assertThat(first.getLocationIdList()).containsExactly(1L, 2L, 3L);
+    assertThat(PprofUtils.toLabelString(first, profile))
+        .containsEntry("source.event.time", 10L)
+        .containsEntry("source.event.period", 1000L)
+        .containsEntry("thread.state", "RUNNABLE")
+        .doesNotContainKey("trace_id");
+    assertThat(pprof.frameCount()).isEqualTo(16);
+  }
+
+  @Test
+  void keepsSamplingPeriodOfEachGroup() throws Exception {
+    long[] locationIds = {1, 2, 3};
+    long shardedPeriod = 4 * PERIOD;
+
+    aggregator.add(locationIds, 3, "RUNNABLE", false, "jdk.ThreadDump", PERIOD, 10, null, null);
+    aggregator.add(
+        locationIds, 3, "RUNNABLE", false, "jdk.ThreadDump", shardedPeriod, 10, null, null);
+    aggregator.add(
+        locationIds, 3, "RUNNABLE", false, "jdk.ThreadDump", shardedPeriod, 20, null, null);
+
+    Pprof pprof = new Pprof();
+    aggregator.writeTo(pprof, true);
+
+    Profile profile = PprofUtils.toProfile(pprof);
+    assertThat(profile.getSampleList())
+        .extracting(
+            Sample::getValueList,
+            sample -> PprofUtils.toLabelString(sample, profile).get("source.event.period"))
+        .containsExactlyInAnyOrder(
+            tuple(List.of(1L, PERIOD), 1000L), tuple(List.of(2L, 2 * shardedPeriod), 4000L));
+  }
+}
@@ -19,6 +19,7 @@ package com.splunk.opentelemetry.profiler.exporter;
 import io.opentelemetry.api.common.AttributeKey;
 import io.opentelemetry.api.common.Attributes;
 import io.opentelemetry.api.common.AttributesBuilder;
+import io.opentelemetry.api.common.Value;
 import io.opentelemetry.api.logs.LogRecordBuilder;
 import io.opentelemetry.api.logs.Logger;
 import io.opentelemetry.api.logs.Severity;
@@ -67,7 +68,7 @@ public class InMemoryOtelLogger implements Logger, AfterEachCallback {
     private Context context = Context.current();
     private Severity severity = Severity.UNDEFINED_SEVERITY_NUMBER;
     private String severityText = "";
-    private String body = "";
+    private Value<?> body = Value.of("");
     private final AttributesBuilder attributes = Attributes.builder();
 
     private Builder(InMemoryOtelLogger logger) {
@@ -116,6 +117,12 @@ public class InMemoryOtelLogger implements Logger, AfterEachCallback {
 
     @Override
     public LogRecordBuilder setBody(String body) {
+      this.body = Value.of(Objects.requireNonNull(body));
+      return this;
+    }
+
+    @Override
+    public LogRecordBuilder setBody(Value<?> body) {
       this.body = Objects.requireNonNull(body);
       return this;
     }
@@ -137,7 +144,7 @@ public class InMemoryOtelLogger implements Logger, AfterEachCallback {
               Span.fromContext(context).getSpanContext(),
               severity,
               severityText,
-              Body.string(body),
+              body,
               attributes.build()));
     }
   }
@@ -150,7 +157,7 @@ public class InMemoryOtelLogger implements Logger, AfterEachCallback {
     private final SpanContext spanContext;
     private final Severity severity;
     private final String severityText;
-    private final Body body;
+    private final Value<?> body;
     private final Attributes attributes;
 
     LogRecord(
@@ -161,7 +168,7 @@ public class InMemoryOtelLogger implements Logger, AfterEachCallback {
         SpanContext spanContext,
         Severity severity,
         String severityText,
-        Body body,
+        Value<?> body,
         Attributes attributes) {
       this.resource = resource;
       this.instrumentationScopeInfo = instrumentationScopeInfo;
@@ -211,6 +218,11 @@ public class InMemoryOtelLogger implements Logger, AfterEachCallback {
 
     @Override
     public Body getBody() {
+      return Body.string(body.asString());
+    }
+
+    @Override
+    public Value<?> getBodyValue() {
       return body;
     }
 
@@ -20,7 +20,9 @@ import static com.splunk.opentelemetry.profiler.ProfilingSemanticAttributes.FRAM
 import static com.splunk.opentelemetry.profiler.ProfilingSemanticAttributes.LOCK_HELD_PREFIX;
 import static com.splunk.opentelemetry.profiler.ProfilingSemanticAttributes.LOCK_OWNER_THREAD;
 import static com.splunk.opentelemetry.profiler.ProfilingSemanticAttributes.LOCK_WAITING_ON;
+import static com.splunk.opentelemetry.profiler.exporter.StackTraceParserTest.readDumpFromResource;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.junit.jupiter.api.Assertions.assertAll;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.mock;
@@ -30,9 +32,16 @@ import com.google.perftools.profiles.ProfileProto.Location;
 import com.google.perftools.profiles.ProfileProto.Profile;
 import com.google.perftools.profiles.ProfileProto.Sample;
 import com.splunk.opentelemetry.profiler.InstrumentationSource;
+import com.splunk.opentelemetry.profiler.ProfilingDataFormat;
 import com.splunk.opentelemetry.profiler.ProfilingSemanticAttributes;
+import com.splunk.opentelemetry.profiler.ThreadDumpRegion;
+import com.splunk.opentelemetry.profiler.context.SpanLinkage;
 import com.splunk.opentelemetry.profiler.pprof.PprofUtils;
 import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.ValueType;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.TraceFlags;
+import io.opentelemetry.api.trace.TraceState;
 import io.opentelemetry.sdk.trace.IdGenerator;
 import java.io.IOException;
 import java.lang.management.LockInfo;
@@ -49,6 +58,11 @@ import java.util.stream.Collectors;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.EnumSource;
+import org.openjdk.jmc.common.IMCFrame;
+import org.openjdk.jmc.common.IMCMethod;
+import org.openjdk.jmc.common.IMCStackTrace;
+import org.openjdk.jmc.common.IMCThread;
+import org.openjdk.jmc.common.IMCType;
 
 class PprofCpuEventExporterTest {
   private final InMemoryOtelLogger logger = new InMemoryOtelLogger();
@@ -94,6 +108,37 @@ class PprofCpuEventExporterTest {
         .collect(Collectors.toList());
   }
 
+  @Test
+  void exportGzipDataFormatAsBytes() throws Exception {
+    var exception = new RuntimeException();
+    var exporter =
+        PprofCpuEventExporter.builder()
+            .otelLogger(logger)
+            .period(Duration.ofMillis(20))
+            .stackDepth(1024)
+            .dataFormat(ProfilingDataFormat.PPROF_GZIP)
+            .build();
+
+    exporter.export(
+        1,
+        "thread-name",
+        Thread.State.RUNNABLE,
+        exception.getStackTrace(),
+        Instant.now(),
+        "",
+        "",
+        Duration.ZERO);
+    exporter.flush();
+
+    var logRecord = logger.records().get(0);
+    assertThat(logRecord.getBodyValue().getType()).isEqualTo(ValueType.BYTES);
+    assertThat(logRecord.getAttributes().get(ProfilingSemanticAttributes.DATA_FORMAT))
+        .isEqualTo(ProfilingSemanticAttributes.PPROF_GZIP);
+    var profile = Profile.parseFrom(PprofUtils.deserialize(logRecord));
+    assertThat(profile.getStringTableList())
+        .containsAll(fullyQualifiedMethodNames(exception.getStackTrace()));
+  }
+
   @Test
   void reportStackTraceWasTruncated() throws Exception {
     var exception = new RuntimeException();
@@ -505,6 +550,234 @@ class PprofCpuEventExporterTest {
         .contains(entry(ProfilingSemanticAttributes.SOURCE_EVENT_PERIOD, duration.toMillis()));
   }
 
+  @Test
+  void exportThreadDumpRegionsAcrossBatches() throws Exception {
+    String threadDump = readDumpFromResource("thread-dump1.txt");
+
+    for (int batch = 0; batch < 2; batch++) {
+      ThreadDumpRegion stack = new ThreadDumpRegion(threadDump, 0, 0);
+      while (stack.findNextStack()) {
+        exporter.export(stack, Instant.now(), "jdk.ThreadDump", SpanLinkage.NONE);
+      }
+      exporter.flush();
+    }
+
+    assertThat(logger.records()).hasSize(2);
+    for (var logRecord : logger.records()) {
+      var profile = Profile.parseFrom(PprofUtils.deserialize(logRecord));
+      var sample =
+          profile.getSampleList().stream()
+              .filter(it -> PprofUtils.toLabelString(it, profile).containsValue("container-0"))
+              .findFirst()
+              .orElseThrow();
+
+      var labels = PprofUtils.toLabelString(sample, profile);
+      assertThat(labels)
+          .contains(entry(ProfilingSemanticAttributes.THREAD_ID, 39L))
+          .contains(entry(ProfilingSemanticAttributes.THREAD_STATE, "TIMED_WAITING (sleeping)"));
+      assertThat(toStackTrace(sample, profile))
+          .containsExactly(
+              new StackTraceElement("java.lang.Thread", "sleep", "Native Method", 0),
+              new StackTraceElement(
+                  "org.apache.catalina.core.StandardServer", "await", "StandardServer.java", 570),
+              new StackTraceElement(
+                  "org.springframework.boot.web.embedded.tomcat.TomcatWebServer$1",
+                  "run",
+                  "TomcatWebServer.java",
+                  197));
+    }
+  }
+
+  @Test
+  void aggregateIdenticalStacks() throws Exception {
+    var exporter =
+        PprofCpuEventExporter.builder()
+            .otelLogger(logger)
+            .period(Duration.ofMillis(20))
+            .stackDepth(1024)
+            .aggregateStacks(true)
+            .build();
+    String threadDump = readDumpFromResource("thread-dump1.txt");
+    Instant firstDumpTime = Instant.ofEpochMilli(1000);
+
+    int stackCount = 0;
+    for (int dump = 0; dump < 2; dump++) {
+      ThreadDumpRegion stack = new ThreadDumpRegion(threadDump, 0, 0);
+      while (stack.findNextStack()) {
+        exporter.export(stack, firstDumpTime.plusSeconds(dump), "jdk.ThreadDump", SpanLinkage.NONE);
+        stackCount++;
+      }
+    }
+    exporter.flush();
+
+    var logRecord = logger.records().get(0);
+    var profile = Profile.parseFrom(PprofUtils.deserialize(logRecord));
+    assertThat(profile.getSampleTypeCount()).isEqualTo(1);
+    assertThat(profile.getStringTable((int) profile.getSampleType(0).getType()))
+        .isEqualTo("samples");
+    assertThat(profile.getSampleCount()).isPositive().isLessThan(stackCount / 2);
+
+    var sample =
+        profile.getSampleList().stream()
+            .filter(
+                it ->
+                    toStackTrace(it, profile).stream()
+                        .anyMatch(frame -> frame.getClassName().endsWith("StandardServer")))
+            .findFirst()
+            .orElseThrow();
+    assertThat(sample.getValueList()).containsExactly(2L);
+    var labels = PprofUtils.toLabelString(sample, profile);
+    assertThat(labels)
+        .doesNotContainKey(ProfilingSemanticAttributes.THREAD_ID.getKey())
+        .doesNotContainKey(ProfilingSemanticAttributes.THREAD_NAME.getKey())
+        .contains(entry(ProfilingSemanticAttributes.THREAD_STATE, "TIMED_WAITING (sleeping)"))
+        .contains(entry(ProfilingSemanticAttributes.SOURCE_EVENT_TIME, 1000L));
+  }
+
+  @Test
+  void exportExecutionSamplesWithCpuTime() throws Exception {
+    var exporter =
+        PprofCpuEventExporter.builder()
+            .otelLogger(logger)
+            .period(Duration.ofMillis(20))
+            .stackDepth(1024)
+            .executionSamples(true)
+            .build();
+    IMCStackTrace stackTrace = mock(IMCStackTrace.class);
+    when(stackTrace.getTruncationState()).thenReturn(IMCStackTrace.TruncationState.NOT_TRUNCATED);
+    List<IMCFrame> frames =
+        List.of(frame("com.example.Worker", "compute", 12), frame("java.lang.Thread", "run", 3));
+    when(stackTrace.getFrames()).thenAnswer(invocation -> frames);
+    IMCThread thread = mock(IMCThread.class);
+    when(thread.getThreadId()).thenReturn(7L);
+    when(thread.getThreadName()).thenReturn("worker-1");
+
+    exporter.export(
+        stackTrace, thread, Instant.ofEpochMilli(1000), "jdk.ExecutionSample", SpanLinkage.NONE);
+    exporter.flush();
+
+    var profile = Profile.parseFrom(PprofUtils.deserialize(logger.records().get(0)));
+    assertThat(profile.getSampleTypeCount()).isEqualTo(2);
+    assertThat(profile.getStringTable((int) profile.getSampleType(1).getType())).isEqualTo("cpu");
+    assertThat(profile.getStringTable((int) profile.getSampleType(1).getUnit()))
+        .isEqualTo("nanoseconds");
+
+    var sample = profile.getSample(0);
+    assertThat(sample.getValueList()).containsExactly(1L, 20_000_000L);
+    assertThat(toStackTrace(sample, profile))
+        .extracting(StackTraceElement::getClassName, StackTraceElement::getMethodName)
+        .containsExactly(
+            tuple("com.example.Worker", "compute"), tuple("java.lang.Thread", "run"));
+    assertThat(PprofUtils.toLabelString(sample, profile))
+        .contains(entry(ProfilingSemanticAttributes.THREAD_ID, 7L))
+        .contains(entry(ProfilingSemanticAttributes.THREAD_NAME, "worker-1"))
+        .contains(entry(ProfilingSemanticAttributes.THREAD_STATE, "RUNNABLE"))
+        .contains(entry(ProfilingSemanticAttributes.SOURCE_EVENT_NAME, "jdk.ExecutionSample"));
+  }
+
+  @Test
+  void exportSampledThreadStacks() throws Exception {
+    ThreadInfo threadInfo = sampledThreadInfo();
+    var spanContext =
+        SpanContext.create(
+            IdGenerator.random().generateTraceId(),
+            IdGenerator.random().generateSpanId(),
+            TraceFlags.getSampled(),
+            TraceState.getDefault());
+
+    exporter.export(
+        threadInfo,
+        Instant.ofEpochMilli(1000),
+        "jdk.ThreadDump",
+        Duration.ofSeconds(2),
+        spanContext);
+    exporter.flush();
+
+    var profile = Profile.parseFrom(PprofUtils.deserialize(logger.records().get(0)));
+    var sample = profile.getSample(0);
+    assertThat(toStackTrace(sample, profile))
+        .extracting(StackTraceElement::getClassName)
+        .containsExactly("example.Worker", "java.lang.Thread");
+    assertThat(PprofUtils.toLabelString(sample, profile))
+        .contains(entry(ProfilingSemanticAttributes.THREAD_ID, 17L))
+        .contains(entry(ProfilingSemanticAttributes.THREAD_STATE, "BLOCKED"))
+        .contains(entry(ProfilingSemanticAttributes.SOURCE_EVENT_NAME, "jdk.ThreadDump"))
+        .contains(entry(ProfilingSemanticAttributes.SOURCE_EVENT_PERIOD, 2000L))
+        .contains(entry(ProfilingSemanticAttributes.SOURCE_EVENT_TIME, 1000L))
+        .contains(entry(ProfilingSemanticAttributes.TRACE_ID, spanContext.getTraceId()))
+        .contains(entry(ProfilingSemanticAttributes.SPAN_ID, spanContext.getSpanId()))
+        .doesNotContainKeys(LOCK_WAITING_ON, LOCK_OWNER_THREAD, LOCK_HELD_PREFIX + "0");
+  }
+
+  @Test
+  void aggregateSampledThreadStacks() throws Exception {
+    var exporter =
+        PprofCpuEventExporter.builder()
+            .otelLogger(logger)
+            .period(Duration.ofMillis(20))
+            .stackDepth(1024)
+            .aggregateStacks(true)
+            .build();
+    ThreadInfo threadInfo = sampledThreadInfo();
+    // sharded sampling takes each thread's stack less often than the exporter's period
+
+    exporter.export(
+        threadInfo,
+        Instant.ofEpochMilli(2000),
+        "jdk.ThreadDump",
+        Duration.ofMillis(80),
+        SpanContext.getInvalid());
+    exporter.export(
+        threadInfo,
+        Instant.ofEpochMilli(1000),
+        "jdk.ThreadDump",
+        Duration.ofMillis(80),
+        SpanContext.getInvalid());
+    exporter.flush();
+
+    var profile = Profile.parseFrom(PprofUtils.deserialize(logger.records().get(0)));
+    assertThat(profile.getSampleCount()).isEqualTo(1);
+    var sample = profile.getSample(0);
+    assertThat(sample.getValueList()).containsExactly(2L);
+    assertThat(PprofUtils.toLabelString(sample, profile))
+        .doesNotContainKey(ProfilingSemanticAttributes.THREAD_ID.getKey())
+        .contains(entry(ProfilingSemanticAttributes.THREAD_STATE, "BLOCKED"))
+        .contains(entry(ProfilingSemanticAttributes.SOURCE_EVENT_NAME, "jdk.ThreadDump"))
+        .contains(entry(ProfilingSemanticAttributes.SOURCE_EVENT_PERIOD, 80L))
+        .contains(entry(ProfilingSemanticAttributes.SOURCE_EVENT_TIME, 1000L))
+        .doesNotContainKeys(LOCK_WAITING_ON, LOCK_OWNER_THREAD, LOCK_HELD_PREFIX + "0");
+  }
+
+  private static ThreadInfo sampledThreadInfo() {
+    var frame = new StackTraceElement("example.Worker", "run", "Worker.java", 42);
+    ThreadInfo threadInfo = mock(ThreadInfo.class);
+    when(threadInfo.getThreadId()).thenReturn(17L);
+    when(threadInfo.getThreadName()).thenReturn("worker-17");
+    when(threadInfo.getThreadState()).thenReturn(Thread.State.BLOCKED);
+    when(threadInfo.getStackTrace())
+        .thenReturn(
+            new StackTraceElement[] {
+              frame, new StackTraceElement("java.lang.Thread", "run", "Thread.java", 3)
+            });
+    when(threadInfo.getLockInfo()).thenReturn(new LockInfo("example.WaitingLock", 0x12ab));
+    when(threadInfo.getLockOwnerName()).thenReturn("lock-owner");
+    when(threadInfo.getLockedMonitors())
+        .thenReturn(new MonitorInfo[] {new MonitorInfo("example.Monitor", 0x23bc, 0, frame)});
+    return threadInfo;
+  }
+
+  private static IMCFrame frame(String className, String methodName, int line) {
+    IMCType type = mock(IMCType.class);
+    when(type.getFullName()).thenReturn(className);
+    IMCMethod method = mock(IMCMethod.class);
+    when(method.getType()).thenReturn(type);
+    when(method.getMethodName()).thenReturn(methodName);
+    IMCFrame frame = mock(IMCFrame.class);
+    when(frame.getMethod()).thenReturn(method);
+    when(frame.getFrameLineNumber()).thenReturn(line);
+    return frame;
+  }
+
   private <T> Map.Entry<String, T> entry(AttributeKey<T> attribute, T value) {
     return Map.entry(attribute.getKey(), value);
   }
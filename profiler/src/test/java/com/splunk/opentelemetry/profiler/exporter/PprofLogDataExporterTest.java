@@ -21,6 +21,7 @@ import static io.opentelemetry.api.common.AttributeKey.stringKey;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 import com.splunk.opentelemetry.profiler.InstrumentationSource;
+import com.splunk.opentelemetry.profiler.ProfilingDataFormat;
 import com.splunk.opentelemetry.profiler.ProfilingDataType;
 import io.opentelemetry.api.common.Value;
 import java.nio.charset.StandardCharsets;
@@ -81,6 +82,23 @@ class PprofLogDataExporterTest {
     assertEquals("pprof-gzip-base64", attributes.get(stringKey("profiling.data.format")));
   }
 
+  @Test
+  void emitBytesBodyForGzipDataFormat() {
+    var bytes = RandomString.make().getBytes(StandardCharsets.UTF_8);
+
+    var exporter =
+        new PprofLogDataExporter(
+            logger,
+            ProfilingDataType.CPU,
+            InstrumentationSource.CONTINUOUS,
+            ProfilingDataFormat.PPROF_GZIP);
+    exporter.export(bytes, 1);
+
+    var logRecord = logger.records().get(0);
+    assertEquals(Value.of(bytes), logRecord.getBodyValue());
+    assertEquals("pprof-gzip", logRecord.getAttributes().get(stringKey("profiling.data.format")));
+  }
+
   @ParameterizedTest
   @EnumSource(ProfilingDataType.class)
   void includeProfilingDataTypeAttributeInLogMessage(ProfilingDataType dataType) {
@@ -0,0 +1,78 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.opentelemetry.profiler.exporter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+import com.google.perftools.profiles.ProfileProto.Profile;
+import com.google.perftools.profiles.ProfileProto.Sample;
+import com.splunk.opentelemetry.profiler.pprof.Pprof;
+import com.splunk.opentelemetry.profiler.pprof.PprofUtils;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class StackSampleAggregatorTest {
+  static final String EVENT_NAME = "jdk.JavaMonitorEnter";
+
+  StackSampleAggregator aggregator = new StackSampleAggregator();
+
+  @Test
+  void sumsAmountsAndDurationsPerDetail() throws Exception {
+    long[] locationIds = {1, 2};
+
+    aggregator.add(locationIds, 2, false, "BLOCKED", EVENT_NAME, 0, "Lock", null, null, 1, 5, 20);
+    aggregator.add(locationIds, 2, false, "BLOCKED", EVENT_NAME, 0, "Lock", null, null, 1, 7, 10);
+    aggregator.add(locationIds, 2, false, "BLOCKED", EVENT_NAME, 0, "Other", null, null, 3, 1, 10);
+
+    Pprof pprof = new Pprof();
+    aggregator.writeTo(
+        pprof,
+        (p, sample, group) -> {
+          sample.addValue(group.getAmount());
+          sample.addValue(group.getDurationNanos());
+          sample.addValue(group.getCount());
+          p.addLabel(sample, "detail", group.getDetail());
+        });
+    assertThat(aggregator.isEmpty()).isTrue();
+
+    Profile profile = PprofUtils.toProfile(pprof);
+    assertThat(profile.getSampleList())
+        .extracting(
+            Sample::getValueList, sample -> PprofUtils.toLabelString(sample, profile).get("detail"))
+        .containsExactlyInAnyOrder(
+            tuple(List.of(2L, 12L, 2L), "Lock"), tuple(List.of(3L, 1L, 1L), "Other"));
+    Sample first = profile.getSample(0);
+    assertThat(first.getLocationIdList()).containsExactly(1L, 2L);
+    assertThat(PprofUtils.toLabelString(first, profile))
+        .containsEntry("thread.state", "BLOCKED")
+        .containsEntry("source.event.name", EVENT_NAME)
+        .containsEntry("source.event.time", 10L);
+  }
+
+  @Test
+  void omitsLabelsThatAreNotSet() throws Exception {
+    aggregator.add(new long[] {1}, 1, false, null, null, 0, null, null, null, 1, 0, 10);
+
+    Pprof pprof = new Pprof();
+    aggregator.writeTo(pprof, (p, sample, group) -> sample.addValue(group.getCount()));
+
+    Profile profile = PprofUtils.toProfile(pprof);
+    assertThat(PprofUtils.toLabelString(profile.getSample(0), profile))
+        .containsOnlyKeys("source.event.time");
+  }
+}
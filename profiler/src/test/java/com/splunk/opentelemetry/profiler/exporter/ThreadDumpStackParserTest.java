@@ -0,0 +1,96 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.opentelemetry.profiler.exporter;
+
+import static com.splunk.opentelemetry.profiler.exporter.StackTraceParserTest.readDumpFromResource;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.splunk.opentelemetry.profiler.ThreadDumpRegion;
+import com.splunk.opentelemetry.profiler.exporter.StackTraceParser.StackTrace;
+import com.splunk.opentelemetry.profiler.exporter.StackTraceParser.StackTraceLine;
+import com.splunk.opentelemetry.profiler.exporter.ThreadDumpStackParser.Frame;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+class ThreadDumpStackParserTest {
+
+  @ParameterizedTest
+  @CsvSource({
+    "thread-dump1.txt, 1024",
+    "thread-dump1.txt, 3",
+    "thread-dump2.txt, 1024",
+    "thread-dump2.txt, 1"
+  })
+  void matchesStackTraceParser(String resource, int stackDepth) {
+    String wallOfStacks = readDumpFromResource(resource);
+    ThreadDumpRegion stack = new ThreadDumpRegion(wallOfStacks, 0, 0);
+    ThreadDumpStackParser parser = new ThreadDumpStackParser();
+
+    int parsed = 0;
+    while (stack.findNextStack()) {
+      StackTrace expected = StackTraceParser.parse(stack.getCurrentRegion(), stackDepth);
+      boolean result = parser.parse(stack, stackDepth);
+
+      assertThat(result).isEqualTo(expected != null);
+      if (expected == null) {
+        continue;
+      }
+      parsed++;
+      assertThat(parser.getThreadId()).isEqualTo(expected.getThreadId());
+      assertThat(parser.getThreadName()).isEqualTo(expected.getThreadName());
+      assertThat(parser.getThreadState()).isEqualTo(expected.getThreadState());
+      assertThat(parser.isTruncated()).isEqualTo(expected.isTruncated());
+      assertThat(parser.getFrameCount()).isEqualTo(expected.getStackTraceLines().size());
+      for (int i = 0; i < parser.getFrameCount(); i++) {
+        StackTraceLine expectedLine = expected.getStackTraceLines().get(i);
+        StackTraceLine actualLine = parser.getFrame(i).getStackTraceLine();
+        assertThat(actualLine.getClassName()).isEqualTo(expectedLine.getClassName());
+        assertThat(actualLine.getMethod()).isEqualTo(expectedLine.getMethod());
+        assertThat(actualLine.getLocation()).isEqualTo(expectedLine.getLocation());
+        assertThat(actualLine.getLineNumber()).isEqualTo(expectedLine.getLineNumber());
+      }
+    }
+    assertThat(parsed).isPositive();
+  }
+
+  @ParameterizedTest
+  @CsvSource({"thread-dump1.txt", "thread-dump2.txt"})
+  void reusesFramesAcrossThreadDumps(String resource) {
+    ThreadDumpStackParser parser = new ThreadDumpStackParser();
+    // same content at different offsets within a different string
+    String first = readDumpFromResource(resource);
+    String second = "\n" + first;
+
+    ThreadDumpRegion firstStack = new ThreadDumpRegion(first, 0, 0);
+    ThreadDumpRegion secondStack = new ThreadDumpRegion(second, 0, 0);
+    while (firstStack.findNextStack() && secondStack.findNextStack()) {
+      parser.parse(firstStack, 1024);
+      Frame[] frames = new Frame[parser.getFrameCount()];
+      for (int i = 0; i < frames.length; i++) {
+        frames[i] = parser.getFrame(i);
+      }
+      String threadName = parser.getThreadName();
+
+      parser.parse(secondStack, 1024);
+      assertThat(parser.getThreadName()).isSameAs(threadName);
+      assertThat(parser.getFrameCount()).isEqualTo(frames.length);
+      for (int i = 0; i < frames.length; i++) {
+        assertThat(parser.getFrame(i)).isSameAs(frames[i]);
+      }
+    }
+  }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.opentelemetry.profiler.iowait.exporter;
+
+import static com.splunk.opentelemetry.profiler.StackTraceMocks.frame;
+import static com.splunk.opentelemetry.profiler.StackTraceMocks.stackTrace;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.google.perftools.profiles.ProfileProto.Profile;
+import com.google.perftools.profiles.ProfileProto.Sample;
+import com.splunk.opentelemetry.profiler.EventReader;
+import com.splunk.opentelemetry.profiler.ProfilingSemanticAttributes;
+import com.splunk.opentelemetry.profiler.exporter.InMemoryOtelLogger;
+import com.splunk.opentelemetry.profiler.pprof.PprofUtils;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.SpanId;
+import io.opentelemetry.api.trace.TraceFlags;
+import io.opentelemetry.api.trace.TraceId;
+import io.opentelemetry.api.trace.TraceState;
+import java.time.Instant;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmc.common.IMCStackTrace;
+import org.openjdk.jmc.common.item.IItem;
+import org.openjdk.jmc.common.item.IType;
+
+class PprofIoEventExporterTest {
+  private final InMemoryOtelLogger logger = new InMemoryOtelLogger();
+  private final EventReader eventReader = mock(EventReader.class);
+  private final PprofIoEventExporter exporter =
+      PprofIoEventExporter.builder()
+          .eventReader(eventReader)
+          .otelLogger(logger)
+          .stackDepth(1024)
+          .build();
+
+  @Test
+  void noLogRecordWhenNothingToExport() {
+    exporter.flush();
+    assertThat(logger.records()).isEmpty();
+  }
+
+  @Test
+  void aggregateBytesAndDurationPerStackAndTarget() throws Exception {
+    IMCStackTrace jdbcStack = stackTrace(frame("org.example.jdbc.Driver", "read"));
+    IMCStackTrace fileStack = stackTrace(frame("com.example.Store", "load"));
+
+    exporter.export(event("jdk.SocketRead", jdbcStack, "db:5432", 1000, 100, 5_000_000), null);
+    exporter.export(event("jdk.SocketRead", jdbcStack, "db:5432", 2000, 300, 7_000_000), null);
+    exporter.export(event("jdk.SocketRead", jdbcStack, "cache:6379", 1500, 10, 1_000), null);
+    exporter.export(event("jdk.FileRead", fileStack, "/data/store", 1200, 4096, 11), null);
+    exporter.flush();
+
+    Profile profile = Profile.parseFrom(PprofUtils.deserialize(logger.records().get(0)));
+    assertThat(profile.getSampleTypeCount()).isEqualTo(2);
+    assertThat(profile.getStringTable((int) profile.getSampleType(0).getType()))
+        .isEqualTo("bytes");
+    assertThat(profile.getStringTable((int) profile.getSampleType(1).getUnit()))
+        .isEqualTo("nanoseconds");
+    assertThat(profile.getSampleCount()).isEqualTo(3);
+
+    Sample dbSample = findSample(profile, "db:5432");
+    assertThat(dbSample.getValueList()).containsExactly(400L, 12_000_000L);
+    assertThat(PprofUtils.toLabelString(dbSample, profile))
+        .contains(entry(ProfilingSemanticAttributes.SOURCE_EVENT_NAME.getKey(), "jdk.SocketRead"))
+        .contains(entry(ProfilingSemanticAttributes.SOURCE_EVENT_TIME.getKey(), 1000L));
+
+    assertThat(findSample(profile, "cache:6379").getValueList()).containsExactly(10L, 1_000L);
+    assertThat(findSample(profile, "/data/store").getValueList()).containsExactly(4096L, 11L);
+  }
+
+  @Test
+  void includeSpanLinkage() throws Exception {
+    IMCStackTrace stack = stackTrace(frame("org.example.jdbc.Driver", "read"));
+    SpanContext spanContext =
+        SpanContext.create(
+            TraceId.fromLongs(123, 456),
+            SpanId.fromLong(123),
+            TraceFlags.getSampled(),
+            TraceState.getDefault());
+
+    exporter.export(event("jdk.SocketWrite", stack, "db:5432", 1000, 64, 20), spanContext);
+    exporter.flush();
+
+    Profile profile = Profile.parseFrom(PprofUtils.deserialize(logger.records().get(0)));
+    assertThat(PprofUtils.toLabelString(profile.getSample(0), profile))
+        .contains(entry(ProfilingSemanticAttributes.TRACE_ID.getKey(), spanContext.getTraceId()))
+        .contains(entry(ProfilingSemanticAttributes.SPAN_ID.getKey(), spanContext.getSpanId()));
+  }
+
+  private static Sample findSample(Profile profile, String target) {
+    return profile.getSampleList().stream()
+        .filter(
+            sample ->
+                target.equals(
+                    PprofUtils.toLabelString(sample, profile)
+                        .get(ProfilingSemanticAttributes.IO_TARGET.getKey())))
+        .findFirst()
+        .orElseThrow();
+  }
+
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private IItem event(
+      String eventName,
+      IMCStackTrace stackTrace,
+      String target,
+      long timeMillis,
+      long bytes,
+      long durationNanos) {
+    IType type = mock(IType.class);
+    when(type.getIdentifier()).thenReturn(eventName);
+    IItem event = mock(IItem.class);
+    when(event.getType()).thenReturn(type);
+    when(eventReader.getStackTrace(event)).thenReturn(stackTrace);
+    when(eventReader.getIoTarget(event)).thenReturn(target);
+    when(eventReader.getBytes(event)).thenReturn(bytes);
+    when(eventReader.getStartInstant(event)).thenReturn(Instant.ofEpochMilli(timeMillis));
+    when(eventReader.getDuration(event)).thenReturn(durationNanos);
+    return event;
+  }
+}
@@ -0,0 +1,280 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.opentelemetry.profiler.jfr;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.splunk.opentelemetry.profiler.events.ContextAttached;
+import com.splunk.opentelemetry.profiler.events.ProfilerEvent;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.lang.ref.Reference;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedClass;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedObject;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordedThread;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openjdk.jmc.common.IMCFrame;
+import org.openjdk.jmc.common.IMCMethod;
+import org.openjdk.jmc.common.IMCStackTrace;
+import org.openjdk.jmc.common.IMCThread;
+
+class JfrChunkDecoderTest {
+  static final String TRACE_ID = "deadbeefdeadbeefdeadbeefdeadbeef";
+  static final String SPAN_ID = "0123012301230123";
+  static final String THREAD_DUMP_EVENT_NAME = "jdk.ThreadDump";
+  static final String NEW_TLAB_EVENT_NAME = "jdk.ObjectAllocationInNewTLAB";
+  static final String OUTSIDE_TLAB_EVENT_NAME = "jdk.ObjectAllocationOutsideTLAB";
+  static final String ALLOCATION_SAMPLE_EVENT_NAME = "jdk.ObjectAllocationSample";
+  static final String EXECUTION_SAMPLE_EVENT_NAME = "jdk.ExecutionSample";
+  static final String THREAD_PARK_EVENT_NAME = "jdk.ThreadPark";
+  static final String FILE_WRITE_EVENT_NAME = "jdk.FileWrite";
+  static final String OLD_OBJECT_EVENT_NAME = "jdk.OldObjectSample";
+  static final List<String> EVENT_NAMES =
+      Arrays.asList(
+          ContextAttached.EVENT_NAME,
+          THREAD_DUMP_EVENT_NAME,
+          NEW_TLAB_EVENT_NAME,
+          OUTSIDE_TLAB_EVENT_NAME,
+          ALLOCATION_SAMPLE_EVENT_NAME,
+          EXECUTION_SAMPLE_EVENT_NAME,
+          THREAD_PARK_EVENT_NAME,
+          FILE_WRITE_EVENT_NAME,
+          OLD_OBJECT_EVENT_NAME);
+
+  @TempDir Path tempDir;
+
+  @Test
+  void decodesRecordedEvents() throws Exception {
+    Path file = record();
+    JfrChunkDecoder decoder =
+        new JfrChunkDecoder(Collections.singletonList(ContextAttached.EVENT_NAME));
+
+    List<ProfilerEvent> events = new ArrayList<>();
+    try (InputStream inputStream = Files.newInputStream(file)) {
+      while (decoder.decodeChunk(inputStream, events::add)) {}
+    }
+
+    assertThat(events).hasSize(3);
+    for (ProfilerEvent event : events) {
+      assertThat(event.getType().getIdentifier()).isEqualTo(ContextAttached.EVENT_NAME);
+      assertThat(event.getTraceId()).isEqualTo(TRACE_ID);
+      assertThat(event.getSpanId()).isEqualTo(SPAN_ID);
+      assertThat(event.getTraceFlags()).isEqualTo((byte) 1);
+      assertThat(event.getThread().getThreadId()).isEqualTo(Thread.currentThread().getId());
+      assertThat(event.getThread().getThreadName()).isEqualTo(Thread.currentThread().getName());
+    }
+  }
+
+  @Test
+  void matchesRecordingFile() throws Exception {
+    Path file = recordAllEvents();
+    JfrChunkDecoder decoder = new JfrChunkDecoder(EVENT_NAMES);
+
+    List<ProfilerEvent> events = new ArrayList<>();
+    try (InputStream inputStream = Files.newInputStream(file)) {
+      while (decoder.decodeChunk(inputStream, events::add)) {}
+    }
+
+    List<RecordedEvent> expected = new ArrayList<>();
+    for (RecordedEvent event : RecordingFile.readAllEvents(file)) {
+      if (EVENT_NAMES.contains(event.getEventType().getName())) {
+        expected.add(event);
+      }
+    }
+
+    assertThat(expected)
+        .extracting(event -> event.getEventType().getName())
+        .contains(
+            ContextAttached.EVENT_NAME,
+            NEW_TLAB_EVENT_NAME,
+            OUTSIDE_TLAB_EVENT_NAME,
+            EXECUTION_SAMPLE_EVENT_NAME,
+            THREAD_PARK_EVENT_NAME,
+            FILE_WRITE_EVENT_NAME);
+    assertThat(events).hasSameSizeAs(expected);
+    for (int i = 0; i < events.size(); i++) {
+      assertSameEvent(events.get(i), expected.get(i));
+    }
+  }
+
+  @Test
+  void returnsFalseWhenInputIsEmpty() throws Exception {
+    JfrChunkDecoder decoder =
+        new JfrChunkDecoder(Collections.singletonList(ContextAttached.EVENT_NAME));
+
+    assertThat(decoder.decodeChunk(new ByteArrayInputStream(new byte[0]), event -> {})).isFalse();
+  }
+
+  private static void assertSameEvent(ProfilerEvent event, RecordedEvent expected) {
+    String name = expected.getEventType().getName();
+    assertThat(event.getType().getIdentifier()).isEqualTo(name);
+    assertThat(event.getStartTime()).as(name).isEqualTo(toEpochNanos(expected.getStartTime()));
+    assertThat(event.getDuration()).as(name).isEqualTo(expected.getDuration().toNanos());
+    // execution samples have the sampled thread instead of the thread that emitted the event
+    RecordedThread thread =
+        expected.hasField("sampledThread")
+            ? expected.getThread("sampledThread")
+            : expected.getThread();
+    assertSameThread(event.getThread(), thread);
+    assertSameStackTrace(event.getStackTrace(), expected.getStackTrace());
+
+    switch (name) {
+      case ContextAttached.EVENT_NAME:
+        assertThat(event.getTraceId()).isEqualTo(expected.getString("traceId"));
+        assertThat(event.getSpanId()).isEqualTo(expected.getString("spanId"));
+        assertThat(event.getTraceFlags()).isEqualTo(expected.getByte("traceFlags"));
+        break;
+      case THREAD_DUMP_EVENT_NAME:
+        assertThat(event.getThreadDumpResult()).isEqualTo(expected.getString("result"));
+        break;
+      case NEW_TLAB_EVENT_NAME:
+      case OUTSIDE_TLAB_EVENT_NAME:
+        assertThat(event.getAllocationSize()).isEqualTo(expected.getLong("allocationSize"));
+        assertThat(event.getObjectClass()).isEqualTo(className(expected, "objectClass"));
+        break;
+      case ALLOCATION_SAMPLE_EVENT_NAME:
+        assertThat(event.getSampleWeight()).isEqualTo(expected.getLong("weight"));
+        assertThat(event.getObjectClass()).isEqualTo(className(expected, "objectClass"));
+        break;
+      case THREAD_PARK_EVENT_NAME:
+        assertThat(event.getMonitorClass()).isEqualTo(className(expected, "parkedClass"));
+        break;
+      case FILE_WRITE_EVENT_NAME:
+        assertThat(event.getPath()).isEqualTo(expected.getString("path"));
+        assertThat(event.getBytes()).isEqualTo(expected.getLong("bytesWritten"));
+        break;
+      case OLD_OBJECT_EVENT_NAME:
+        RecordedObject object = expected.getValue("object");
+        assertThat(event.getObjectClass()).isEqualTo(className(object, "type"));
+        break;
+    }
+  }
+
+  private static void assertSameThread(IMCThread thread, RecordedThread expected) {
+    if (expected == null || expected.getJavaThreadId() <= 0) {
+      // threads that are not java threads are not decoded
+      assertThat(thread).isNull();
+      return;
+    }
+    assertThat(thread.getThreadId()).isEqualTo(expected.getJavaThreadId());
+    assertThat(thread.getThreadName()).isEqualTo(expected.getJavaName());
+  }
+
+  private static void assertSameStackTrace(IMCStackTrace stackTrace, RecordedStackTrace expected) {
+    if (expected == null) {
+      assertThat(stackTrace).isNull();
+      return;
+    }
+    assertThat(stackTrace.getTruncationState().isTruncated()).isEqualTo(expected.isTruncated());
+    List<? extends IMCFrame> frames = stackTrace.getFrames();
+    List<RecordedFrame> expectedFrames = expected.getFrames();
+    assertThat(frames).hasSameSizeAs(expectedFrames);
+    for (int i = 0; i < frames.size(); i++) {
+      IMCFrame frame = frames.get(i);
+      RecordedFrame expectedFrame = expectedFrames.get(i);
+      IMCMethod method = frame.getMethod();
+      assertThat(method.getType().getFullName())
+          .isEqualTo(expectedFrame.getMethod().getType().getName());
+      assertThat(method.getMethodName()).isEqualTo(expectedFrame.getMethod().getName());
+      assertThat(method.getFormalDescriptor()).isEqualTo(expectedFrame.getMethod().getDescriptor());
+      assertThat(method.getModifier()).isEqualTo(expectedFrame.getMethod().getModifiers());
+      assertThat(frame.getFrameLineNumber()).isEqualTo(expectedFrame.getLineNumber());
+      assertThat(frame.getBCI()).isEqualTo(expectedFrame.getBytecodeIndex());
+    }
+  }
+
+  private static String className(RecordedObject object, String field) {
+    RecordedClass recordedClass = object.getClass(field);
+    return recordedClass != null ? recordedClass.getName() : null;
+  }
+
+  private static long toEpochNanos(Instant instant) {
+    return TimeUnit.SECONDS.toNanos(instant.getEpochSecond()) + instant.getNano();
+  }
+
+  private Path recordAllEvents() throws Exception {
+    Path file = tempDir.resolve("all-events.jfr");
+    List<byte[]> retained = new ArrayList<>();
+    try (Recording recording = new Recording()) {
+      recording.enable(ContextAttached.EVENT_NAME);
+      recording.enable(THREAD_DUMP_EVENT_NAME);
+      recording.enable(NEW_TLAB_EVENT_NAME).withStackTrace();
+      recording.enable(OUTSIDE_TLAB_EVENT_NAME).withStackTrace();
+      recording.enable(ALLOCATION_SAMPLE_EVENT_NAME).withStackTrace();
+      recording.enable(EXECUTION_SAMPLE_EVENT_NAME).withPeriod(Duration.ofMillis(10));
+      recording.enable(THREAD_PARK_EVENT_NAME).withThreshold(Duration.ZERO).withStackTrace();
+      recording.enable(FILE_WRITE_EVENT_NAME).withThreshold(Duration.ZERO).withStackTrace();
+      recording.enable(OLD_OBJECT_EVENT_NAME).withStackTrace().with("cutoff", "0 ns");
+      recording.start();
+
+      new ContextAttached(TRACE_ID, SPAN_ID, (byte) 1).commit();
+      for (int i = 0; i < 10_000; i++) {
+        retained.add(new byte[1024]);
+      }
+      // larger than any tlab
+      retained.add(new byte[16 * 1024 * 1024]);
+      LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(1));
+      Files.write(tempDir.resolve("data"), new byte[128]);
+      // keep the thread running java code so that it gets execution samples
+      long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(500);
+      long sum = 0;
+      while (System.nanoTime() < deadline) {
+        for (byte[] bytes : retained) {
+          sum += bytes.length;
+        }
+      }
+      assertThat(sum).isPositive();
+
+      recording.stop();
+      recording.dump(file);
+    }
+    // old object samples are emitted when the recording stops, for objects that are still alive
+    Reference.reachabilityFence(retained);
+    return file;
+  }
+
+  private Path record() throws Exception {
+    Path file = tempDir.resolve("recording.jfr");
+    try (Recording recording = new Recording()) {
+      recording.enable(ContextAttached.EVENT_NAME);
+      recording.enable(THREAD_DUMP_EVENT_NAME);
+      recording.start();
+      for (int i = 0; i < 3; i++) {
+        new ContextAttached(TRACE_ID, SPAN_ID, (byte) 1).commit();
+      }
+      recording.stop();
+      recording.dump(file);
+    }
+    return file;
+  }
+}
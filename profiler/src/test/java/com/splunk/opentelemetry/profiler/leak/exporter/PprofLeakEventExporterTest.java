@@ -0,0 +1,98 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.opentelemetry.profiler.leak.exporter;
+
+import static com.splunk.opentelemetry.profiler.StackTraceMocks.frame;
+import static com.splunk.opentelemetry.profiler.StackTraceMocks.stackTrace;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.google.perftools.profiles.ProfileProto.Profile;
+import com.splunk.opentelemetry.profiler.EventReader;
+import com.splunk.opentelemetry.profiler.ProfilingSemanticAttributes;
+import com.splunk.opentelemetry.profiler.exporter.InMemoryOtelLogger;
+import com.splunk.opentelemetry.profiler.pprof.PprofUtils;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.SpanId;
+import io.opentelemetry.api.trace.TraceFlags;
+import io.opentelemetry.api.trace.TraceId;
+import io.opentelemetry.api.trace.TraceState;
+import java.time.Instant;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmc.common.IMCStackTrace;
+import org.openjdk.jmc.common.item.IItem;
+import org.openjdk.jmc.common.item.IType;
+
+class PprofLeakEventExporterTest {
+  private final InMemoryOtelLogger logger = new InMemoryOtelLogger();
+  private final EventReader eventReader = mock(EventReader.class);
+  private final PprofLeakEventExporter exporter =
+      PprofLeakEventExporter.builder()
+          .eventReader(eventReader)
+          .otelLogger(logger)
+          .stackDepth(1024)
+          .build();
+
+  @Test
+  void noLogRecordWhenNothingToExport() {
+    exporter.flush();
+    assertThat(logger.records()).isEmpty();
+  }
+
+  @Test
+  void exportSampleWithObjectClassAgeAndSpan() throws Exception {
+    SpanContext spanContext =
+        SpanContext.create(
+            TraceId.fromLongs(123, 456),
+            SpanId.fromLong(123),
+            TraceFlags.getSampled(),
+            TraceState.getDefault());
+
+    exporter.export(event("byte[]", 1000, 60_000_000_000L), spanContext);
+    exporter.flush();
+
+    Profile profile = Profile.parseFrom(PprofUtils.deserialize(logger.records().get(0)));
+    assertThat(profile.getStringTable((int) profile.getSampleType(0).getType()))
+        .isEqualTo("objects");
+    assertThat(profile.getSampleCount()).isEqualTo(1);
+    assertThat(profile.getSample(0).getValueList()).containsExactly(1L);
+    assertThat(PprofUtils.toLabelString(profile.getSample(0), profile))
+        .contains(
+            entry(ProfilingSemanticAttributes.SOURCE_EVENT_NAME.getKey(), "jdk.OldObjectSample"))
+        .contains(entry(ProfilingSemanticAttributes.SOURCE_EVENT_TIME.getKey(), 1000L))
+        .contains(entry(ProfilingSemanticAttributes.OBJECT_AGE.getKey(), 60_000L))
+        .contains(entry(ProfilingSemanticAttributes.ALLOCATION_CLASS.getKey(), "byte[]"))
+        .contains(entry(ProfilingSemanticAttributes.TRACE_ID.getKey(), spanContext.getTraceId()))
+        .contains(entry(ProfilingSemanticAttributes.SPAN_ID.getKey(), spanContext.getSpanId()));
+  }
+
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private IItem event(String objectClass, long allocationTimeMillis, long ageNanos) {
+    IType type = mock(IType.class);
+    when(type.getIdentifier()).thenReturn("jdk.OldObjectSample");
+    IItem event = mock(IItem.class);
+    when(event.getType()).thenReturn(type);
+    when(eventReader.getStackTrace(event))
+        .thenReturn(stackTrace(frame("com.example.Cache", "put")));
+    when(eventReader.getObjectClass(event)).thenReturn(objectClass);
+    when(eventReader.getStartInstant(event)).thenReturn(Instant.ofEpochMilli(allocationTimeMillis));
+    when(eventReader.getDuration(event)).thenReturn(ageNanos);
+    return event;
+  }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.opentelemetry.profiler.pprof;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.google.perftools.profiles.ProfileProto.Profile;
+import com.google.perftools.profiles.ProfileProto.Sample;
+import com.splunk.opentelemetry.profiler.ProfilingDataFormat;
+import org.junit.jupiter.api.Test;
+
+class PprofSymbolsTest {
+  private final Pprof.OutputBuffer buffer = new Pprof.OutputBuffer();
+
+  @Test
+  void reuseLocationIdsAcrossProfiles() throws Exception {
+    PprofSymbols symbols = new PprofSymbols();
+
+    Pprof first = newPprof(symbols);
+    long firstId = first.getLocationId("Foo.java", "com.example.Foo", "run", 12);
+    first.addSample(Sample.newBuilder().addLocationId(firstId));
+    Profile firstProfile = PprofUtils.toProfile(first);
+
+    Pprof second = newPprof(symbols);
+    long secondId = second.getLocationId("Foo.java", "com.example.Foo", "run", 12);
+    second.addSample(Sample.newBuilder().addLocationId(secondId));
+    Profile secondProfile = PprofUtils.toProfile(second);
+
+    assertThat(secondId).isEqualTo(firstId);
+    // each profile contains the symbols it references
+    assertThat(functionName(firstProfile, firstId)).isEqualTo("com.example.Foo.run");
+    assertThat(functionName(secondProfile, secondId)).isEqualTo("com.example.Foo.run");
+    assertThat(secondProfile.getLocationCount()).isEqualTo(1);
+    assertThat(secondProfile.getFunctionCount()).isEqualTo(1);
+    assertThat(secondProfile.getStringTableList())
+        .containsExactly("", "Foo.java", "com.example.Foo.run");
+  }
+
+  @Test
+  void writeOnlyReferencedSymbols() throws Exception {
+    PprofSymbols symbols = new PprofSymbols();
+
+    Pprof first = newPprof(symbols);
+    first.getLocationId("Foo.java", "com.example.Foo", "run", 12);
+    first.getStringId("unused-in-second");
+    PprofUtils.toProfile(first);
+
+    Pprof second = newPprof(symbols);
+    long id = second.getLocationId("Bar.java", "com.example.Bar", "call", 3);
+    Profile profile = PprofUtils.toProfile(second);
+
+    assertThat(profile.getLocationCount()).isEqualTo(1);
+    assertThat(profile.getLocation(0).getId()).isEqualTo(id);
+    assertThat(profile.getStringTableList()).doesNotContain("unused-in-second", "Foo.java");
+  }
+
+  @Test
+  void boundNumberOfEntries() throws Exception {
+    PprofSymbols symbols = new PprofSymbols(16);
+
+    for (int profileIndex = 0; profileIndex < 10; profileIndex++) {
+      Pprof pprof = newPprof(symbols);
+      long[] ids = new long[40];
+      for (int i = 0; i < ids.length; i++) {
+        ids[i] = pprof.getLocationId("File" + i + ".java", "Class" + i, "method", i);
+      }
+      Profile profile = PprofUtils.toProfile(pprof);
+
+      assertThat(symbols.size()).isLessThanOrEqualTo(3 * 16);
+      for (int i = 0; i < ids.length; i++) {
+        assertThat(functionName(profile, ids[i])).isEqualTo("Class" + i + ".method");
+      }
+    }
+  }
+
+  @Test
+  void rejectLookupsFromPreviousProfile() {
+    PprofSymbols symbols = new PprofSymbols();
+    Pprof first = newPprof(symbols);
+    newPprof(symbols);
+
+    assertThatThrownBy(() -> first.getStringId("test")).isInstanceOf(IllegalStateException.class);
+  }
+
+  private Pprof newPprof(PprofSymbols symbols) {
+    return new Pprof(buffer, ProfilingDataFormat.PPROF_GZIP_BASE64, symbols);
+  }
+
+  private static String functionName(Profile profile, long locationId) {
+    var location =
+        profile.getLocationList().stream()
+            .filter(candidate -> candidate.getId() == locationId)
+            .findFirst()
+            .orElseThrow();
+    var function =
+        profile.getFunctionList().stream()
+            .filter(candidate -> candidate.getId() == location.getLine(0).getFunctionId())
+            .findFirst()
+            .orElseThrow();
+    return profile.getStringTable((int) function.getName());
+  }
+}
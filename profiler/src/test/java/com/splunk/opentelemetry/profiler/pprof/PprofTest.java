@@ -0,0 +1,101 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.opentelemetry.profiler.pprof;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.google.perftools.profiles.ProfileProto.Profile;
+import com.google.perftools.profiles.ProfileProto.Sample;
+import com.google.perftools.profiles.ProfileProto.ValueType;
+import org.junit.jupiter.api.Test;
+
+class PprofTest {
+
+  @Test
+  void streamedProfileDecodesToBuiltProfile() throws Exception {
+    Pprof pprof = new Pprof();
+    pprof
+        .getProfileBuilder()
+        .addSampleType(
+            ValueType.newBuilder()
+                .setType(pprof.getStringId("samples"))
+                .setUnit(pprof.getStringId("count"))
+                .build())
+        .setPeriod(10);
+    long first = pprof.getLocationId("Foo.java", "com.example.Foo", "run", 12);
+    long second = pprof.getLocationId("Bar.java", "com.example.Bar", "call", 7);
+
+    Sample.Builder sample = Sample.newBuilder().addLocationId(first).addLocationId(second);
+    sample.addValue(3);
+    pprof.addLabel(sample, "thread.name", "main");
+    pprof.addSample(sample);
+    // same location is reused
+    assertThat(pprof.getLocationId("Foo.java", "com.example.Foo", "run", 12)).isEqualTo(first);
+    assertThat(pprof.hasSamples()).isTrue();
+
+    Profile profile = PprofUtils.toProfile(pprof);
+
+    assertThat(profile.getStringTable(0)).isEmpty();
+    assertThat(profile.getStringTable((int) profile.getSampleType(0).getType()))
+        .isEqualTo("samples");
+    assertThat(profile.getPeriod()).isEqualTo(10);
+    assertThat(profile.getLocationCount()).isEqualTo(2);
+    assertThat(profile.getFunctionCount()).isEqualTo(2);
+    assertThat(profile.getSampleCount()).isEqualTo(1);
+
+    Sample decoded = profile.getSample(0);
+    assertThat(decoded.getLocationIdList()).containsExactly(first, second);
+    assertThat(decoded.getValueList()).containsExactly(3L);
+    assertThat(PprofUtils.toLabelString(decoded, profile)).containsEntry("thread.name", "main");
+
+    var location = profile.getLocation((int) first - 1);
+    assertThat(location.getId()).isEqualTo(first);
+    assertThat(location.getLine(0).getLine()).isEqualTo(12);
+    var function = profile.getFunction((int) location.getLine(0).getFunctionId() - 1);
+    assertThat(profile.getStringTable((int) function.getName())).isEqualTo("com.example.Foo.run");
+    assertThat(profile.getStringTable((int) function.getFilename())).isEqualTo("Foo.java");
+  }
+
+  @Test
+  void reuseOutputBuffer() throws Exception {
+    Pprof.OutputBuffer buffer = new Pprof.OutputBuffer();
+
+    Pprof first = new Pprof(buffer);
+    first.addSample(Sample.newBuilder().addValue(1));
+    Profile firstProfile = PprofUtils.toProfile(first);
+
+    Pprof second = new Pprof(buffer);
+    second.addSample(Sample.newBuilder().addValue(2));
+    second.addSample(Sample.newBuilder().addValue(3));
+    Profile secondProfile = PprofUtils.toProfile(second);
+
+    assertThat(firstProfile.getSampleCount()).isEqualTo(1);
+    assertThat(secondProfile.getSampleCount()).isEqualTo(2);
+    assertThat(secondProfile.getSample(1).getValue(0)).isEqualTo(3);
+  }
+
+  @Test
+  void rejectDataAfterSerialize() {
+    Pprof pprof = new Pprof();
+    pprof.serialize();
+
+    assertThatThrownBy(() -> pprof.addSample(Sample.newBuilder()))
+        .isInstanceOf(IllegalStateException.class);
+    assertThatThrownBy(pprof::serialize).isInstanceOf(IllegalStateException.class);
+  }
+}
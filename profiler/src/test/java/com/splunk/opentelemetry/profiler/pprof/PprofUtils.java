@@ -19,9 +19,11 @@ package com.splunk.opentelemetry.profiler.pprof;
 import com.google.perftools.profiles.ProfileProto.Profile;
 import com.google.perftools.profiles.ProfileProto.Sample;
 import io.opentelemetry.api.common.Value;
+import io.opentelemetry.api.common.ValueType;
 import io.opentelemetry.sdk.logs.data.LogRecordData;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.Base64;
 import java.util.HashMap;
 import java.util.Map;
@@ -34,11 +36,22 @@ public class PprofUtils {
     return inputStream.readAllBytes();
   }
 
+  public static Profile toProfile(Pprof pprof) throws IOException {
+    var bytes = new ByteArrayInputStream(Base64.getDecoder().decode(pprof.serialize()));
+    return Profile.parseFrom(new GZIPInputStream(bytes));
+  }
+
   public static byte[] decode(LogRecordData logRecord) {
     Value<?> body = logRecord.getBodyValue();
     if (body == null) {
       throw new RuntimeException("Log record body is null");
     }
+    if (body.getType() == ValueType.BYTES) {
+      ByteBuffer buffer = ((ByteBuffer) body.getValue()).duplicate();
+      byte[] bytes = new byte[buffer.remaining()];
+      buffer.get(bytes);
+      return bytes;
+    }
     return Base64.getDecoder().decode(body.asString());
   }
 
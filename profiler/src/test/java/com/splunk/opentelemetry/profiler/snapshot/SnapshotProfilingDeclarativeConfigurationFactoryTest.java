@@ -19,6 +19,7 @@ package com.splunk.opentelemetry.profiler.snapshot;
 import static com.splunk.opentelemetry.testing.declarativeconfig.DeclarativeConfigTestUtil.getProfilingConfig;
 import static org.assertj.core.api.Assertions.assertThat;
 
+import com.splunk.opentelemetry.profiler.ProfilingDataFormat;
 import com.splunk.opentelemetry.testing.declarativeconfig.DeclarativeConfigTestUtil;
 import io.opentelemetry.api.incubator.config.DeclarativeConfigProperties;
 import io.opentelemetry.sdk.autoconfigure.declarativeconfig.model.OpenTelemetryConfigurationModel;
@@ -42,6 +43,7 @@ class SnapshotProfilingDeclarativeConfigurationFactoryTest {
                     selection_probability: 0.0123 # SPLUNK_SNAPSHOT_SELECTION_PROBABILITY
                     stack_depth: 200              # SPLUNK_SNAPSHOT_STACK_DEPTH
                     staging_capacity: 7           # SPLUNK_SNAPSHOT_STAGING_CAPACITY
+                    data_format: pprof-gzip       # SPLUNK_SNAPSHOT_PROFILER_DATA_FORMAT
             """);
 
     DeclarativeConfigProperties profilingConfig = getProfilingConfig(model);
@@ -57,6 +59,7 @@ class SnapshotProfilingDeclarativeConfigurationFactoryTest {
     assertThat(config.getSamplingInterval()).isEqualTo(Duration.ofMillis(10));
     assertThat(config.getExportInterval()).isEqualTo(Duration.ofMillis(20));
     assertThat(config.getStagingCapacity()).isEqualTo(7);
+    assertThat(config.getDataFormat()).isEqualTo(ProfilingDataFormat.PPROF_GZIP);
   }
 
   @Test
@@ -85,6 +88,7 @@ class SnapshotProfilingDeclarativeConfigurationFactoryTest {
     assertThat(config.getSamplingInterval()).isEqualTo(Duration.ofMillis(10));
     assertThat(config.getExportInterval()).isEqualTo(Duration.ofSeconds(5));
     assertThat(config.getStagingCapacity()).isEqualTo(2000);
+    assertThat(config.getDataFormat()).isEqualTo(ProfilingDataFormat.PPROF_GZIP_BASE64);
   }
 
   @Test
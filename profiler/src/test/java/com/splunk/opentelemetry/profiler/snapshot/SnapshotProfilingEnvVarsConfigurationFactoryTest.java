@@ -18,6 +18,7 @@ package com.splunk.opentelemetry.profiler.snapshot;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import com.splunk.opentelemetry.profiler.ProfilingDataFormat;
 import io.opentelemetry.common.ComponentLoader;
 import io.opentelemetry.sdk.autoconfigure.spi.internal.DefaultConfigProperties;
 import java.time.Duration;
@@ -198,6 +199,22 @@ class SnapshotProfilingEnvVarsConfigurationFactoryTest {
     // then
     assertThat(actual).isEqualTo(capacity);
   }
+
+  @Test
+  void shouldReturnDataFormat() {
+    // given
+    var properties =
+        DefaultConfigProperties.create(
+            Map.of(SnapshotProfilingEnvVarsConfigurationFactory.DATA_FORMAT_KEY, "pprof-gzip"),
+            COMPONENT_LOADER);
+    var configuration = SnapshotProfilingEnvVarsConfigurationFactory.create(properties);
+
+    // when
+    ProfilingDataFormat actual = configuration.getDataFormat();
+
+    // then
+    assertThat(actual).isEqualTo(ProfilingDataFormat.PPROF_GZIP);
+  }
   /*
   @Nested
   class DeclarativeConfigTest {
@@ -9,6 +9,11 @@ repositories {
 
 dependencies {
   implementation(project(":profiler"))
+  jmh("io.opentelemetry:opentelemetry-api")
+  jmh("com.google.protobuf:protobuf-java")
+  jmh("org.openjdk.jmc:flightrecorder:8.3.1")
+  // the snapshot profiler context storage wrappers use the instrumentation api caches
+  jmh("io.opentelemetry.instrumentation:opentelemetry-instrumentation-api")
   testImplementation("org.junit.jupiter:junit-jupiter-api")
   testRuntimeOnly("org.junit.jupiter:junit-jupiter-engine")
   testRuntimeOnly("org.junit.platform:junit-platform-launcher")
@@ -19,8 +24,18 @@ tasks.named<Test>("test") {
 }
 
 jmh {
+  // the gc profiler also reports the normalized allocation rate, gc.alloc.rate.norm
   profilers.add("gc")
   warmupIterations.set(2)
   iterations.set(10)
   fork.set(2)
+  resultFormat.set("JSON")
+  resultsFile.set(layout.buildDirectory.file("results/jmh/results.json"))
+}
+
+// Records the results of the last jmh run as a local baseline that later runs are compared against,
+// baseline results are machine specific and not committed.
+tasks.register<Copy>("jmhBaseline") {
+  from(layout.buildDirectory.file("results/jmh/results.json"))
+  into(layout.projectDirectory.dir("baseline"))
 }
@@ -0,0 +1,77 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.opentelemetry.profiler;
+
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.TraceFlags;
+import io.opentelemetry.api.trace.TraceState;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.ContextStorage;
+import io.opentelemetry.context.Scope;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Shared parts of the benchmarks of the {@link ContextStorage} wrappers. Attach and close calls are
+ * made in batches on a platform or a virtual thread, the cost of handing a batch to the thread is
+ * spread over {@link #BATCH_SIZE} operations and is the same for the wrappers and the plain
+ * delegate they are compared against.
+ */
+public final class ContextStorageBenchmarkSupport {
+  public static final int BATCH_SIZE = 10_000;
+  public static final String TRACE_ID = "0af7651916cd43dd8448eb211c80319c";
+
+  private ContextStorageBenchmarkSupport() {}
+
+  /** Returns a context with a span of the benchmark trace. */
+  public static Context spanContext(boolean sampled) {
+    SpanContext spanContext =
+        SpanContext.create(
+            TRACE_ID,
+            "b7ad6b7169203331",
+            sampled ? TraceFlags.getSampled() : TraceFlags.getDefault(),
+            TraceState.getDefault());
+    return Context.root().with(Span.wrap(spanContext));
+  }
+
+  /**
+   * Returns an executor that runs the batches on platform threads or on virtual threads, virtual
+   * threads require Java 21.
+   */
+  public static ExecutorService newExecutor(String threadKind) throws Exception {
+    if ("virtual".equals(threadKind)) {
+      return (ExecutorService)
+          Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+    }
+    return Executors.newCachedThreadPool();
+  }
+
+  /** Attaches and closes the context {@link #BATCH_SIZE} times on a thread of the executor. */
+  public static void attachAndClose(
+      ExecutorService executor, ContextStorage storage, Context context) throws Exception {
+    executor
+        .submit(
+            () -> {
+              for (int i = 0; i < BATCH_SIZE; i++) {
+                Scope scope = storage.attach(context);
+                scope.close();
+              }
+            })
+        .get();
+  }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.opentelemetry.profiler;
+
+import static com.splunk.opentelemetry.profiler.ContextStorageBenchmarkSupport.BATCH_SIZE;
+
+import com.splunk.opentelemetry.profiler.context.ThreadContextSlots;
+import com.splunk.opentelemetry.profiler.events.ContextAttached;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.ContextStorage;
+import java.util.concurrent.ExecutorService;
+import jdk.jfr.Recording;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+/**
+ * Cost that {@link JfrContextStorage} adds to attaching and closing a context. The {@code delegate}
+ * storage is the plain context storage without the wrapper, {@code events} publishes the active
+ * span with ContextAttached events to a running recording and {@code slots} with {@link
+ * ThreadContextSlots}.
+ */
+@State(Scope.Benchmark)
+public class JfrContextStorageBenchmark {
+
+  @Param({"delegate", "events", "slots"})
+  public String storage;
+
+  @Param({"true", "false"})
+  public boolean profilerEnabled;
+
+  @Param({"true", "false"})
+  public boolean sampled;
+
+  @Param({"platform", "virtual"})
+  public String threadKind;
+
+  private ContextStorage contextStorage;
+  private Context context;
+  private ExecutorService executor;
+  private Recording recording;
+
+  @Setup(Level.Trial)
+  public void setup() throws Exception {
+    ContextStorage delegate = ContextStorage.defaultStorage();
+    if ("delegate".equals(storage)) {
+      contextStorage = delegate;
+    } else {
+      JfrContextStorage jfrContextStorage = new JfrContextStorage(delegate);
+      jfrContextStorage.setEnabled(profilerEnabled);
+      if ("slots".equals(storage)) {
+        jfrContextStorage.setThreadContextSlots(ThreadContextSlots.getInstance());
+      } else if (profilerEnabled) {
+        recording = new Recording();
+        recording.enable(ContextAttached.EVENT_NAME);
+        recording.start();
+      }
+      contextStorage = jfrContextStorage;
+    }
+    context = ContextStorageBenchmarkSupport.spanContext(sampled);
+    executor = ContextStorageBenchmarkSupport.newExecutor(threadKind);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    executor.shutdownNow();
+    if (recording != null) {
+      recording.close();
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BATCH_SIZE)
+  public void attachAndClose() throws Exception {
+    ContextStorageBenchmarkSupport.attachAndClose(executor, contextStorage, context);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BATCH_SIZE)
+  @Threads(8)
+  public void attachAndCloseContended() throws Exception {
+    ContextStorageBenchmarkSupport.attachAndClose(executor, contextStorage, context);
+  }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.opentelemetry.profiler;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.openjdk.jmc.common.item.IItem;
+
+/**
+ * Synthetic recordings shared by the benchmarks. A recording is made by {@link JfrFileMaker} the
+ * first time it is needed and reused by later runs, delete the files to record them again.
+ */
+public class JfrCorpus {
+  private static final int RECORDING_SECONDS = 20;
+
+  private JfrCorpus() {}
+
+  /** Returns a recording of the given number of threads with thread dumps only. */
+  public static Path threadDumps(int threads, int stackDepth) throws Exception {
+    return recording(threads, stackDepth, 0);
+  }
+
+  /** Returns a recording with thread dumps and allocation events. */
+  public static Path recording(int threads, int stackDepth, long allocationRate)
+      throws Exception {
+    Path file =
+        Path.of("corpus-t" + threads + "-d" + stackDepth + "-a" + allocationRate + ".jfr");
+    JfrFileMaker.ensureExists(file, RECORDING_SECONDS, threads, stackDepth, allocationRate);
+    return file;
+  }
+
+  /** Reads the events with the given names, converted the same way as by the streaming recorder. */
+  public static List<IItem> readEvents(Path file, String... eventNames) throws Exception {
+    Set<String> names = new HashSet<>(Arrays.asList(eventNames));
+    RecordedEventConverter converter = new RecordedEventConverter();
+    List<IItem> events = new ArrayList<>();
+    try (RecordingFile recordingFile = new RecordingFile(file)) {
+      while (recordingFile.hasMoreEvents()) {
+        RecordedEvent event = recordingFile.readEvent();
+        if (names.contains(event.getEventType().getName())) {
+          events.add(converter.convert(event));
+        }
+      }
+    }
+    return events;
+  }
+
+  /** Returns the result strings of the thread dumps in the recording. */
+  public static List<String> readThreadDumps(Path file) throws Exception {
+    EventReader eventReader = new EventReader();
+    List<String> threadDumps = new ArrayList<>();
+    for (IItem event : readEvents(file, ThreadDumpProcessor.EVENT_NAME)) {
+      threadDumps.add(eventReader.getThreadDumpResult(event));
+    }
+    return threadDumps;
+  }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.opentelemetry.profiler;
+
+import com.splunk.opentelemetry.profiler.allocation.exporter.PprofAllocationEventExporter;
+import com.splunk.opentelemetry.profiler.context.SpanContextualizer;
+import com.splunk.opentelemetry.profiler.exporter.PprofCpuEventExporter;
+import io.opentelemetry.api.logs.Logger;
+import io.opentelemetry.api.logs.LoggerProvider;
+import java.io.ByteArrayInputStream;
+import java.nio.file.Files;
+import java.time.Duration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Runs a whole recording through the processing pipeline: parsing the chunks, linking stacks to
+ * spans, filtering, building and serializing the cpu and allocation profiles.
+ */
+@State(Scope.Benchmark)
+public class JfrRecordingHandlerBenchmark {
+
+  @Param({"40", "400"})
+  public int threads;
+
+  @Param({"16"})
+  public int stackDepth;
+
+  @Param({"0", "1000000"})
+  public long allocationRate;
+
+  @Param({"false", "true"})
+  public boolean useChunkDecoder;
+
+  private byte[] recording;
+  private JfrRecordingHandler handler;
+
+  @Setup(Level.Trial)
+  public void setup() throws Exception {
+    recording = Files.readAllBytes(JfrCorpus.recording(threads, stackDepth, allocationRate));
+
+    Logger otelLogger = LoggerProvider.noop().get("benchmark");
+    EventReader eventReader = new EventReader();
+    SpanContextualizer spanContextualizer = new SpanContextualizer(eventReader);
+    StackTraceFilter stackTraceFilter = new StackTraceFilter(eventReader, false);
+    ThreadDumpProcessor threadDumpProcessor =
+        ThreadDumpProcessor.builder()
+            .eventReader(eventReader)
+            .spanContextualizer(spanContextualizer)
+            .cpuEventExporter(
+                PprofCpuEventExporter.builder()
+                    .otelLogger(otelLogger)
+                    .period(Duration.ofSeconds(10))
+                    .stackDepth(1024)
+                    .build())
+            .stackTraceFilter(stackTraceFilter)
+            .build();
+    TLABProcessor tlabProcessor =
+        new TLABProcessor.Builder(allocationRate > 0)
+            .eventReader(eventReader)
+            .allocationEventExporter(
+                PprofAllocationEventExporter.builder()
+                    .eventReader(eventReader)
+                    .otelLogger(otelLogger)
+                    .stackDepth(1024)
+                    .build())
+            .spanContextualizer(spanContextualizer)
+            .stackTraceFilter(stackTraceFilter)
+            .build();
+    EventProcessingChain eventProcessingChain =
+        new EventProcessingChain(
+            eventReader, spanContextualizer, threadDumpProcessor, tlabProcessor);
+    handler =
+        JfrRecordingHandler.builder()
+            .eventProcessingChain(eventProcessingChain)
+            .useChunkDecoder(useChunkDecoder)
+            .build();
+  }
+
+  @Benchmark
+  public void processRecording() {
+    handler.accept(new ByteArrayInputStream(recording));
+  }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.opentelemetry.profiler;
+
+import com.splunk.opentelemetry.profiler.allocation.exporter.PprofAllocationEventExporter;
+import com.splunk.opentelemetry.profiler.allocation.sampler.RateLimitingAllocationEventSampler;
+import com.splunk.opentelemetry.profiler.context.SpanContextualizer;
+import io.opentelemetry.api.logs.LoggerProvider;
+import java.util.List;
+import org.openjdk.jmc.common.item.IItem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Filters, samples, links and exports the allocation events of a recording, the same way as when
+ * the memory profiler is enabled.
+ */
+@State(Scope.Benchmark)
+public class TLABProcessorBenchmark {
+
+  @Param({"40"})
+  public int threads;
+
+  @Param({"16", "128"})
+  public int stackDepth;
+
+  @Param({"1000000"})
+  public long allocationRate;
+
+  @Param({"none", "rate", "weighted"})
+  public String sampler;
+
+  private List<IItem> events;
+  private TLABProcessor processor;
+
+  @Setup(Level.Trial)
+  public void setup() throws Exception {
+    events =
+        JfrCorpus.readEvents(
+            JfrCorpus.recording(threads, stackDepth, allocationRate),
+            TLABProcessor.NEW_TLAB_EVENT_NAME,
+            TLABProcessor.OUTSIDE_TLAB_EVENT_NAME,
+            TLABProcessor.ALLOCATION_SAMPLE_EVENT_NAME);
+    EventReader eventReader = new EventReader();
+    TLABProcessor.Builder builder =
+        new TLABProcessor.Builder(true)
+            .eventReader(eventReader)
+            .allocationEventExporter(
+                PprofAllocationEventExporter.builder()
+                    .eventReader(eventReader)
+                    .otelLogger(LoggerProvider.noop().get("benchmark"))
+                    .stackDepth(1024)
+                    .build())
+            .spanContextualizer(new SpanContextualizer(eventReader))
+            .stackTraceFilter(new StackTraceFilter(eventReader, false));
+    if ("rate".equals(sampler)) {
+      builder.sampler(new RateLimitingAllocationEventSampler("150/s"));
+    } else if ("weighted".equals(sampler)) {
+      builder.weightedSampler("150/s");
+    }
+    processor = builder.build();
+  }
+
+  @Benchmark
+  public void processAllocations() {
+    for (IItem event : events) {
+      processor.accept(event);
+    }
+    processor.flush();
+  }
+}
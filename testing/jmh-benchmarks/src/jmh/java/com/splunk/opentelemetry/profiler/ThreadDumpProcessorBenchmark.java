@@ -20,7 +20,6 @@ import com.splunk.opentelemetry.profiler.context.SpanContextualizer;
 import com.splunk.opentelemetry.profiler.context.StackToSpanLinkage;
 import com.splunk.opentelemetry.profiler.exporter.CpuEventExporter;
 import com.splunk.opentelemetry.profiler.old.AgentInternalsFilter;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
@@ -28,6 +27,7 @@ import java.util.function.Consumer;
 import java.util.function.Predicate;
 import jdk.jfr.consumer.RecordedEvent;
 import jdk.jfr.consumer.RecordingFile;
+import org.openjdk.jmc.common.item.IItem;
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.Level;
 import org.openjdk.jmh.annotations.Scope;
@@ -36,37 +36,15 @@ import org.openjdk.jmh.annotations.State;
 
 public class ThreadDumpProcessorBenchmark {
 
-  public static final Path JFR_FILE = Path.of("benchmark.jfr");
-
-  public ThreadDumpProcessorBenchmark() {
-    try {
-      ensureJfrFileExists();
-    } catch (Exception e) {
-      throw new RuntimeException(e);
-    }
-  }
-
-  private void ensureJfrFileExists() throws Exception {
-    if (Files.exists(JFR_FILE)) {
-      return;
-    }
-    System.out.println("Waiting for subprocess to create JFR file");
-    String path = JfrFileMaker.class.getProtectionDomain().getCodeSource().getLocation().getPath();
-    String cmd = "java -cp " + path + " " + JfrFileMaker.class.getName() + " " + JFR_FILE + " 60";
-    Process exec = Runtime.getRuntime().exec(cmd);
-    int rc = exec.waitFor();
-    if (rc != 0) {
-      System.out.println("rc = " + rc);
-      throw new IllegalStateException("NO JFR FILE");
-    }
-  }
-
   private static ThreadDumpProcessor buildNewThreadDumpProcessor() {
-    SpanContextualizer contextualizer = new SpanContextualizer(new EventReader());
+    EventReader eventReader = new EventReader();
+    SpanContextualizer contextualizer = new SpanContextualizer(eventReader);
     CpuEventExporter cpuEventExporter = x -> {};
     return ThreadDumpProcessor.builder()
+        .eventReader(eventReader)
         .cpuEventExporter(cpuEventExporter)
         .spanContextualizer(contextualizer)
+        .stackTraceFilter(new StackTraceFilter(eventReader, false))
         .build();
   }
 
@@ -79,11 +57,10 @@ public class ThreadDumpProcessorBenchmark {
         contextualizer, processor, filter);
   }
 
-  // TODO: Not sure what to do with this or if we want to continue maintaining it
-  //  @Benchmark
-  //  public void newThreadDumpProcessor(RecordingFileState state) {
-  //    state.newThreadDumpProcessor.accept(state.nextEvent());
-  //  }
+  @Benchmark
+  public void newThreadDumpProcessor(RecordingFileState state) {
+    state.newThreadDumpProcessor.accept(state.nextConvertedEvent());
+  }
 
   @Benchmark
   public void oldThreadDumpProcessor(RecordingFileState state) {
@@ -96,31 +73,38 @@ public class ThreadDumpProcessorBenchmark {
     public final com.splunk.opentelemetry.profiler.old.ThreadDumpProcessor oldThreadDumpProcessor =
         buildOldThreadDumpProcessor();
 
-    public static final Path JFR_FILE = Path.of("benchmark.jfr");
-
     List<RecordedEvent> events = new ArrayList<>();
+    List<IItem> convertedEvents = new ArrayList<>();
     int index = 0;
 
     @Setup(Level.Trial)
     public void setup() throws Exception {
-      RecordingFile recordingFile = new RecordingFile(JFR_FILE);
-      while (recordingFile.hasMoreEvents()) {
-        RecordedEvent event = recordingFile.readEvent();
-        if (event.getEventType().getName().equals("jdk.ThreadDump")) {
-          events.add(event);
+      Path jfrFile =
+          JfrCorpus.threadDumps(JfrFileMaker.DEFAULT_THREADS, JfrFileMaker.DEFAULT_STACK_DEPTH);
+      RecordedEventConverter converter = new RecordedEventConverter();
+      try (RecordingFile recordingFile = new RecordingFile(jfrFile)) {
+        while (recordingFile.hasMoreEvents()) {
+          RecordedEvent event = recordingFile.readEvent();
+          if (event.getEventType().getName().equals(ThreadDumpProcessor.EVENT_NAME)) {
+            events.add(event);
+            convertedEvents.add(converter.convert(event));
+          }
         }
       }
-      recordingFile.close();
     }
 
     public RecordedEvent nextEvent() {
-      try {
-        return events.get(index++);
-      } finally {
-        if (index >= events.size()) {
-          index = 0;
-        }
-      }
+      return events.get(nextIndex());
+    }
+
+    public IItem nextConvertedEvent() {
+      return convertedEvents.get(nextIndex());
+    }
+
+    private int nextIndex() {
+      int result = index;
+      index = (index + 1) % events.size();
+      return result;
     }
   }
 }
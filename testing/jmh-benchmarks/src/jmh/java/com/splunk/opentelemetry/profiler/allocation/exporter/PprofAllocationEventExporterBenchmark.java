@@ -0,0 +1,85 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.opentelemetry.profiler.allocation.exporter;
+
+import com.splunk.opentelemetry.profiler.EventReader;
+import com.splunk.opentelemetry.profiler.JfrCorpus;
+import com.splunk.opentelemetry.profiler.TLABProcessor;
+import io.opentelemetry.api.logs.LoggerProvider;
+import java.util.List;
+import org.openjdk.jmc.common.item.IItem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/** Exports the allocation events of a recording and serializes the resulting profile. */
+@State(Scope.Benchmark)
+public class PprofAllocationEventExporterBenchmark {
+
+  @Param({"40"})
+  public int threads;
+
+  @Param({"16", "128"})
+  public int stackDepth;
+
+  @Param({"1000000"})
+  public long allocationRate;
+
+  @Param({"false", "true"})
+  public boolean aggregateStacks;
+
+  private List<IItem> events;
+  private long[] weights;
+  private PprofAllocationEventExporter exporter;
+
+  @Setup(Level.Trial)
+  public void setup() throws Exception {
+    events =
+        JfrCorpus.readEvents(
+            JfrCorpus.recording(threads, stackDepth, allocationRate),
+            TLABProcessor.NEW_TLAB_EVENT_NAME,
+            TLABProcessor.OUTSIDE_TLAB_EVENT_NAME,
+            TLABProcessor.ALLOCATION_SAMPLE_EVENT_NAME);
+    EventReader eventReader = new EventReader();
+    weights = new long[events.size()];
+    for (int i = 0; i < weights.length; i++) {
+      IItem event = events.get(i);
+      weights[i] =
+          TLABProcessor.ALLOCATION_SAMPLE_EVENT_NAME.equals(event.getType().getIdentifier())
+              ? eventReader.getSampleWeight(event)
+              : eventReader.getAllocationSize(event);
+    }
+    exporter =
+        PprofAllocationEventExporter.builder()
+            .eventReader(eventReader)
+            .otelLogger(LoggerProvider.noop().get("benchmark"))
+            .stackDepth(1024)
+            .aggregateStacks(aggregateStacks)
+            .build();
+  }
+
+  @Benchmark
+  public void exportAllocations() {
+    for (int i = 0; i < weights.length; i++) {
+      exporter.export(events.get(i), null, null, weights[i]);
+    }
+    exporter.flush();
+  }
+}
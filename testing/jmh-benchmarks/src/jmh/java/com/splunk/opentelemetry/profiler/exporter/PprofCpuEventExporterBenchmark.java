@@ -0,0 +1,78 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.opentelemetry.profiler.exporter;
+
+import com.splunk.opentelemetry.profiler.JfrCorpus;
+import com.splunk.opentelemetry.profiler.ThreadDumpProcessor;
+import com.splunk.opentelemetry.profiler.ThreadDumpRegion;
+import com.splunk.opentelemetry.profiler.context.SpanLinkage;
+import io.opentelemetry.api.logs.LoggerProvider;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/** Exports the stacks of one thread dump and serializes the resulting profile. */
+@State(Scope.Benchmark)
+public class PprofCpuEventExporterBenchmark {
+  private static final Instant TIME = Instant.ofEpochSecond(1_700_000_000L);
+
+  @Param({"40", "400"})
+  public int threads;
+
+  @Param({"16", "128"})
+  public int stackDepth;
+
+  @Param({"false", "true"})
+  public boolean aggregateStacks;
+
+  private List<String> threadDumps;
+  private int index;
+  private PprofCpuEventExporter exporter;
+
+  @Setup(Level.Trial)
+  public void setup() throws Exception {
+    threadDumps = JfrCorpus.readThreadDumps(JfrCorpus.threadDumps(threads, stackDepth));
+    exporter =
+        PprofCpuEventExporter.builder()
+            .otelLogger(LoggerProvider.noop().get("benchmark"))
+            .period(Duration.ofSeconds(10))
+            .stackDepth(1024)
+            .aggregateStacks(aggregateStacks)
+            .build();
+  }
+
+  @Benchmark
+  public void exportThreadDump() {
+    ThreadDumpRegion region = new ThreadDumpRegion(nextThreadDump(), 0, 0);
+    while (region.findNextStack()) {
+      exporter.export(region, TIME, ThreadDumpProcessor.EVENT_NAME, SpanLinkage.NONE);
+    }
+    exporter.flush();
+  }
+
+  private String nextThreadDump() {
+    String threadDump = threadDumps.get(index);
+    index = (index + 1) % threadDumps.size();
+    return threadDump;
+  }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.opentelemetry.profiler.exporter;
+
+import com.splunk.opentelemetry.profiler.JfrCorpus;
+import com.splunk.opentelemetry.profiler.ThreadDumpRegion;
+import java.util.ArrayList;
+import java.util.List;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/** Parses every stack of a thread dump, with both stack parsers. */
+@State(Scope.Benchmark)
+public class StackTraceParserBenchmark {
+  private static final int STACK_DEPTH = 1024;
+
+  @Param({"40", "400"})
+  public int threads;
+
+  @Param({"16", "128"})
+  public int stackDepth;
+
+  private String threadDump;
+  private final List<String> stacks = new ArrayList<>();
+  private final ThreadDumpStackParser threadDumpStackParser = new ThreadDumpStackParser();
+
+  @Setup(Level.Trial)
+  public void setup() throws Exception {
+    List<String> threadDumps =
+        JfrCorpus.readThreadDumps(JfrCorpus.threadDumps(threads, stackDepth));
+    threadDump = threadDumps.get(threadDumps.size() / 2);
+    ThreadDumpRegion region = new ThreadDumpRegion(threadDump, 0, 0);
+    while (region.findNextStack()) {
+      stacks.add(region.getCurrentRegion());
+    }
+  }
+
+  @Benchmark
+  public void stackTraceParser(Blackhole blackhole) {
+    for (String stack : stacks) {
+      blackhole.consume(StackTraceParser.parse(stack, STACK_DEPTH));
+    }
+  }
+
+  @Benchmark
+  public void threadDumpStackParser(Blackhole blackhole) {
+    ThreadDumpRegion region = new ThreadDumpRegion(threadDump, 0, 0);
+    while (region.findNextStack()) {
+      blackhole.consume(threadDumpStackParser.parse(region, STACK_DEPTH));
+    }
+  }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.opentelemetry.profiler.pprof;
+
+import com.google.perftools.profiles.ProfileProto.Sample;
+import com.splunk.opentelemetry.profiler.ProfilingDataFormat;
+import java.util.Random;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Builds a profile from synthetic stacks and serializes it. Building the profile fills the string
+ * and location tables, serializing compresses and encodes the result.
+ */
+@State(Scope.Benchmark)
+public class PprofBenchmark {
+  private static final int CLASS_COUNT = 200;
+  private static final int METHOD_COUNT = 20;
+  private static final int THREAD_COUNT = 40;
+
+  @Param({"100", "1000"})
+  public int samples;
+
+  @Param({"16", "128"})
+  public int stackDepth;
+
+  @Param({"PPROF_GZIP_BASE64", "PPROF_GZIP"})
+  public ProfilingDataFormat dataFormat;
+
+  private String[] classNames;
+  private String[] methodNames;
+  private String[] threadNames;
+  // frames of each sample, as indexes into the class and method names
+  private int[][] stacks;
+  private final Pprof.OutputBuffer outputBuffer = new Pprof.OutputBuffer();
+  private final PprofSymbols symbols = new PprofSymbols();
+  private Pprof builtPprof;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    classNames = new String[CLASS_COUNT];
+    for (int i = 0; i < CLASS_COUNT; i++) {
+      classNames[i] = "com.example.service" + (i % 10) + ".Component" + i;
+    }
+    methodNames = new String[METHOD_COUNT];
+    for (int i = 0; i < METHOD_COUNT; i++) {
+      methodNames[i] = "method" + i;
+    }
+    threadNames = new String[THREAD_COUNT];
+    for (int i = 0; i < THREAD_COUNT; i++) {
+      threadNames[i] = "worker-" + i;
+    }
+    // stacks share their bottom frames like the stacks of real applications do
+    Random random = new Random(42);
+    stacks = new int[samples][stackDepth];
+    for (int i = 0; i < samples; i++) {
+      for (int j = 0; j < stackDepth; j++) {
+        stacks[i][j] = j < stackDepth / 2 ? j : random.nextInt(CLASS_COUNT * METHOD_COUNT);
+      }
+    }
+  }
+
+  @Setup(Level.Invocation)
+  public void buildPprofToSerialize() {
+    builtPprof = buildPprof();
+  }
+
+  @Benchmark
+  public Pprof build() {
+    return buildPprof();
+  }
+
+  @Benchmark
+  public byte[] serialize() {
+    return builtPprof.serialize();
+  }
+
+  private Pprof buildPprof() {
+    Pprof pprof = new Pprof(outputBuffer, dataFormat, symbols);
+    for (int i = 0; i < stacks.length; i++) {
+      int[] stack = stacks[i];
+      Sample.Builder sample = Sample.newBuilder();
+      sample.addValue(1);
+      for (int frame : stack) {
+        String className = classNames[frame % CLASS_COUNT];
+        String methodName = methodNames[frame / CLASS_COUNT % METHOD_COUNT];
+        sample.addLocationId(pprof.getLocationId("unknown", className, methodName, frame));
+        pprof.incFrameCount();
+      }
+      pprof.addLabel(sample, "thread.name", threadNames[i % THREAD_COUNT]);
+      pprof.addLabel(sample, "source.event.time", 1_700_000_000_000L);
+      pprof.addSample(sample);
+    }
+    return pprof;
+  }
+}
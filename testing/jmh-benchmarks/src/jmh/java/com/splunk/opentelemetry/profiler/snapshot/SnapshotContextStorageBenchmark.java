@@ -0,0 +1,102 @@
+/*
+ * Copyright Splunk Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.splunk.opentelemetry.profiler.snapshot;
+
+import static com.splunk.opentelemetry.profiler.ContextStorageBenchmarkSupport.BATCH_SIZE;
+
+import com.splunk.opentelemetry.profiler.ContextStorageBenchmarkSupport;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.ContextStorage;
+import java.util.concurrent.ExecutorService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+/**
+ * Cost that the snapshot profiling {@link ContextStorage} wrappers add to attaching and closing a
+ * context, compared to the plain {@code delegate} storage. The change detector uses a sampler that
+ * does nothing, so only the cost of the wrapper itself is measured.
+ */
+@State(Scope.Benchmark)
+public class SnapshotContextStorageBenchmark {
+
+  @Param({"delegate", "activeSpanTracker", "traceThreadChangeDetector"})
+  public String storage;
+
+  @Param({"true", "false"})
+  public boolean profilerEnabled;
+
+  @Param({"true", "false"})
+  public boolean sampled;
+
+  @Param({"true", "false"})
+  public boolean registered;
+
+  @Param({"platform", "virtual"})
+  public String threadKind;
+
+  private ContextStorage contextStorage;
+  private Context context;
+  private ExecutorService executor;
+
+  @Setup(Level.Trial)
+  public void setup() throws Exception {
+    ContextStorage delegate = ContextStorage.defaultStorage();
+    TraceRegistry registry = new TraceRegistry();
+    if (registered) {
+      registry.register(ContextStorageBenchmarkSupport.TRACE_ID);
+    }
+    if ("activeSpanTracker".equals(storage)) {
+      ActiveSpanTracker tracker = new ActiveSpanTracker(delegate, registry);
+      tracker.setEnabled(profilerEnabled);
+      contextStorage = tracker;
+    } else if ("traceThreadChangeDetector".equals(storage)) {
+      TraceThreadChangeDetector detector =
+          new TraceThreadChangeDetector(delegate, registry, () -> StackTraceSampler.NOOP);
+      detector.setEnabled(profilerEnabled);
+      contextStorage = detector;
+    } else {
+      contextStorage = delegate;
+    }
+    context = ContextStorageBenchmarkSupport.spanContext(sampled);
+    executor = ContextStorageBenchmarkSupport.newExecutor(threadKind);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BATCH_SIZE)
+  public void attachAndClose() throws Exception {
+    ContextStorageBenchmarkSupport.attachAndClose(executor, contextStorage, context);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BATCH_SIZE)
+  @Threads(8)
+  public void attachAndCloseContended() throws Exception {
+    ContextStorageBenchmarkSupport.attachAndClose(executor, contextStorage, context);
+  }
+}
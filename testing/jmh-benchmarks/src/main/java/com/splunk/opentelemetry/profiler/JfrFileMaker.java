@@ -17,54 +17,162 @@
 package com.splunk.opentelemetry.profiler;
 
 import static java.lang.Integer.parseInt;
+import static java.lang.Long.parseLong;
 
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Random;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import jdk.jfr.Recording;
 
 /**
- * Just runs for a while to allow some jfr file data to be created. args[0] == filename, args[1] =
- * length of time to run (in seconds)
+ * Makes a synthetic JFR recording for the benchmarks. Each worker thread descends to a fixed stack
+ * depth through a call path derived from its index and then either sleeps or allocates at a fixed
+ * rate, so recordings made with the same arguments contain the same threads, stacks and allocation
+ * sizes.
+ *
+ * <p>Arguments: file name, length of the recording in seconds and optionally the number of worker
+ * threads, the stack depth of the workers and the allocation rate of each worker in bytes per
+ * second.
  */
 public class JfrFileMaker {
 
-  private static final int NUM_THREADS = 40;
-  private static final ExecutorService pool = Executors.newFixedThreadPool(NUM_THREADS);
+  public static final int DEFAULT_THREADS = 40;
+  public static final int DEFAULT_STACK_DEPTH = 16;
+  public static final long DEFAULT_ALLOCATION_RATE = 0;
+
+  private static final long ALLOCATION_INTERVAL_MILLIS = 10;
+  private static final int MAX_ALLOCATION_SIZE = 64 * 1024;
+  // keeps the last allocations reachable so that they are not optimized away
+  private static final Object[] sink = new Object[1024];
+  private static final AtomicInteger workerCount = new AtomicInteger();
 
   public static void main(String[] args) throws Exception {
     String jfrFilename = args[0];
     int runSeconds = parseInt(args[1]);
-    startThreads(runSeconds);
+    int threads = args.length > 2 ? parseInt(args[2]) : DEFAULT_THREADS;
+    int stackDepth = args.length > 3 ? parseInt(args[3]) : DEFAULT_STACK_DEPTH;
+    long allocationRate = args.length > 4 ? parseLong(args[4]) : DEFAULT_ALLOCATION_RATE;
+
+    ExecutorService pool = Executors.newFixedThreadPool(threads, JfrFileMaker::newWorkerThread);
+    long endNanos = System.nanoTime() + TimeUnit.SECONDS.toNanos(runSeconds);
+    for (int i = 0; i < threads; i++) {
+      int index = i;
+      pool.submit(() -> descend(index, stackDepth, allocationRate, endNanos));
+    }
+
     Recording recording = new Recording();
-    Map<String, String> settings = new HashMap<>();
-    settings.put("jdk.ThreadDump#enabled", "true");
-    settings.put("jdk.ThreadDump#period", "100 ms");
-    recording.setSettings(settings);
+    recording.setSettings(settings(allocationRate > 0));
     recording.setToDisk(true);
     recording.setDuration(null);
     System.out.println("Starting JFR recording for " + runSeconds);
     recording.start();
     TimeUnit.SECONDS.sleep(runSeconds);
     System.out.println("Dumping JFR contents to " + jfrFilename);
-    recording.dump(Path.of(jfrFilename));
+    recording.dump(Paths.get(jfrFilename));
     recording.stop();
     pool.shutdownNow();
   }
 
-  private static void startThreads(int runSeconds) {
-    for (int i = 0; i < NUM_THREADS; i++) {
-      pool.submit(
-          () -> {
-            try {
-              TimeUnit.SECONDS.sleep(runSeconds);
-            } catch (InterruptedException e) {
-              e.printStackTrace();
-            }
-          });
+  /**
+   * Makes the recording in a separate process, so that the threads and allocations of the recorded
+   * workload don't disturb the benchmark, unless the file already exists.
+   */
+  public static void ensureExists(
+      Path jfrFile, int runSeconds, int threads, int stackDepth, long allocationRate)
+      throws Exception {
+    if (Files.exists(jfrFile)) {
+      return;
+    }
+    System.out.println("Waiting for subprocess to create JFR file " + jfrFile);
+    String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+    String classPath =
+        JfrFileMaker.class.getProtectionDomain().getCodeSource().getLocation().getPath();
+    List<String> command = new ArrayList<>();
+    command.add(java);
+    command.add("-cp");
+    command.add(classPath);
+    command.add(JfrFileMaker.class.getName());
+    command.add(jfrFile.toString());
+    command.add(String.valueOf(runSeconds));
+    command.add(String.valueOf(threads));
+    command.add(String.valueOf(stackDepth));
+    command.add(String.valueOf(allocationRate));
+    int rc = new ProcessBuilder(command).inheritIO().start().waitFor();
+    if (rc != 0 || !Files.exists(jfrFile)) {
+      throw new IllegalStateException("Failed to create JFR file " + jfrFile + ", rc = " + rc);
+    }
+  }
+
+  private static Map<String, String> settings(boolean allocations) {
+    Map<String, String> settings = new HashMap<>();
+    settings.put("jdk.ThreadDump#enabled", "true");
+    settings.put("jdk.ThreadDump#period", "100 ms");
+    if (allocations) {
+      settings.put("jdk.ObjectAllocationInNewTLAB#enabled", "true");
+      settings.put("jdk.ObjectAllocationInNewTLAB#stackTrace", "true");
+      settings.put("jdk.ObjectAllocationOutsideTLAB#enabled", "true");
+      settings.put("jdk.ObjectAllocationOutsideTLAB#stackTrace", "true");
+      settings.put("jdk.ObjectAllocationSample#enabled", "true");
+      settings.put("jdk.ObjectAllocationSample#stackTrace", "true");
+      settings.put("jdk.ObjectAllocationSample#throttle", "150/s");
+    }
+    return settings;
+  }
+
+  private static Thread newWorkerThread(Runnable runnable) {
+    Thread thread = new Thread(runnable);
+    thread.setName("jfr-file-maker-worker-" + workerCount.getAndIncrement());
+    thread.setDaemon(true);
+    return thread;
+  }
+
+  // the bits of the worker index choose between two methods at each level, so that workers have
+  // different stacks
+  private static void descend(int index, int depth, long allocationRate, long endNanos) {
+    if (depth <= 0) {
+      work(index, allocationRate, endNanos);
+    } else if (((index >> (depth % 31)) & 1) == 0) {
+      left(index, depth - 1, allocationRate, endNanos);
+    } else {
+      right(index, depth - 1, allocationRate, endNanos);
+    }
+  }
+
+  private static void left(int index, int depth, long allocationRate, long endNanos) {
+    descend(index, depth, allocationRate, endNanos);
+  }
+
+  private static void right(int index, int depth, long allocationRate, long endNanos) {
+    descend(index, depth, allocationRate, endNanos);
+  }
+
+  private static void work(int index, long allocationRate, long endNanos) {
+    Random random = new Random(index);
+    long bytesPerInterval = allocationRate * ALLOCATION_INTERVAL_MILLIS / 1000;
+    try {
+      while (System.nanoTime() < endNanos) {
+        for (long allocated = 0; allocated < bytesPerInterval; ) {
+          // mostly small arrays that fit in a TLAB, with the occasional large one
+          int size =
+              random.nextInt(16) == 0
+                  ? MAX_ALLOCATION_SIZE
+                  : 16 + random.nextInt(MAX_ALLOCATION_SIZE / 64);
+          sink[random.nextInt(sink.length)] = new byte[size];
+          allocated += size;
+        }
+        TimeUnit.MILLISECONDS.sleep(ALLOCATION_INTERVAL_MILLIS);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
     }
   }
 }